@@ -24,17 +24,82 @@ public class FileServiceConfig {
     
     private static final Logger logger = LoggerFactory.getLogger(FileServiceConfig.class);
     
+    // Los valores iniciales coinciden con los @Value por defecto para poder
+    // instanciar la configuración fuera de Spring (por ejemplo en tests)
     @Value("${app.file-service.base-path:./data}")
-    private String basePath;
+    private String basePath = "./data";
     
     @Value("${app.file-service.temp-path:./data/temp}")
-    private String tempPath;
+    private String tempPath = "./data/temp";
     
     @Value("${app.file-service.export-path:./data/exports}")
-    private String exportPath;
+    private String exportPath = "./data/exports";
     
     @Value("${app.file-service.create-directories-on-startup:true}")
-    private boolean createDirectoriesOnStartup;
+    private boolean createDirectoriesOnStartup = true;
+    
+    @Value("${app.file-service.atomic-writes:true}")
+    private boolean atomicWrites = true;
+    
+    @Value("${app.file-service.channel-pool.max-open:256}")
+    private int channelPoolMaxOpen = 256;
+    
+    @Value("${app.file-service.channel-pool.idle-timeout-seconds:60}")
+    private long channelPoolIdleTimeoutSeconds = 60;
+    
+    @Value("${app.file-service.lock-stripes:64}")
+    private int lockStripes = 64;
+    
+    @Value("${app.file-service.batch-read.max-ranges:10000}")
+    private int batchReadMaxRanges = 10000;
+    
+    @Value("${app.file-service.batch-read.max-total-bytes:67108864}")
+    private long batchReadMaxTotalBytes = 67108864;
+    
+    @Value("${app.file-service.wal.enabled:false}")
+    private boolean walEnabled = false;
+    
+    @Value("${app.file-service.wal.path:./data/wal/random-access.wal}")
+    private String walPath = "./data/wal/random-access.wal";
+
+    @Value("${app.file-service.listing.cache-ttl-seconds:30}")
+    private long listingCacheTtlSeconds = 30;
+
+    @Value("${app.file-service.listing.max-cached-directories:64}")
+    private int listingMaxCachedDirectories = 64;
+
+    @Value("${app.file-service.io-parallelism:8}")
+    private int ioParallelism = 8;
+
+    @Value("${app.file-service.scan.largest-files:10}")
+    private int scanLargestFiles = 10;
+
+    @Value("${app.file-service.duplicates.hash-cache-size:100000}")
+    private int duplicatesHashCacheSize = 100000;
+
+    @Value("${app.file-service.cas.path:./data/.cas}")
+    private String casPath = "./data/.cas";
+
+    @Value("${app.file-service.cas.average-chunk-size:8192}")
+    private int casAverageChunkSize = 8192;
+
+    @Value("${app.file-service.convert.batch-size:512}")
+    private int convertBatchSize = 512;
+
+    @Value("${app.file-service.convert.queue-capacity:16}")
+    private int convertQueueCapacity = 16;
+
+    @Value("${app.file-service.merge.run-size:100000}")
+    private int mergeRunSize = 100000;
+
+    @Value("${app.file-service.merge.fan-in:64}")
+    private int mergeFanIn = 64;
+
+    @Value("${app.file-service.query.cache-size:4}")
+    private int queryCacheSize = 4;
+
+    @Value("${app.file-service.aggregate.min-chunk-size:1048576}")
+    private int aggregateMinChunkSize = 1048576;
     
     @PostConstruct
     public void initializeDirectories() {
@@ -79,4 +144,88 @@ public class FileServiceConfig {
     public String getExportPath() {
         return exportPath;
     }
-}
\ No newline at end of file
+    
+    public boolean isAtomicWrites() {
+        return atomicWrites;
+    }
+    
+    public int getChannelPoolMaxOpen() {
+        return channelPoolMaxOpen;
+    }
+    
+    public long getChannelPoolIdleTimeoutSeconds() {
+        return channelPoolIdleTimeoutSeconds;
+    }
+    
+    public int getLockStripes() {
+        return lockStripes;
+    }
+    
+    public int getBatchReadMaxRanges() {
+        return batchReadMaxRanges;
+    }
+    
+    public long getBatchReadMaxTotalBytes() {
+        return batchReadMaxTotalBytes;
+    }
+    
+    public boolean isWalEnabled() {
+        return walEnabled;
+    }
+    
+    public String getWalPath() {
+        return walPath;
+    }
+    
+    public long getListingCacheTtlSeconds() {
+        return listingCacheTtlSeconds;
+    }
+    
+    public int getListingMaxCachedDirectories() {
+        return listingMaxCachedDirectories;
+    }
+    
+    public int getIoParallelism() {
+        return ioParallelism;
+    }
+    
+    public int getScanLargestFiles() {
+        return scanLargestFiles;
+    }
+    
+    public int getDuplicatesHashCacheSize() {
+        return duplicatesHashCacheSize;
+    }
+    
+    public String getCasPath() {
+        return casPath;
+    }
+    
+    public int getCasAverageChunkSize() {
+        return casAverageChunkSize;
+    }
+    
+    public int getConvertBatchSize() {
+        return convertBatchSize;
+    }
+    
+    public int getConvertQueueCapacity() {
+        return convertQueueCapacity;
+    }
+    
+    public int getMergeRunSize() {
+        return mergeRunSize;
+    }
+    
+    public int getMergeFanIn() {
+        return mergeFanIn;
+    }
+    
+    public int getQueryCacheSize() {
+        return queryCacheSize;
+    }
+    
+    public int getAggregateMinChunkSize() {
+        return aggregateMinChunkSize;
+    }
+}
@@ -0,0 +1,42 @@
+package com.dam.accesodatos.config;
+
+import com.dam.accesodatos.ra1.FileUserService;
+import com.dam.accesodatos.ra1.metrics.ToolMetrics;
+import com.dam.accesodatos.ra1.metrics.ToolMetricsProxy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de las métricas de herramientas MCP
+ *
+ * Sustituye el bean FileUserService por un {@link ToolMetricsProxy}, de modo que toda llamada
+ * a una herramienta (desde el controlador REST o desde el servidor MCP) queda medida.
+ * Las métricas se publican en GET /mcp/metrics en formato Prometheus.
+ * Se desactiva con app.file-service.metrics.enabled=false.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Métodos static: los BeanPostProcessor se crean antes que el resto de beans
+
+    @Bean
+    public static ToolMetrics toolMetrics() {
+        return new ToolMetrics();
+    }
+
+    @Bean
+    public static BeanPostProcessor toolMetricsPostProcessor(ToolMetrics toolMetrics,
+            @Value("${app.file-service.metrics.enabled:true}") boolean enabled) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof FileUserService service) {
+                    return ToolMetricsProxy.wrap(FileUserService.class, service, toolMetrics);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -3,10 +3,28 @@ package com.dam.accesodatos.mcp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.dam.accesodatos.ra1.FileUserService;
+import com.dam.accesodatos.ra1.io.BlockIndexedFile;
+import com.dam.accesodatos.ra1.io.FileChannelPool;
+import com.dam.accesodatos.ra1.metrics.ToolMetrics;
+import com.dam.accesodatos.ra1.records.ExternalUserSorter;
+import com.dam.accesodatos.ra1.records.UserAggregator;
+import com.dam.accesodatos.ra1.records.UserFileDiff;
+import com.dam.accesodatos.ra1.store.ContentStore;
+import com.dam.accesodatos.ra1.text.CharsetDetector;
+import com.dam.accesodatos.ra1.text.CharsetTranscoder;
+import com.dam.accesodatos.model.DirectoryScanDto;
+import com.dam.accesodatos.model.DuplicateReportDto;
+import com.dam.accesodatos.model.FileInfoDto;
+import com.dam.accesodatos.model.FileListingPageDto;
+import com.dam.accesodatos.model.FileListingQueryDto;
+import com.dam.accesodatos.model.FileRangeDto;
+import com.dam.accesodatos.model.TextStageDto;
 import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserQueryDto;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -34,6 +52,9 @@ public class McpServerController {
     
     @Autowired
     private FileUserService fileUserService;
+
+    @Autowired
+    private ToolMetrics toolMetrics;
     
     /**
      * Endpoint para listar todas las herramientas MCP disponibles
@@ -80,6 +101,16 @@ public class McpServerController {
         return ResponseEntity.ok(info);
     }
     
+    /**
+     * Métricas por herramienta en formato de texto de Prometheus
+     */
+    @GetMapping(value = "/metrics", produces = ToolMetrics.PROMETHEUS_CONTENT_TYPE)
+    public ResponseEntity<String> getMetrics() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ToolMetrics.PROMETHEUS_CONTENT_TYPE))
+                .body(toolMetrics.scrape());
+    }
+
     /**
      * Endpoint de health check
      */
@@ -106,6 +137,7 @@ public class McpServerController {
         endpoints.put("GET /mcp/info", "Información del servidor");
         endpoints.put("GET /mcp/health", "Estado del servidor");
         endpoints.put("GET /mcp/docs", "Esta documentación");
+        endpoints.put("GET /mcp/metrics", "Métricas por herramienta en formato Prometheus (duración p50/p95/p99, errores, en curso, bytes y registros)");
 
         // CSV endpoints
         endpoints.put("POST /mcp/csv/read", "Lee usuarios desde archivo CSV");
@@ -120,8 +152,22 @@ public class McpServerController {
         endpoints.put("POST /mcp/xml/read_sax", "Lee usuarios desde XML (SAX parser)");
         endpoints.put("POST /mcp/xml/write", "Escribe usuarios a archivo XML");
 
+        // Export endpoints
+        endpoints.put("POST /mcp/users/export", "Exporta usuarios a CSV, JSON, NDJSON o XML (escritura atómica, gzip/bgzf/indexed opcional)");
+        endpoints.put("POST /mcp/users/convert", "Convierte un archivo de usuarios entre CSV, JSON, NDJSON y XML en streaming");
+        endpoints.put("POST /mcp/users/merge", "Fusiona varios archivos de usuarios ordenados por id (ordenación externa)");
+        endpoints.put("POST /mcp/users/diff", "Compara dos archivos de usuarios por id y escribe las diferencias en NDJSON");
+        endpoints.put("POST /mcp/users/read", "Lee usuarios de un archivo devolviendo solo los campos pedidos (proyección en el analizador)");
+        endpoints.put("POST /mcp/users/query", "Consulta usuarios de un archivo por departamento, rol y estado (tabla por columnas en caché)");
+        endpoints.put("POST /mcp/users/aggregate", "Cuenta los usuarios de un archivo por departamento, rol y estado, con el rango de fechas");
+        endpoints.put("POST /mcp/users/export_dedup", "Exporta usuarios al almacén deduplicado (la ruta queda como manifiesto)");
+        endpoints.put("POST /mcp/users/restore_dedup", "Reconstruye un archivo a partir de su manifiesto");
+
         // File management endpoints
         endpoints.put("POST /mcp/files/list", "Lista archivos de usuario en directorio");
+        endpoints.put("POST /mcp/files/list_page", "Lista archivos por páginas con filtros y token de continuación");
+        endpoints.put("POST /mcp/files/scan_tree", "Estadísticas agregadas de un árbol de directorios (recorrido paralelo)");
+        endpoints.put("POST /mcp/files/duplicates", "Busca archivos duplicados por contenido");
         endpoints.put("POST /mcp/files/validate_structure", "Valida estructura de directorios");
 
         // Analysis endpoints
@@ -132,14 +178,22 @@ public class McpServerController {
         // Random access endpoints
         endpoints.put("POST /mcp/random/read", "Lee desde posición específica (RandomAccessFile)");
         endpoints.put("POST /mcp/random/write", "Escribe en posición específica (RandomAccessFile)");
+        endpoints.put("POST /mcp/random/read_batch", "Lee muchos fragmentos en una llamada (FileChannel posicional, también .bgzi)");
+        endpoints.put("POST /mcp/random/search_blocks", "Busca texto en paralelo por bloques (también en contenedores .bgzi)");
+        endpoints.put("POST /mcp/random/write_durable", "Escribe en posición específica con durabilidad (WAL)");
+        endpoints.put("GET /mcp/random/pool_stats", "Métricas del pool de FileChannel (aperturas, aciertos, expulsiones)");
 
         // Processing endpoints
         endpoints.put("POST /mcp/process/convert_encoding", "Convierte codificación de archivo");
+        endpoints.put("POST /mcp/process/transcode", "Convierte codificación de archivos grandes (CharsetDecoder/Encoder, sourceCharset 'auto')");
+        endpoints.put("POST /mcp/process/detect_encoding", "Detecta la codificación de un archivo (BOM, UTF-8, ISO-8859-1/Windows-1252)");
         endpoints.put("POST /mcp/process/create_temp", "Crea archivo temporal");
         endpoints.put("POST /mcp/process/format_text", "Formatea archivo de texto");
+        endpoints.put("POST /mcp/process/transform_text", "Transforma texto en streaming con etapas configurables");
 
         // Test endpoint
         endpoints.put("POST /mcp/test/get_file_info", "Obtiene información de archivo (implementado)");
+        endpoints.put("POST /mcp/files/info_batch", "Información estructurada de muchos archivos (una lectura de atributos por archivo)");
 
         docs.put("endpoints", endpoints);
         docs.put("total_endpoints", endpoints.size());
@@ -185,6 +239,45 @@ public class McpServerController {
         }
     }
 
+    /**
+     * Obtiene la información de muchos archivos en una sola llamada
+     */
+    @PostMapping("/files/info_batch")
+    public ResponseEntity<Map<String, Object>> getFileInfoBatch(@RequestBody Map<String, Object> request) {
+        logger.debug("Obteniendo información de archivos en lote");
+
+        @SuppressWarnings("unchecked")
+        List<String> filePaths = (List<String>) request.get("filePaths");
+        if (filePaths == null || filePaths.isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'filePaths' es requerido y no puede estar vacío");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            List<FileInfoDto> infos = fileUserService.getFileInfoBatch(filePaths);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "get_file_info_batch");
+            response.put("input", filePaths.size() + " rutas");
+            response.put("result", infos);
+            response.put("count", infos.size());
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error obteniendo información de " + filePaths.size() + " archivos", e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error obteniendo información de archivos: " + e.getMessage());
+            error.put("tool", "get_file_info_batch");
+            error.put("input", filePaths.size() + " rutas");
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
     // ========== CSV ENDPOINTS ==========
 
     /**
@@ -585,40 +678,57 @@ public class McpServerController {
        }
    }
 
-    // ========== FILE MANAGEMENT ENDPOINTS ==========
+    // ========== EXPORT ENDPOINTS ==========
 
     /**
-     * Lista archivos de usuario en directorio
+     * Exporta usuarios a CSV, JSON, NDJSON o XML (streaming, escritura atómica y compresión opcional)
      */
-    @PostMapping("/files/list")
-    public ResponseEntity<Map<String, Object>> listFiles(@RequestBody Map<String, String> request) {
-        logger.debug("Listando archivos de usuario");
+    @PostMapping("/users/export")
+    public ResponseEntity<Map<String, Object>> exportUsers(@RequestBody Map<String, Object> request) {
+        logger.debug("Exportando usuarios");
 
-        String directoryPath = request.get("directoryPath");
-        if (directoryPath == null || directoryPath.trim().isEmpty()) {
+        String filePath = (String) request.get("filePath");
+        String format = (String) request.get("format");
+        String compression = (String) request.get("compression");
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> usersData = (List<Map<String, Object>>) request.get("users");
+
+        if (filePath == null || filePath.trim().isEmpty()) {
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'directoryPath' es requerido");
+            error.put("error", "El parámetro 'filePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (usersData == null || usersData.isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'users' es requerido y no puede estar vacío");
             return ResponseEntity.badRequest().body(error);
         }
 
         try {
-            List<String> files = fileUserService.listUserFiles(directoryPath);
+            List<User> users = toUsers(usersData);
+            boolean success = fileUserService.exportUsers(users, filePath, format, compression);
+
+            Map<String, Object> input = new HashMap<>();
+            input.put("filePath", filePath);
+            input.put("format", format);
+            input.put("compression", compression);
+            input.put("users", usersData.size());
 
             Map<String, Object> response = new HashMap<>();
-            response.put("tool", "list_user_files");
-            response.put("input", directoryPath);
-            response.put("result", files);
-            response.put("count", files.size());
+            response.put("tool", "export_users");
+            response.put("input", input);
+            response.put("result", success);
             response.put("status", "success");
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            logger.error("Error listando archivos: " + directoryPath, e);
+            logger.error("Error exportando usuarios: " + filePath, e);
 
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error listando archivos: " + e.getMessage());
-            error.put("tool", "list_user_files");
-            error.put("input", directoryPath);
+            error.put("error", "Error exportando usuarios: " + e.getMessage());
+            error.put("tool", "export_users");
+            error.put("input", filePath);
             error.put("status", "error");
 
             return ResponseEntity.status(500).body(error);
@@ -626,83 +736,110 @@ public class McpServerController {
     }
 
     /**
-     * Valida estructura de directorios
+     * Convierte un archivo de usuarios a otro formato en streaming (lector y escritor en hilos distintos)
      */
-    @PostMapping("/files/validate_structure")
-    public ResponseEntity<Map<String, Object>> validateStructure(@RequestBody Map<String, String> request) {
-        logger.debug("Validando estructura de directorios");
+    @PostMapping("/users/convert")
+    public ResponseEntity<Map<String, Object>> convertUserFile(@RequestBody Map<String, Object> request) {
+        logger.debug("Convirtiendo archivo de usuarios");
 
-        String basePath = request.get("basePath");
-        if (basePath == null || basePath.trim().isEmpty()) {
+        String sourcePath = (String) request.get("sourcePath");
+        String sourceFormat = (String) request.get("sourceFormat");
+        String targetPath = (String) request.get("targetPath");
+        String targetFormat = (String) request.get("targetFormat");
+        String compression = (String) request.get("compression");
+
+        if (sourcePath == null || sourcePath.trim().isEmpty()) {
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'basePath' es requerido");
+            error.put("error", "El parámetro 'sourcePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (targetPath == null || targetPath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'targetPath' es requerido");
             return ResponseEntity.badRequest().body(error);
         }
 
+        Map<String, Object> input = new HashMap<>();
+        input.put("sourcePath", sourcePath);
+        input.put("sourceFormat", sourceFormat);
+        input.put("targetPath", targetPath);
+        input.put("targetFormat", targetFormat);
+        input.put("compression", compression);
+
         try {
-            boolean valid = fileUserService.validateDirectoryStructure(basePath);
+            long converted = fileUserService.convertUserFile(sourcePath, sourceFormat, targetPath, targetFormat, compression);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("tool", "validate_directory_structure");
-            response.put("input", basePath);
-            response.put("result", valid);
+            response.put("tool", "convert_user_file");
+            response.put("input", input);
+            response.put("result", targetPath);
+            response.put("count", converted);
             response.put("status", "success");
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            logger.error("Error validando estructura: " + basePath, e);
+            logger.error("Error convirtiendo archivo de usuarios: " + sourcePath, e);
 
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error validando estructura: " + e.getMessage());
-            error.put("tool", "validate_directory_structure");
-            error.put("input", basePath);
+            error.put("error", "Error convirtiendo archivo de usuarios: " + e.getMessage());
+            error.put("tool", "convert_user_file");
+            error.put("input", input);
             error.put("status", "error");
 
             return ResponseEntity.status(500).body(error);
         }
     }
 
-    // ========== ANALYSIS ENDPOINTS ==========
-
     /**
-     * Busca texto en archivo
+     * Fusiona varios archivos de usuarios en uno ordenado por id
      */
-    @PostMapping("/analysis/search_text")
-    public ResponseEntity<Map<String, Object>> searchText(@RequestBody Map<String, String> request) {
-        logger.debug("Buscando texto en archivo");
+    @PostMapping("/users/merge")
+    public ResponseEntity<Map<String, Object>> mergeUserFiles(@RequestBody Map<String, Object> request) {
+        logger.debug("Fusionando archivos de usuarios");
 
-        String filePath = request.get("filePath");
-        String searchText = request.get("searchText");
+        @SuppressWarnings("unchecked")
+        List<String> sourcePaths = (List<String>) request.get("sourcePaths");
+        String targetPath = (String) request.get("targetPath");
+        String targetFormat = (String) request.get("targetFormat");
+        String compression = (String) request.get("compression");
 
-        if (filePath == null || filePath.trim().isEmpty()) {
+        if (sourcePaths == null || sourcePaths.isEmpty()) {
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'filePath' es requerido");
+            error.put("error", "El parámetro 'sourcePaths' es requerido y no puede estar vacío");
             return ResponseEntity.badRequest().body(error);
         }
 
-        if (searchText == null || searchText.trim().isEmpty()) {
+        if (targetPath == null || targetPath.trim().isEmpty()) {
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'searchText' es requerido");
+            error.put("error", "El parámetro 'targetPath' es requerido");
             return ResponseEntity.badRequest().body(error);
         }
 
+        Map<String, Object> input = new HashMap<>();
+        input.put("sourcePaths", sourcePaths.size());
+        input.put("targetPath", targetPath);
+        input.put("targetFormat", targetFormat);
+        input.put("compression", compression);
+
         try {
-            String result = fileUserService.searchTextInFile(filePath, searchText);
+            ExternalUserSorter.Result result = fileUserService.mergeUserFiles(sourcePaths, targetPath, targetFormat, compression);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("tool", "search_text_in_file");
-            response.put("input", Map.of("filePath", filePath, "searchText", searchText));
+            response.put("tool", "merge_user_files");
+            response.put("input", input);
             response.put("result", result);
+            response.put("count", result.getUsersWritten());
             response.put("status", "success");
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            logger.error("Error buscando texto: " + filePath, e);
+            logger.error("Error fusionando archivos de usuarios en: " + targetPath, e);
 
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error buscando texto: " + e.getMessage());
-            error.put("tool", "search_text_in_file");
-            error.put("input", Map.of("filePath", filePath, "searchText", searchText));
+            error.put("error", "Error fusionando archivos de usuarios: " + e.getMessage());
+            error.put("tool", "merge_user_files");
+            error.put("input", input);
             error.put("status", "error");
 
             return ResponseEntity.status(500).body(error);
@@ -710,36 +847,59 @@ public class McpServerController {
     }
 
     /**
-     * Compara rendimiento de I/O
+     * Compara dos archivos de usuarios por id
      */
-    @PostMapping("/analysis/compare_io")
-    public ResponseEntity<Map<String, Object>> compareIO(@RequestBody Map<String, String> request) {
-        logger.debug("Comparando rendimiento I/O");
+    @PostMapping("/users/diff")
+    public ResponseEntity<Map<String, Object>> diffUserFiles(@RequestBody Map<String, Object> request) {
+        logger.debug("Comparando archivos de usuarios");
 
-        String filePath = request.get("filePath");
-        if (filePath == null || filePath.trim().isEmpty()) {
+        String leftPath = (String) request.get("leftPath");
+        String rightPath = (String) request.get("rightPath");
+        String outputPath = (String) request.get("outputPath");
+        String compression = (String) request.get("compression");
+
+        if (leftPath == null || leftPath.trim().isEmpty()) {
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'filePath' es requerido");
+            error.put("error", "El parámetro 'leftPath' es requerido");
             return ResponseEntity.badRequest().body(error);
         }
 
+        if (rightPath == null || rightPath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'rightPath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (outputPath == null || outputPath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'outputPath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        Map<String, Object> input = new HashMap<>();
+        input.put("leftPath", leftPath);
+        input.put("rightPath", rightPath);
+        input.put("outputPath", outputPath);
+        input.put("compression", compression);
+
         try {
-            String result = fileUserService.compareIOPerformance(filePath);
+            UserFileDiff.Result result = fileUserService.diffUserFiles(leftPath, rightPath, outputPath, compression);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("tool", "compare_io_performance");
-            response.put("input", filePath);
+            response.put("tool", "diff_user_files");
+            response.put("input", input);
             response.put("result", result);
+            response.put("count", result.getAdded() + result.getRemoved() + result.getChanged());
             response.put("status", "success");
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            logger.error("Error comparando I/O: " + filePath, e);
+            logger.error("Error comparando " + leftPath + " con " + rightPath, e);
 
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error comparando I/O: " + e.getMessage());
-            error.put("tool", "compare_io_performance");
-            error.put("input", filePath);
+            error.put("error", "Error comparando archivos de usuarios: " + e.getMessage());
+            error.put("tool", "diff_user_files");
+            error.put("input", input);
             error.put("status", "error");
 
             return ResponseEntity.status(500).body(error);
@@ -747,92 +907,101 @@ public class McpServerController {
     }
 
     /**
-     * Compara NIO vs I/O tradicional
+     * Lee usuarios de un archivo devolviendo solo los campos pedidos
      */
-    @PostMapping("/analysis/compare_nio_io")
-    public ResponseEntity<Map<String, Object>> compareNIOvsIO(@RequestBody Map<String, String> request) {
-        logger.debug("Comparando NIO vs I/O");
+    @PostMapping("/users/read")
+    public ResponseEntity<Map<String, Object>> readUsers(@RequestBody Map<String, Object> request) {
+        logger.debug("Leyendo usuarios con proyección");
+
+        String filePath = (String) request.get("filePath");
+        @SuppressWarnings("unchecked")
+        List<String> fields = (List<String>) request.get("fields");
+        Integer offset = request.get("offset") != null ? ((Number) request.get("offset")).intValue() : null;
+        Integer limit = request.get("limit") != null ? ((Number) request.get("limit")).intValue() : null;
 
-        String filePath = request.get("filePath");
         if (filePath == null || filePath.trim().isEmpty()) {
             Map<String, Object> error = new HashMap<>();
             error.put("error", "El parámetro 'filePath' es requerido");
             return ResponseEntity.badRequest().body(error);
         }
 
+        Map<String, Object> input = new HashMap<>();
+        input.put("filePath", filePath);
+        input.put("fields", fields);
+        input.put("offset", offset);
+        input.put("limit", limit);
+
         try {
-            String result = fileUserService.compareNIOvsIO(filePath);
+            List<Map<String, Object>> users = fileUserService.readUsers(filePath, fields, offset, limit);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("tool", "compare_nio_vs_io");
-            response.put("input", filePath);
-            response.put("result", result);
+            response.put("tool", "read_users");
+            response.put("input", input);
+            response.put("result", users);
+            response.put("count", users.size());
             response.put("status", "success");
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            logger.error("Error comparando NIO vs I/O: " + filePath, e);
+            logger.error("Error leyendo usuarios de: " + filePath, e);
 
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error comparando NIO vs I/O: " + e.getMessage());
-            error.put("tool", "compare_nio_vs_io");
-            error.put("input", filePath);
+            error.put("error", "Error leyendo usuarios: " + e.getMessage());
+            error.put("tool", "read_users");
+            error.put("input", input);
             error.put("status", "error");
 
             return ResponseEntity.status(500).body(error);
         }
     }
 
-    // ========== RANDOM ACCESS ENDPOINTS ==========
-
     /**
-     * Lee desde posición específica con RandomAccessFile
+     * Consulta usuarios de un archivo con filtros y paginación
      */
-    @PostMapping("/random/read")
-    public ResponseEntity<Map<String, Object>> randomRead(@RequestBody Map<String, Object> request) {
-        logger.debug("Lectura aleatoria en archivo");
+    @PostMapping("/users/query")
+    public ResponseEntity<Map<String, Object>> queryUsers(@RequestBody Map<String, Object> request) {
+        logger.debug("Consultando usuarios");
 
         String filePath = (String) request.get("filePath");
-        Long position = request.get("position") != null ?
-            ((Number) request.get("position")).longValue() : null;
-        Integer length = request.get("length") != null ?
-            ((Number) request.get("length")).intValue() : null;
-
         if (filePath == null || filePath.trim().isEmpty()) {
             Map<String, Object> error = new HashMap<>();
             error.put("error", "El parámetro 'filePath' es requerido");
             return ResponseEntity.badRequest().body(error);
         }
 
-        if (position == null) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'position' es requerido");
-            return ResponseEntity.badRequest().body(error);
+        UserQueryDto query = new UserQueryDto();
+        query.setDepartment((String) request.get("department"));
+        query.setRole((String) request.get("role"));
+        query.setActive((Boolean) request.get("active"));
+        if (request.get("limit") != null) {
+            query.setLimit(((Number) request.get("limit")).intValue());
         }
-
-        if (length == null) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'length' es requerido");
-            return ResponseEntity.badRequest().body(error);
+        if (request.get("offset") != null) {
+            query.setOffset(((Number) request.get("offset")).intValue());
         }
 
+        Map<String, Object> input = new HashMap<>();
+        input.put("filePath", filePath);
+        input.put("query", query);
+
         try {
-            String result = fileUserService.randomAccessRead(filePath, position, length);
+            List<User> users = fileUserService.queryUsers(filePath, query);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("tool", "random_access_read");
-            response.put("input", Map.of("filePath", filePath, "position", position, "length", length));
-            response.put("result", result);
+            response.put("tool", "query_users");
+            response.put("input", input);
+            response.put("result", users);
+            response.put("count", users.size());
             response.put("status", "success");
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            logger.error("Error en lectura aleatoria: " + filePath, e);
+            logger.error("Error consultando usuarios de: " + filePath, e);
 
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error en lectura aleatoria: " + e.getMessage());
-            error.put("tool", "random_access_read");
-            error.put("input", Map.of("filePath", filePath, "position", position, "length", length));
+            error.put("error", "Error consultando usuarios: " + e.getMessage());
+            error.put("tool", "query_users");
+            error.put("input", input);
             error.put("status", "error");
 
             return ResponseEntity.status(500).body(error);
@@ -840,16 +1009,13 @@ public class McpServerController {
     }
 
     /**
-     * Escribe en posición específica con RandomAccessFile
+     * Estadísticas de un archivo de usuarios por departamento, rol y estado
      */
-    @PostMapping("/random/write")
-    public ResponseEntity<Map<String, Object>> randomWrite(@RequestBody Map<String, Object> request) {
-        logger.debug("Escritura aleatoria en archivo");
+    @PostMapping("/users/aggregate")
+    public ResponseEntity<Map<String, Object>> aggregateUsers(@RequestBody Map<String, Object> request) {
+        logger.debug("Agregando usuarios");
 
         String filePath = (String) request.get("filePath");
-        Long position = request.get("position") != null ?
-            ((Number) request.get("position")).longValue() : null;
-        String content = (String) request.get("content");
 
         if (filePath == null || filePath.trim().isEmpty()) {
             Map<String, Object> error = new HashMap<>();
@@ -857,102 +1023,80 @@ public class McpServerController {
             return ResponseEntity.badRequest().body(error);
         }
 
-        if (position == null) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'position' es requerido");
-            return ResponseEntity.badRequest().body(error);
-        }
-
-        if (content == null) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'content' es requerido");
-            return ResponseEntity.badRequest().body(error);
-        }
+        Map<String, Object> input = new HashMap<>();
+        input.put("filePath", filePath);
 
         try {
-            boolean result = fileUserService.randomAccessWrite(filePath, position, content);
+            UserAggregator.Statistics statistics = fileUserService.aggregateUsers(filePath);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("tool", "random_access_write");
-            response.put("input", Map.of("filePath", filePath, "position", position, "content", content));
-            response.put("result", result);
+            response.put("tool", "aggregate_users");
+            response.put("input", input);
+            response.put("result", statistics);
+            response.put("count", statistics.getTotal());
             response.put("status", "success");
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            logger.error("Error en escritura aleatoria: " + filePath, e);
+            logger.error("Error agregando usuarios de: " + filePath, e);
 
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error en escritura aleatoria: " + e.getMessage());
-            error.put("tool", "random_access_write");
-            error.put("input", Map.of("filePath", filePath, "position", position, "content", content));
+            error.put("error", "Error agregando usuarios: " + e.getMessage());
+            error.put("tool", "aggregate_users");
+            error.put("input", input);
             error.put("status", "error");
 
             return ResponseEntity.status(500).body(error);
         }
     }
 
-    // ========== PROCESSING ENDPOINTS ==========
-
     /**
-     * Convierte codificación de archivo
+     * Exporta usuarios al almacén deduplicado por contenido
      */
-    @PostMapping("/process/convert_encoding")
-    public ResponseEntity<Map<String, Object>> convertEncoding(@RequestBody Map<String, String> request) {
-        logger.debug("Convirtiendo codificación de archivo");
-
-        String sourceFile = request.get("sourceFile");
-        String targetFile = request.get("targetFile");
-        String sourceCharset = request.get("sourceCharset");
-        String targetCharset = request.get("targetCharset");
-
-        if (sourceFile == null || sourceFile.trim().isEmpty()) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'sourceFile' es requerido");
-            return ResponseEntity.badRequest().body(error);
-        }
+    @PostMapping("/users/export_dedup")
+    public ResponseEntity<Map<String, Object>> exportUsersDeduplicated(@RequestBody Map<String, Object> request) {
+        logger.debug("Exportando usuarios al almacén deduplicado");
 
-        if (targetFile == null || targetFile.trim().isEmpty()) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'targetFile' es requerido");
-            return ResponseEntity.badRequest().body(error);
-        }
+        String filePath = (String) request.get("filePath");
+        String format = (String) request.get("format");
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> usersData = (List<Map<String, Object>>) request.get("users");
 
-        if (sourceCharset == null || sourceCharset.trim().isEmpty()) {
+        if (filePath == null || filePath.trim().isEmpty()) {
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'sourceCharset' es requerido");
+            error.put("error", "El parámetro 'filePath' es requerido");
             return ResponseEntity.badRequest().body(error);
         }
 
-        if (targetCharset == null || targetCharset.trim().isEmpty()) {
+        if (usersData == null || usersData.isEmpty()) {
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "El parámetro 'targetCharset' es requerido");
+            error.put("error", "El parámetro 'users' es requerido y no puede estar vacío");
             return ResponseEntity.badRequest().body(error);
         }
 
         try {
-            boolean result = fileUserService.convertFileEncoding(sourceFile, targetFile,
-                                                                 sourceCharset, targetCharset);
+            List<User> users = toUsers(usersData);
+            ContentStore.StoreResult result = fileUserService.exportUsersDeduplicated(users, filePath, format);
+
+            Map<String, Object> input = new HashMap<>();
+            input.put("filePath", filePath);
+            input.put("format", format);
+            input.put("users", usersData.size());
 
             Map<String, Object> response = new HashMap<>();
-            response.put("tool", "convert_file_encoding");
-            response.put("input", Map.of(
-                "sourceFile", sourceFile,
-                "targetFile", targetFile,
-                "sourceCharset", sourceCharset,
-                "targetCharset", targetCharset
-            ));
+            response.put("tool", "export_users_dedup");
+            response.put("input", input);
             response.put("result", result);
             response.put("status", "success");
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            logger.error("Error convirtiendo codificación: " + sourceFile, e);
+            logger.error("Error exportando usuarios al almacén deduplicado: " + filePath, e);
 
             Map<String, Object> error = new HashMap<>();
-            error.put("error", "Error convirtiendo codificación: " + e.getMessage());
-            error.put("tool", "convert_file_encoding");
-            error.put("input", Map.of("sourceFile", sourceFile, "targetFile", targetFile));
+            error.put("error", "Error exportando usuarios: " + e.getMessage());
+            error.put("tool", "export_users_dedup");
+            error.put("input", filePath);
             error.put("status", "error");
 
             return ResponseEntity.status(500).body(error);
@@ -960,11 +1104,831 @@ public class McpServerController {
     }
 
     /**
-     * Crea archivo temporal
+     * Reconstruye un archivo a partir de su manifiesto
      */
-    @PostMapping("/process/create_temp")
-    public ResponseEntity<Map<String, Object>> createTemp(@RequestBody Map<String, String> request) {
-        logger.debug("Creando archivo temporal");
+    @PostMapping("/users/restore_dedup")
+    public ResponseEntity<Map<String, Object>> restoreDeduplicatedFile(@RequestBody Map<String, String> request) {
+        logger.debug("Restaurando archivo del almacén deduplicado");
+
+        String manifestPath = request.get("manifestPath");
+        String targetPath = request.get("targetPath");
+
+        if (manifestPath == null || manifestPath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'manifestPath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (targetPath == null || targetPath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'targetPath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            String result = fileUserService.restoreDeduplicatedFile(manifestPath, targetPath);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "restore_dedup_file");
+            response.put("input", manifestPath);
+            response.put("result", result);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error restaurando manifiesto: " + manifestPath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error restaurando archivo: " + e.getMessage());
+            error.put("tool", "restore_dedup_file");
+            error.put("input", manifestPath);
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    // ========== FILE MANAGEMENT ENDPOINTS ==========
+
+    /**
+     * Lista archivos de usuario en directorio
+     */
+    @PostMapping("/files/list")
+    public ResponseEntity<Map<String, Object>> listFiles(@RequestBody Map<String, String> request) {
+        logger.debug("Listando archivos de usuario");
+
+        String directoryPath = request.get("directoryPath");
+        if (directoryPath == null || directoryPath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'directoryPath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            List<String> files = fileUserService.listUserFiles(directoryPath);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "list_user_files");
+            response.put("input", directoryPath);
+            response.put("result", files);
+            response.put("count", files.size());
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error listando archivos: " + directoryPath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error listando archivos: " + e.getMessage());
+            error.put("tool", "list_user_files");
+            error.put("input", directoryPath);
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Lista archivos de un directorio por páginas
+     */
+    @PostMapping("/files/list_page")
+    public ResponseEntity<Map<String, Object>> listFilesPage(@RequestBody Map<String, Object> request) {
+        logger.debug("Listando página de archivos");
+
+        String directoryPath = (String) request.get("directoryPath");
+        if (directoryPath == null || directoryPath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'directoryPath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            FileListingQueryDto query = new FileListingQueryDto(directoryPath);
+            query.setGlob((String) request.get("glob"));
+            @SuppressWarnings("unchecked")
+            List<String> extensions = (List<String>) request.get("extensions");
+            query.setExtensions(extensions);
+            query.setMinSize(toLong(request.get("minSize")));
+            query.setMaxSize(toLong(request.get("maxSize")));
+            query.setModifiedAfter(toLong(request.get("modifiedAfter")));
+            query.setModifiedBefore(toLong(request.get("modifiedBefore")));
+            if (request.get("pageSize") != null) {
+                query.setPageSize(((Number) request.get("pageSize")).intValue());
+            }
+            query.setContinuationToken((String) request.get("continuationToken"));
+
+            FileListingPageDto page = fileUserService.listFilesPage(query);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "list_files_page");
+            response.put("input", directoryPath);
+            response.put("result", page);
+            response.put("count", page.getEntries().size());
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error listando página de archivos: " + directoryPath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error listando página de archivos: " + e.getMessage());
+            error.put("tool", "list_files_page");
+            error.put("input", directoryPath);
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Recorre un árbol de directorios y devuelve estadísticas agregadas
+     */
+    @PostMapping("/files/scan_tree")
+    public ResponseEntity<Map<String, Object>> scanDirectoryTree(@RequestBody(required = false) Map<String, String> request) {
+        logger.debug("Recorriendo árbol de directorios");
+
+        // Sin directoryPath se recorre el directorio base configurado
+        String directoryPath = request != null ? request.get("directoryPath") : null;
+
+        try {
+            DirectoryScanDto scan = fileUserService.scanDirectoryTree(directoryPath);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "scan_directory_tree");
+            response.put("input", directoryPath);
+            response.put("result", scan);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error recorriendo árbol de directorios: " + directoryPath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error recorriendo árbol de directorios: " + e.getMessage());
+            error.put("tool", "scan_directory_tree");
+            error.put("input", directoryPath);
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Busca archivos duplicados por contenido
+     */
+    @PostMapping("/files/duplicates")
+    public ResponseEntity<Map<String, Object>> findDuplicateFiles(@RequestBody(required = false) Map<String, String> request) {
+        logger.debug("Buscando archivos duplicados");
+
+        // Sin directoryPath se busca en el directorio base configurado
+        String directoryPath = request != null ? request.get("directoryPath") : null;
+
+        try {
+            DuplicateReportDto report = fileUserService.findDuplicateFiles(directoryPath);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "find_duplicate_files");
+            response.put("input", directoryPath);
+            response.put("result", report);
+            response.put("count", report.getGroups().size());
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error buscando duplicados: " + directoryPath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error buscando duplicados: " + e.getMessage());
+            error.put("tool", "find_duplicate_files");
+            error.put("input", directoryPath);
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Valida estructura de directorios
+     */
+    @PostMapping("/files/validate_structure")
+    public ResponseEntity<Map<String, Object>> validateStructure(@RequestBody Map<String, String> request) {
+        logger.debug("Validando estructura de directorios");
+
+        String basePath = request.get("basePath");
+        if (basePath == null || basePath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'basePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            boolean valid = fileUserService.validateDirectoryStructure(basePath);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "validate_directory_structure");
+            response.put("input", basePath);
+            response.put("result", valid);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error validando estructura: " + basePath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error validando estructura: " + e.getMessage());
+            error.put("tool", "validate_directory_structure");
+            error.put("input", basePath);
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    // ========== ANALYSIS ENDPOINTS ==========
+
+    /**
+     * Busca texto en archivo
+     */
+    @PostMapping("/analysis/search_text")
+    public ResponseEntity<Map<String, Object>> searchText(@RequestBody Map<String, String> request) {
+        logger.debug("Buscando texto en archivo");
+
+        String filePath = request.get("filePath");
+        String searchText = request.get("searchText");
+
+        if (filePath == null || filePath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'filePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (searchText == null || searchText.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'searchText' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            String result = fileUserService.searchTextInFile(filePath, searchText);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "search_text_in_file");
+            response.put("input", Map.of("filePath", filePath, "searchText", searchText));
+            response.put("result", result);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error buscando texto: " + filePath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error buscando texto: " + e.getMessage());
+            error.put("tool", "search_text_in_file");
+            error.put("input", Map.of("filePath", filePath, "searchText", searchText));
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Compara rendimiento de I/O
+     */
+    @PostMapping("/analysis/compare_io")
+    public ResponseEntity<Map<String, Object>> compareIO(@RequestBody Map<String, String> request) {
+        logger.debug("Comparando rendimiento I/O");
+
+        String filePath = request.get("filePath");
+        if (filePath == null || filePath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'filePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            String result = fileUserService.compareIOPerformance(filePath);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "compare_io_performance");
+            response.put("input", filePath);
+            response.put("result", result);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error comparando I/O: " + filePath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error comparando I/O: " + e.getMessage());
+            error.put("tool", "compare_io_performance");
+            error.put("input", filePath);
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Compara NIO vs I/O tradicional
+     */
+    @PostMapping("/analysis/compare_nio_io")
+    public ResponseEntity<Map<String, Object>> compareNIOvsIO(@RequestBody Map<String, String> request) {
+        logger.debug("Comparando NIO vs I/O");
+
+        String filePath = request.get("filePath");
+        if (filePath == null || filePath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'filePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            String result = fileUserService.compareNIOvsIO(filePath);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "compare_nio_vs_io");
+            response.put("input", filePath);
+            response.put("result", result);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error comparando NIO vs I/O: " + filePath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error comparando NIO vs I/O: " + e.getMessage());
+            error.put("tool", "compare_nio_vs_io");
+            error.put("input", filePath);
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    // ========== RANDOM ACCESS ENDPOINTS ==========
+
+    /**
+     * Lee desde posición específica con RandomAccessFile
+     */
+    @PostMapping("/random/read")
+    public ResponseEntity<Map<String, Object>> randomRead(@RequestBody Map<String, Object> request) {
+        logger.debug("Lectura aleatoria en archivo");
+
+        String filePath = (String) request.get("filePath");
+        Long position = request.get("position") != null ?
+            ((Number) request.get("position")).longValue() : null;
+        Integer length = request.get("length") != null ?
+            ((Number) request.get("length")).intValue() : null;
+
+        if (filePath == null || filePath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'filePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (position == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'position' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (length == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'length' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            String result = fileUserService.randomAccessRead(filePath, position, length);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "random_access_read");
+            response.put("input", Map.of("filePath", filePath, "position", position, "length", length));
+            response.put("result", result);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error en lectura aleatoria: " + filePath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error en lectura aleatoria: " + e.getMessage());
+            error.put("tool", "random_access_read");
+            error.put("input", Map.of("filePath", filePath, "position", position, "length", length));
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Escribe en posición específica con RandomAccessFile
+     */
+    @PostMapping("/random/write")
+    public ResponseEntity<Map<String, Object>> randomWrite(@RequestBody Map<String, Object> request) {
+        logger.debug("Escritura aleatoria en archivo");
+
+        String filePath = (String) request.get("filePath");
+        Long position = request.get("position") != null ?
+            ((Number) request.get("position")).longValue() : null;
+        String content = (String) request.get("content");
+
+        if (filePath == null || filePath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'filePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (position == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'position' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (content == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'content' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            boolean result = fileUserService.randomAccessWrite(filePath, position, content);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "random_access_write");
+            response.put("input", Map.of("filePath", filePath, "position", position, "content", content));
+            response.put("result", result);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error en escritura aleatoria: " + filePath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error en escritura aleatoria: " + e.getMessage());
+            error.put("tool", "random_access_write");
+            error.put("input", Map.of("filePath", filePath, "position", position, "content", content));
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Lee muchos fragmentos de un archivo con un único FileChannel
+     */
+    @PostMapping("/random/read_batch")
+    public ResponseEntity<Map<String, Object>> randomReadBatch(@RequestBody Map<String, Object> request) {
+        logger.debug("Lectura aleatoria por lotes en archivo");
+
+        String filePath = (String) request.get("filePath");
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> rangesData = (List<Map<String, Object>>) request.get("ranges");
+
+        if (filePath == null || filePath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'filePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (rangesData == null || rangesData.isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'ranges' es requerido y no puede estar vacío");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            List<FileRangeDto> ranges = new java.util.ArrayList<>();
+            for (Map<String, Object> rangeData : rangesData) {
+                if (rangeData.get("position") == null || rangeData.get("length") == null) {
+                    Map<String, Object> error = new HashMap<>();
+                    error.put("error", "Cada elemento de 'ranges' requiere 'position' y 'length'");
+                    return ResponseEntity.badRequest().body(error);
+                }
+                ranges.add(new FileRangeDto(((Number) rangeData.get("position")).longValue(),
+                                            ((Number) rangeData.get("length")).intValue()));
+            }
+
+            List<String> result = fileUserService.randomAccessReadBatch(filePath, ranges);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "random_access_read_batch");
+            response.put("input", Map.of("filePath", filePath, "ranges", rangesData.size()));
+            response.put("result", result);
+            response.put("count", result.size());
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error en lectura aleatoria por lotes: " + filePath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error en lectura aleatoria por lotes: " + e.getMessage());
+            error.put("tool", "random_access_read_batch");
+            error.put("input", Map.of("filePath", filePath, "ranges", rangesData.size()));
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Busca texto en paralelo por bloques (archivos planos y contenedores comprimidos indexados)
+     */
+    @PostMapping("/random/search_blocks")
+    public ResponseEntity<Map<String, Object>> searchTextBlocks(@RequestBody Map<String, Object> request) {
+        logger.debug("Búsqueda de texto por bloques");
+
+        String filePath = (String) request.get("filePath");
+        String searchText = (String) request.get("searchText");
+
+        if (filePath == null || filePath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'filePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (searchText == null || searchText.isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'searchText' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            BlockIndexedFile.SearchResult result = fileUserService.searchTextBlocks(filePath, searchText);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "search_text_blocks");
+            response.put("input", Map.of("filePath", filePath, "searchText", searchText));
+            response.put("result", result);
+            response.put("count", result.getMatches());
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error buscando texto por bloques: " + filePath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error buscando texto por bloques: " + e.getMessage());
+            error.put("tool", "search_text_blocks");
+            error.put("input", Map.of("filePath", filePath, "searchText", searchText));
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Escribe en posición específica con durabilidad (WAL con group commit)
+     */
+    @PostMapping("/random/write_durable")
+    public ResponseEntity<Map<String, Object>> randomWriteDurable(@RequestBody Map<String, Object> request) {
+        logger.debug("Escritura aleatoria durable en archivo");
+
+        String filePath = (String) request.get("filePath");
+        Long position = request.get("position") != null ?
+            ((Number) request.get("position")).longValue() : null;
+        String content = (String) request.get("content");
+
+        if (filePath == null || filePath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'filePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (position == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'position' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (content == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'content' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            boolean result = fileUserService.randomAccessWriteDurable(filePath, position, content);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "random_access_write_durable");
+            response.put("input", Map.of("filePath", filePath, "position", position, "content", content));
+            response.put("result", result);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error en escritura aleatoria durable: " + filePath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error en escritura aleatoria durable: " + e.getMessage());
+            error.put("tool", "random_access_write_durable");
+            error.put("input", Map.of("filePath", filePath, "position", position, "content", content));
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Métricas del pool de FileChannel compartido por las herramientas de acceso posicional
+     */
+    @GetMapping("/random/pool_stats")
+    public ResponseEntity<Map<String, Object>> channelPoolStats() {
+        logger.debug("Consultando métricas del pool de FileChannel");
+
+        try {
+            FileChannelPool.Stats stats = fileUserService.getChannelPoolStats();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "get_channel_pool_stats");
+            response.put("result", stats);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error consultando métricas del pool de FileChannel", e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error consultando métricas del pool: " + e.getMessage());
+            error.put("tool", "get_channel_pool_stats");
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    // ========== PROCESSING ENDPOINTS ==========
+
+    /**
+     * Convierte codificación de archivo
+     */
+    @PostMapping("/process/convert_encoding")
+    public ResponseEntity<Map<String, Object>> convertEncoding(@RequestBody Map<String, String> request) {
+        logger.debug("Convirtiendo codificación de archivo");
+
+        String sourceFile = request.get("sourceFile");
+        String targetFile = request.get("targetFile");
+        String sourceCharset = request.get("sourceCharset");
+        String targetCharset = request.get("targetCharset");
+
+        if (sourceFile == null || sourceFile.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'sourceFile' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (targetFile == null || targetFile.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'targetFile' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (sourceCharset == null || sourceCharset.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'sourceCharset' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (targetCharset == null || targetCharset.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'targetCharset' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            boolean result = fileUserService.convertFileEncoding(sourceFile, targetFile,
+                                                                 sourceCharset, targetCharset);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "convert_file_encoding");
+            response.put("input", Map.of(
+                "sourceFile", sourceFile,
+                "targetFile", targetFile,
+                "sourceCharset", sourceCharset,
+                "targetCharset", targetCharset
+            ));
+            response.put("result", result);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error convirtiendo codificación: " + sourceFile, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error convirtiendo codificación: " + e.getMessage());
+            error.put("tool", "convert_file_encoding");
+            error.put("input", Map.of("sourceFile", sourceFile, "targetFile", targetFile));
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Convierte codificación de archivos grandes (streaming, transferTo y bloques en paralelo)
+     */
+    @PostMapping("/process/transcode")
+    public ResponseEntity<Map<String, Object>> transcode(@RequestBody Map<String, String> request) {
+        logger.debug("Convirtiendo codificación de archivo grande");
+
+        String sourceFile = request.get("sourceFile");
+        String targetFile = request.get("targetFile");
+        // Sin sourceCharset se detecta automáticamente
+        String sourceCharset = request.getOrDefault("sourceCharset", "auto");
+        String targetCharset = request.get("targetCharset");
+
+        if (sourceFile == null || sourceFile.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'sourceFile' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (targetFile == null || targetFile.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'targetFile' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (targetCharset == null || targetCharset.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'targetCharset' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            CharsetTranscoder.Result result = fileUserService.transcodeFile(sourceFile, targetFile,
+                                                                            sourceCharset, targetCharset);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "transcode_file");
+            response.put("input", Map.of(
+                "sourceFile", sourceFile,
+                "targetFile", targetFile,
+                "sourceCharset", sourceCharset,
+                "targetCharset", targetCharset
+            ));
+            response.put("result", result);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error convirtiendo codificación: " + sourceFile, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error convirtiendo codificación: " + e.getMessage());
+            error.put("tool", "transcode_file");
+            error.put("input", Map.of("sourceFile", sourceFile, "targetFile", targetFile));
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Detecta la codificación de un archivo
+     */
+    @PostMapping("/process/detect_encoding")
+    public ResponseEntity<Map<String, Object>> detectEncoding(@RequestBody Map<String, String> request) {
+        logger.debug("Detectando codificación de archivo");
+
+        String filePath = request.get("filePath");
+        if (filePath == null || filePath.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'filePath' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            CharsetDetector.Detection result = fileUserService.detectFileEncoding(filePath);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "detect_file_encoding");
+            response.put("input", filePath);
+            response.put("result", result);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error detectando codificación: " + filePath, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error detectando codificación: " + e.getMessage());
+            error.put("tool", "detect_file_encoding");
+            error.put("input", filePath);
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Crea archivo temporal
+     */
+    @PostMapping("/process/create_temp")
+    public ResponseEntity<Map<String, Object>> createTemp(@RequestBody Map<String, String> request) {
+        logger.debug("Creando archivo temporal");
 
         String prefix = request.get("prefix");
         String content = request.get("content");
@@ -1040,4 +2004,88 @@ public class McpServerController {
             return ResponseEntity.status(500).body(error);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Transforma archivo de texto con un pipeline de etapas en streaming
+     */
+    @PostMapping("/process/transform_text")
+    public ResponseEntity<Map<String, Object>> transformText(@RequestBody Map<String, Object> request) {
+        logger.debug("Transformando archivo de texto");
+
+        String sourceFile = (String) request.get("sourceFile");
+        String targetFile = (String) request.get("targetFile");
+        @SuppressWarnings("unchecked")
+        List<Map<String, String>> stagesData = (List<Map<String, String>>) request.get("stages");
+
+        if (sourceFile == null || sourceFile.trim().isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'sourceFile' es requerido");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        if (stagesData == null || stagesData.isEmpty()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "El parámetro 'stages' es requerido y no puede estar vacío");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            List<TextStageDto> stages = stagesData.stream()
+                    .map(stage -> new TextStageDto(stage.get("type"), stage.get("pattern"), stage.get("replacement")))
+                    .collect(Collectors.toList());
+
+            String result = fileUserService.transformTextFile(sourceFile, targetFile, stages);
+
+            Map<String, Object> input = new HashMap<>();
+            input.put("sourceFile", sourceFile);
+            input.put("targetFile", targetFile);
+            input.put("stages", stagesData.size());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("tool", "transform_text_file");
+            response.put("input", input);
+            response.put("result", result);
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error transformando texto: " + sourceFile, e);
+
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Error transformando texto: " + e.getMessage());
+            error.put("tool", "transform_text_file");
+            error.put("input", sourceFile);
+            error.put("status", "error");
+
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Convierte los usuarios recibidos como mapas JSON en objetos User.
+     * Mismos valores por defecto que new User() (active true, fechas actuales), pero con una
+     * sola lectura del reloj para todo el lote.
+     */
+    private List<User> toUsers(List<Map<String, Object>> usersData) {
+        List<User> users = new java.util.ArrayList<>(usersData.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (Map<String, Object> userData : usersData) {
+            Long id = userData.get("id") != null ? ((Number) userData.get("id")).longValue() : null;
+            Boolean active = (Boolean) userData.get("active");
+            String createdAt = (String) userData.get("createdAt");
+            String updatedAt = (String) userData.get("updatedAt");
+
+            // Como al leer JSON: solo las propiedades ausentes toman el valor por defecto
+            users.add(User.of(id, (String) userData.get("name"), (String) userData.get("email"),
+                    (String) userData.get("department"), (String) userData.get("role"),
+                    userData.containsKey("active") ? active : Boolean.TRUE,
+                    createdAt != null ? LocalDateTime.parse(createdAt) : userData.containsKey("createdAt") ? null : now,
+                    updatedAt != null ? LocalDateTime.parse(updatedAt) : userData.containsKey("updatedAt") ? null : now));
+        }
+        return users;
+    }
+
+    private Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+}
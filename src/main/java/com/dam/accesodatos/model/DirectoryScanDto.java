@@ -0,0 +1,137 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO con las estadísticas agregadas de un recorrido recursivo de directorios
+ * Los mapas conservan el orden de los formatos y de los tramos del histograma
+ */
+public class DirectoryScanDto {
+
+    private String rootPath;
+    private long totalFiles;
+    private long totalDirectories;
+    private long totalBytes;
+    private long errors;
+    private long elapsedMillis;
+    private Map<String, Long> filesByFormat;
+    private Map<String, Long> bytesByFormat;
+    private Map<String, Long> sizeHistogram;
+    private List<FileEntryDto> largestFiles;
+    private FileEntryDto oldestFile;
+    private FileEntryDto newestFile;
+
+    public DirectoryScanDto() {}
+
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    public void setRootPath(String rootPath) {
+        this.rootPath = rootPath;
+    }
+
+    public long getTotalFiles() {
+        return totalFiles;
+    }
+
+    public void setTotalFiles(long totalFiles) {
+        this.totalFiles = totalFiles;
+    }
+
+    public long getTotalDirectories() {
+        return totalDirectories;
+    }
+
+    public void setTotalDirectories(long totalDirectories) {
+        this.totalDirectories = totalDirectories;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    /** Entradas que no se pudieron leer (permisos, borradas durante el recorrido) */
+    public long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(long errors) {
+        this.errors = errors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Map<String, Long> getFilesByFormat() {
+        return filesByFormat;
+    }
+
+    public void setFilesByFormat(Map<String, Long> filesByFormat) {
+        this.filesByFormat = filesByFormat;
+    }
+
+    public Map<String, Long> getBytesByFormat() {
+        return bytesByFormat;
+    }
+
+    public void setBytesByFormat(Map<String, Long> bytesByFormat) {
+        this.bytesByFormat = bytesByFormat;
+    }
+
+    public Map<String, Long> getSizeHistogram() {
+        return sizeHistogram;
+    }
+
+    public void setSizeHistogram(Map<String, Long> sizeHistogram) {
+        this.sizeHistogram = sizeHistogram;
+    }
+
+    public List<FileEntryDto> getLargestFiles() {
+        return largestFiles;
+    }
+
+    public void setLargestFiles(List<FileEntryDto> largestFiles) {
+        this.largestFiles = largestFiles;
+    }
+
+    public FileEntryDto getOldestFile() {
+        return oldestFile;
+    }
+
+    public void setOldestFile(FileEntryDto oldestFile) {
+        this.oldestFile = oldestFile;
+    }
+
+    public FileEntryDto getNewestFile() {
+        return newestFile;
+    }
+
+    public void setNewestFile(FileEntryDto newestFile) {
+        this.newestFile = newestFile;
+    }
+
+    @Override
+    public String toString() {
+        return "DirectoryScanDto{" +
+                "rootPath='" + rootPath + '\'' +
+                ", totalFiles=" + totalFiles +
+                ", totalDirectories=" + totalDirectories +
+                ", totalBytes=" + totalBytes +
+                ", errors=" + errors +
+                ", elapsedMillis=" + elapsedMillis +
+                ", filesByFormat=" + filesByFormat +
+                ", sizeHistogram=" + sizeHistogram +
+                '}';
+    }
+}
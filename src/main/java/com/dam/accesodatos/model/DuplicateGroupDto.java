@@ -0,0 +1,59 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+
+/**
+ * DTO con un grupo de archivos de contenido idéntico (mismo SHA-256)
+ * wastedBytes es el espacio que se liberaría conservando una sola copia
+ */
+public class DuplicateGroupDto {
+
+    private String sha256;
+    private long size;
+    private List<String> paths;
+
+    public DuplicateGroupDto() {}
+
+    public DuplicateGroupDto(String sha256, long size, List<String> paths) {
+        this.sha256 = sha256;
+        this.size = size;
+        this.paths = paths;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public void setPaths(List<String> paths) {
+        this.paths = paths;
+    }
+
+    public long getWastedBytes() {
+        return paths == null || paths.isEmpty() ? 0 : size * (paths.size() - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "DuplicateGroupDto{" +
+                "sha256='" + sha256 + '\'' +
+                ", size=" + size +
+                ", paths=" + paths +
+                '}';
+    }
+}
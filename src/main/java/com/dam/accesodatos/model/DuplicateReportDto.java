@@ -0,0 +1,112 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una búsqueda de archivos duplicados
+ * Los contadores muestran cuántos archivos llegó a leer cada fase del filtrado
+ */
+public class DuplicateReportDto {
+
+    private String rootPath;
+    private long filesScanned;
+    private long partialHashes;
+    private long fullHashes;
+    private long cacheHits;
+    private long errors;
+    private long wastedBytes;
+    private long elapsedMillis;
+    private List<DuplicateGroupDto> groups;
+
+    public DuplicateReportDto() {}
+
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    public void setRootPath(String rootPath) {
+        this.rootPath = rootPath;
+    }
+
+    public long getFilesScanned() {
+        return filesScanned;
+    }
+
+    public void setFilesScanned(long filesScanned) {
+        this.filesScanned = filesScanned;
+    }
+
+    /** Archivos con otro del mismo tamaño, para los que se calculó el hash parcial */
+    public long getPartialHashes() {
+        return partialHashes;
+    }
+
+    public void setPartialHashes(long partialHashes) {
+        this.partialHashes = partialHashes;
+    }
+
+    /** Archivos que coincidieron también en el hash parcial y se leyeron completos */
+    public long getFullHashes() {
+        return fullHashes;
+    }
+
+    public void setFullHashes(long fullHashes) {
+        this.fullHashes = fullHashes;
+    }
+
+    /** Hashes (parciales o completos) servidos desde la caché sin leer el archivo */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public void setCacheHits(long cacheHits) {
+        this.cacheHits = cacheHits;
+    }
+
+    /** Archivos que no se pudieron leer (se excluyen de los grupos) */
+    public long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(long errors) {
+        this.errors = errors;
+    }
+
+    public long getWastedBytes() {
+        return wastedBytes;
+    }
+
+    public void setWastedBytes(long wastedBytes) {
+        this.wastedBytes = wastedBytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<DuplicateGroupDto> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<DuplicateGroupDto> groups) {
+        this.groups = groups;
+    }
+
+    @Override
+    public String toString() {
+        return "DuplicateReportDto{" +
+                "rootPath='" + rootPath + '\'' +
+                ", filesScanned=" + filesScanned +
+                ", partialHashes=" + partialHashes +
+                ", fullHashes=" + fullHashes +
+                ", cacheHits=" + cacheHits +
+                ", errors=" + errors +
+                ", wastedBytes=" + wastedBytes +
+                ", groups=" + (groups == null ? 0 : groups.size()) +
+                '}';
+    }
+}
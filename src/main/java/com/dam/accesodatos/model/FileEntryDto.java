@@ -0,0 +1,65 @@
+package com.dam.accesodatos.model;
+
+/**
+ * DTO con los metadatos básicos de un archivo (una sola lectura de atributos)
+ * Usado en los listados paginados de directorios
+ */
+public class FileEntryDto {
+
+    private String name;
+    private String path;
+    private long size;
+    private long lastModified;
+
+    public FileEntryDto() {}
+
+    public FileEntryDto(String name, String path, long size, long lastModified) {
+        this.name = name;
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /** Fecha de modificación (epoch en milisegundos) */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "FileEntryDto{" +
+                "name='" + name + '\'' +
+                ", path='" + path + '\'' +
+                ", size=" + size +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
@@ -0,0 +1,131 @@
+package com.dam.accesodatos.model;
+
+/**
+ * DTO con la información de un archivo obtenida con una única lectura de atributos
+ * Usado por get_file_info_batch; owner, group y permissions son null si el sistema
+ * de archivos no es POSIX, y error indica por qué no se pudieron leer los atributos
+ */
+public class FileInfoDto {
+
+    private String path;
+    private boolean exists;
+    private boolean regularFile;
+    private boolean directory;
+    private long size;
+    private Long lastModified;
+    private Long creationTime;
+    private String owner;
+    private String group;
+    private String permissions;
+    private String error;
+
+    public FileInfoDto() {}
+
+    public FileInfoDto(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public boolean isExists() {
+        return exists;
+    }
+
+    public void setExists(boolean exists) {
+        this.exists = exists;
+    }
+
+    public boolean isRegularFile() {
+        return regularFile;
+    }
+
+    public void setRegularFile(boolean regularFile) {
+        this.regularFile = regularFile;
+    }
+
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(boolean directory) {
+        this.directory = directory;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public Long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public Long getCreationTime() {
+        return creationTime;
+    }
+
+    public void setCreationTime(Long creationTime) {
+        this.creationTime = creationTime;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public void setGroup(String group) {
+        this.group = group;
+    }
+
+    /** Permisos en formato "rwxr-x---" */
+    public String getPermissions() {
+        return permissions;
+    }
+
+    public void setPermissions(String permissions) {
+        this.permissions = permissions;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "FileInfoDto{" +
+                "path='" + path + '\'' +
+                ", exists=" + exists +
+                ", regularFile=" + regularFile +
+                ", directory=" + directory +
+                ", size=" + size +
+                ", lastModified=" + lastModified +
+                ", owner='" + owner + '\'' +
+                ", permissions='" + permissions + '\'' +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+
+/**
+ * DTO con una página de un listado de directorio
+ * nextToken es null cuando no quedan más archivos que cumplan los filtros
+ */
+public class FileListingPageDto {
+
+    private String directory;
+    private List<FileEntryDto> entries;
+    private String nextToken;
+    private boolean fromCache;
+
+    public FileListingPageDto() {}
+
+    public FileListingPageDto(String directory, List<FileEntryDto> entries, String nextToken, boolean fromCache) {
+        this.directory = directory;
+        this.entries = entries;
+        this.nextToken = nextToken;
+        this.fromCache = fromCache;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public List<FileEntryDto> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<FileEntryDto> entries) {
+        this.entries = entries;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public void setNextToken(String nextToken) {
+        this.nextToken = nextToken;
+    }
+
+    /** true si la página se sirvió desde una instantánea del directorio en caché */
+    public boolean isFromCache() {
+        return fromCache;
+    }
+
+    public void setFromCache(boolean fromCache) {
+        this.fromCache = fromCache;
+    }
+
+    @Override
+    public String toString() {
+        return "FileListingPageDto{" +
+                "directory='" + directory + '\'' +
+                ", entries=" + entries +
+                ", nextToken='" + nextToken + '\'' +
+                ", fromCache=" + fromCache +
+                '}';
+    }
+}
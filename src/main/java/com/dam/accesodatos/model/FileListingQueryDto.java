@@ -0,0 +1,121 @@
+package com.dam.accesodatos.model;
+
+import java.util.List;
+
+/**
+ * DTO para listados paginados de un directorio con filtros opcionales
+ * Usado en la herramienta MCP list_files_page
+ */
+public class FileListingQueryDto {
+
+    private String directoryPath;
+    private String glob;
+    private List<String> extensions;
+    private Long minSize;
+    private Long maxSize;
+    private Long modifiedAfter;
+    private Long modifiedBefore;
+    private Integer pageSize;
+    private String continuationToken;
+
+    public FileListingQueryDto() {
+        this.pageSize = 100; // Por defecto 100 archivos por página
+    }
+
+    public FileListingQueryDto(String directoryPath) {
+        this();
+        this.directoryPath = directoryPath;
+    }
+
+    public String getDirectoryPath() {
+        return directoryPath;
+    }
+
+    public void setDirectoryPath(String directoryPath) {
+        this.directoryPath = directoryPath;
+    }
+
+    /** Patrón glob sobre el nombre del archivo (ej: "users_*.csv") */
+    public String getGlob() {
+        return glob;
+    }
+
+    public void setGlob(String glob) {
+        this.glob = glob;
+    }
+
+    /** Extensiones aceptadas sin punto (ej: ["csv", "json"]) */
+    public List<String> getExtensions() {
+        return extensions;
+    }
+
+    public void setExtensions(List<String> extensions) {
+        this.extensions = extensions;
+    }
+
+    public Long getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(Long minSize) {
+        this.minSize = minSize;
+    }
+
+    public Long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(Long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /** Fecha de modificación mínima (epoch en milisegundos) */
+    public Long getModifiedAfter() {
+        return modifiedAfter;
+    }
+
+    public void setModifiedAfter(Long modifiedAfter) {
+        this.modifiedAfter = modifiedAfter;
+    }
+
+    /** Fecha de modificación máxima (epoch en milisegundos) */
+    public Long getModifiedBefore() {
+        return modifiedBefore;
+    }
+
+    public void setModifiedBefore(Long modifiedBefore) {
+        this.modifiedBefore = modifiedBefore;
+    }
+
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /** Token devuelto por la página anterior (null para la primera página) */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
+    @Override
+    public String toString() {
+        return "FileListingQueryDto{" +
+                "directoryPath='" + directoryPath + '\'' +
+                ", glob='" + glob + '\'' +
+                ", extensions=" + extensions +
+                ", minSize=" + minSize +
+                ", maxSize=" + maxSize +
+                ", modifiedAfter=" + modifiedAfter +
+                ", modifiedBefore=" + modifiedBefore +
+                ", pageSize=" + pageSize +
+                ", continuationToken='" + continuationToken + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,42 @@
+package com.dam.accesodatos.model;
+
+/**
+ * DTO que describe un fragmento de archivo (posición + longitud en bytes)
+ * Usado en herramientas MCP de acceso aleatorio por lotes
+ */
+public class FileRangeDto {
+
+    private long position;
+    private int length;
+
+    public FileRangeDto() {}
+
+    public FileRangeDto(long position, int length) {
+        this.position = position;
+        this.length = length;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public void setLength(int length) {
+        this.length = length;
+    }
+
+    @Override
+    public String toString() {
+        return "FileRangeDto{" +
+                "position=" + position +
+                ", length=" + length +
+                '}';
+    }
+}
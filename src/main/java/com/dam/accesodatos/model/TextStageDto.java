@@ -0,0 +1,60 @@
+package com.dam.accesodatos.model;
+
+/**
+ * DTO que describe una etapa del pipeline de transformación de texto
+ * Usado en la herramienta MCP transform_text_file
+ *
+ * Tipos soportados: trim, collapse_whitespace, lowercase, uppercase, capitalize,
+ * regex_replace (usa pattern y replacement) y dedupe (elimina líneas repetidas consecutivas)
+ */
+public class TextStageDto {
+
+    private String type;
+    private String pattern;
+    private String replacement;
+
+    public TextStageDto() {}
+
+    public TextStageDto(String type) {
+        this.type = type;
+    }
+
+    public TextStageDto(String type, String pattern, String replacement) {
+        this.type = type;
+        this.pattern = pattern;
+        this.replacement = replacement;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public String getReplacement() {
+        return replacement;
+    }
+
+    public void setReplacement(String replacement) {
+        this.replacement = replacement;
+    }
+
+    @Override
+    public String toString() {
+        return "TextStageDto{" +
+                "type='" + type + '\'' +
+                ", pattern='" + pattern + '\'' +
+                ", replacement='" + replacement + '\'' +
+                '}';
+    }
+}
@@ -1,5 +1,8 @@
 package com.dam.accesodatos.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 import jakarta.validation.constraints.*;
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -14,6 +17,7 @@ import java.util.Objects;
  * 
  * Los estudiantes deben usar este modelo en sus implementaciones de FileUserService
  */
+@JsonDeserialize(builder = User.JsonBuilder.class)
 public class User {
     
     private Long id;
@@ -61,6 +65,108 @@ public class User {
         this.role = role;
     }
 
+    /**
+     * Constructor de todos los campos sin valores por defecto (ver {@link #of})
+     */
+    private User(Long id, String name, String email, String department, String role,
+                 Boolean active, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.department = department;
+        this.role = role;
+        this.active = active;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Crea un usuario con todos sus campos tal cual, para lectores y cargas masivas.
+     *
+     * A diferencia de los constructores públicos y los setters no lee el reloj
+     * (LocalDateTime.now()) ni pone valores por defecto: los campos ausentes quedan a null.
+     */
+    public static User of(Long id, String name, String email, String department, String role,
+                          Boolean active, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        return new User(id, name, email, department, role, active, createdAt, updatedAt);
+    }
+
+    /**
+     * Builder para Jackson: con el constructor vacío y los setters cada usuario leería el
+     * reloj siete veces. Mantiene la misma semántica: las propiedades ausentes toman el valor
+     * por defecto (active true y fechas actuales, leyendo el reloj una sola vez) y un null
+     * explícito se conserva, igual que al pasarlo a los setters.
+     */
+    @JsonPOJOBuilder(withPrefix = "")
+    static final class JsonBuilder {
+        private Long id;
+        private String name;
+        private String email;
+        private String department;
+        private String role;
+        private Boolean active = Boolean.TRUE;
+        private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+        private boolean createdAtSet;
+        private boolean updatedAtSet;
+
+        @JsonProperty("id")
+        JsonBuilder id(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        @JsonProperty("name")
+        JsonBuilder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        @JsonProperty("email")
+        JsonBuilder email(String email) {
+            this.email = email;
+            return this;
+        }
+
+        @JsonProperty("department")
+        JsonBuilder department(String department) {
+            this.department = department;
+            return this;
+        }
+
+        @JsonProperty("role")
+        JsonBuilder role(String role) {
+            this.role = role;
+            return this;
+        }
+
+        @JsonProperty("active")
+        JsonBuilder active(Boolean active) {
+            this.active = active;
+            return this;
+        }
+
+        @JsonProperty("createdAt")
+        JsonBuilder createdAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+            this.createdAtSet = true;
+            return this;
+        }
+
+        @JsonProperty("updatedAt")
+        JsonBuilder updatedAt(LocalDateTime updatedAt) {
+            this.updatedAt = updatedAt;
+            this.updatedAtSet = true;
+            return this;
+        }
+
+        User build() {
+            LocalDateTime now = createdAtSet && updatedAtSet ? null : LocalDateTime.now();
+            return new User(id, name, email, department, role, active,
+                    createdAtSet ? createdAt : now, updatedAtSet ? updatedAt : now);
+        }
+    }
+
     public Long getId() {
         return id;
     }
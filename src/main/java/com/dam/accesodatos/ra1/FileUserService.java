@@ -1,9 +1,26 @@
 package com.dam.accesodatos.ra1;
 
+import com.dam.accesodatos.model.DirectoryScanDto;
+import com.dam.accesodatos.model.DuplicateReportDto;
+import com.dam.accesodatos.model.FileInfoDto;
+import com.dam.accesodatos.model.FileListingPageDto;
+import com.dam.accesodatos.model.FileListingQueryDto;
+import com.dam.accesodatos.model.FileRangeDto;
+import com.dam.accesodatos.model.TextStageDto;
 import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserQueryDto;
+import com.dam.accesodatos.ra1.io.BlockIndexedFile;
+import com.dam.accesodatos.ra1.io.FileChannelPool;
+import com.dam.accesodatos.ra1.records.ExternalUserSorter;
+import com.dam.accesodatos.ra1.records.UserAggregator;
+import com.dam.accesodatos.ra1.records.UserFileDiff;
+import com.dam.accesodatos.ra1.store.ContentStore;
+import com.dam.accesodatos.ra1.text.CharsetDetector;
+import com.dam.accesodatos.ra1.text.CharsetTranscoder;
 import org.springframework.ai.mcp.server.annotation.Tool;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interfaz para el RA1: Gestión de información almacenada en ficheros
@@ -161,6 +178,192 @@ public interface FileUserService {
           description = "Lee usuarios desde archivo XML usando SAX parser")
     List<User> readUsersFromXMLSAX(String filePath);
 
+    /**
+     * EXPORTACIÓN: Escribe usuarios a CSV, JSON, NDJSON o XML en streaming y de forma atómica
+     *
+     * Implementación:
+     * - Serializar cada usuario según se escribe (CSV manual, JsonGenerator, XMLStreamWriter)
+     * - Comprimir opcionalmente al vuelo: gzip (.gz), BGZF (.bgz, gzip por bloques que se
+     *   comprimen en paralelo y sigue siendo legible con gzip/zcat) o BGZF indexado (.bgzi,
+     *   con índice de bloques para acceso aleatorio y búsqueda en paralelo)
+     * - Con escritura atómica (app.file-service.atomic-writes): escribir en un temporal
+     *   de app.file-service.temp-path, force() y Files.move(ATOMIC_MOVE) sobre el destino,
+     *   de modo que los lectores concurrentes nunca ven un archivo a medias
+     * - Sin escritura atómica: escritura directa bajo bloqueo exclusivo del archivo
+     *
+     * @param users Lista de usuarios a exportar
+     * @param filePath Ruta del archivo destino
+     * @param format Formato (csv, json, ndjson o xml); si es null se deduce de la extensión
+     *               ignorando la de compresión ("users.csv.gz" → csv)
+     * @param compression Compresión (none, gzip, bgzf o indexed); si es null se deduce de la extensión
+     * @return true si la operación fue exitosa
+     * @throws RuntimeException si el formato o la compresión no están soportados o hay error de escritura
+     */
+    @Tool(name = "export_users",
+          description = "Exporta usuarios a CSV, JSON, NDJSON o XML en streaming con escritura atómica y compresión gzip/bgzf/indexed opcional")
+    boolean exportUsers(List<User> users, String filePath, String format, String compression);
+
+    /**
+     * CONVERSIÓN: Convierte un archivo de usuarios a otro formato sin cargar la lista en memoria
+     *
+     * Implementación:
+     * - Un hilo analiza el origen en streaming (CSV manual, JsonParser, XMLStreamReader)
+     * - Otro hilo serializa el destino con los mismos escritores que export_users
+     * - Entre ambos, una cola acotada de lotes: si el destino es más lento el lector espera,
+     *   así que la memoria es constante aunque el archivo ocupe varios GB
+     * - El origen puede estar comprimido (gzip/BGZF, detectado por contenido); el destino
+     *   se comprime según compression o su extensión y se escribe con movimiento atómico
+     *
+     * @param sourcePath Archivo origen
+     * @param sourceFormat Formato origen (csv, json, ndjson o xml); si es null se deduce de la extensión
+     * @param targetPath Archivo destino (distinto del origen)
+     * @param targetFormat Formato destino; si es null se deduce de la extensión
+     * @param compression Compresión del destino (none, gzip, bgzf o indexed); si es null se deduce de la extensión
+     * @return Número de usuarios convertidos
+     * @throws RuntimeException si el origen no existe, está mal formado o hay error de escritura
+     */
+    @Tool(name = "convert_user_file",
+          description = "Convierte un archivo de usuarios entre CSV, JSON, NDJSON y XML en streaming con memoria constante")
+    long convertUserFile(String sourcePath, String sourceFormat, String targetPath, String targetFormat, String compression);
+
+    /**
+     * FUSIÓN: Fusiona varios archivos de usuarios en uno ordenado por id
+     *
+     * Implementación (ordenación externa):
+     * - Leer cada archivo en paralelo en tramos de app.file-service.merge.run-size usuarios,
+     *   ordenar cada tramo en memoria y volcarlo a un temporal en app.file-service.temp-path
+     * - Fusionar los tramos con un montículo (k-way merge), en varias pasadas si hay más
+     *   de app.file-service.merge.fan-in
+     * - Si un id se repite se conserva el usuario con updatedAt más reciente
+     * - Funciona con conjuntos mayores que la memoria disponible
+     *
+     * @param sourcePaths Archivos a fusionar (CSV, JSON, NDJSON o XML, comprimidos o no; formato por extensión)
+     * @param targetPath Archivo destino
+     * @param targetFormat Formato destino; si es null se deduce de la extensión
+     * @param compression Compresión del destino (none, gzip, bgzf o indexed); si es null se deduce de la extensión
+     * @return Archivos, usuarios leídos y escritos, duplicados descartados, tramos y pasadas
+     * @throws RuntimeException si algún archivo no existe, está mal formado o hay error de escritura
+     */
+    @Tool(name = "merge_user_files",
+          description = "Fusiona varios archivos de usuarios en uno ordenado por id (ordenación externa, conserva el updatedAt más reciente)")
+    ExternalUserSorter.Result mergeUserFiles(List<String> sourcePaths, String targetPath, String targetFormat, String compression);
+
+    /**
+     * DIFERENCIAS: Compara dos archivos de usuarios por id
+     *
+     * Implementación (hash join):
+     * - Del archivo menor se guarda solo id → hash de 64 bits de la fila en una tabla hash
+     *   de long primitivos (sin Long ni User en memoria)
+     * - El archivo mayor se recorre en streaming contra la tabla; los usuarios cambiados se
+     *   vuelcan a un temporal para poder calcular después los campos que difieren
+     * - Cada diferencia es una línea NDJSON: {"op":"added|removed","id","user"} o
+     *   {"op":"changed","id","changes":{campo:{"old","new"}}}
+     *
+     * @param leftPath Archivo antiguo (CSV, JSON, NDJSON o XML, comprimido o no; formato por extensión)
+     * @param rightPath Archivo nuevo
+     * @param outputPath Archivo NDJSON con las diferencias
+     * @param compression Compresión de la salida (none, gzip, bgzf o indexed); si es null se deduce de la extensión
+     * @return Usuarios de cada lado y número de añadidos, eliminados, cambiados e iguales
+     * @throws RuntimeException si algún archivo no existe, está mal formado o hay error de escritura
+     */
+    @Tool(name = "diff_user_files",
+          description = "Compara dos archivos de usuarios por id y escribe en NDJSON los añadidos, eliminados y cambios campo a campo")
+    UserFileDiff.Result diffUserFiles(String leftPath, String rightPath, String outputPath, String compression);
+
+    /**
+     * LECTURA PROYECTADA: Lee solo los campos pedidos de los usuarios de un archivo
+     *
+     * Implementación (streaming con proyección):
+     * - Lector en streaming del formato (comprimido o no) que solo convierte los campos pedidos
+     * - CSV: los campos no pedidos se recorren contando separadores, sin copiar sus caracteres
+     * - JSON/NDJSON: los valores no pedidos se saltan con JsonParser.skipChildren() sin decodificarlos
+     * - XML: los elementos no pedidos se saltan con StAX hasta su cierre, sin leer su texto
+     * - La lectura se detiene al completar la página; cada usuario se devuelve solo con los campos pedidos
+     *
+     * @param filePath Archivo de usuarios (CSV, JSON, NDJSON o XML, comprimido o no; formato por extensión)
+     * @param fields Campos a devolver (id, name, email, department, role, active, createdAt, updatedAt); vacío = todos
+     * @param offset Usuarios a saltar desde el inicio (0 por defecto)
+     * @param limit Usuarios como máximo (100 por defecto)
+     * @return Un mapa por usuario con los campos pedidos, en orden de archivo
+     * @throws RuntimeException si el archivo no existe, está mal formado, algún campo no existe o limit/offset son negativos
+     */
+    @Tool(name = "read_users",
+          description = "Lee usuarios de un archivo de cualquier formato devolviendo solo los campos pedidos, con paginación")
+    List<Map<String, Object>> readUsers(String filePath, List<String> fields, Integer offset, Integer limit);
+
+    /**
+     * CONSULTA: Filtra los usuarios de un archivo por departamento, rol y estado
+     *
+     * Implementación (tabla por columnas):
+     * - El archivo se carga en una UserTable: id y fechas en long[], active en BitSet,
+     *   department y role como códigos int[] de diccionario (varias veces menos memoria que una lista de User)
+     * - La tabla se guarda en caché (app.file-service.query.cache-size) mientras el archivo no cambie
+     * - El filtro compara códigos enteros y solo se crean los User de la página devuelta
+     *
+     * @param filePath Archivo de usuarios (CSV, JSON, NDJSON o XML, comprimido o no; formato por extensión)
+     * @param query Filtros opcionales (department, role, active), limit (10 por defecto) y offset
+     * @return Usuarios de la página pedida, en orden de archivo
+     * @throws RuntimeException si el archivo no existe, está mal formado o limit/offset son negativos
+     */
+    @Tool(name = "query_users",
+          description = "Consulta usuarios de un archivo filtrando por departamento, rol y estado, con paginación")
+    List<User> queryUsers(String filePath, UserQueryDto query);
+
+    /**
+     * AGREGADO: Estadísticas de un archivo de usuarios en una sola pasada
+     *
+     * Implementación (streaming en trozos paralelos):
+     * - Recuentos por department, role y active, y mínimo/máximo de createdAt y updatedAt
+     * - CSV y NDJSON sin comprimir se parten por saltos de línea en trozos de al menos
+     *   app.file-service.aggregate.min-chunk-size bytes que se analizan en paralelo y se combinan
+     * - Si un corte cae dentro de un campo CSV entre comillas se repite la pasada en secuencia
+     * - JSON, XML y archivos comprimidos se recorren en secuencia; nunca se carga el archivo entero
+     *
+     * @param filePath Archivo de usuarios (CSV, JSON, NDJSON o XML, comprimido o no)
+     * @return Estadísticas del archivo (los usuarios sin department o role cuentan bajo "")
+     * @throws RuntimeException si el archivo no existe o está mal formado
+     */
+    @Tool(name = "aggregate_users",
+          description = "Cuenta los usuarios de un archivo por departamento, rol y estado, con el rango de fechas de creación y actualización")
+    UserAggregator.Statistics aggregateUsers(String filePath);
+
+    /**
+     * EXPORTACIÓN DEDUPLICADA: Escribe usuarios en el almacén direccionado por contenido
+     *
+     * Implementación:
+     * - Serializar en streaming igual que export_users
+     * - Trocear el contenido por contenido (hash rodante) y guardar cada fragmento una sola
+     *   vez por su SHA-256 en app.file-service.cas.path
+     * - En filePath queda un manifiesto con la lista de fragmentos (escrito de forma atómica)
+     * - Las herramientas que leen usuarios (read_users, convert_user_file, query_users...)
+     *   detectan el manifiesto y leen el contenido reconstruido
+     *
+     * @param users Lista de usuarios a exportar
+     * @param filePath Ruta del manifiesto
+     * @param format Formato (csv, json o xml); si es null se deduce de la extensión
+     * @return Tamaño del contenido, fragmentos totales y cuántos fragmentos y bytes eran nuevos
+     * @throws RuntimeException si el formato no está soportado o hay error de escritura
+     */
+    @Tool(name = "export_users_dedup",
+          description = "Exporta usuarios al almacén deduplicado por contenido (la ruta queda como manifiesto)")
+    ContentStore.StoreResult exportUsersDeduplicated(List<User> users, String filePath, String format);
+
+    /**
+     * EXPORTACIÓN DEDUPLICADA: Reconstruye el archivo completo de un manifiesto
+     *
+     * Implementación:
+     * - Leer los fragmentos en orden comprobando su SHA-256 y el del contenido completo
+     * - Escribir el resultado de forma atómica en targetPath
+     *
+     * @param manifestPath Ruta del manifiesto
+     * @param targetPath Ruta del archivo reconstruido
+     * @return Ruta del archivo reconstruido
+     * @throws RuntimeException si no es un manifiesto, falta un fragmento o está corrupto
+     */
+    @Tool(name = "restore_dedup_file",
+          description = "Reconstruye el archivo completo a partir de un manifiesto del almacén deduplicado")
+    String restoreDeduplicatedFile(String manifestPath, String targetPath);
+
     /**
      * CE1.c: Lista archivos de usuario en un directorio
      * 
@@ -178,6 +381,56 @@ public interface FileUserService {
           description = "Lista archivos de usuario en directorio (CSV, JSON, XML)")
     List<String> listUserFiles(String directoryPath);
 
+    /**
+     * CE1.c: Lista los archivos de un directorio por páginas
+     *
+     * Implementación:
+     * - Recorre el directorio con DirectoryStream y lee BasicFileAttributes una vez por archivo
+     * - Guarda una instantánea ordenada por nombre durante un TTL (o hasta que cambie el directorio)
+     * - Filtra por glob, extensiones, tamaño y fecha de modificación
+     * - Devuelve un token de continuación para pedir la página siguiente
+     *
+     * @param query Directorio, filtros, tamaño de página y token de continuación
+     * @return Página de archivos con el token de la siguiente (null si es la última)
+     * @throws RuntimeException si el directorio no existe, el token no es válido o hay error de E/S
+     */
+    @Tool(name = "list_files_page",
+          description = "Lista archivos de un directorio por páginas con filtros (glob, extensión, tamaño, fecha)")
+    FileListingPageDto listFilesPage(FileListingQueryDto query);
+
+    /**
+     * CE1.c: Recorre recursivamente un árbol de directorios y agrega estadísticas
+     *
+     * Implementación:
+     * - Una tarea fork-join por directorio, visitado con un FileVisitor de profundidad 1
+     * - Contadores locales por tarea que se fusionan al terminar (sin sincronización)
+     * - No sigue enlaces simbólicos; las entradas ilegibles se cuentan como errores
+     *
+     * @param directoryPath Directorio raíz (si es null o vacío, el directorio base configurado)
+     * @return Archivos y bytes por formato, histograma de tamaños, archivos más grandes, más antiguo y más reciente
+     * @throws RuntimeException si el directorio no existe o no se puede leer
+     */
+    @Tool(name = "scan_directory_tree",
+          description = "Recorre recursivamente un árbol de directorios en paralelo y devuelve estadísticas agregadas")
+    DirectoryScanDto scanDirectoryTree(String directoryPath);
+
+    /**
+     * CE1.c: Busca archivos duplicados por contenido bajo un directorio
+     *
+     * Implementación:
+     * - Agrupa por tamaño con los atributos del recorrido (sin abrir archivos)
+     * - Hash parcial (primer y último bloque) solo de los que comparten tamaño
+     * - SHA-256 completo con FileChannel y buffer directo solo de los que siguen coincidiendo
+     * - Hashes en paralelo y en caché por ruta + fecha de modificación
+     *
+     * @param directoryPath Directorio raíz (si es null o vacío, el directorio base configurado)
+     * @return Grupos de duplicados ordenados por espacio recuperable y contadores de cada fase
+     * @throws RuntimeException si el directorio no existe o no se puede recorrer
+     */
+    @Tool(name = "find_duplicate_files",
+          description = "Busca archivos duplicados por contenido (tamaño, hash parcial y SHA-256)")
+    DuplicateReportDto findDuplicateFiles(String directoryPath);
+
     /**
      * [OPCIONAL - Muy utilitario] CE1.c: Valida la estructura de un directorio de datos
      *
@@ -218,6 +471,23 @@ public interface FileUserService {
           description = "Obtiene información detallada de archivo (tamaño, permisos, fecha)")
     String getFileInfo(String filePath);
 
+    /**
+     * CE1.a: Obtiene la información de muchos archivos a la vez
+     *
+     * Implementación:
+     * - Una única lectura de PosixFileAttributes por archivo (BasicFileAttributes si no es POSIX)
+     *   en lugar de exists, isFile, length, lastModified, canRead... por separado
+     * - Reparte las rutas entre los hilos del pool de E/S y conserva el orden de entrada
+     * - Un archivo inexistente o ilegible no interrumpe el lote
+     *
+     * @param filePaths Rutas de los archivos
+     * @return Información estructurada de cada ruta, en el mismo orden
+     * @throws RuntimeException si la lista está vacía o supera el máximo por llamada
+     */
+    @Tool(name = "get_file_info_batch",
+          description = "Obtiene información de muchos archivos en paralelo con una lectura de atributos por archivo")
+    List<FileInfoDto> getFileInfoBatch(List<String> filePaths);
+
     /**
      * ACTIVIDAD 4 DEL PDF: Busca texto en un archivo línea por línea
      * 
@@ -291,6 +561,78 @@ public interface FileUserService {
           description = "Escribe en posición específica usando RandomAccessFile")
     boolean randomAccessWrite(String filePath, long position, String content);
 
+    /**
+     * ACCESO ALEATORIO: Lee muchos fragmentos (posición, longitud) de un archivo en una sola llamada
+     *
+     * Implementación:
+     * - Ordenar los fragmentos por posición y fusionar los contiguos o solapados
+     * - Abrir un único FileChannel para todo el lote
+     * - Leer cada tramo con read(ByteBuffer, long) posicional (seguro entre hilos)
+     * - Leer en paralelo cuando el lote es grande
+     * - En un contenedor comprimido indexado (.bgzi) las posiciones son del contenido sin
+     *   comprimir y solo se descomprimen los bloques que solapan los fragmentos
+     *
+     * @param filePath Ruta del archivo
+     * @param ranges Fragmentos a leer (posición y longitud en bytes)
+     * @return Contenido de cada fragmento, en el mismo orden que la petición
+     * @throws IllegalArgumentException si el lote supera app.file-service.batch-read.max-ranges
+     *         fragmentos o app.file-service.batch-read.max-total-bytes bytes pedidos
+     * @throws RuntimeException si hay error de acceso
+     */
+    @Tool(name = "random_access_read_batch",
+          description = "Lee muchos fragmentos (posición, longitud) de un archivo usando un único FileChannel; admite contenedores comprimidos indexados")
+    List<String> randomAccessReadBatch(String filePath, List<FileRangeDto> ranges);
+
+    /**
+     * BÚSQUEDA POR BLOQUES: Busca texto repartiendo el archivo en bloques entre varios hilos
+     *
+     * Implementación:
+     * - Contenedor comprimido indexado (.bgzi): cada hilo descomprime y recorre un bloque
+     * - Archivo sin comprimir: bloques de 64 KB leídos con lecturas posicionales
+     * - Las coincidencias que cruzan el borde entre dos bloques se buscan al unir los resultados
+     * - Devuelve posiciones del contenido sin comprimir, utilizables con random_access_read_batch
+     *
+     * @param filePath Ruta del archivo
+     * @param searchText Texto a buscar (UTF-8, hasta un bloque de longitud)
+     * @return Total de coincidencias y sus primeras posiciones
+     * @throws RuntimeException si el archivo no existe, está corrupto o el texto no es válido
+     */
+    @Tool(name = "search_text_blocks",
+          description = "Busca texto en paralelo por bloques (también en contenedores comprimidos indexados .bgzi) y devuelve las posiciones")
+    BlockIndexedFile.SearchResult searchTextBlocks(String filePath, String searchText);
+
+    /**
+     * ACCESO ALEATORIO: Escribe en posición específica con garantía de durabilidad
+     *
+     * Implementación:
+     * - Con WAL habilitado (app.file-service.wal.enabled): la escritura se añade al log,
+     *   se confirma tras un único force() compartido por todos los escritores concurrentes
+     *   (group commit) y se aplica al archivo destino de forma asíncrona
+     * - Al arrancar se reaplican las escrituras del log que no llegaron al destino
+     * - Sin WAL: escritura posicional con FileChannel y force() en cada llamada
+     *
+     * @param filePath Ruta del archivo
+     * @param position Posición en bytes donde escribir
+     * @param content Contenido a escribir (UTF-8)
+     * @return true cuando la escritura es durable
+     * @throws RuntimeException si hay error de acceso
+     */
+    @Tool(name = "random_access_write_durable",
+          description = "Escribe en posición específica con durabilidad (WAL con group commit)")
+    boolean randomAccessWriteDurable(String filePath, long position, String content);
+
+    /**
+     * ACCESO ALEATORIO: Métricas del pool de FileChannel compartido
+     *
+     * Las herramientas de acceso posicional reutilizan canales abiertos en lugar
+     * de abrir y cerrar el archivo en cada llamada.
+     *
+     * @return Aperturas, aciertos, expulsiones y canales abiertos actualmente
+     */
+    @Tool(name = "get_channel_pool_stats",
+          description = "Devuelve métricas del pool de FileChannel (aperturas, aciertos, expulsiones)")
+    FileChannelPool.Stats getChannelPoolStats();
+
     /**
      * CODIFICACIÓN: Convierte archivo entre diferentes codificaciones
      * 
@@ -312,6 +654,48 @@ public interface FileUserService {
     boolean convertFileEncoding(String sourceFile, String targetFile, 
                                String sourceCharset, String targetCharset);
 
+    /**
+     * CODIFICACIÓN: Convierte archivos grandes entre codificaciones sin pasar por String
+     *
+     * Implementación:
+     * - Bucle CharsetDecoder/CharsetEncoder sobre FileChannel con buffers reutilizados
+     * - Si ambas codificaciones son compatibles con ASCII, el prefijo ASCII se copia
+     *   con transferTo (un archivo 100% ASCII no se decodifica)
+     * - Si el origen es de un byte por carácter (ISO-8859-1, Windows-1252) el archivo
+     *   se convierte por bloques en paralelo
+     * - El destino se escribe de forma atómica cuando app.file-service.atomic-writes está activo
+     * - Con sourceCharset "auto" la codificación se detecta como en detect_file_encoding
+     *   y el BOM del origen no se copia al destino
+     *
+     * @param sourceFile Archivo origen
+     * @param targetFile Archivo destino
+     * @param sourceCharset Codificación origen (ej: "ISO-8859-1") o "auto"
+     * @param targetCharset Codificación destino (ej: "UTF-8")
+     * @return Estrategia usada y bytes leídos/escritos
+     * @throws RuntimeException si la codificación no existe o hay bytes/caracteres no convertibles
+     */
+    @Tool(name = "transcode_file",
+          description = "Convierte archivos grandes entre codificaciones (streaming, transferTo y bloques en paralelo)")
+    CharsetTranscoder.Result transcodeFile(String sourceFile, String targetFile,
+                                           String sourceCharset, String targetCharset);
+
+    /**
+     * CODIFICACIÓN: Detecta la codificación de un archivo sin leerlo entero
+     *
+     * Implementación:
+     * - Comprobar el BOM (UTF-8, UTF-16, UTF-32)
+     * - Validar UTF-8 sobre ventanas de muestra acotadas (principio, mitad y final)
+     * - Si no es UTF-8: estadística de bytes altos para ISO-8859-1 / Windows-1252
+     * - Resultado en caché por identidad del archivo (ruta, tamaño y fecha de modificación)
+     *
+     * @param filePath Ruta del archivo
+     * @return Codificación detectada, longitud del BOM, método y confianza
+     * @throws RuntimeException si el archivo no existe o no se puede leer
+     */
+    @Tool(name = "detect_file_encoding",
+          description = "Detecta la codificación de un archivo (BOM, validación UTF-8 por muestras, ISO-8859-1/Windows-1252)")
+    CharsetDetector.Detection detectFileEncoding(String filePath);
+
     /**
      * [OPCIONAL - Poco valor sobre flujos] ARCHIVOS TEMPORALES: Crea archivo temporal y devuelve información
      *
@@ -379,4 +763,27 @@ public interface FileUserService {
     @Tool(name = "format_text_file",
           description = "Formatea texto eliminando espacios extra y aplicando mayúsculas")
     String formatTextFile(String sourceFile);
+
+    /**
+     * PROCESAMIENTO DE TEXTO: Pipeline en streaming con etapas configurables
+     *
+     * Implementación:
+     * - Lector → etapas → escritor con buffers acotados (memoria constante para cualquier tamaño)
+     * - Etapas: trim, collapse_whitespace, lowercase, uppercase, capitalize,
+     *   regex_replace (pattern + replacement) y dedupe (líneas repetidas consecutivas)
+     * - Las etapas de carácter consecutivas se fusionan en una única pasada por línea,
+     *   sin Strings intermedios
+     * - El origen se lee con la codificación detectada y el destino se escribe en UTF-8 de forma atómica
+     *
+     * Ejemplo equivalente a formatTextFile: [trim, collapse_whitespace, capitalize]
+     *
+     * @param sourceFile Archivo origen
+     * @param targetFile Archivo destino; si es null se crea un archivo temporal
+     * @param stages Etapas en orden de aplicación
+     * @return Ruta del archivo generado
+     * @throws RuntimeException si una etapa no es válida o hay error de lectura/escritura
+     */
+    @Tool(name = "transform_text_file",
+          description = "Transforma un archivo de texto en streaming con etapas (trim, espacios, mayúsculas, regex, dedupe)")
+    String transformTextFile(String sourceFile, String targetFile, List<TextStageDto> stages);
 }
\ No newline at end of file
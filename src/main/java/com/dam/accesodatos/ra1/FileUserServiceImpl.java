@@ -1,7 +1,47 @@
 package com.dam.accesodatos.ra1;
 
+import com.dam.accesodatos.config.FileServiceConfig;
+import com.dam.accesodatos.model.DirectoryScanDto;
+import com.dam.accesodatos.model.DuplicateReportDto;
+import com.dam.accesodatos.model.FileInfoDto;
+import com.dam.accesodatos.model.FileListingPageDto;
+import com.dam.accesodatos.model.FileListingQueryDto;
+import com.dam.accesodatos.model.FileRangeDto;
+import com.dam.accesodatos.model.TextStageDto;
 import com.dam.accesodatos.model.User;
+import com.dam.accesodatos.model.UserQueryDto;
+import com.dam.accesodatos.ra1.fs.DirectoryLister;
+import com.dam.accesodatos.ra1.fs.DirectoryScanner;
+import com.dam.accesodatos.ra1.fs.DuplicateFinder;
+import com.dam.accesodatos.ra1.fs.FileInfoReader;
+import com.dam.accesodatos.ra1.io.AtomicFileWriter;
+import com.dam.accesodatos.ra1.io.BlockIndexedFile;
+import com.dam.accesodatos.ra1.io.Compression;
+import com.dam.accesodatos.ra1.io.CountingInputStream;
+import com.dam.accesodatos.ra1.io.FileChannelPool;
+import com.dam.accesodatos.ra1.io.StripedFileLocks;
+import com.dam.accesodatos.ra1.io.VectoredFileReader;
+import com.dam.accesodatos.ra1.io.WriteAheadLog;
+import com.dam.accesodatos.ra1.metrics.ToolMetrics;
+import com.dam.accesodatos.ra1.records.ExternalUserSorter;
+import com.dam.accesodatos.ra1.records.UserAggregator;
+import com.dam.accesodatos.ra1.records.UserFileConverter;
+import com.dam.accesodatos.ra1.records.UserFileDiff;
+import com.dam.accesodatos.ra1.records.UserField;
+import com.dam.accesodatos.ra1.records.UserFormat;
+import com.dam.accesodatos.ra1.records.UserRecordReader;
+import com.dam.accesodatos.ra1.records.UserRecordReaders;
+import com.dam.accesodatos.ra1.records.UserRecordWriter;
+import com.dam.accesodatos.ra1.records.UserRecordWriters;
+import com.dam.accesodatos.ra1.records.UserTable;
+import com.dam.accesodatos.ra1.records.UserTableCache;
+import com.dam.accesodatos.ra1.store.ContentStore;
+import com.dam.accesodatos.ra1.text.CharsetDetector;
+import com.dam.accesodatos.ra1.text.CharsetTranscoder;
+import com.dam.accesodatos.ra1.text.TextPipeline;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.w3c.dom.Document;
 import org.xml.sax.helpers.DefaultHandler;
@@ -16,13 +56,26 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * IMPLEMENTACIÓN PARA ESTUDIANTES - RA1: Gestión de Ficheros
@@ -45,12 +98,81 @@ import java.util.List;
 @Service
 public class FileUserServiceImpl implements FileUserService {
 
+    /** Valor de sourceCharset que activa la detección automática */
+    private static final String AUTO_CHARSET = "auto";
+
+    /** Máximo de rutas por llamada a get_file_info_batch */
+    private static final int MAX_FILE_INFO_BATCH = 10_000;
+
+    /** Máximo de posiciones devueltas por search_text_blocks (el total se cuenta igualmente) */
+    private static final int MAX_SEARCH_OFFSETS = 1_000;
+
     private final ObjectMapper objectMapper;
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private final FileChannelPool channelPool;
+    private final WriteAheadLog writeAheadLog;
+    private final StripedFileLocks fileLocks;
+    private final boolean atomicWrites;
+    private final int batchReadMaxRanges;
+    private final long batchReadMaxTotalBytes;
+    private final Path tempPath;
+    private final CharsetDetector charsetDetector = new CharsetDetector();
+    private final DirectoryLister directoryLister;
+    private final ForkJoinPool ioPool;
+    private final DirectoryScanner directoryScanner;
+    private final FileInfoReader fileInfoReader;
+    private final DuplicateFinder duplicateFinder;
+    private final ContentStore contentStore;
+    private final UserFileConverter userFileConverter;
+    private final ExternalUserSorter externalUserSorter;
+    private final UserFileDiff userFileDiff = new UserFileDiff();
+    private final UserTableCache userTables;
+    private final UserAggregator userAggregator;
+    private final ToolMetrics metrics;
+    private final Path basePath;
 
     public FileUserServiceImpl() {
+        this(new FileServiceConfig());
+    }
+
+    public FileUserServiceImpl(FileServiceConfig config) {
+        this(config, new ToolMetrics());
+    }
+
+    @Autowired
+    public FileUserServiceImpl(FileServiceConfig config, ToolMetrics metrics) {
+        this.metrics = metrics;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.findAndRegisterModules(); // Para LocalDateTime
+        this.channelPool = new FileChannelPool(config.getChannelPoolMaxOpen(),
+                Duration.ofSeconds(config.getChannelPoolIdleTimeoutSeconds()));
+        this.fileLocks = new StripedFileLocks(config.getLockStripes(), channelPool);
+        this.writeAheadLog = config.isWalEnabled() ? openWriteAheadLog(config.getWalPath()) : null;
+        this.atomicWrites = config.isAtomicWrites();
+        this.batchReadMaxRanges = config.getBatchReadMaxRanges();
+        this.batchReadMaxTotalBytes = config.getBatchReadMaxTotalBytes();
+        this.tempPath = Paths.get(config.getTempPath());
+        this.directoryLister = new DirectoryLister(Duration.ofSeconds(config.getListingCacheTtlSeconds()),
+                config.getListingMaxCachedDirectories());
+        this.ioPool = new ForkJoinPool(config.getIoParallelism());
+        this.directoryScanner = new DirectoryScanner(ioPool, config.getScanLargestFiles());
+        this.fileInfoReader = new FileInfoReader(ioPool);
+        this.duplicateFinder = new DuplicateFinder(ioPool, config.getDuplicatesHashCacheSize());
+        this.contentStore = new ContentStore(Paths.get(config.getCasPath()), config.getCasAverageChunkSize());
+        this.userFileConverter = new UserFileConverter(config.getConvertBatchSize(), config.getConvertQueueCapacity());
+        this.externalUserSorter = new ExternalUserSorter(ioPool, config.getMergeRunSize(), config.getMergeFanIn());
+        this.userTables = new UserTableCache(config.getQueryCacheSize());
+        this.userAggregator = new UserAggregator(ioPool, config.getAggregateMinChunkSize());
+        this.basePath = Paths.get(config.getBasePath());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+        channelPool.close();
+        ioPool.shutdownNow();
     }
 
     // ========================================================================================
@@ -112,6 +234,21 @@ public class FileUserServiceImpl implements FileUserService {
                            tipo, tamaño, permisos, fechaFormateada);
     }
 
+    @Override
+    public List<FileInfoDto> getFileInfoBatch(List<String> filePaths) {
+        /*
+         * Información en lote (implementada): una lectura de PosixFileAttributes por archivo,
+         * repartida entre los hilos del pool de E/S. Los errores de una ruta van en su DTO.
+         */
+        if (filePaths == null || filePaths.isEmpty()) {
+            throw new RuntimeException("La lista de rutas no puede estar vacía");
+        }
+        if (filePaths.size() > MAX_FILE_INFO_BATCH) {
+            throw new RuntimeException("Demasiadas rutas: " + filePaths.size() + " (máximo " + MAX_FILE_INFO_BATCH + ")");
+        }
+        return fileInfoReader.read(filePaths);
+    }
+
     @Override
     public String compareIOPerformance(String filePath) {
         /*
@@ -241,6 +378,119 @@ public class FileUserServiceImpl implements FileUserService {
         throw new UnsupportedOperationException("TODO: Implementar randomAccessWrite usando RandomAccessFile");
     }
 
+    @Override
+    public List<String> randomAccessReadBatch(String filePath, List<FileRangeDto> ranges) {
+        /*
+         * Lectura aleatoria por lotes (implementada):
+         * a diferencia de randomAccessRead(), que abre un RandomAccessFile por fragmento,
+         * aquí se usa un único FileChannel del pool compartido y cada tramo fusionado
+         * se lee con una lectura posicional (ver VectoredFileReader).
+         */
+        Path path = Paths.get(filePath);
+        if (!Files.isRegularFile(path)) {
+            throw new RuntimeException("Archivo no encontrado: " + filePath);
+        }
+
+        awaitDurableWrites(path);
+
+        long[] positions = new long[ranges.size()];
+        int[] lengths = new int[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            positions[i] = ranges.get(i).getPosition();
+            lengths[i] = ranges.get(i).getLength();
+        }
+        VectoredFileReader.checkLimits(lengths, batchReadMaxRanges, batchReadMaxTotalBytes);
+
+        try (StripedFileLocks.Handle lock = fileLocks.lockForRead(path);
+             FileChannelPool.Lease lease = channelPool.acquire(path, false)) {
+            // En un contenedor indexado solo se descomprimen los bloques que tocan los fragmentos
+            BlockIndexedFile indexed = BlockIndexedFile.openCached(lease, path);
+            byte[][] fragments = indexed != null
+                    ? indexed.read(positions, lengths, ioPool)
+                    : VectoredFileReader.read(lease.channel(), positions, lengths);
+
+            List<String> result = new ArrayList<>(fragments.length);
+            for (byte[] fragment : fragments) {
+                result.add(new String(fragment, StandardCharsets.UTF_8));
+            }
+            return result;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new RuntimeException("Error en lectura aleatoria por lotes: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public BlockIndexedFile.SearchResult searchTextBlocks(String filePath, String searchText) {
+        /*
+         * Búsqueda por bloques (implementada): a diferencia de searchTextInFile(), que lee
+         * línea a línea, los bloques de 64 KB se reparten entre los hilos del pool de E/S.
+         * En un contenedor indexado cada hilo descomprime solo su bloque.
+         */
+        Path path = Paths.get(filePath);
+        if (!Files.isRegularFile(path)) {
+            throw new RuntimeException("Archivo no encontrado: " + filePath);
+        }
+        if (searchText == null || searchText.isEmpty()) {
+            throw new RuntimeException("El texto a buscar no puede estar vacío");
+        }
+
+        awaitDurableWrites(path);
+
+        try (StripedFileLocks.Handle lock = fileLocks.lockForRead(path);
+             FileChannelPool.Lease lease = channelPool.acquire(path, false)) {
+            BlockIndexedFile indexed = BlockIndexedFile.openCached(lease, path);
+            BlockIndexedFile file = indexed != null ? indexed : BlockIndexedFile.plain(lease.channel());
+            return file.search(searchText.getBytes(StandardCharsets.UTF_8), MAX_SEARCH_OFFSETS, ioPool);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error buscando texto en " + filePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean randomAccessWriteDurable(String filePath, long position, String content) {
+        /*
+         * Escritura posicional durable (implementada):
+         * - Con WAL: se confirma tras el group commit del log; el destino se actualiza en segundo plano
+         * - Sin WAL: escritura directa con el canal del pool y force() en cada llamada
+         */
+        Path path = Paths.get(filePath);
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+
+        try {
+            if (writeAheadLog != null) {
+                // Sin bloqueo: la cola del WAL ya ordena las escrituras y el aplicador las
+                // escribe en ese orden, así que esperar al group commit no frena a nadie más
+                writeAheadLog.append(path, position, data).get();
+                return true;
+            }
+
+            try (StripedFileLocks.Handle lock = fileLocks.lockForWrite(path);
+                 FileChannelPool.Lease lease = channelPool.acquire(path, true)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                long offset = position;
+                while (buffer.hasRemaining()) {
+                    offset += lease.channel().write(buffer, offset);
+                }
+                lease.channel().force(false);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Escritura durable interrumpida: " + filePath, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error en escritura durable: " + e.getCause().getMessage(), e.getCause());
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            throw new RuntimeException("Error en escritura durable: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public FileChannelPool.Stats getChannelPoolStats() {
+        return channelPool.stats();
+    }
+
     @Override
     public boolean convertFileEncoding(String sourceFile, String targetFile, 
                                      String sourceCharset, String targetCharset) {
@@ -265,6 +515,83 @@ public class FileUserServiceImpl implements FileUserService {
         throw new UnsupportedOperationException("TODO: Implementar convertFileEncoding usando InputStreamReader/OutputStreamWriter");
     }
 
+    @Override
+    public CharsetTranscoder.Result transcodeFile(String sourceFile, String targetFile,
+                                                  String sourceCharset, String targetCharset) {
+        /*
+         * Conversión de codificación para archivos grandes (implementada):
+         * a diferencia de convertFileEncoding(), no crea un String por línea; ver CharsetTranscoder.
+         * Con escritura atómica el destino puede ser el propio origen.
+         */
+        Path source = Paths.get(sourceFile);
+        Path target = Paths.get(targetFile);
+        if (!Files.isRegularFile(source)) {
+            throw new RuntimeException("Archivo no encontrado: " + sourceFile);
+        }
+
+        try {
+            Charset to = Charset.forName(targetCharset);
+            Charset from;
+            long sourceOffset = 0;
+            if (AUTO_CHARSET.equalsIgnoreCase(sourceCharset)) {
+                CharsetDetector.Detection detection = charsetDetector.detect(source);
+                from = detection.charset();
+                sourceOffset = detection.getBomLength();
+            } else {
+                from = Charset.forName(sourceCharset);
+            }
+
+            CharsetTranscoder.Result result;
+            if (atomicWrites) {
+                try (AtomicFileWriter file = AtomicFileWriter.create(target, tempPath)) {
+                    try (StripedFileLocks.Handle lock = fileLocks.lockForRead(source);
+                         FileChannelPool.Lease lease = channelPool.acquire(source, false)) {
+                        result = CharsetTranscoder.transcode(lease.channel(), sourceOffset, from, file.channel(), to);
+                    }
+                    commitLocked(file, target);
+                }
+            } else {
+                if (Files.exists(target) && Files.isSameFile(source, target)) {
+                    throw new RuntimeException("Sin escritura atómica el origen y el destino deben ser distintos");
+                }
+                // Solo se bloquea el destino: origen y destino pueden caer en la misma stripe
+                try (StripedFileLocks.Handle lock = fileLocks.lockForWrite(target);
+                     FileChannelPool.Lease lease = channelPool.acquire(source, false);
+                     FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                             StandardOpenOption.TRUNCATE_EXISTING)) {
+                    result = CharsetTranscoder.transcode(lease.channel(), sourceOffset, from, out, to);
+                    out.force(false);
+                }
+            }
+            fileWritten(target);
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Codificación no soportada: " + e.getMessage(), e);
+        } catch (CharacterCodingException e) {
+            throw new RuntimeException("Error de codificación: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error convirtiendo codificación: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public CharsetDetector.Detection detectFileEncoding(String filePath) {
+        /*
+         * Detección de codificación (implementada): se leen como mucho tres ventanas
+         * del archivo y el resultado se reutiliza mientras el archivo no cambie.
+         */
+        Path path = Paths.get(filePath);
+        if (!Files.isRegularFile(path)) {
+            throw new RuntimeException("Archivo no encontrado: " + filePath);
+        }
+
+        try (StripedFileLocks.Handle lock = fileLocks.lockForRead(path)) {
+            return charsetDetector.detect(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Error detectando codificación: " + e.getMessage(), e);
+        }
+    }
+
     // ========================================================================================
     // CE1.c: UTILIZACIÓN DE CLASES PARA GESTIÓN DE FICHEROS Y DIRECTORIOS
     // ========================================================================================
@@ -291,6 +618,65 @@ public class FileUserServiceImpl implements FileUserService {
         throw new UnsupportedOperationException("TODO: Implementar listUserFiles usando Files.list()");
     }
 
+    @Override
+    public FileListingPageDto listFilesPage(FileListingQueryDto query) {
+        /*
+         * Listado paginado (implementado): el directorio se recorre una vez con DirectoryStream
+         * y las páginas siguientes se sirven desde la instantánea mientras no caduque.
+         */
+        if (query == null || query.getDirectoryPath() == null || query.getDirectoryPath().isBlank()) {
+            throw new RuntimeException("directoryPath es obligatorio");
+        }
+        Path directory = Paths.get(query.getDirectoryPath());
+        if (!Files.isDirectory(directory)) {
+            throw new RuntimeException("Directorio no encontrado: " + query.getDirectoryPath());
+        }
+
+        try {
+            return directoryLister.list(query);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error listando directorio: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public DirectoryScanDto scanDirectoryTree(String directoryPath) {
+        /*
+         * Recorrido recursivo (implementado): una tarea fork-join por directorio, cada una con
+         * sus propios contadores, que se fusionan al terminar.
+         */
+        Path root = directoryPath == null || directoryPath.isBlank() ? basePath : Paths.get(directoryPath);
+        if (!Files.isDirectory(root)) {
+            throw new RuntimeException("Directorio no encontrado: " + root);
+        }
+
+        try {
+            return directoryScanner.scan(root);
+        } catch (IOException e) {
+            throw new RuntimeException("Error recorriendo directorio: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public DuplicateReportDto findDuplicateFiles(String directoryPath) {
+        /*
+         * Duplicados (implementado): solo se leen los archivos que comparten tamaño, y completos
+         * solo los que además coinciden en el hash parcial. Los hashes quedan en caché.
+         */
+        Path root = directoryPath == null || directoryPath.isBlank() ? basePath : Paths.get(directoryPath);
+        if (!Files.isDirectory(root)) {
+            throw new RuntimeException("Directorio no encontrado: " + root);
+        }
+
+        try {
+            return duplicateFinder.find(root);
+        } catch (IOException e) {
+            throw new RuntimeException("Error buscando duplicados: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public boolean validateDirectoryStructure(String basePath) {
         /*
@@ -374,6 +760,66 @@ public class FileUserServiceImpl implements FileUserService {
         throw new UnsupportedOperationException("TODO: Implementar formatTextFile basado en ejemplo ArreglarFichero de la presentación vista en clase");
     }
 
+    @Override
+    public String transformTextFile(String sourceFile, String targetFile, List<TextStageDto> stages) {
+        /*
+         * Pipeline de texto en streaming (implementada): generaliza formatTextFile()
+         * con etapas configurables fusionadas en una sola pasada y memoria constante.
+         * El origen se decodifica con la codificación detectada y el destino se escribe en UTF-8.
+         * Un origen comprimido (gzip/BGZF) o deduplicado (manifiesto) se reconstruye al vuelo y se
+         * lee como UTF-8: la detección muestrea posiciones del archivo y en un flujo no hay acceso aleatorio.
+         */
+        Path source = Paths.get(sourceFile);
+        if (!Files.isRegularFile(source)) {
+            throw new RuntimeException("Archivo no encontrado: " + sourceFile);
+        }
+
+        try {
+            TextPipeline pipeline = TextPipeline.compile(stages);
+            Path target = targetFile == null || targetFile.isBlank()
+                    ? Files.createTempFile(Files.createDirectories(tempPath), "transform_", ".txt")
+                    : Paths.get(targetFile);
+
+            boolean compressed = Compression.detect(source) != Compression.NONE || ContentStore.isManifest(source);
+            CharsetDetector.Detection detection = compressed ? null : charsetDetector.detect(source);
+            CharsetDecoder decoder = (compressed ? StandardCharsets.UTF_8 : detection.charset()).newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+            try (AtomicFileWriter file = AtomicFileWriter.create(target, tempPath)) {
+                try (StripedFileLocks.Handle lock = fileLocks.lockForRead(source);
+                     InputStream in = compressed ? openContent(source) : Files.newInputStream(source)) {
+                    if (compressed) {
+                        skipUtf8Bom(in);
+                    } else {
+                        in.skipNBytes(detection.getBomLength());
+                    }
+                    Reader reader = new InputStreamReader(in, decoder);
+                    Writer writer = new OutputStreamWriter(file.stream(), StandardCharsets.UTF_8);
+                    pipeline.run(reader, writer);
+                }
+                commitLocked(file, target);
+            }
+            fileWritten(target);
+            return target.toString();
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error transformando texto: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Salta la marca BOM UTF-8 si el flujo empieza por ella (Compression.open devuelve flujos con mark)
+     */
+    private static void skipUtf8Bom(InputStream in) throws IOException {
+        in.mark(3);
+        byte[] head = in.readNBytes(3);
+        if (head.length < 3 || (head[0] & 0xFF) != 0xEF || (head[1] & 0xFF) != 0xBB || (head[2] & 0xFF) != 0xBF) {
+            in.reset();
+        }
+    }
+
     // ========================================================================================
     // CE1.d: ESCRITURA Y LECTURA DE INFORMACIÓN EN FORMATO XML
     // ========================================================================================
@@ -470,6 +916,353 @@ public class FileUserServiceImpl implements FileUserService {
         */
     }
 
+    @Override
+    public boolean exportUsers(List<User> users, String filePath, String format, String compression) {
+        /*
+         * Exportación en streaming (implementada):
+         * cada usuario se serializa directamente al flujo del archivo, sin construir
+         * el documento en memoria. Con escritura atómica el destino solo se sustituye
+         * cuando el temporal está completo y forzado a disco. La compresión va entre el
+         * escritor de registros y el archivo, así que tampoco necesita el documento entero.
+         */
+        Path target = Paths.get(filePath);
+
+        try {
+            UserFormat userFormat = format == null || format.isBlank()
+                    ? UserFormat.fromPath(target) : UserFormat.of(format);
+            Compression codec = compression == null || compression.isBlank()
+                    ? Compression.fromPath(target) : Compression.of(compression);
+
+            if (atomicWrites) {
+                try (AtomicFileWriter file = AtomicFileWriter.create(target, tempPath)) {
+                    try (OutputStream out = codec.wrap(file.stream())) {
+                        writeUsers(users, userFormat, out);
+                    }
+                    commitLocked(file, target);
+                }
+            } else {
+                try (StripedFileLocks.Handle lock = fileLocks.lockForWrite(target);
+                     OutputStream file = new BufferedOutputStream(Files.newOutputStream(target,
+                             StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+                     OutputStream out = codec.wrap(file)) {
+                    writeUsers(users, userFormat, out);
+                }
+            }
+            fileWritten(target);
+            return true;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error exportando usuarios a " + filePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public ContentStore.StoreResult exportUsersDeduplicated(List<User> users, String filePath, String format) {
+        /*
+         * Exportación deduplicada (implementada): el contenido se trocea mientras se serializa
+         * y solo se escriben los fragmentos que no estaban ya en el almacén.
+         */
+        Path target = Paths.get(filePath);
+
+        try {
+            UserFormat userFormat = format == null || format.isBlank()
+                    ? UserFormat.fromPath(target) : UserFormat.of(format);
+
+            ContentStore.StoreResult result;
+            try (ContentStore.ManifestWriter manifest = contentStore.create(target, tempPath)) {
+                writeUsers(users, userFormat, manifest.stream());
+                // Igual que commitLocked(): el manifiesto también sustituye el destino
+                awaitDurableWrites(target);
+                try (StripedFileLocks.Handle lock = fileLocks.lockForWrite(target)) {
+                    result = manifest.commit();
+                    channelPool.invalidate(target);
+                }
+            }
+            fileWritten(target);
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error exportando usuarios a " + filePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String restoreDeduplicatedFile(String manifestPath, String targetPath) {
+        /*
+         * Restauración (implementada): fragmentos verificados uno a uno y escritura atómica.
+         */
+        Path manifest = Paths.get(manifestPath);
+        Path target = Paths.get(targetPath);
+        if (!Files.isRegularFile(manifest)) {
+            throw new RuntimeException("Manifiesto no encontrado: " + manifestPath);
+        }
+
+        try (AtomicFileWriter file = AtomicFileWriter.create(target, tempPath)) {
+            try (StripedFileLocks.Handle lock = fileLocks.lockForRead(manifest)) {
+                contentStore.restore(manifest, file.stream());
+            }
+            commitLocked(file, target);
+            fileWritten(target);
+            return target.toString();
+        } catch (IOException e) {
+            throw new RuntimeException("Error restaurando " + manifestPath + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public long convertUserFile(String sourcePath, String sourceFormat, String targetPath,
+                                String targetFormat, String compression) {
+        /*
+         * Conversión en streaming (implementada): en lugar de readUsersFromCSV() +
+         * writeUsersToXML(), que dejan la lista completa en memoria, un hilo analiza el origen
+         * y otro serializa el destino con una cola acotada entre ambos (UserFileConverter).
+         * El origen puede estar comprimido o deduplicado (se detecta por su contenido).
+         */
+        Path source = Paths.get(sourcePath);
+        Path target = Paths.get(targetPath);
+        if (!Files.isRegularFile(source)) {
+            throw new RuntimeException("Archivo no encontrado: " + sourcePath);
+        }
+        if (source.toAbsolutePath().normalize().equals(target.toAbsolutePath().normalize())) {
+            throw new RuntimeException("El origen y el destino de la conversión deben ser archivos distintos");
+        }
+
+        try {
+            UserFormat from = sourceFormat == null || sourceFormat.isBlank()
+                    ? UserFormat.fromPath(source) : UserFormat.of(sourceFormat);
+            UserFormat to = targetFormat == null || targetFormat.isBlank()
+                    ? UserFormat.fromPath(target) : UserFormat.of(targetFormat);
+            Compression codec = compression == null || compression.isBlank()
+                    ? Compression.fromPath(target) : Compression.of(compression);
+
+            // Siempre con temporal y movimiento atómico, como transformTextFile(): escribir el
+            // destino bajo su bloqueo exclusivo mientras se tiene el de lectura del origen
+            // podría bloquearse si ambos caen en la misma stripe
+            long converted;
+            try (AtomicFileWriter file = AtomicFileWriter.create(target, tempPath)) {
+                try (UserRecordReader reader = openUserReader(source, from);
+                     OutputStream out = codec.wrap(file.stream());
+                     UserRecordWriter writer = UserRecordWriters.open(to, out)) {
+                    converted = userFileConverter.convert(reader, writer);
+                }
+                commitLocked(file, target);
+            }
+            fileWritten(target);
+            return converted;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error convirtiendo " + sourcePath + " a " + targetPath + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public ExternalUserSorter.Result mergeUserFiles(List<String> sourcePaths, String targetPath,
+                                                    String targetFormat, String compression) {
+        /*
+         * Fusión con ordenación externa (implementada): cada archivo se trocea en tramos
+         * ordenados que se vuelcan a temp-path en paralelo y después se fusionan con un
+         * montículo. La memoria depende de merge.run-size, no del total de usuarios.
+         */
+        if (sourcePaths == null || sourcePaths.isEmpty()) {
+            throw new RuntimeException("Debe indicar al menos un archivo a fusionar");
+        }
+        List<Path> sources = new ArrayList<>(sourcePaths.size());
+        for (String sourcePath : sourcePaths) {
+            Path source = Paths.get(sourcePath);
+            if (!Files.isRegularFile(source)) {
+                throw new RuntimeException("Archivo no encontrado: " + sourcePath);
+            }
+            sources.add(source);
+        }
+        Path target = Paths.get(targetPath);
+
+        try {
+            UserFormat to = targetFormat == null || targetFormat.isBlank()
+                    ? UserFormat.fromPath(target) : UserFormat.of(targetFormat);
+            Compression codec = compression == null || compression.isBlank()
+                    ? Compression.fromPath(target) : Compression.of(compression);
+            for (Path source : sources) {
+                UserFormat.fromPath(source); // Valida todas las extensiones antes de empezar
+            }
+
+            // El destino se escribe cuando todas las entradas ya están en los tramos:
+            // puede coincidir con una de ellas
+            // Los lectores se abren en hilos de ioPool: la herramienta se captura aquí
+            ToolMetrics.ToolStats stats = metrics.current();
+            ExternalUserSorter.Result result;
+            try (AtomicFileWriter file = AtomicFileWriter.create(target, tempPath)) {
+                try (OutputStream out = codec.wrap(file.stream());
+                     UserRecordWriter writer = UserRecordWriters.open(to, out)) {
+                    result = externalUserSorter.sort(sources, source -> openUserReader(source,
+                            UserFormat.fromPath(source), EnumSet.allOf(UserField.class), stats), tempPath, writer);
+                }
+                commitLocked(file, target);
+            }
+            fileWritten(target);
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error fusionando archivos de usuarios: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public UserFileDiff.Result diffUserFiles(String leftPath, String rightPath, String outputPath, String compression) {
+        /*
+         * Diferencias por id (implementada): hash join con una tabla de long primitivos
+         * construida con el archivo menor; el mayor se recorre en streaming contra ella.
+         * Las diferencias se escriben en NDJSON de forma atómica.
+         */
+        Path left = Paths.get(leftPath);
+        Path right = Paths.get(rightPath);
+        if (!Files.isRegularFile(left)) {
+            throw new RuntimeException("Archivo no encontrado: " + leftPath);
+        }
+        if (!Files.isRegularFile(right)) {
+            throw new RuntimeException("Archivo no encontrado: " + rightPath);
+        }
+        Path output = Paths.get(outputPath);
+
+        try {
+            UserFormat leftFormat = UserFormat.fromPath(left);
+            UserFormat rightFormat = UserFormat.fromPath(right);
+            Compression codec = compression == null || compression.isBlank()
+                    ? Compression.fromPath(output) : Compression.of(compression);
+
+            UserFileDiff.Result result;
+            try (AtomicFileWriter file = AtomicFileWriter.create(output, tempPath)) {
+                try (OutputStream out = codec.wrap(file.stream())) {
+                    result = userFileDiff.diff(left, right,
+                            source -> openUserReader(source, source.equals(left) ? leftFormat : rightFormat),
+                            tempPath, out);
+                }
+                commitLocked(file, output);
+            }
+            fileWritten(output);
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error comparando " + leftPath + " con " + rightPath + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> readUsers(String filePath, List<String> fields, Integer offset, Integer limit) {
+        /*
+         * Lectura proyectada (implementada): el lector del formato recibe los campos pedidos y
+         * se salta el resto sin convertirlos; se para en cuanto se completa la página.
+         */
+        int skip = offset == null ? 0 : offset;
+        int max = limit == null ? 100 : limit;
+        if (skip < 0 || max < 0) {
+            throw new RuntimeException("limit y offset deben ser >= 0");
+        }
+        Path path = Paths.get(filePath);
+        if (!Files.isRegularFile(path)) {
+            throw new RuntimeException("Archivo no encontrado: " + filePath);
+        }
+        try {
+            Set<UserField> projection = UserField.parse(fields);
+            UserFormat format = UserFormat.fromPath(path);
+            List<Map<String, Object>> users = new ArrayList<>(Math.min(max, 1024));
+            try (UserRecordReader reader = openUserReader(path, format, projection)) {
+                User user;
+                while (users.size() < max && (user = reader.read()) != null) {
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        users.add(UserField.project(user, projection));
+                    }
+                }
+            }
+            return users;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error leyendo usuarios de " + filePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<User> queryUsers(String filePath, UserQueryDto query) {
+        /*
+         * Consulta por columnas (implementada): el archivo se carga una vez en una UserTable
+         * (arrays primitivos y códigos de diccionario) que queda en caché mientras no cambie.
+         * Los filtros recorren los arrays y solo se crean objetos User para la página pedida.
+         */
+        UserQueryDto filter = query == null ? new UserQueryDto() : query;
+        int limit = filter.getLimit() == null ? 10 : filter.getLimit();
+        int offset = filter.getOffset() == null ? 0 : filter.getOffset();
+        if (limit < 0 || offset < 0) {
+            throw new RuntimeException("limit y offset deben ser >= 0");
+        }
+
+        UserTable table = loadUserTable(filePath);
+        int[] rows = table.select(filter.getDepartment(), filter.getRole(), filter.getActive());
+        int end = (int) Math.min(rows.length, (long) offset + limit);
+        List<User> users = new ArrayList<>(Math.max(0, end - offset));
+        for (int i = offset; i < end; i++) {
+            users.add(table.user(rows[i]));
+        }
+        return users;
+    }
+
+    @Override
+    public UserAggregator.Statistics aggregateUsers(String filePath) {
+        /*
+         * Agregado en streaming (implementada): una sola pasada sin guardar usuarios. Los CSV
+         * y NDJSON sin comprimir se reparten en trozos por saltos de línea y se analizan en
+         * ioPool; el resto se lee en secuencia con el lector del formato.
+         */
+        Path path = Paths.get(filePath);
+        if (!Files.isRegularFile(path)) {
+            throw new RuntimeException("Archivo no encontrado: " + filePath);
+        }
+        try {
+            UserFormat format = UserFormat.fromPath(path);
+            if (UserAggregator.splittable(format) && Compression.detect(path) == Compression.NONE
+                    && !ContentStore.isManifest(path)) {
+                try (StripedFileLocks.Handle lock = fileLocks.lockForRead(path)) {
+                    UserAggregator.Statistics statistics = userAggregator.aggregate(path, format);
+                    metrics.bytesRead(Files.size(path));
+                    metrics.recordsRead(statistics.getTotal());
+                    return statistics;
+                }
+            }
+            try (UserRecordReader reader = openUserReader(path, format)) {
+                return userAggregator.aggregate(reader);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error agregando usuarios de " + filePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    private UserTable loadUserTable(String filePath) {
+        Path path = Paths.get(filePath);
+        if (!Files.isRegularFile(path)) {
+            throw new RuntimeException("Archivo no encontrado: " + filePath);
+        }
+        try {
+            UserFormat format = UserFormat.fromPath(path);
+            return userTables.get(path, source -> {
+                try (UserRecordReader reader = openUserReader(source, format)) {
+                    return UserTable.load(reader);
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error cargando usuarios de " + filePath + ": " + e.getMessage(), e);
+        }
+    }
+
     // ========================================================================================
     // CE1.e: ESCRITURA Y LECTURA DE INFORMACIÓN EN FORMATO JSON
     // ========================================================================================
@@ -615,4 +1408,140 @@ public class FileUserServiceImpl implements FileUserService {
         // PISTA: Path parent = Paths.get(filePath).getParent();
         throw new UnsupportedOperationException("TODO: Implementar createParentDirectories");
     }
-}
\ No newline at end of file
+
+    /**
+     * Abre el WAL de escrituras posicionales y reaplica lo pendiente de una ejecución anterior
+     * @param walPath Ruta del archivo de log
+     * @return WAL listo para aceptar escrituras
+     */
+    private WriteAheadLog openWriteAheadLog(String walPath) {
+        try {
+            return new WriteAheadLog(Paths.get(walPath), channelPool, fileLocks);
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo abrir el WAL " + walPath + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Espera a que las escrituras durables confirmadas sobre el archivo estén aplicadas,
+     * para que las lecturas posicionales las vean
+     * @param path Archivo que se va a leer
+     */
+    private void awaitDurableWrites(Path path) {
+        if (writeAheadLog == null) {
+            return;
+        }
+        try {
+            writeAheadLog.awaitApplied(path);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Lectura interrumpida esperando escrituras del WAL: " + path, e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error esperando escrituras del WAL: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tras escribir un archivo completo: los canales del pool y el listado en caché apuntan al
+     * contenido anterior, y su tamaño cuenta como bytes escritos por la herramienta en curso
+     */
+    private void fileWritten(Path target) throws IOException {
+        channelPool.invalidate(target);
+        directoryLister.invalidate(target.getParent());
+        metrics.bytesWritten(Files.size(target));
+    }
+
+    /**
+     * Sustituye el destino por el temporal ya completo con el bloqueo de escritura del destino,
+     * el mismo que toma el aplicador del WAL: ninguna escritura suya cae en el archivo reemplazado.
+     * Las escrituras ya confirmadas se aplican antes y quedan debajo del contenido nuevo.
+     * No debe llamarse con un bloqueo de lectura tomado (podría ser de la misma stripe)
+     */
+    private void commitLocked(AtomicFileWriter file, Path target) throws IOException {
+        awaitDurableWrites(target);
+        try (StripedFileLocks.Handle lock = fileLocks.lockForWrite(target)) {
+            file.commit();
+            // Antes de soltar el bloqueo, para que el aplicador no reutilice el canal del archivo anterior
+            channelPool.invalidate(target);
+        }
+    }
+
+    /**
+     * Abre el contenido de un archivo: descomprimido según su cabecera o, si es un manifiesto
+     * de export_users_dedup, reconstruido desde el almacén fragmento a fragmento
+     */
+    private InputStream openContent(Path path) throws IOException {
+        return ContentStore.isManifest(path) ? contentStore.open(path) : Compression.open(path);
+    }
+
+    /**
+     * Abre un lector de usuarios que mantiene el bloqueo de lectura del archivo hasta cerrarse
+     */
+    private UserRecordReader openUserReader(Path path, UserFormat format) throws IOException {
+        return openUserReader(path, format, EnumSet.allOf(UserField.class));
+    }
+
+    private UserRecordReader openUserReader(Path path, UserFormat format, Set<UserField> projection) throws IOException {
+        return openUserReader(path, format, projection, metrics.current());
+    }
+
+    /**
+     * @param stats Herramienta a la que se atribuyen bytes y registros (null: ninguna).
+     *              Quien abra lectores desde otro hilo debe capturarla antes con metrics.current()
+     */
+    private UserRecordReader openUserReader(Path path, UserFormat format, Set<UserField> projection,
+                                            ToolMetrics.ToolStats stats) throws IOException {
+        StripedFileLocks.Handle lock = fileLocks.lockForRead(path);
+        InputStream in = null;
+        try {
+            CountingInputStream counted = new CountingInputStream(openContent(path));
+            in = counted;
+            UserRecordReader reader = UserRecordReaders.open(format, in, projection);
+            InputStream stream = in;
+            return new UserRecordReader() {
+                private long records;
+
+                @Override
+                public User read() throws IOException {
+                    User user = reader.read();
+                    if (user != null) {
+                        records++;
+                    }
+                    return user;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    // Se acumula en el lector y se publica una vez al cerrar, en la herramienta que lo abrió
+                    if (stats != null) {
+                        stats.addBytesRead(counted.getCount());
+                        stats.addRecordsRead(records);
+                    }
+                    try (lock; stream; reader) {
+                        // Cierra lector, flujo y bloqueo en orden inverso
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            if (in != null) {
+                in.close();
+            }
+            lock.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Serializa los usuarios en el flujo con el escritor del formato indicado
+     * @param users Usuarios a escribir
+     * @param format Formato de salida
+     * @param out Flujo destino (no se cierra)
+     */
+    private void writeUsers(List<User> users, UserFormat format, OutputStream out) throws IOException {
+        try (UserRecordWriter writer = UserRecordWriters.open(format, out)) {
+            for (User user : users) {
+                writer.write(user);
+            }
+        }
+    }
+}
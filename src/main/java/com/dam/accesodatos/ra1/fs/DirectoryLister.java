@@ -0,0 +1,283 @@
+package com.dam.accesodatos.ra1.fs;
+
+import com.dam.accesodatos.model.FileEntryDto;
+import com.dam.accesodatos.model.FileListingPageDto;
+import com.dam.accesodatos.model.FileListingQueryDto;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Listado paginado de directorios grandes.
+ *
+ * La primera petición recorre el directorio con un {@link DirectoryStream} (sin materializar
+ * una lista de Path) y lee los atributos de cada archivo con una única llamada a
+ * {@link Files#readAttributes(Path, Class, java.nio.file.LinkOption...)}. El resultado se guarda
+ * como instantánea ordenada por nombre (arrays paralelos, sin un objeto por archivo) durante
+ * un TTL, o hasta que cambia la fecha de modificación del directorio (altas, bajas o renombrados).
+ *
+ * El token de continuación es el último nombre devuelto: la página siguiente empieza en el primer
+ * nombre posterior, así que el token sigue siendo válido aunque la instantánea se regenere.
+ */
+public class DirectoryLister {
+
+    /** Tamaño máximo de página */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final long ttlNanos;
+    private final int maxDirectories;
+    private final LongSupplier nanoClock;
+    private final Map<Path, Snapshot> snapshots;
+
+    public DirectoryLister(Duration ttl, int maxDirectories) {
+        this(ttl, maxDirectories, System::nanoTime);
+    }
+
+    DirectoryLister(Duration ttl, int maxDirectories, LongSupplier nanoClock) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxDirectories = maxDirectories;
+        this.nanoClock = nanoClock;
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Snapshot> eldest) {
+                return size() > DirectoryLister.this.maxDirectories;
+            }
+        };
+    }
+
+    /**
+     * Devuelve una página de archivos regulares del directorio que cumplen los filtros
+     * @throws IllegalArgumentException si el token o los filtros no son válidos
+     * @throws IOException si el directorio no existe o no se puede leer
+     */
+    public FileListingPageDto list(FileListingQueryDto query) throws IOException {
+        Path directory = Path.of(query.getDirectoryPath()).toRealPath();
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("No es un directorio: " + query.getDirectoryPath());
+        }
+
+        int pageSize = query.getPageSize() == null ? 100 : query.getPageSize();
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        Filter filter = new Filter(query);
+
+        boolean fromCache = true;
+        Snapshot snapshot = cached(directory);
+        if (snapshot == null) {
+            fromCache = false;
+            snapshot = Snapshot.build(directory, nanoClock.getAsLong());
+            synchronized (snapshots) {
+                snapshots.put(directory, snapshot);
+            }
+        }
+
+        int index = 0;
+        if (query.getContinuationToken() != null && !query.getContinuationToken().isBlank()) {
+            index = snapshot.indexAfter(decodeToken(query.getContinuationToken()));
+        }
+
+        List<FileEntryDto> entries = new ArrayList<>(Math.min(pageSize, snapshot.size()));
+        String nextToken = null;
+        for (; index < snapshot.size(); index++) {
+            if (!filter.accepts(snapshot, index)) {
+                continue;
+            }
+            if (entries.size() == pageSize) {
+                // Hay al menos un archivo más: la siguiente página empieza tras el último devuelto
+                nextToken = encodeToken(entries.get(entries.size() - 1).getName());
+                break;
+            }
+            String name = snapshot.names[index];
+            entries.add(new FileEntryDto(name, directory.resolve(name).toString(),
+                    snapshot.sizes[index], snapshot.modified[index]));
+        }
+        return new FileListingPageDto(directory.toString(), entries, nextToken, fromCache);
+    }
+
+    /**
+     * Descarta la instantánea de un directorio (por ejemplo tras escribir en él)
+     */
+    public void invalidate(Path directory) {
+        try {
+            Path key = directory.toRealPath();
+            synchronized (snapshots) {
+                snapshots.remove(key);
+            }
+        } catch (IOException e) {
+            // El directorio ya no existe: no puede haber instantánea válida
+        }
+    }
+
+    private Snapshot cached(Path directory) throws IOException {
+        Snapshot snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(directory);
+        }
+        if (snapshot == null) {
+            return null;
+        }
+        boolean expired = nanoClock.getAsLong() - snapshot.builtAt > ttlNanos;
+        if (expired || !Files.getLastModifiedTime(directory).equals(snapshot.directoryModified)) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    private static String encodeToken(String name) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeToken(String token) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Token de continuación inválido", e);
+        }
+    }
+
+    /**
+     * Instantánea de un directorio: archivos regulares ordenados por nombre
+     */
+    private static final class Snapshot {
+        private final long builtAt;
+        private final FileTime directoryModified;
+        private final String[] names;
+        private final long[] sizes;
+        private final long[] modified;
+
+        private Snapshot(long builtAt, FileTime directoryModified, String[] names, long[] sizes, long[] modified) {
+            this.builtAt = builtAt;
+            this.directoryModified = directoryModified;
+            this.names = names;
+            this.sizes = sizes;
+            this.modified = modified;
+        }
+
+        static Snapshot build(Path directory, long now) throws IOException {
+            // La fecha se toma antes de recorrer: un cambio durante el recorrido invalida la instantánea
+            FileTime directoryModified = Files.getLastModifiedTime(directory);
+
+            List<String> names = new ArrayList<>();
+            long[] sizes = new long[64];
+            long[] modified = new long[64];
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                    } catch (NoSuchFileException e) {
+                        continue; // Borrado durante el recorrido
+                    }
+                    if (!attributes.isRegularFile()) {
+                        continue;
+                    }
+                    int i = names.size();
+                    if (i == sizes.length) {
+                        sizes = Arrays.copyOf(sizes, i * 2);
+                        modified = Arrays.copyOf(modified, i * 2);
+                    }
+                    names.add(entry.getFileName().toString());
+                    sizes[i] = attributes.size();
+                    modified[i] = attributes.lastModifiedTime().toMillis();
+                }
+            }
+
+            // Ordenar por nombre permutando los arrays paralelos
+            Integer[] order = new Integer[names.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> names.get(a).compareTo(names.get(b)));
+            String[] sortedNames = new String[order.length];
+            long[] sortedSizes = new long[order.length];
+            long[] sortedModified = new long[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedNames[i] = names.get(order[i]);
+                sortedSizes[i] = sizes[order[i]];
+                sortedModified[i] = modified[order[i]];
+            }
+            return new Snapshot(now, directoryModified, sortedNames, sortedSizes, sortedModified);
+        }
+
+        int size() {
+            return names.length;
+        }
+
+        /** Índice del primer nombre estrictamente posterior al indicado */
+        int indexAfter(String name) {
+            int index = Arrays.binarySearch(names, name);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+    }
+
+    /**
+     * Filtros de la consulta: primero los de nombre (baratos), después tamaño y fecha
+     */
+    private static final class Filter {
+        private final PathMatcher glob;
+        private final Set<String> extensions;
+        private final long minSize;
+        private final long maxSize;
+        private final long modifiedAfter;
+        private final long modifiedBefore;
+
+        Filter(FileListingQueryDto query) {
+            try {
+                this.glob = query.getGlob() == null || query.getGlob().isBlank()
+                        ? null : FileSystems.getDefault().getPathMatcher("glob:" + query.getGlob());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Patrón glob inválido: " + query.getGlob(), e);
+            }
+            if (query.getExtensions() == null || query.getExtensions().isEmpty()) {
+                this.extensions = null;
+            } else {
+                this.extensions = new HashSet<>();
+                for (String extension : query.getExtensions()) {
+                    String normalized = extension.toLowerCase(Locale.ROOT);
+                    extensions.add(normalized.startsWith(".") ? normalized.substring(1) : normalized);
+                }
+            }
+            this.minSize = query.getMinSize() == null ? Long.MIN_VALUE : query.getMinSize();
+            this.maxSize = query.getMaxSize() == null ? Long.MAX_VALUE : query.getMaxSize();
+            this.modifiedAfter = query.getModifiedAfter() == null ? Long.MIN_VALUE : query.getModifiedAfter();
+            this.modifiedBefore = query.getModifiedBefore() == null ? Long.MAX_VALUE : query.getModifiedBefore();
+        }
+
+        boolean accepts(Snapshot snapshot, int index) {
+            String name = snapshot.names[index];
+            if (extensions != null) {
+                int dot = name.lastIndexOf('.');
+                if (dot < 0 || !extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+                    return false;
+                }
+            }
+            if (glob != null && !glob.matches(Path.of(name))) {
+                return false;
+            }
+            long size = snapshot.sizes[index];
+            long modified = snapshot.modified[index];
+            return size >= minSize && size <= maxSize
+                    && modified >= modifiedAfter && modified <= modifiedBefore;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.dam.accesodatos.ra1.fs;
+
+import com.dam.accesodatos.model.DirectoryScanDto;
+import com.dam.accesodatos.model.FileEntryDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recorrido recursivo y paralelo de un árbol de directorios con estadísticas agregadas.
+ *
+ * Cada directorio es una tarea fork-join que lo visita con un {@link java.nio.file.FileVisitor}
+ * de profundidad 1: los atributos que lee walkFileTree se reutilizan (una lectura por entrada),
+ * los archivos se acumulan en un totalizador local de la tarea y cada subdirectorio se lanza
+ * como subtarea. Al terminar, los totalizadores de las subtareas se fusionan, así que los hilos
+ * no comparten contadores ni se sincronizan mientras recorren.
+ *
+ * Los enlaces simbólicos no se siguen (evita ciclos y contar dos veces el mismo archivo).
+ */
+public class DirectoryScanner {
+
+    /** Formatos con contador propio; el resto se agrupa en "other" */
+    private static final String[] FORMATS = {"csv", "json", "xml", "other"};
+
+    /** Límites superiores (exclusivos) de los tramos del histograma de tamaños */
+    private static final long[] BUCKET_LIMITS = {1, 1L << 10, 64L << 10, 1L << 20, 16L << 20, 256L << 20};
+    private static final String[] BUCKET_LABELS = {
+            "0 B", "< 1 KB", "1 KB - 64 KB", "64 KB - 1 MB", "1 MB - 16 MB", "16 MB - 256 MB", ">= 256 MB"};
+
+    private static final Comparator<Candidate> BY_SIZE = Comparator.comparingLong(c -> c.size);
+
+    private final ForkJoinPool pool;
+    private final int largestFiles;
+
+    /**
+     * @param pool Pool de E/S donde se ejecutan las tareas (no se cierra aquí)
+     * @param largestFiles Número de archivos más grandes que se devuelven
+     */
+    public DirectoryScanner(ForkJoinPool pool, int largestFiles) {
+        this.pool = pool;
+        this.largestFiles = largestFiles;
+    }
+
+    /**
+     * Recorre el árbol y devuelve las estadísticas agregadas
+     * @throws IOException si la raíz no es un directorio o no se puede leer
+     */
+    public DirectoryScanDto scan(Path root) throws IOException {
+        long start = System.nanoTime();
+        Path directory = root.toRealPath();
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("No es un directorio: " + root);
+        }
+
+        Totals totals;
+        try {
+            totals = pool.invoke(new ScanTask(directory, largestFiles));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        DirectoryScanDto result = totals.toDto();
+        result.setRootPath(directory.toString());
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+    static int formatIndex(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0) {
+            int length = name.length() - dot - 1;
+            for (int i = 0; i < FORMATS.length - 1; i++) {
+                if (length == FORMATS[i].length() && name.regionMatches(true, dot + 1, FORMATS[i], 0, length)) {
+                    return i;
+                }
+            }
+        }
+        return FORMATS.length - 1;
+    }
+
+    static int bucketIndex(long size) {
+        for (int i = 0; i < BUCKET_LIMITS.length; i++) {
+            if (size < BUCKET_LIMITS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_LIMITS.length;
+    }
+
+    /**
+     * Tarea de un directorio: visita sus entradas y lanza una subtarea por subdirectorio
+     */
+    private static final class ScanTask extends RecursiveTask<Totals> {
+        private final Path directory;
+        private final int largestFiles;
+
+        ScanTask(Path directory, int largestFiles) {
+            this.directory = directory;
+            this.largestFiles = largestFiles;
+        }
+
+        @Override
+        protected Totals compute() {
+            Totals totals = new Totals(largestFiles);
+            totals.directories++;
+            List<ScanTask> children = new ArrayList<>();
+
+            try {
+                Files.walkFileTree(directory, Collections.emptySet(), 1, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                        // Con profundidad 1 los subdirectorios llegan aquí, con sus atributos ya leídos
+                        if (attributes.isDirectory()) {
+                            ScanTask child = new ScanTask(file, largestFiles);
+                            child.fork();
+                            children.add(child);
+                        } else if (attributes.isRegularFile()) {
+                            totals.add(file, attributes.size(), attributes.lastModifiedTime().toMillis());
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        totals.errors++;
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                        if (e != null) {
+                            totals.errors++;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                // El visitante no propaga errores: solo puede llegar aquí un fallo inesperado
+                throw new UncheckedIOException(e);
+            }
+
+            // Unir en orden inverso al fork: las últimas subtareas suelen seguir en la cola local
+            for (int i = children.size() - 1; i >= 0; i--) {
+                totals.merge(children.get(i).join());
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * Totalizador local de una tarea
+     */
+    private static final class Totals {
+        private final int largestFiles;
+        private long files;
+        private long directories;
+        private long bytes;
+        private long errors;
+        private final long[] formatFiles = new long[FORMATS.length];
+        private final long[] formatBytes = new long[FORMATS.length];
+        private final long[] histogram = new long[BUCKET_LABELS.length];
+        private final PriorityQueue<Candidate> largest;
+        private Candidate oldest;
+        private Candidate newest;
+
+        Totals(int largestFiles) {
+            this.largestFiles = largestFiles;
+            this.largest = new PriorityQueue<>(Math.max(1, largestFiles), BY_SIZE);
+        }
+
+        void add(Path file, long size, long modified) {
+            files++;
+            bytes += size;
+            int format = formatIndex(file);
+            formatFiles[format]++;
+            formatBytes[format] += size;
+            histogram[bucketIndex(size)]++;
+
+            // Solo se crea un candidato si entra en alguno de los rankings
+            boolean inLargest = largestFiles > 0
+                    && (largest.size() < largestFiles || size > largest.peek().size);
+            boolean isOldest = oldest == null || modified < oldest.modified;
+            boolean isNewest = newest == null || modified > newest.modified;
+            if (inLargest || isOldest || isNewest) {
+                Candidate candidate = new Candidate(file, size, modified);
+                if (inLargest) {
+                    offerLargest(candidate);
+                }
+                if (isOldest) {
+                    oldest = candidate;
+                }
+                if (isNewest) {
+                    newest = candidate;
+                }
+            }
+        }
+
+        void merge(Totals other) {
+            files += other.files;
+            directories += other.directories;
+            bytes += other.bytes;
+            errors += other.errors;
+            for (int i = 0; i < FORMATS.length; i++) {
+                formatFiles[i] += other.formatFiles[i];
+                formatBytes[i] += other.formatBytes[i];
+            }
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += other.histogram[i];
+            }
+            for (Candidate candidate : other.largest) {
+                if (largest.size() < largestFiles || candidate.size > largest.peek().size) {
+                    offerLargest(candidate);
+                }
+            }
+            if (other.oldest != null && (oldest == null || other.oldest.modified < oldest.modified)) {
+                oldest = other.oldest;
+            }
+            if (other.newest != null && (newest == null || other.newest.modified > newest.modified)) {
+                newest = other.newest;
+            }
+        }
+
+        private void offerLargest(Candidate candidate) {
+            largest.offer(candidate);
+            if (largest.size() > largestFiles) {
+                largest.poll();
+            }
+        }
+
+        DirectoryScanDto toDto() {
+            DirectoryScanDto dto = new DirectoryScanDto();
+            dto.setTotalFiles(files);
+            dto.setTotalDirectories(directories);
+            dto.setTotalBytes(bytes);
+            dto.setErrors(errors);
+
+            Map<String, Long> filesByFormat = new LinkedHashMap<>();
+            Map<String, Long> bytesByFormat = new LinkedHashMap<>();
+            for (int i = 0; i < FORMATS.length; i++) {
+                filesByFormat.put(FORMATS[i], formatFiles[i]);
+                bytesByFormat.put(FORMATS[i], formatBytes[i]);
+            }
+            dto.setFilesByFormat(filesByFormat);
+            dto.setBytesByFormat(bytesByFormat);
+
+            Map<String, Long> sizeHistogram = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKET_LABELS.length; i++) {
+                sizeHistogram.put(BUCKET_LABELS[i], histogram[i]);
+            }
+            dto.setSizeHistogram(sizeHistogram);
+
+            List<Candidate> sorted = new ArrayList<>(largest);
+            sorted.sort(BY_SIZE.reversed());
+            List<FileEntryDto> largestEntries = new ArrayList<>(sorted.size());
+            for (Candidate candidate : sorted) {
+                largestEntries.add(candidate.toEntry());
+            }
+            dto.setLargestFiles(largestEntries);
+            dto.setOldestFile(oldest == null ? null : oldest.toEntry());
+            dto.setNewestFile(newest == null ? null : newest.toEntry());
+            return dto;
+        }
+    }
+
+    private static final class Candidate {
+        private final Path path;
+        private final long size;
+        private final long modified;
+
+        Candidate(Path path, long size, long modified) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+
+        FileEntryDto toEntry() {
+            return new FileEntryDto(path.getFileName().toString(), path.toString(), size, modified);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.dam.accesodatos.ra1.fs;
+
+import com.dam.accesodatos.model.DuplicateGroupDto;
+import com.dam.accesodatos.model.DuplicateReportDto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Búsqueda de archivos duplicados por contenido en tres fases, cada una más cara y
+ * con menos candidatos que la anterior:
+ * <ol>
+ *   <li>Tamaño: sale de los atributos del recorrido, sin abrir ningún archivo.</li>
+ *   <li>Hash parcial: CRC32C del primer y el último bloque de 4 KB.</li>
+ *   <li>Hash completo: SHA-256 de todo el archivo leído con un FileChannel sobre un
+ *       buffer directo reutilizado por hilo.</li>
+ * </ol>
+ * Las fases 2 y 3 se reparten entre los hilos del pool de E/S. Los hashes se guardan en
+ * una caché LRU por ruta que se invalida si cambian el tamaño o la fecha de modificación,
+ * de modo que repetir la búsqueda sobre archivos sin cambios no vuelve a leerlos.
+ *
+ * Los archivos vacíos se ignoran, los enlaces simbólicos no se siguen y los enlaces duros
+ * (mismo fileKey) se cuentan una sola vez, porque no ocupan espacio adicional.
+ */
+public class DuplicateFinder {
+
+    /** Tamaño de cada uno de los bloques del hash parcial */
+    static final int PARTIAL_BLOCK = 4096;
+
+    /** Hasta este tamaño el hash parcial leería el archivo entero: se pasa directo al completo */
+    private static final long SMALL_FILE = 2L * PARTIAL_BLOCK;
+
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE));
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
+
+    private final ForkJoinPool pool;
+    private final Map<Path, CachedHash> cache;
+
+    /**
+     * @param pool Pool de E/S donde se calculan los hashes (no se cierra aquí)
+     * @param cacheSize Número máximo de archivos con hashes en caché
+     */
+    public DuplicateFinder(ForkJoinPool pool, int cacheSize) {
+        this.pool = pool;
+        this.cache = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, CachedHash> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Busca grupos de archivos con el mismo contenido bajo un directorio
+     * @throws IOException si la raíz no es un directorio o no se puede recorrer
+     */
+    public DuplicateReportDto find(Path root) throws IOException {
+        long start = System.nanoTime();
+        Path directory = root.toRealPath();
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("No es un directorio: " + root);
+        }
+        Stats stats = new Stats();
+
+        // Fase 1: agrupar por tamaño con los atributos del recorrido
+        Map<Long, List<Candidate>> bySize = new HashMap<>();
+        long scanned = collect(directory, bySize, stats);
+
+        List<Candidate> partialStage = new ArrayList<>();
+        List<Candidate> fullStage = new ArrayList<>();
+        for (List<Candidate> group : bySize.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            List<Candidate> target = group.get(0).size <= SMALL_FILE ? fullStage : partialStage;
+            target.addAll(group);
+        }
+
+        // Fase 2: hash parcial de los que comparten tamaño
+        forEach(partialStage, candidate -> candidate.partial = partialHash(candidate, stats));
+        Map<String, List<Candidate>> byPartial = new HashMap<>();
+        for (Candidate candidate : partialStage) {
+            if (candidate.partial != null) {
+                byPartial.computeIfAbsent(candidate.size + ":" + candidate.partial, k -> new ArrayList<>()).add(candidate);
+            }
+        }
+        for (List<Candidate> group : byPartial.values()) {
+            if (group.size() > 1) {
+                fullStage.addAll(group);
+            }
+        }
+
+        // Fase 3: hash completo solo de los que siguen coincidiendo
+        forEach(fullStage, candidate -> candidate.full = fullHash(candidate, stats));
+        Map<String, List<Candidate>> byFull = new HashMap<>();
+        for (Candidate candidate : fullStage) {
+            if (candidate.full != null) {
+                byFull.computeIfAbsent(candidate.full, k -> new ArrayList<>()).add(candidate);
+            }
+        }
+
+        List<DuplicateGroupDto> groups = new ArrayList<>();
+        long wasted = 0;
+        for (Map.Entry<String, List<Candidate>> entry : byFull.entrySet()) {
+            List<Candidate> group = entry.getValue();
+            if (group.size() < 2) {
+                continue;
+            }
+            List<String> paths = new ArrayList<>(group.size());
+            for (Candidate candidate : group) {
+                paths.add(candidate.path.toString());
+            }
+            paths.sort(null);
+            DuplicateGroupDto dto = new DuplicateGroupDto(entry.getKey(), group.get(0).size, paths);
+            wasted += dto.getWastedBytes();
+            groups.add(dto);
+        }
+        groups.sort(Comparator.comparingLong(DuplicateGroupDto::getWastedBytes).reversed()
+                .thenComparing(group -> group.getPaths().get(0)));
+
+        DuplicateReportDto report = new DuplicateReportDto();
+        report.setRootPath(directory.toString());
+        report.setFilesScanned(scanned);
+        report.setPartialHashes(partialStage.size());
+        report.setFullHashes(fullStage.size());
+        report.setCacheHits(stats.cacheHits.sum());
+        report.setErrors(stats.errors.sum());
+        report.setWastedBytes(wasted);
+        report.setGroups(groups);
+        report.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return report;
+    }
+
+    private long collect(Path directory, Map<Long, List<Candidate>> bySize, Stats stats) throws IOException {
+        Set<Object> fileKeys = new HashSet<>();
+        long[] scanned = new long[1];
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (!attributes.isRegularFile() || attributes.size() == 0) {
+                    return FileVisitResult.CONTINUE;
+                }
+                scanned[0]++;
+                Object fileKey = attributes.fileKey();
+                if (fileKey != null && !fileKeys.add(fileKey)) {
+                    return FileVisitResult.CONTINUE; // Enlace duro a un archivo ya visto
+                }
+                bySize.computeIfAbsent(attributes.size(), k -> new ArrayList<>(2))
+                        .add(new Candidate(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                stats.errors.increment();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return scanned[0];
+    }
+
+    private String partialHash(Candidate candidate, Stats stats) {
+        CachedHash cached = cached(candidate);
+        if (cached != null && cached.partial != null) {
+            stats.cacheHits.increment();
+            return cached.partial;
+        }
+        try (FileChannel channel = FileChannel.open(candidate.path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = READ_BUFFER.get();
+            CRC32C crc = new CRC32C();
+            readBlock(channel, buffer, 0);
+            crc.update(buffer);
+            readBlock(channel, buffer, candidate.size - PARTIAL_BLOCK);
+            crc.update(buffer);
+            String partial = Long.toHexString(crc.getValue());
+            store(candidate, partial, null);
+            return partial;
+        } catch (IOException e) {
+            stats.errors.increment();
+            return null;
+        }
+    }
+
+    private String fullHash(Candidate candidate, Stats stats) {
+        CachedHash cached = cached(candidate);
+        if (cached != null && cached.full != null) {
+            stats.cacheHits.increment();
+            return cached.full;
+        }
+        try (FileChannel channel = FileChannel.open(candidate.path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = READ_BUFFER.get();
+            MessageDigest digest = SHA_256.get();
+            digest.reset();
+            long position = 0;
+            buffer.clear();
+            int read;
+            while ((read = channel.read(buffer, position)) > 0) {
+                position += read;
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            if (position != candidate.size) {
+                // El archivo cambió durante la búsqueda: su hash no corresponde al tamaño agrupado
+                stats.errors.increment();
+                return null;
+            }
+            String full = HexFormat.of().formatHex(digest.digest());
+            store(candidate, null, full);
+            return full;
+        } catch (IOException e) {
+            stats.errors.increment();
+            return null;
+        }
+    }
+
+    private static void readBlock(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        buffer.limit(PARTIAL_BLOCK);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+    }
+
+    private CachedHash cached(Candidate candidate) {
+        CachedHash cached;
+        synchronized (cache) {
+            cached = cache.get(candidate.path);
+        }
+        if (cached == null || cached.size != candidate.size || cached.modified != candidate.modified) {
+            return null;
+        }
+        return cached;
+    }
+
+    private void store(Candidate candidate, String partial, String full) {
+        synchronized (cache) {
+            CachedHash previous = cache.get(candidate.path);
+            if (previous != null && previous.size == candidate.size && previous.modified == candidate.modified) {
+                partial = partial != null ? partial : previous.partial;
+                full = full != null ? full : previous.full;
+            }
+            cache.put(candidate.path, new CachedHash(candidate.size, candidate.modified, partial, full));
+        }
+    }
+
+    private void forEach(List<Candidate> candidates, Consumer<Candidate> action) {
+        if (!candidates.isEmpty()) {
+            pool.invoke(new ForEachTask(candidates, action, 0, candidates.size()));
+        }
+    }
+
+    /**
+     * Reparte una lista entre los hilos del pool. Cada elemento es la lectura de un archivo,
+     * así que se divide hasta tramos pequeños para equilibrar archivos de tamaños muy distintos.
+     */
+    private static final class ForEachTask extends RecursiveAction {
+        private static final int THRESHOLD = 4;
+
+        private final List<Candidate> candidates;
+        private final Consumer<Candidate> action;
+        private final int from;
+        private final int to;
+
+        ForEachTask(List<Candidate> candidates, Consumer<Candidate> action, int from, int to) {
+            this.candidates = candidates;
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    action.accept(candidates.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForEachTask(candidates, action, from, middle),
+                    new ForEachTask(candidates, action, middle, to));
+        }
+    }
+
+    private static final class Candidate {
+        private final Path path;
+        private final long size;
+        private final long modified;
+        private String partial;
+        private String full;
+
+        Candidate(Path path, long size, long modified) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    private static final class CachedHash {
+        private final long size;
+        private final long modified;
+        private final String partial;
+        private final String full;
+
+        CachedHash(long size, long modified, String partial, String full) {
+            this.size = size;
+            this.modified = modified;
+            this.partial = partial;
+            this.full = full;
+        }
+    }
+
+    private static final class Stats {
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,116 @@
+package com.dam.accesodatos.ra1.fs;
+
+import com.dam.accesodatos.model.FileInfoDto;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Información de muchos archivos con una sola lectura de atributos por archivo.
+ *
+ * java.io.File necesita una llamada al sistema por cada pregunta (exists, isFile, length,
+ * lastModified, canRead...). Aquí cada archivo se resuelve con un único
+ * {@link Files#readAttributes(Path, Class, java.nio.file.LinkOption...)} de
+ * {@link PosixFileAttributes} (tipo, tamaño, fechas, propietario y permisos), o de
+ * {@link BasicFileAttributes} si el sistema de archivos no es POSIX.
+ *
+ * El lote se reparte en tramos entre los hilos del pool de E/S y el resultado conserva
+ * el orden de las rutas de entrada.
+ */
+public class FileInfoReader {
+
+    /** Rutas por tarea: por debajo de este tamaño no compensa seguir dividiendo */
+    private static final int SEQUENTIAL_THRESHOLD = 8;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param pool Pool de E/S donde se leen los atributos (no se cierra aquí)
+     */
+    public FileInfoReader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Lee la información de todas las rutas. Los fallos de una ruta no interrumpen el lote:
+     * quedan en {@link FileInfoDto#getError()}.
+     */
+    public List<FileInfoDto> read(List<String> paths) {
+        FileInfoDto[] results = new FileInfoDto[paths.size()];
+        pool.invoke(new ReadTask(paths, results, 0, results.length));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Información de una ruta con una única lectura de atributos
+     */
+    static FileInfoDto readOne(String pathText) {
+        FileInfoDto info = new FileInfoDto(pathText);
+        if (pathText == null || pathText.isBlank()) {
+            info.setError("Ruta vacía");
+            return info;
+        }
+        try {
+            Path path = Path.of(pathText);
+            BasicFileAttributes attributes;
+            try {
+                PosixFileAttributes posix = Files.readAttributes(path, PosixFileAttributes.class);
+                info.setOwner(posix.owner().getName());
+                info.setGroup(posix.group().getName());
+                info.setPermissions(PosixFilePermissions.toString(posix.permissions()));
+                attributes = posix;
+            } catch (UnsupportedOperationException e) {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            }
+            info.setExists(true);
+            info.setRegularFile(attributes.isRegularFile());
+            info.setDirectory(attributes.isDirectory());
+            info.setSize(attributes.size());
+            info.setLastModified(attributes.lastModifiedTime().toMillis());
+            info.setCreationTime(attributes.creationTime().toMillis());
+        } catch (NoSuchFileException e) {
+            info.setExists(false);
+        } catch (InvalidPathException e) {
+            info.setError("Ruta inválida: " + e.getMessage());
+        } catch (IOException | SecurityException e) {
+            info.setError(e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+        return info;
+    }
+
+    private static final class ReadTask extends RecursiveAction {
+        private final List<String> paths;
+        private final FileInfoDto[] results;
+        private final int from;
+        private final int to;
+
+        ReadTask(List<String> paths, FileInfoDto[] results, int from, int to) {
+            this.paths = paths;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = readOne(paths.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ReadTask(paths, results, from, middle), new ReadTask(paths, results, middle, to));
+        }
+    }
+}
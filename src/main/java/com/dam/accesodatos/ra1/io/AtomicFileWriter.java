@@ -0,0 +1,198 @@
+package com.dam.accesodatos.ra1.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Escritura atómica de un archivo completo: escribir en temporal, force() y renombrar.
+ *
+ * El contenido se escribe en un archivo temporal del directorio de temporales
+ * (o del directorio del destino si está en otro sistema de archivos, porque el
+ * renombrado atómico solo funciona dentro del mismo), se fuerza a disco y se
+ * mueve sobre el destino con {@link StandardCopyOption#ATOMIC_MOVE}.
+ *
+ * Un lector concurrente ve siempre el archivo anterior completo o el nuevo completo,
+ * nunca uno truncado, y no necesita bloquearse frente al escritor.
+ *
+ * Excepción: si el sistema de archivos no admite el movimiento atómico
+ * ({@link AtomicMoveNotSupportedException}) se recurre a un movimiento con
+ * {@link StandardCopyOption#REPLACE_EXISTING}, que se avisa en el log. En ese caso la garantía
+ * anterior no se cumple: un lector puede ver el destino ausente o a medio copiar.
+ *
+ * Uso:
+ * <pre>
+ * try (AtomicFileWriter file = AtomicFileWriter.create(destino, temporales)) {
+ *     escribir(file.stream());
+ *     file.commit();
+ * }
+ * </pre>
+ * Si no se llama a {@link #commit()} el temporal se borra al cerrar y el destino no cambia.
+ *
+ * Permisos: el temporal se crea con los permisos por defecto (umask), como cualquier archivo
+ * nuevo, y si el destino ya existía se le copian sus permisos POSIX antes de renombrar.
+ */
+public final class AtomicFileWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AtomicFileWriter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path target;
+    private final Path tempFile;
+    private final FileChannel channel;
+    private final OutputStream stream;
+    private boolean committed;
+    private boolean closed;
+
+    private AtomicFileWriter(Path target, Path tempFile) throws IOException {
+        this.target = target;
+        this.tempFile = tempFile;
+        this.channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.stream = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+    }
+
+    /**
+     * Prepara la escritura atómica de un archivo
+     * @param target Archivo destino (se crean sus directorios padre)
+     * @param tempDir Directorio preferido para el temporal
+     * @return Escritor listo para recibir el contenido
+     */
+    public static AtomicFileWriter create(Path target, Path tempDir) throws IOException {
+        Path absoluteTarget = target.toAbsolutePath().normalize();
+        Path parent = absoluteTarget.getParent();
+        Files.createDirectories(parent);
+
+        Path dir = sameFileStore(tempDir, parent) ? tempDir : parent;
+        Path tempFile = createTempFile(dir, "." + absoluteTarget.getFileName() + ".");
+        try {
+            return new AtomicFileWriter(absoluteTarget, tempFile);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Flujo (con buffer) sobre el archivo temporal. No debe cerrarse directamente.
+     */
+    public OutputStream stream() {
+        return stream;
+    }
+
+    /**
+     * Canal del archivo temporal, para copias con transferTo. No debe mezclarse con
+     * {@link #stream()} en la misma escritura ni cerrarse directamente.
+     */
+    public FileChannel channel() {
+        return channel;
+    }
+
+    /**
+     * Fuerza el temporal a disco y lo mueve sobre el destino de forma atómica
+     */
+    public void commit() throws IOException {
+        if (closed) {
+            throw new IOException("La escritura ya está cerrada: " + target);
+        }
+        stream.flush();
+        copyPermissions(target, tempFile);
+        channel.force(true);
+        stream.close();
+        closed = true;
+
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Solo ocurre si el sistema de archivos no soporta renombrado atómico
+            logger.warn("Movimiento atómico no soportado para {}: se reemplaza sin atomicidad ({})",
+                    target, e.getMessage());
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+        syncDirectory(target.getParent());
+    }
+
+    public Path getTarget() {
+        return target;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (committed) {
+            return;
+        }
+        try {
+            if (!closed) {
+                closed = true;
+                stream.close();
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Crea el temporal sin atributos explícitos: Files.createTempFile lo crearía con 0600
+     * y el renombrado conservaría ese modo en el destino.
+     */
+    private static Path createTempFile(Path dir, String prefix) throws IOException {
+        while (true) {
+            Path candidate = dir.resolve(prefix + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                return Files.createFile(candidate);
+            } catch (FileAlreadyExistsException e) {
+                // Nombre ya usado: probar con otro
+            }
+        }
+    }
+
+    /**
+     * Copia los permisos POSIX del destino existente al temporal (no aplica en Windows)
+     */
+    private static void copyPermissions(Path target, Path tempFile) throws IOException {
+        PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (targetView == null || !Files.exists(target)) {
+            return;
+        }
+        Files.setPosixFilePermissions(tempFile, targetView.readAttributes().permissions());
+    }
+
+    private static boolean sameFileStore(Path tempDir, Path parent) {
+        if (tempDir == null) {
+            return false;
+        }
+        try {
+            Files.createDirectories(tempDir);
+            return Files.getFileStore(tempDir).equals(Files.getFileStore(parent));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hace durable la entrada de directorio del renombrado. No todas las plataformas
+     * permiten abrir un directorio (Windows), en ese caso se omite.
+     */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel directory = FileChannel.open(dir, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Sin soporte para sincronizar directorios: el renombrado sigue siendo atómico
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.dam.accesodatos.ra1.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Lectura de archivos BGZF descomprimiendo varios bloques en paralelo.
+ *
+ * La cabecera de cada bloque indica su tamaño comprimido, así que los bloques se pueden
+ * separar sin descomprimirlos: el hilo lector solo los trocea y los descomprime el pool,
+ * con como mucho dos bloques por hilo por delante de lo que ya se ha consumido.
+ * Se comprueban el CRC32 y el tamaño de cada bloque.
+ */
+public final class BgzfInputStream extends InputStream {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final InputStream in;
+    private final ForkJoinPool pool;
+    private final int window;
+    private final ArrayDeque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+    private final long limit;
+    private long consumed;
+    private byte[] current = EMPTY;
+    private int position;
+    private boolean endOfInput;
+
+    public BgzfInputStream(InputStream in, ForkJoinPool pool) {
+        this(in, pool, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param limit Bytes de bloques a leer; lo que sigue (el índice de {@link BlockIndexedFile}) se ignora
+     */
+    BgzfInputStream(InputStream in, ForkJoinPool pool, long limit) {
+        this.in = in;
+        this.pool = pool;
+        this.window = Math.max(2, pool.getParallelism() * 2);
+        this.limit = limit;
+    }
+
+    /**
+     * Indica si la cabecera corresponde a un bloque BGZF (gzip con subcampo extra "BC")
+     */
+    static boolean isBgzfHeader(byte[] head) {
+        return head.length >= BgzfOutputStream.HEADER_SIZE
+                && (head[0] & 0xFF) == 0x1F && (head[1] & 0xFF) == 0x8B && head[2] == 0x08
+                && (head[3] & 0x04) != 0
+                && getShort(head, 10) >= 6
+                && head[12] == 'B' && head[13] == 'C' && getShort(head, 14) == 2;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pending.forEach(future -> future.cancel(false));
+        pending.clear();
+        in.close();
+    }
+
+    private boolean ensureData() throws IOException {
+        while (position == current.length) {
+            fill();
+            if (pending.isEmpty()) {
+                return false;
+            }
+            try {
+                current = pending.poll().join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException io ? io : new IOException(cause.getMessage(), cause);
+            }
+            position = 0;
+        }
+        return true;
+    }
+
+    private void fill() throws IOException {
+        while (!endOfInput && pending.size() < window) {
+            byte[] block = readBlock();
+            if (block == null) {
+                endOfInput = true;
+            } else {
+                pending.add(CompletableFuture.supplyAsync(() -> inflateBlock(block), pool));
+            }
+        }
+    }
+
+    private byte[] readBlock() throws IOException {
+        if (consumed >= limit) {
+            return null;
+        }
+        byte[] header = in.readNBytes(BgzfOutputStream.HEADER_SIZE);
+        if (header.length == 0) {
+            return null;
+        }
+        if (!isBgzfHeader(header)) {
+            throw new IOException("Bloque BGZF inválido");
+        }
+        int size = getShort(header, 16) + 1;
+        // BSIZE viene del archivo: un bloque tiene al menos cabecera y pie
+        if (size < BgzfOutputStream.HEADER_SIZE + BgzfOutputStream.FOOTER_SIZE) {
+            throw new IOException("Bloque BGZF inválido: tamaño de bloque " + size);
+        }
+        byte[] block = new byte[size];
+        System.arraycopy(header, 0, block, 0, header.length);
+        int remaining = size - header.length;
+        if (in.readNBytes(block, header.length, remaining) != remaining) {
+            throw new IOException("Bloque BGZF truncado");
+        }
+        consumed += size;
+        return block;
+    }
+
+    static byte[] inflateBlock(byte[] block) {
+        int dataStart = 12 + getShort(block, 10);
+        int dataEnd = block.length - BgzfOutputStream.FOOTER_SIZE;
+        int expectedCrc = getInt(block, dataEnd);
+        int size = getInt(block, dataEnd + 4);
+        // ISIZE viene del archivo: validarlo antes de reservar memoria con él
+        if (size < 0 || size > BgzfOutputStream.MAX_BLOCK_SIZE) {
+            throw new CompletionException(new IOException("Bloque BGZF corrupto: tamaño descomprimido inválido (" + size + ")"));
+        }
+        if (dataStart > dataEnd) {
+            throw new CompletionException(new IOException("Bloque BGZF corrupto: cabecera extra más larga que el bloque"));
+        }
+
+        byte[] data = new byte[size];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(block, dataStart, dataEnd - dataStart);
+        try {
+            int inflated = 0;
+            while (inflated < size) {
+                int n = inflater.inflate(data, inflated, size - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.finished())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != size) {
+                throw new CompletionException(new IOException("Bloque BGZF corrupto: tamaño incorrecto"));
+            }
+        } catch (DataFormatException e) {
+            throw new CompletionException(new IOException("Bloque BGZF corrupto: " + e.getMessage(), e));
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new CompletionException(new IOException("Bloque BGZF corrupto: CRC incorrecto"));
+        }
+        return data;
+    }
+
+    private static int getShort(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int getInt(byte[] b, int offset) {
+        return getShort(b, offset) | getShort(b, offset + 2) << 16;
+    }
+}
@@ -0,0 +1,201 @@
+package com.dam.accesodatos.ra1.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Escritura en formato BGZF: gzip por bloques independientes comprimidos en paralelo.
+ *
+ * Cada bloque de hasta {@link #MAX_INPUT} bytes sin comprimir se convierte en un miembro
+ * gzip con el subcampo extra "BC" que guarda el tamaño comprimido del bloque. Los bloques
+ * se comprimen en el pool y se escriben en orden; como mucho hay dos bloques por hilo en
+ * vuelo, así que la memoria está acotada aunque el productor sea más rápido.
+ * Al cerrar se escribe el bloque vacío de fin de archivo del formato.
+ *
+ * En modo indexado (ver {@link BlockIndexedFile}) todos los bloques salvo el último tienen
+ * exactamente {@link #MAX_INPUT} bytes sin comprimir, flush() no corta el bloque en curso y
+ * al cerrar se añade el índice de posiciones comprimidas de cada bloque.
+ */
+public final class BgzfOutputStream extends OutputStream {
+
+    static final int HEADER_SIZE = 18;
+    static final int FOOTER_SIZE = 8;
+    static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    /** Entrada máxima por bloque: aunque no se comprima nada, el bloque cabe en 64 KB */
+    static final int MAX_INPUT = 0xFF00;
+
+    static final byte[] EOF_BLOCK = {
+            0x1F, (byte) 0x8B, 0x08, 0x04, 0, 0, 0, 0, 0, (byte) 0xFF, 0x06, 0, 0x42, 0x43, 0x02, 0,
+            0x1B, 0, 0x03, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final ThreadLocal<Deflater> DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    private final OutputStream out;
+    private final ForkJoinPool pool;
+    private final int window;
+    private final ArrayDeque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+    private final BlockIndexedFile.IndexBuilder index;
+    private byte[] buffer = new byte[MAX_INPUT];
+    private int count;
+    private boolean closed;
+
+    public BgzfOutputStream(OutputStream out, ForkJoinPool pool) {
+        this(out, pool, false);
+    }
+
+    BgzfOutputStream(OutputStream out, ForkJoinPool pool, boolean indexed) {
+        this.out = out;
+        this.pool = pool;
+        this.window = Math.max(2, pool.getParallelism() * 2);
+        this.index = indexed ? new BlockIndexedFile.IndexBuilder(MAX_INPUT) : null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == buffer.length) {
+            submitBlock();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (count == buffer.length) {
+                submitBlock();
+            }
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Cierra el bloque actual (aunque no esté lleno) y escribe todos los pendientes.
+     * En modo indexado el bloque en curso se mantiene para conservar el tamaño fijo.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (count > 0 && index == null) {
+            submitBlock();
+        }
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (count > 0) {
+                submitBlock();
+            }
+            flush();
+            out.write(EOF_BLOCK);
+            if (index != null) {
+                index.writeTrailer(out, EOF_BLOCK.length);
+            }
+        } finally {
+            closed = true;
+            pending.forEach(future -> future.cancel(false));
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        byte[] data = buffer;
+        int length = count;
+        buffer = new byte[MAX_INPUT];
+        count = 0;
+        pending.add(CompletableFuture.supplyAsync(() -> compressBlock(data, length), pool));
+        while (pending.size() > window) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        try {
+            byte[] block = pending.poll().join();
+            out.write(block);
+            if (index != null) {
+                index.addBlock(block.length, getInt(block, block.length - 4));
+            }
+        } catch (CompletionException e) {
+            throw new IOException("Error comprimiendo bloque BGZF: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Flujo BGZF cerrado");
+        }
+    }
+
+    static byte[] compressBlock(byte[] data, int length) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+
+        byte[] block = new byte[MAX_BLOCK_SIZE];
+        int compressed = 0;
+        int capacity = MAX_BLOCK_SIZE - HEADER_SIZE - FOOTER_SIZE;
+        while (!deflater.finished() && compressed < capacity) {
+            compressed += deflater.deflate(block, HEADER_SIZE + compressed, capacity - compressed);
+        }
+        if (!deflater.finished()) {
+            // No ocurre con MAX_INPUT: deflate añade como mucho unos bytes por bloque almacenado
+            throw new IllegalStateException("El bloque comprimido no cabe en " + MAX_BLOCK_SIZE + " bytes");
+        }
+
+        int size = HEADER_SIZE + compressed + FOOTER_SIZE;
+        block[0] = 0x1F;
+        block[1] = (byte) 0x8B;
+        block[2] = 0x08;          // deflate
+        block[3] = 0x04;          // FEXTRA
+        block[9] = (byte) 0xFF;   // sistema desconocido
+        putShort(block, 10, 6);   // XLEN
+        block[12] = 'B';
+        block[13] = 'C';
+        putShort(block, 14, 2);
+        putShort(block, 16, size - 1);
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        putInt(block, HEADER_SIZE + compressed, (int) crc.getValue());
+        putInt(block, HEADER_SIZE + compressed + 4, length);
+        return Arrays.copyOf(block, size);
+    }
+
+    private static int getInt(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | (b[offset + 1] & 0xFF) << 8 | (b[offset + 2] & 0xFF) << 16 | (b[offset + 3] & 0xFF) << 24;
+    }
+
+    private static void putShort(byte[] b, int offset, int value) {
+        b[offset] = (byte) value;
+        b[offset + 1] = (byte) (value >>> 8);
+    }
+
+    private static void putInt(byte[] b, int offset, int value) {
+        putShort(b, offset, value);
+        putShort(b, offset + 2, value >>> 16);
+    }
+}
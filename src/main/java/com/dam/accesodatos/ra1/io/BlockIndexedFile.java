@@ -0,0 +1,523 @@
+package com.dam.accesodatos.ra1.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Contenedor comprimido por bloques con índice final: acceso aleatorio sin descomprimir todo.
+ *
+ * Formato ({@code .bgzi}):
+ * <pre>
+ * bloque BGZF 0 .. bloque BGZF n-1   (todos de blockSize bytes sin comprimir salvo el último)
+ * bloque BGZF vacío de fin de archivo
+ * índice: n+1 posiciones comprimidas (long), la última es el final del bloque n-1
+ * pie:    posición del índice (long), tamaño sin comprimir (long), n (int), blockSize (int), MAGIC (long)
+ * </pre>
+ * Como el tamaño sin comprimir de cada bloque es fijo, el bloque que contiene una posición
+ * es {@code posición / blockSize}: una lectura posicional descomprime solo los bloques que
+ * toca, y la búsqueda reparte los bloques entre los hilos del pool.
+ * Los bloques son miembros gzip normales, así que gzip/zcat leen el contenido (avisando
+ * de los bytes del índice al final).
+ *
+ * Un archivo sin comprimir se puede ver como bloques de tamaño fijo con {@link #plain(FileChannel)}
+ * para usar la misma búsqueda en paralelo.
+ */
+public final class BlockIndexedFile {
+
+    static final long MAGIC = 0x4247_5A49_4458_3031L; // "BGZIDX01"
+    static final int FOOTER_SIZE = 32;
+
+    /** Número mínimo de bloques a partir del cual una lectura por lotes descomprime en paralelo */
+    static final int PARALLEL_THRESHOLD = 4;
+
+    private final FileChannel channel;
+    private final long[] offsets;
+    private final long size;
+    private final int blockSize;
+
+    private BlockIndexedFile(FileChannel channel, long[] offsets, long size, int blockSize) {
+        this.channel = channel;
+        this.offsets = offsets;
+        this.size = size;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Indica si el canal contiene un contenedor indexado (lee solo el pie)
+     */
+    public static boolean isIndexed(FileChannel channel) throws IOException {
+        return readFooter(channel) != null;
+    }
+
+    /**
+     * Posición donde termina la parte BGZF del contenedor (inicio del índice)
+     * @throws IOException si no es un contenedor indexado
+     */
+    static long indexOffset(FileChannel channel) throws IOException {
+        ByteBuffer footer = readFooter(channel);
+        if (footer == null) {
+            throw new IOException("No es un contenedor comprimido indexado");
+        }
+        return footer.getLong(0);
+    }
+
+    /**
+     * Abre un contenedor indexado leyendo su pie e índice
+     * @throws IOException si no es un contenedor indexado o el índice es incoherente
+     */
+    public static BlockIndexedFile open(FileChannel channel) throws IOException {
+        ByteBuffer footer = readFooter(channel);
+        if (footer == null) {
+            throw new IOException("No es un contenedor comprimido indexado");
+        }
+        long indexOffset = footer.getLong(0);
+        long size = footer.getLong(8);
+        int blocks = footer.getInt(16);
+        int blockSize = footer.getInt(20);
+
+        long indexBytes = (blocks + 1L) * Long.BYTES;
+        if (blocks < 0 || blockSize <= 0 || indexOffset < 0
+                || indexOffset + indexBytes + FOOTER_SIZE != channel.size()
+                || size > (long) blocks * blockSize || (blocks > 0 && size <= (long) (blocks - 1) * blockSize)) {
+            throw new IOException("Índice del contenedor incoherente");
+        }
+
+        ByteBuffer index = readFully(channel, indexOffset, (int) indexBytes);
+        long[] offsets = new long[blocks + 1];
+        for (int i = 0; i <= blocks; i++) {
+            offsets[i] = index.getLong(i * Long.BYTES);
+            if (i > 0 && offsets[i] <= offsets[i - 1] || offsets[i] > indexOffset) {
+                throw new IOException("Índice del contenedor incoherente");
+            }
+        }
+        if (offsets[0] != 0) {
+            throw new IOException("Índice del contenedor incoherente");
+        }
+        return new BlockIndexedFile(channel, offsets, size, blockSize);
+    }
+
+    /**
+     * Como {@link #open(FileChannel)}, pero guarda el resultado en el canal del pool: las
+     * siguientes llamadas no releen pie e índice mientras no cambien el tamaño ni la fecha
+     * de modificación del archivo.
+     * @param path Ruta del archivo abierto en el préstamo
+     * @return El contenedor, o null si el archivo no es un contenedor indexado
+     */
+    public static BlockIndexedFile openCached(FileChannelPool.Lease lease, Path path) throws IOException {
+        FileChannel channel = lease.channel();
+        long channelSize = channel.size();
+        FileTime modified = Files.getLastModifiedTime(path);
+        if (lease.attachment() instanceof CachedIndex cached
+                && cached.size() == channelSize && cached.modified().equals(modified)) {
+            return cached.file();
+        }
+        BlockIndexedFile file = isIndexed(channel) ? open(channel) : null;
+        lease.attach(new CachedIndex(channelSize, modified, file));
+        return file;
+    }
+
+    /**
+     * Vista de un archivo sin comprimir como bloques de {@link BgzfOutputStream#MAX_INPUT} bytes
+     */
+    public static BlockIndexedFile plain(FileChannel channel) throws IOException {
+        return new BlockIndexedFile(channel, null, channel.size(), BgzfOutputStream.MAX_INPUT);
+    }
+
+    /** Tamaño del contenido sin comprimir */
+    public long size() {
+        return size;
+    }
+
+    public int blockCount() {
+        return (int) ((size + blockSize - 1) / blockSize);
+    }
+
+    public boolean isCompressed() {
+        return offsets != null;
+    }
+
+    /**
+     * Lee un fragmento descomprimiendo solo los bloques que solapa.
+     * Como {@link VectoredFileReader}, un fragmento que supera el final se trunca.
+     */
+    public byte[] read(long position, int length) throws IOException {
+        return read(new long[]{position}, new int[]{length}, null)[0];
+    }
+
+    /**
+     * Lee varios fragmentos descomprimiendo cada bloque necesario una sola vez
+     * (en paralelo en los hilos de pool cuando son varios)
+     * @param pool Pool para descomprimir en paralelo, o null para hacerlo todo en este hilo
+     * @return Bytes de cada fragmento, en el orden de la petición
+     */
+    public byte[][] read(long[] positions, int[] lengths, ForkJoinPool pool) throws IOException {
+        if (positions.length != lengths.length) {
+            throw new IllegalArgumentException("positions y lengths deben tener el mismo tamaño");
+        }
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] < 0 || lengths[i] < 0) {
+                throw new IllegalArgumentException("Fragmento inválido en índice " + i
+                        + ": posición y longitud deben ser >= 0");
+            }
+            try {
+                Math.addExact(positions[i], lengths[i]);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Fragmento inválido en índice " + i
+                        + ": posición + longitud supera el máximo de un long");
+            }
+        }
+        int[] needed = IntStream.range(0, positions.length)
+                .filter(i -> lengths[i] > 0 && positions[i] < size)
+                .flatMap(i -> IntStream.rangeClosed(blockOf(positions[i]),
+                        blockOf(Math.min(positions[i] + lengths[i], size) - 1)))
+                .distinct()
+                .toArray();
+
+        Map<Integer, byte[]> blocks = new HashMap<>();
+        List<Map.Entry<Integer, byte[]>> loaded;
+        try {
+            if (pool != null && needed.length >= PARALLEL_THRESHOLD) {
+                loaded = pool.submit(() -> Arrays.stream(needed).parallel()
+                        .mapToObj(i -> Map.entry(i, blockUnchecked(i)))
+                        .toList()).join();
+            } else {
+                loaded = Arrays.stream(needed).mapToObj(i -> Map.entry(i, blockUnchecked(i))).toList();
+            }
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+        loaded.forEach(entry -> blocks.put(entry.getKey(), entry.getValue()));
+
+        byte[][] result = new byte[positions.length][];
+        for (int i = 0; i < positions.length; i++) {
+            long start = Math.min(positions[i], size);
+            long end = Math.min(positions[i] + lengths[i], size);
+            byte[] fragment = new byte[(int) (end - start)];
+            long position = start;
+            while (position < end) {
+                int block = blockOf(position);
+                int from = (int) (position - (long) block * blockSize);
+                byte[] data = blocks.get(block);
+                int n = (int) Math.min(data.length - from, end - position);
+                System.arraycopy(data, from, fragment, (int) (position - start), n);
+                position += n;
+            }
+            result[i] = fragment;
+        }
+        return result;
+    }
+
+    /**
+     * Busca una secuencia de bytes repartiendo los bloques entre los hilos del pool.
+     * Cada hilo descomprime y recorre un bloque; las coincidencias que cruzan de un bloque
+     * al siguiente se buscan después en la unión del final de uno y el principio del otro.
+     *
+     * Los bloques se combinan en orden de archivo (forEachOrdered), así que las posiciones
+     * salen ya ordenadas: se guardan en un long[] hasta llenar maxOffsets y, a partir de
+     * ahí, los bloques que quedan solo cuentan coincidencias.
+     *
+     * @param needle Bytes a buscar (como mucho el tamaño de un bloque)
+     * @param maxOffsets Número máximo de posiciones devueltas; el total se cuenta siempre
+     */
+    public SearchResult search(byte[] needle, int maxOffsets, ForkJoinPool pool) throws IOException {
+        if (needle.length == 0 || needle.length > blockSize) {
+            throw new IllegalArgumentException("El texto a buscar debe tener entre 1 y " + blockSize + " bytes");
+        }
+        int blocks = blockCount();
+        OffsetCollector collector = new OffsetCollector(maxOffsets);
+        try {
+            pool.submit(() -> IntStream.range(0, blocks).parallel()
+                    .mapToObj(i -> scanBlock(i, needle, collector))
+                    .forEachOrdered(part -> collector.merge(part, needle, blockSize))).join();
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+
+        boolean truncated = collector.matches > collector.size;
+        return new SearchResult(collector.matches, Arrays.stream(collector.offsets, 0, collector.size).boxed().toList(),
+                truncated, blocks, isCompressed());
+    }
+
+    private int blockOf(long position) {
+        return (int) (position / blockSize);
+    }
+
+    /**
+     * Lee y descomprime el bloque i comprobando que tiene el tamaño que dice el índice
+     */
+    byte[] block(int i) throws IOException {
+        long start = (long) i * blockSize;
+        int expected = (int) Math.min(blockSize, size - start);
+        if (offsets == null) {
+            ByteBuffer data = readFully(channel, start, expected);
+            return data.array();
+        }
+
+        byte[] raw = readFully(channel, offsets[i], (int) (offsets[i + 1] - offsets[i])).array();
+        if (!BgzfInputStream.isBgzfHeader(raw)) {
+            throw new IOException("Bloque " + i + " del contenedor inválido");
+        }
+        byte[] data;
+        try {
+            data = BgzfInputStream.inflateBlock(raw);
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+        if (data.length != expected) {
+            throw new IOException("Índice del contenedor incoherente en el bloque " + i);
+        }
+        return data;
+    }
+
+    private byte[] blockUnchecked(int i) {
+        try {
+            return block(i);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BlockMatches scanBlock(int i, byte[] needle, OffsetCollector collector) {
+        byte[] data = blockUnchecked(i);
+        BlockMatches part = new BlockMatches(i);
+        // Si ya están todas las posiciones, los bloques pendientes son posteriores: solo contar
+        int keep = collector.full ? 0 : collector.max;
+        long base = (long) i * blockSize;
+        for (int at = indexOf(data, needle, 0); at >= 0; at = indexOf(data, needle, at + 1)) {
+            part.count++;
+            if (part.size < keep) {
+                part.add(base + at);
+            }
+        }
+        int edge = Math.min(needle.length - 1, data.length);
+        part.head = Arrays.copyOf(data, edge);
+        part.tail = Arrays.copyOfRange(data, data.length - edge, data.length);
+        return part;
+    }
+
+    static int indexOf(byte[] data, byte[] needle, int from) {
+        byte first = needle[0];
+        int last = data.length - needle.length;
+        for (int i = from; i <= last; i++) {
+            if (data[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < needle.length && data[i + j] == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ByteBuffer readFooter(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < FOOTER_SIZE) {
+            return null;
+        }
+        ByteBuffer footer = readFully(channel, fileSize - FOOTER_SIZE, FOOTER_SIZE);
+        return footer.getLong(24) == MAGIC ? footer : null;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Contenedor truncado");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static IOException unwrap(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UncheckedIOException unchecked) {
+                return unchecked.getCause();
+            }
+        }
+        throw e;
+    }
+
+    /**
+     * Coincidencias de un bloque y sus bordes para unir con los bloques vecinos
+     */
+    private static final class BlockMatches {
+        final int block;
+        long count;
+        long[] offsets = new long[16];
+        int size;
+        byte[] head;
+        byte[] tail;
+
+        BlockMatches(int block) {
+            this.block = block;
+        }
+
+        void add(long offset) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = offset;
+        }
+    }
+
+    /**
+     * Total de coincidencias y primeras posiciones, combinando los bloques en orden.
+     * Solo lo modifica el hilo de forEachOrdered; full lo leen los hilos que recorren bloques.
+     */
+    private static final class OffsetCollector {
+        final int max;
+        final long[] offsets;
+        int size;
+        long matches;
+        volatile boolean full;
+        private BlockMatches previous;
+
+        OffsetCollector(int max) {
+            this.max = max;
+            this.offsets = new long[max];
+            this.full = max == 0;
+        }
+
+        void merge(BlockMatches part, byte[] needle, int blockSize) {
+            if (previous != null) {
+                // Coincidencias que empiezan en el final del bloque anterior y acaban en este
+                byte[] tail = previous.tail;
+                byte[] joint = Arrays.copyOf(tail, tail.length + part.head.length);
+                System.arraycopy(part.head, 0, joint, tail.length, part.head.length);
+                long base = (long) part.block * blockSize - tail.length;
+                for (int at = indexOf(joint, needle, 0); at >= 0 && at < tail.length; at = indexOf(joint, needle, at + 1)) {
+                    matches++;
+                    add(base + at);
+                }
+            }
+            matches += part.count;
+            for (int i = 0; i < part.size; i++) {
+                add(part.offsets[i]);
+            }
+            part.offsets = null;
+            previous = part;
+        }
+
+        private void add(long offset) {
+            if (size < max) {
+                offsets[size++] = offset;
+                full = size == max;
+            }
+        }
+    }
+
+    /**
+     * Índice leído de un canal del pool y el estado del archivo al leerlo
+     */
+    private record CachedIndex(long size, FileTime modified, BlockIndexedFile file) {
+    }
+
+    /**
+     * Construye el índice mientras {@link BgzfOutputStream} escribe los bloques
+     */
+    static final class IndexBuilder {
+        private final int blockSize;
+        private long[] offsets = new long[64];
+        private int blocks;
+        private long position;
+        private long size;
+
+        IndexBuilder(int blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        void addBlock(int compressedLength, int uncompressedLength) {
+            if (blocks + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            position += compressedLength;
+            size += uncompressedLength;
+            offsets[++blocks] = position;
+        }
+
+        /**
+         * Escribe índice y pie; eofLength son los bytes escritos tras el último bloque
+         */
+        void writeTrailer(OutputStream out, int eofLength) throws IOException {
+            ByteBuffer trailer = ByteBuffer.allocate((blocks + 1) * Long.BYTES + FOOTER_SIZE);
+            for (int i = 0; i <= blocks; i++) {
+                trailer.putLong(offsets[i]);
+            }
+            trailer.putLong(position + eofLength);
+            trailer.putLong(size);
+            trailer.putInt(blocks);
+            trailer.putInt(blockSize);
+            trailer.putLong(MAGIC);
+            out.write(trailer.array());
+        }
+    }
+
+    /**
+     * Resultado de una búsqueda: total de coincidencias y sus posiciones sin comprimir
+     */
+    public static final class SearchResult {
+        private final long matches;
+        private final List<Long> offsets;
+        private final boolean truncated;
+        private final int blocks;
+        private final boolean compressed;
+
+        SearchResult(long matches, List<Long> offsets, boolean truncated, int blocks, boolean compressed) {
+            this.matches = matches;
+            this.offsets = List.copyOf(offsets);
+            this.truncated = truncated;
+            this.blocks = blocks;
+            this.compressed = compressed;
+        }
+
+        public long getMatches() {
+            return matches;
+        }
+
+        /** Posiciones (bytes del contenido sin comprimir), ordenadas */
+        public List<Long> getOffsets() {
+            return offsets;
+        }
+
+        /** true si había más coincidencias que posiciones devueltas */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        public int getBlocks() {
+            return blocks;
+        }
+
+        public boolean isCompressed() {
+            return compressed;
+        }
+
+        @Override
+        public String toString() {
+            return "SearchResult{" +
+                    "matches=" + matches +
+                    ", offsets=" + offsets.size() +
+                    ", truncated=" + truncated +
+                    ", blocks=" + blocks +
+                    ", compressed=" + compressed +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.dam.accesodatos.ra1.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresión transparente de archivos de usuarios.
+ *
+ * <ul>
+ *   <li>GZIP ({@code .gz}): un único flujo deflate, compatible con cualquier herramienta.</li>
+ *   <li>BGZF ({@code .bgz}): gzip por bloques de hasta 64 KB, cada uno un miembro gzip
+ *       independiente con su tamaño comprimido en la cabecera. Sigue siendo un .gz válido
+ *       (gzip/zcat lo leen), pero los bloques se comprimen y descomprimen en paralelo.</li>
+ *   <li>BGZF indexado ({@code .bgzi}): BGZF con bloques de tamaño fijo e índice final,
+ *       que permite lecturas posicionales y búsquedas sin descomprimir todo
+ *       (ver {@link BlockIndexedFile}).</li>
+ * </ul>
+ *
+ * En lectura el formato se detecta por el contenido (cabecera y pie), no por la extensión.
+ * En escritura {@link #wrap(OutputStream)} devuelve un flujo cuyo close() termina la
+ * compresión pero NO cierra el flujo subyacente, igual que los escritores de registros.
+ */
+public enum Compression {
+    NONE(""),
+    GZIP(".gz"),
+    BGZF(".bgz"),
+    BGZF_INDEXED(".bgzi");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String extension;
+
+    Compression(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Obtiene la compresión por nombre ("none", "gzip"/"gz", "bgzf"/"bgz", "indexed"/"bgzi")
+     * @throws IllegalArgumentException si no está soportada
+     */
+    public static Compression of(String name) {
+        String normalized = name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+        return switch (normalized) {
+            case "", "none" -> NONE;
+            case "gzip", "gz" -> GZIP;
+            case "bgzf", "bgz" -> BGZF;
+            case "indexed", "bgzi" -> BGZF_INDEXED;
+            default -> throw new IllegalArgumentException("Compresión no soportada: " + name + " (use none, gzip, bgzf o indexed)");
+        };
+    }
+
+    /**
+     * Deduce la compresión por la extensión (.gz, .bgz, .bgzi); sin extensión conocida, NONE
+     */
+    public static Compression fromPath(Path path) {
+        String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (fileName.endsWith(BGZF_INDEXED.extension)) {
+            return BGZF_INDEXED;
+        }
+        if (fileName.endsWith(BGZF.extension)) {
+            return BGZF;
+        }
+        if (fileName.endsWith(GZIP.extension)) {
+            return GZIP;
+        }
+        return NONE;
+    }
+
+    /**
+     * Nombre del archivo sin la extensión de compresión ("users.csv.gz" → "users.csv")
+     */
+    public static String stripExtension(String fileName) {
+        Compression compression = fromPath(Path.of(fileName));
+        return compression == NONE ? fileName : fileName.substring(0, fileName.length() - compression.extension.length());
+    }
+
+    /**
+     * Detecta la compresión por la cabecera del archivo (y el pie, para el contenedor indexado)
+     */
+    public static Compression detect(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Compression compression = detect(Channels.newInputStream(channel).readNBytes(BgzfOutputStream.HEADER_SIZE));
+            return compression == BGZF && BlockIndexedFile.isIndexed(channel) ? BGZF_INDEXED : compression;
+        }
+    }
+
+    static Compression detect(byte[] head) {
+        if (head.length < 2 || (head[0] & 0xFF) != 0x1F || (head[1] & 0xFF) != 0x8B) {
+            return NONE;
+        }
+        return BgzfInputStream.isBgzfHeader(head) ? BGZF : GZIP;
+    }
+
+    /**
+     * Abre un archivo para lectura descomprimiendo según su cabecera.
+     * El flujo devuelto siempre tiene buffer y admite mark/reset.
+     */
+    public static InputStream open(Path file) throws IOException {
+        Compression compression = detect(file);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        InputStream in = Channels.newInputStream(channel);
+        try {
+            return switch (compression) {
+                case NONE -> new BufferedInputStream(in, BUFFER_SIZE);
+                // GZIPInputStream ya lee archivos con varios miembros concatenados
+                case GZIP -> new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+                case BGZF -> new BufferedInputStream(new BgzfInputStream(in, ForkJoinPool.commonPool()), BUFFER_SIZE);
+                case BGZF_INDEXED -> new BufferedInputStream(new BgzfInputStream(in, ForkJoinPool.commonPool(),
+                        BlockIndexedFile.indexOffset(channel)), BUFFER_SIZE);
+            };
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Envuelve un flujo de salida con esta compresión. Cerrar el flujo devuelto escribe el
+     * final del formato y vacía los buffers, pero deja abierto out.
+     */
+    public OutputStream wrap(OutputStream out) throws IOException {
+        OutputStream target = new NonClosingOutputStream(out);
+        return switch (this) {
+            case NONE -> new BufferedOutputStream(target, BUFFER_SIZE);
+            case GZIP -> new BufferedOutputStream(new GZIPOutputStream(target, BUFFER_SIZE), BUFFER_SIZE);
+            case BGZF -> new BgzfOutputStream(target, ForkJoinPool.commonPool());
+            case BGZF_INDEXED -> new BgzfOutputStream(target, ForkJoinPool.commonPool(), true);
+        };
+    }
+
+    /**
+     * Flujo cuyo close() solo vacía: el propietario del flujo real decide cuándo cerrarlo
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
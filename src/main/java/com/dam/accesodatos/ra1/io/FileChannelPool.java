@@ -0,0 +1,489 @@
+package com.dam.accesodatos.ra1.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de FileChannel abiertos, compartidos entre las herramientas de acceso posicional.
+ *
+ * Cada canal se identifica por la ruta canónica del archivo y el modo de apertura
+ * (lectura o lectura/escritura). Los canales se prestan con {@link #acquire(Path, boolean)}
+ * y llevan un contador de referencias: solo se cierran cuando nadie los está usando.
+ *
+ * Un canal deja el pool cuando:
+ * - Lleva más de {@code idleTimeout} sin usarse
+ * - El pool está lleno y es el menos usado recientemente
+ * - El WatchService notifica que el archivo se borró o se reemplazó
+ *
+ * Las lecturas y escrituras posicionales sobre un FileChannel son seguras entre hilos,
+ * así que un mismo canal puede prestarse a varios hilos a la vez.
+ *
+ * El hilo de expulsión y el del WatchService se arrancan con el primer préstamo y solo
+ * guardan una referencia débil al pool: si el pool se descarta sin cerrarlo, un Cleaner
+ * los detiene.
+ */
+public class FileChannelPool implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileChannelPool.class);
+
+    private final int maxOpen;
+    private final long idleTimeoutNanos;
+
+    // accessOrder = true: iterar en orden LRU para expulsar el canal menos usado
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Path> watchedDirectories = new HashSet<>();
+
+    private final LongAdder opens = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Background background;
+    private final Cleaner.Cleanable cleanable;
+    private volatile boolean closed;
+
+    public FileChannelPool(int maxOpen, Duration idleTimeout) {
+        if (maxOpen < 1) {
+            throw new IllegalArgumentException("maxOpen debe ser >= 1");
+        }
+        this.maxOpen = maxOpen;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.background = new Background(Math.max(1, idleTimeout.toMillis() / 2));
+        this.cleanable = CLEANER.register(this, background);
+    }
+
+    /**
+     * Presta un canal abierto para la ruta indicada.
+     *
+     * @param path Ruta del archivo
+     * @param writable true para abrir en lectura/escritura (crea el archivo si no existe)
+     * @return Préstamo que debe cerrarse (try-with-resources) al terminar de usar el canal
+     * @throws IOException si el archivo no puede abrirse
+     */
+    public Lease acquire(Path path, boolean writable) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("El pool de canales está cerrado");
+        }
+        background.start(this);
+        if (writable && !Files.exists(path)) {
+            // Crear antes de canonizar para que la clave sea estable
+            Files.newByteChannel(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE).close();
+        }
+        Key key = new Key(canonical(path), writable);
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                entry.refCount++;
+                hits.increment();
+                return new Lease(entry);
+            }
+        }
+
+        FileChannel channel = writable
+                ? FileChannel.open(key.path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(key.path, StandardOpenOption.READ);
+        opens.increment();
+
+        List<Entry> toClose = new ArrayList<>();
+        Lease lease;
+        synchronized (this) {
+            Entry existing = entries.get(key);
+            if (existing != null) {
+                // Otro hilo abrió el mismo archivo mientras tanto: usar el suyo
+                existing.refCount++;
+                hits.increment();
+                toClose.add(new Entry(key, channel));
+                lease = new Lease(existing);
+            } else {
+                Entry entry = new Entry(key, channel);
+                entry.refCount = 1;
+                if (entries.size() >= maxOpen && !evictLeastRecentlyUsed(toClose)) {
+                    // Todos los canales están prestados: servir este sin guardarlo en el pool
+                    entry.evicted = true;
+                } else {
+                    entries.put(key, entry);
+                    watchParent(key.path);
+                }
+                lease = new Lease(entry);
+            }
+        }
+        closeAll(toClose);
+        return lease;
+    }
+
+    /**
+     * Saca del pool los canales de la ruta indicada (p. ej. tras borrarla o reemplazarla).
+     * Los canales prestados se cierran cuando se devuelve el último préstamo.
+     */
+    public void invalidate(Path path) {
+        Path canonical = canonical(path);
+        List<Entry> toClose = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next().getValue();
+                if (entry.key.path.equals(canonical)) {
+                    it.remove();
+                    retire(entry, toClose);
+                }
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * @return Métricas acumuladas del pool
+     */
+    public Stats stats() {
+        int open;
+        synchronized (this) {
+            open = entries.size();
+        }
+        return new Stats(opens.sum(), hits.sum(), evictions.sum(), open, maxOpen);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        cleanable.clean();
+        List<Entry> toClose = new ArrayList<>();
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                retire(entry, toClose);
+            }
+            entries.clear();
+        }
+        closeAll(toClose);
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Expulsión
+    // ---------------------------------------------------------------------------------------
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        List<Entry> toClose = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.refCount == 0 && now - entry.lastUsed > idleTimeoutNanos) {
+                    it.remove();
+                    retire(entry, toClose);
+                }
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /** Debe llamarse con el monitor del pool adquirido */
+    private boolean evictLeastRecentlyUsed(List<Entry> toClose) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.refCount == 0) {
+                it.remove();
+                retire(entry, toClose);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Debe llamarse con el monitor del pool adquirido */
+    private void retire(Entry entry, List<Entry> toClose) {
+        if (!entry.evicted) {
+            entry.evicted = true;
+            evictions.increment();
+        }
+        if (entry.refCount == 0) {
+            toClose.add(entry);
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.refCount--;
+        entry.lastUsed = System.nanoTime();
+        if (entry.evicted && entry.refCount == 0) {
+            closeQuietly(entry);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // WatchService: cerrar canales de archivos borrados o reemplazados
+    // ---------------------------------------------------------------------------------------
+
+    /** Debe llamarse con el monitor del pool adquirido */
+    private void watchParent(Path file) {
+        Path dir = file.getParent();
+        WatchService watchService = background.watchService;
+        if (watchService == null || dir == null || !watchedDirectories.add(dir)) {
+            return;
+        }
+        try {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_CREATE);
+        } catch (IOException | ClosedWatchServiceException e) {
+            watchedDirectories.remove(dir);
+            logger.debug("No se pudo vigilar el directorio {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Bucle del hilo watcher. No guarda el pool entre eventos, para que pueda recogerse
+     * mientras el hilo espera en take().
+     */
+    private static void watchLoop(WatchService watchService, WeakReference<FileChannelPool> poolRef) {
+        while (true) {
+            WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            FileChannelPool pool = poolRef.get();
+            if (pool == null || pool.closed) {
+                return;
+            }
+            pool.processEvents(watchKey);
+        }
+    }
+
+    private void processEvents(WatchKey watchKey) {
+        Path dir = (Path) watchKey.watchable();
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.context() instanceof Path name) {
+                // ENTRY_CREATE sobre una ruta ya abierta significa que se reemplazó (rename atómico)
+                invalidate(dir.resolve(name));
+            }
+        }
+        if (!watchKey.reset()) {
+            synchronized (this) {
+                watchedDirectories.remove(dir);
+            }
+        }
+    }
+
+    /**
+     * Hilos de fondo del pool. Es también la acción del Cleaner, así que no puede
+     * referenciar al pool: las tareas lo alcanzan por una referencia débil.
+     */
+    private static final class Background implements Runnable {
+        private final long periodMillis;
+        private volatile boolean started;
+        private volatile WatchService watchService;
+        private ScheduledExecutorService idleReaper;
+        private boolean stopped;
+
+        Background(long periodMillis) {
+            this.periodMillis = periodMillis;
+        }
+
+        void start(FileChannelPool pool) {
+            if (started) {
+                return;
+            }
+            synchronized (this) {
+                if (started || stopped) {
+                    return;
+                }
+                WeakReference<FileChannelPool> poolRef = new WeakReference<>(pool);
+
+                idleReaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "file-channel-pool-reaper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                idleReaper.scheduleWithFixedDelay(() -> {
+                    FileChannelPool target = poolRef.get();
+                    if (target != null) {
+                        target.evictIdle();
+                    }
+                }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+
+                try {
+                    WatchService watcher = FileSystems.getDefault().newWatchService();
+                    Thread watchThread = new Thread(() -> watchLoop(watcher, poolRef), "file-channel-pool-watcher");
+                    watchThread.setDaemon(true);
+                    watchThread.start();
+                    watchService = watcher;
+                } catch (IOException e) {
+                    logger.warn("WatchService no disponible, el pool no detectará borrados: {}", e.getMessage());
+                }
+                started = true;
+            }
+        }
+
+        @Override
+        public synchronized void run() {
+            stopped = true;
+            if (idleReaper != null) {
+                idleReaper.shutdownNow();
+            }
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    logger.debug("Error cerrando WatchService: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Utilidades
+    // ---------------------------------------------------------------------------------------
+
+    private static Path canonical(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    private static void closeAll(List<Entry> entries) {
+        for (Entry entry : entries) {
+            closeQuietly(entry);
+        }
+    }
+
+    private static void closeQuietly(Entry entry) {
+        try {
+            entry.channel.close();
+        } catch (IOException e) {
+            logger.debug("Error cerrando canal {}: {}", entry.key.path, e.getMessage());
+        }
+    }
+
+    private record Key(Path path, boolean writable) {
+    }
+
+    private static final class Entry {
+        final Key key;
+        final FileChannel channel;
+        int refCount;
+        long lastUsed = System.nanoTime();
+        boolean evicted;
+        volatile Object attachment;
+
+        Entry(Key key, FileChannel channel) {
+            this.key = key;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Préstamo de un canal del pool. Cerrarlo devuelve el canal, no lo cierra.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean released;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public FileChannel channel() {
+            return entry.channel;
+        }
+
+        /**
+         * Objeto asociado al canal (p. ej. un índice ya leído), compartido por todos sus
+         * préstamos mientras el canal siga en el pool
+         */
+        public Object attachment() {
+            return entry.attachment;
+        }
+
+        public void attach(Object attachment) {
+            entry.attachment = attachment;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(entry);
+            }
+        }
+    }
+
+    /**
+     * Métricas del pool expuestas por la herramienta get_channel_pool_stats
+     */
+    public static final class Stats {
+        private final long opens;
+        private final long hits;
+        private final long evictions;
+        private final int openChannels;
+        private final int maxOpen;
+
+        Stats(long opens, long hits, long evictions, int openChannels, int maxOpen) {
+            this.opens = opens;
+            this.hits = hits;
+            this.evictions = evictions;
+            this.openChannels = openChannels;
+            this.maxOpen = maxOpen;
+        }
+
+        public long getOpens() {
+            return opens;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getOpenChannels() {
+            return openChannels;
+        }
+
+        public int getMaxOpen() {
+            return maxOpen;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "opens=" + opens +
+                    ", hits=" + hits +
+                    ", evictions=" + evictions +
+                    ", openChannels=" + openChannels +
+                    ", maxOpen=" + maxOpen +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.dam.accesodatos.ra1.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bloqueo por archivo para lectores y escritores concurrentes.
+ *
+ * Dentro de la JVM se usa un array fijo de {@link ReentrantReadWriteLock} ("stripes"):
+ * cada ruta canónica se asigna a una stripe por su hash. Las lecturas de un mismo archivo
+ * avanzan en paralelo y las escrituras se serializan solo con las operaciones de su stripe,
+ * nunca de forma global.
+ *
+ * Entre procesos se añade un {@link FileLock} sobre el propio archivo: compartido para
+ * lectores (uno por archivo, con contador de lectores de esta JVM, porque la JVM no permite
+ * dos FileLock solapados sobre el mismo archivo) y exclusivo para escritores.
+ *
+ * El FileLock exclusivo se toma sobre el canal de escritura del {@link FileChannelPool} (si se
+ * indica), que sigue abierto después: así cada escritura no abre y cierra un canal propio.
+ *
+ * Nota: en sistemas POSIX cerrar cualquier canal del archivo en esta JVM (p. ej. un canal de
+ * lectura que el pool expulsa) libera todos sus FileLock. La protección entre procesos es
+ * por tanto orientativa; la exclusión dentro de la JVM no depende de ella.
+ */
+public class StripedFileLocks {
+
+    private final ReadWriteLock[] stripes;
+    private final Map<Path, SharedOsLock> sharedOsLocks = new HashMap<>();
+    private final FileChannelPool channelPool;
+
+    /**
+     * @param stripes Número de stripes (se redondea a la siguiente potencia de dos)
+     */
+    public StripedFileLocks(int stripes) {
+        this(stripes, null);
+    }
+
+    /**
+     * @param stripes Número de stripes (se redondea a la siguiente potencia de dos)
+     * @param channelPool Pool cuyos canales de escritura sostienen el FileLock exclusivo,
+     *                    o null para abrir un canal por bloqueo
+     */
+    public StripedFileLocks(int stripes, FileChannelPool channelPool) {
+        this.channelPool = channelPool;
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Bloquea el archivo para lectura (compartido con otros lectores).
+     * Si el archivo no existe solo se toma el bloqueo de la JVM.
+     */
+    public Handle lockForRead(Path path) throws IOException {
+        Path key = canonical(path);
+        Lock lock = stripeFor(key).readLock();
+        lock.lock();
+        SharedOsLock osLock;
+        try {
+            osLock = Files.exists(key) ? acquireShared(key) : null;
+        } catch (IOException | RuntimeException e) {
+            lock.unlock();
+            throw e;
+        }
+        return new Handle(lock, osLock == null ? null : () -> releaseShared(key, osLock));
+    }
+
+    /**
+     * Bloquea el archivo para escritura (exclusivo). Crea el archivo si no existe
+     * para poder tomar el FileLock exclusivo entre procesos.
+     */
+    public Handle lockForWrite(Path path) throws IOException {
+        Path key = canonical(path);
+        Lock lock = stripeFor(key).writeLock();
+        lock.lock();
+        Release closeChannel = null;
+        try {
+            Path parent = key.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            FileChannel channel;
+            if (channelPool != null) {
+                // Cerrar el préstamo lo devuelve al pool sin cerrar el canal
+                FileChannelPool.Lease lease = channelPool.acquire(key, true);
+                channel = lease.channel();
+                closeChannel = lease::close;
+            } else {
+                channel = FileChannel.open(key, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                closeChannel = channel::close;
+            }
+            FileLock fileLock = channel.lock();
+            Release release = closeChannel;
+            return new Handle(lock, () -> {
+                try {
+                    fileLock.release();
+                } finally {
+                    release.run();
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            if (closeChannel != null) {
+                closeChannel.run();
+            }
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    int stripeIndex(Path path) {
+        return indexOf(canonical(path));
+    }
+
+    private ReadWriteLock stripeFor(Path canonical) {
+        return stripes[indexOf(canonical)];
+    }
+
+    private int indexOf(Path canonical) {
+        int hash = canonical.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (stripes.length - 1);
+    }
+
+    private SharedOsLock acquireShared(Path key) throws IOException {
+        SharedOsLock osLock;
+        synchronized (sharedOsLocks) {
+            osLock = sharedOsLocks.computeIfAbsent(key, SharedOsLock::new);
+            osLock.holders++;
+        }
+        try {
+            // Abrir fuera del monitor global: un bloqueo de otro proceso solo frena a este archivo
+            osLock.open();
+            return osLock;
+        } catch (IOException | RuntimeException e) {
+            releaseShared(key, osLock);
+            throw e;
+        }
+    }
+
+    private void releaseShared(Path key, SharedOsLock osLock) throws IOException {
+        synchronized (sharedOsLocks) {
+            if (--osLock.holders > 0) {
+                return;
+            }
+            sharedOsLocks.remove(key);
+            // Cerrar dentro del monitor: un nuevo lector no puede pedir otro FileLock
+            // sobre el archivo mientras este siga activo (OverlappingFileLockException)
+            osLock.close();
+        }
+    }
+
+    private static Path canonical(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    /**
+     * FileLock compartido de un archivo, usado por todos los lectores de esta JVM
+     */
+    private static final class SharedOsLock {
+        private final Path path;
+        private int holders;
+        private FileChannel channel;
+        private FileLock fileLock;
+
+        SharedOsLock(Path path) {
+            this.path = path;
+        }
+
+        synchronized void open() throws IOException {
+            if (fileLock == null) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+                try {
+                    fileLock = channel.lock(0, Long.MAX_VALUE, true);
+                } catch (IOException | RuntimeException e) {
+                    channel.close();
+                    channel = null;
+                    throw e;
+                }
+            }
+        }
+
+        synchronized void close() throws IOException {
+            if (channel != null) {
+                try {
+                    if (fileLock != null && fileLock.isValid()) {
+                        fileLock.release();
+                    }
+                } finally {
+                    channel.close();
+                    channel = null;
+                    fileLock = null;
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Release {
+        void run() throws IOException;
+    }
+
+    /**
+     * Bloqueo adquirido. Debe cerrarse (try-with-resources) para liberarlo.
+     */
+    public static final class Handle implements AutoCloseable {
+        private final Lock lock;
+        private final Release osRelease;
+        private boolean released;
+
+        private Handle(Lock lock, Release osRelease) {
+            this.lock = lock;
+            this.osRelease = osRelease;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (released) {
+                return;
+            }
+            released = true;
+            try {
+                if (osRelease != null) {
+                    osRelease.run();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.dam.accesodatos.ra1.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Lectura vectorizada de muchos fragmentos (posición, longitud) de un mismo archivo.
+ *
+ * Los fragmentos se ordenan por posición y los que se solapan o son contiguos
+ * se fusionan en un único tramo, de modo que cada tramo se sirve con una sola
+ * lectura posicional {@link FileChannel#read(ByteBuffer, long)}. Las lecturas
+ * posicionales no modifican la posición del canal y son seguras entre hilos,
+ * por lo que los lotes grandes se leen en paralelo sobre el mismo canal.
+ */
+public final class VectoredFileReader {
+
+    /** Tamaño máximo de un tramo fusionado (evita buffers gigantes por fusión) */
+    static final int MAX_SPAN_BYTES = 1 << 20;
+
+    /** Número mínimo de tramos a partir del cual se lee en paralelo */
+    static final int PARALLEL_THRESHOLD = 16;
+
+    private VectoredFileReader() {
+    }
+
+    /**
+     * Lee los fragmentos indicados desde el canal.
+     *
+     * @param channel Canal abierto en modo lectura
+     * @param positions Posiciones en bytes de cada fragmento
+     * @param lengths Longitudes en bytes de cada fragmento
+     * @return Bytes leídos por fragmento, en el mismo orden de la petición.
+     *         Los fragmentos que superan el final del archivo se truncan (vacíos si empiezan después del EOF)
+     * @throws IOException si hay error de lectura
+     */
+    public static byte[][] read(FileChannel channel, long[] positions, int[] lengths) throws IOException {
+        if (positions.length != lengths.length) {
+            throw new IllegalArgumentException("positions y lengths deben tener el mismo tamaño");
+        }
+        int count = positions.length;
+        for (int i = 0; i < count; i++) {
+            if (positions[i] < 0 || lengths[i] < 0) {
+                throw new IllegalArgumentException("Fragmento inválido en índice " + i
+                        + ": posición y longitud deben ser >= 0");
+            }
+            try {
+                Math.addExact(positions[i], lengths[i]);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Fragmento inválido en índice " + i
+                        + ": posición + longitud supera el máximo de un long");
+            }
+        }
+
+        long fileSize = channel.size();
+        List<Span> spans = coalesce(positions, lengths, fileSize);
+
+        try {
+            IntStream indexes = IntStream.range(0, spans.size());
+            if (spans.size() >= PARALLEL_THRESHOLD) {
+                indexes = indexes.parallel();
+            }
+            indexes.forEach(i -> spans.get(i).load(channel));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        byte[][] result = new byte[count][];
+        for (Span span : spans) {
+            for (int member : span.members) {
+                result[member] = span.slice(positions[member], lengths[member]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Comprueba que un lote no supera los límites antes de reservar memoria para el resultado,
+     * que se construye entero en el heap (un fragmento solapado se copia una vez por petición).
+     *
+     * @param lengths Longitudes en bytes de cada fragmento
+     * @param maxRanges Número máximo de fragmentos
+     * @param maxTotalBytes Suma máxima de las longitudes pedidas
+     * @throws IllegalArgumentException si el lote supera alguno de los límites
+     */
+    public static void checkLimits(int[] lengths, int maxRanges, long maxTotalBytes) {
+        if (lengths.length > maxRanges) {
+            throw new IllegalArgumentException("Demasiados fragmentos: " + lengths.length
+                    + " (máximo " + maxRanges + ")");
+        }
+        long total = 0;
+        for (int length : lengths) {
+            total += Math.max(length, 0);
+        }
+        if (total > maxTotalBytes) {
+            throw new IllegalArgumentException("Los fragmentos suman " + total
+                    + " bytes (máximo " + maxTotalBytes + ")");
+        }
+    }
+
+    /**
+     * Ordena los fragmentos por posición y fusiona los contiguos o solapados.
+     * Los fragmentos vacíos o situados tras el EOF forman tramos sin lectura.
+     */
+    static List<Span> coalesce(long[] positions, int[] lengths, long fileSize) {
+        Integer[] order = new Integer[positions.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(positions[a], positions[b]));
+
+        List<Span> spans = new ArrayList<>();
+        Span current = null;
+        for (int index : order) {
+            long start = Math.min(positions[index], fileSize);
+            long end = Math.min(positions[index] + lengths[index], fileSize);
+            if (current != null && start <= current.end
+                    && Math.max(end, current.end) - current.start <= MAX_SPAN_BYTES) {
+                current.end = Math.max(current.end, end);
+            } else {
+                current = new Span(start, end);
+                spans.add(current);
+            }
+            current.members.add(index);
+        }
+        return spans;
+    }
+
+    /**
+     * Tramo contiguo del archivo que cubre uno o varios fragmentos solicitados.
+     */
+    static final class Span {
+        final long start;
+        long end;
+        final List<Integer> members = new ArrayList<>();
+        private byte[] data;
+
+        Span(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        void load(FileChannel channel) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            try {
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, start + buffer.position());
+                    if (read < 0) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            data = buffer.hasRemaining() ? Arrays.copyOf(buffer.array(), buffer.position()) : buffer.array();
+        }
+
+        byte[] slice(long position, int length) {
+            if (position >= start + data.length) {
+                return new byte[0];
+            }
+            int from = (int) (position - start);
+            int to = (int) Math.min((long) from + length, data.length);
+            return Arrays.copyOfRange(data, from, to);
+        }
+    }
+}
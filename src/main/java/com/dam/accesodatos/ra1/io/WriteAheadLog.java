@@ -0,0 +1,516 @@
+package com.dam.accesodatos.ra1.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Registro de escritura anticipada (WAL) con group commit para escrituras posicionales.
+ *
+ * Flujo de una escritura:
+ * 1. {@link #append(Path, long, byte[])} encola el registro
+ * 2. El hilo de commit agrupa todos los registros pendientes, los añade al log
+ *    y hace un único force() para todo el grupo (group commit)
+ * 3. Tras el force() se confirman todos los escritores del grupo: la escritura ya es durable
+ * 4. Un hilo aplicador escribe los registros en los archivos destino de forma asíncrona,
+ *    con el bloqueo de escritura de cada destino en {@link StripedFileLocks}
+ * 5. Cuando todo lo registrado está aplicado y sincronizado, el log se trunca (checkpoint)
+ *
+ * Si el proceso cae antes del checkpoint, {@link #recover()} vuelve a aplicar el log al arrancar.
+ * Reaplicar es idempotente porque cada registro es una escritura en posición absoluta.
+ * Si falla la aplicación de un grupo, el checkpoint se suspende y, cuando el log queda
+ * inactivo, se reaplica entero en orden (como en recover) hasta que funcione. Mientras tanto
+ * sus escrituras siguen pendientes: {@link #awaitApplied(Path)} falla en vez de dejar leer
+ * el destino sin ellas.
+ *
+ * Formato de registro: [int longitud][int crc32][short longitudRuta][ruta UTF-8][long posición][datos]
+ * Un registro incompleto o con CRC inválido al final del log se descarta (escritura interrumpida).
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    /** Número máximo de registros por group commit */
+    static final int MAX_BATCH = 1024;
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    /** Espera mínima entre reintentos de aplicar el log tras un fallo */
+    private static final long REAPPLY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Path logFile;
+    private final FileChannelPool channelPool;
+    private final StripedFileLocks fileLocks;
+    private final FileChannel log;
+
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService applier;
+    private final Thread committer;
+
+    // Registros pendientes de aplicar por archivo destino (para lecturas consistentes)
+    private final Map<Path, Integer> pendingByTarget = new LinkedHashMap<>();
+    // Escrituras cuyo grupo falló al aplicarse; siguen pendientes hasta reaplicar el log
+    private final List<PendingWrite> unapplied = new ArrayList<>();
+    private long loggedRecords;
+    private long appliedRecords; // procesados por el aplicador, con éxito o en unapplied
+    private boolean reapplying;
+    private long nextReapplyNanos = System.nanoTime();
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder records = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * @param fileLocks Bloqueos compartidos con los lectores y con quien sustituye los destinos
+     */
+    public WriteAheadLog(Path logFile, FileChannelPool channelPool, StripedFileLocks fileLocks) throws IOException {
+        this.logFile = logFile;
+        this.channelPool = channelPool;
+        this.fileLocks = fileLocks;
+
+        Path parent = logFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.log = FileChannel.open(logFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        recover();
+
+        this.applier = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wal-applier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.committer = new Thread(this::commitLoop, "wal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Registra una escritura posicional.
+     *
+     * @return Future que se completa cuando la escritura es durable en el log
+     */
+    public CompletableFuture<Void> append(Path target, long position, byte[] data) {
+        if (closed) {
+            throw new IllegalStateException("El WAL está cerrado");
+        }
+        if (position < 0) {
+            throw new IllegalArgumentException("La posición debe ser >= 0");
+        }
+        Path normalized = normalize(target);
+        if (Files.isDirectory(normalized)) {
+            throw new IllegalArgumentException("El destino es un directorio: " + target);
+        }
+        PendingWrite write = new PendingWrite(normalized, position, data);
+        synchronized (this) {
+            pendingByTarget.merge(normalized, 1, Integer::sum);
+        }
+        queue.add(write);
+        return write.durable;
+    }
+
+    /**
+     * Espera a que todas las escrituras confirmadas sobre el archivo se hayan aplicado,
+     * de modo que una lectura posterior las vea.
+     *
+     * @throws IOException si alguna falló al aplicarse y aún no se ha reaplicado
+     */
+    public synchronized void awaitApplied(Path target) throws IOException, InterruptedException {
+        Path normalized = normalize(target);
+        while (pendingByTarget.containsKey(normalized) && !closed) {
+            for (PendingWrite write : unapplied) {
+                if (write.target.equals(normalized)) {
+                    throw new IOException("Hay escrituras confirmadas sobre " + target
+                            + " que no se han podido aplicar todavía");
+                }
+            }
+            wait(100);
+        }
+    }
+
+    /**
+     * Reaplica los registros válidos del log sobre sus archivos destino y trunca el log.
+     * Se invoca al construir el WAL, antes de aceptar nuevas escrituras.
+     */
+    final void recover() throws IOException {
+        long size = log.size();
+        if (size == 0) {
+            return;
+        }
+        logger.info("Recuperando WAL {} ({} bytes)", logFile, size);
+
+        List<PendingWrite> replay = readRecords(size);
+        apply(replay);
+        log.truncate(0);
+        log.force(true);
+        logger.info("WAL {}: {} escrituras reaplicadas", logFile, replay.size());
+    }
+
+    /**
+     * Lee los registros válidos de los primeros size bytes del log, en orden.
+     */
+    private List<PendingWrite> readRecords(long size) throws IOException {
+        List<PendingWrite> replay = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        long offset = 0;
+        while (offset + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(log, header, offset);
+            header.flip();
+            int length = header.getInt();
+            int crc = header.getInt();
+            if (length <= 0 || offset + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(log, body, offset + HEADER_BYTES);
+            if (crc32(body.array(), length) != crc) {
+                break;
+            }
+            body.flip();
+            replay.add(decode(body));
+            offset += HEADER_BYTES + length;
+        }
+        if (offset < size) {
+            logger.warn("WAL {}: descartados {} bytes finales incompletos o corruptos", logFile, size - offset);
+        }
+        return replay;
+    }
+
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    public long getRecords() {
+        return records.sum();
+    }
+
+    /**
+     * Detiene el WAL tras confirmar, aplicar y sincronizar todo lo pendiente.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        // Sin interrupt(): interrumpir un FileChannel en uso lo cerraría.
+        // El hilo de commit vacía la cola y termina al ver closed = true
+        closed = true;
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingWrite orphan;
+        while ((orphan = queue.poll()) != null) {
+            orphan.durable.completeExceptionally(new IllegalStateException("El WAL está cerrado"));
+            forget(orphan);
+        }
+        applier.shutdown();
+        try {
+            applier.awaitTermination(10, TimeUnit.SECONDS);
+            checkpointIfIdle();
+            log.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warn("Error cerrando WAL {}: {}", logFile, e.getMessage());
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Group commit
+    // ---------------------------------------------------------------------------------------
+
+    private void commitLoop() {
+        List<PendingWrite> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                PendingWrite first = closed ? queue.poll() : queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) {
+                        return;
+                    }
+                    checkpointIfIdle();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Error en group commit del WAL {}: {}", logFile, e.getMessage(), e);
+                for (PendingWrite write : batch) {
+                    write.durable.completeExceptionally(e);
+                    forget(write);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) throws IOException {
+        int total = 0;
+        List<byte[]> encoded = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            byte[] record = encode(write);
+            encoded.add(record);
+            total += record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (byte[] record : encoded) {
+            buffer.put(record);
+        }
+        buffer.flip();
+
+        long start = log.size();
+        try {
+            long offset = start;
+            while (buffer.hasRemaining()) {
+                offset += log.write(buffer, offset);
+            }
+            log.force(false);
+        } catch (IOException e) {
+            // Quitar el grupo parcialmente escrito para no dejar un registro roto en medio del log
+            log.truncate(start);
+            throw e;
+        }
+
+        synchronized (this) {
+            loggedRecords += batch.size();
+        }
+        commits.increment();
+        records.add(batch.size());
+
+        List<PendingWrite> toApply = new ArrayList<>(batch);
+        for (PendingWrite write : toApply) {
+            write.durable.complete(null);
+        }
+        applier.execute(() -> applyLogged(toApply));
+    }
+
+    private void applyLogged(List<PendingWrite> batch) {
+        try {
+            apply(batch);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                appliedRecords += batch.size();
+                unapplied.addAll(batch);
+                notifyAll();
+            }
+            logger.error("Error aplicando escrituras del WAL {} (se reaplicarán cuando el log quede inactivo): {}",
+                    logFile, e.getMessage(), e);
+            return;
+        }
+        for (PendingWrite write : batch) {
+            markApplied(write);
+        }
+    }
+
+    /**
+     * Aplica las escrituras en orden por archivo destino y sincroniza cada uno una sola vez.
+     * Cada destino se escribe y sincroniza con su bloqueo de escritura: ningún lector ve el
+     * grupo a medias y nadie sustituye el archivo mientras se escribe en el anterior.
+     */
+    private void apply(List<PendingWrite> writes) throws IOException {
+        Map<Path, List<PendingWrite>> byTarget = new LinkedHashMap<>();
+        for (PendingWrite write : writes) {
+            byTarget.computeIfAbsent(write.target, target -> new ArrayList<>()).add(write);
+        }
+        for (Map.Entry<Path, List<PendingWrite>> target : byTarget.entrySet()) {
+            // lockForWrite crea el directorio y el archivo si no existen
+            try (StripedFileLocks.Handle lock = fileLocks.lockForWrite(target.getKey());
+                 FileChannelPool.Lease lease = channelPool.acquire(target.getKey(), true)) {
+                for (PendingWrite write : target.getValue()) {
+                    ByteBuffer data = ByteBuffer.wrap(write.data);
+                    long position = write.position;
+                    while (data.hasRemaining()) {
+                        position += lease.channel().write(data, position);
+                    }
+                }
+                lease.channel().force(false);
+            }
+        }
+    }
+
+    private synchronized void markApplied(PendingWrite write) {
+        appliedRecords++;
+        forget(write);
+    }
+
+    /** Retira la escritura de los pendientes del destino (aplicada o rechazada) */
+    private synchronized void forget(PendingWrite write) {
+        pendingByTarget.computeIfPresent(write.target, (path, count) -> count > 1 ? count - 1 : null);
+        notifyAll();
+    }
+
+    /**
+     * Trunca el log cuando todo lo registrado ya está aplicado en los destinos.
+     * Solo lo invoca el hilo de commit (único escritor del log) o close().
+     */
+    private void checkpointIfIdle() {
+        synchronized (this) {
+            if (loggedRecords != appliedRecords || loggedRecords == 0) {
+                return;
+            }
+            if (!unapplied.isEmpty()) {
+                scheduleReapply();
+                return;
+            }
+            loggedRecords = 0;
+            appliedRecords = 0;
+        }
+        try {
+            log.truncate(0);
+            log.force(false);
+        } catch (IOException e) {
+            logger.warn("No se pudo truncar el WAL {}: {}", logFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Encola en el aplicador la reaplicación de todo el log escrito hasta ahora.
+     * El aplicador es de un solo hilo: los grupos que se confirmen después se aplican
+     * detrás, así que el orden de las escrituras se conserva.
+     * Debe llamarse con el monitor del WAL adquirido y desde el hilo de commit.
+     */
+    private void scheduleReapply() {
+        if (reapplying || closed || System.nanoTime() - nextReapplyNanos < 0) {
+            return;
+        }
+        long end;
+        try {
+            end = log.size();
+        } catch (IOException e) {
+            logger.warn("No se pudo leer el tamaño del WAL {}: {}", logFile, e.getMessage());
+            return;
+        }
+        List<PendingWrite> covered = new ArrayList<>(unapplied);
+        reapplying = true;
+        try {
+            applier.execute(() -> reapply(end, covered));
+        } catch (RejectedExecutionException e) {
+            reapplying = false;
+        }
+    }
+
+    /**
+     * @param end Tamaño del log al programar la reaplicación
+     * @param covered Escrituras fallidas registradas antes de end, que quedan aplicadas si funciona
+     */
+    private void reapply(long end, List<PendingWrite> covered) {
+        boolean applied = false;
+        try {
+            apply(readRecords(end));
+            applied = true;
+            logger.info("WAL {}: escrituras pendientes reaplicadas, se reanuda el checkpoint", logFile);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Error reaplicando el WAL {} (se reintentará): {}", logFile, e.getMessage());
+        } finally {
+            synchronized (this) {
+                reapplying = false;
+                if (applied) {
+                    // covered es el principio de unapplied: solo se añade al final y solo se quita aquí
+                    unapplied.subList(0, covered.size()).clear();
+                    for (PendingWrite write : covered) {
+                        forget(write);
+                    }
+                } else {
+                    nextReapplyNanos = System.nanoTime() + REAPPLY_INTERVAL_NANOS;
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Codificación de registros
+    // ---------------------------------------------------------------------------------------
+
+    private static byte[] encode(PendingWrite write) {
+        byte[] path = write.target.toString().getBytes(StandardCharsets.UTF_8);
+        int bodyLength = Short.BYTES + path.length + Long.BYTES + write.data.length;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + bodyLength);
+        record.putInt(bodyLength);
+        record.putInt(0); // CRC, se rellena tras escribir el cuerpo
+        record.putShort((short) path.length);
+        record.put(path);
+        record.putLong(write.position);
+        record.put(write.data);
+        record.putInt(Integer.BYTES, crc32(record.array(), HEADER_BYTES, bodyLength));
+        return record.array();
+    }
+
+    private static PendingWrite decode(ByteBuffer body) {
+        byte[] path = new byte[body.getShort() & 0xFFFF];
+        body.get(path);
+        long position = body.getLong();
+        byte[] data = new byte[body.remaining()];
+        body.get(data);
+        return new PendingWrite(Paths.get(new String(path, StandardCharsets.UTF_8)), position, data);
+    }
+
+    private static int crc32(byte[] bytes, int length) {
+        return crc32(bytes, 0, length);
+    }
+
+    private static int crc32(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Fin de archivo inesperado en el WAL");
+            }
+        }
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private static final class PendingWrite {
+        final Path target;
+        final long position;
+        final byte[] data;
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        PendingWrite(Path target, long position, byte[] data) {
+            this.target = target;
+            this.position = position;
+            this.data = data;
+        }
+    }
+}
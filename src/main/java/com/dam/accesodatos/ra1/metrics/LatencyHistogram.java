@@ -0,0 +1,92 @@
+package com.dam.accesodatos.ra1.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de duraciones con cubos fijos (de 100 µs a 60 s en serie 1-2,5-5).
+ *
+ * Registrar una duración es buscar su cubo entre 18 límites y sumar en un LongAdder, sin
+ * reservar memoria ni bloquear, así que puede quedarse activo en producción. Los percentiles
+ * se estiman interpolando dentro del cubo: el error está acotado por el ancho del cubo.
+ */
+final class LatencyHistogram {
+
+    /** Límites superiores de los cubos en segundos, tal como se publican en la etiqueta le */
+    static final String[] BOUNDS = {
+            "0.0001", "0.00025", "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05",
+            "0.1", "0.25", "0.5", "1", "2.5", "5", "10", "30", "60"};
+
+    private static final long[] BOUND_NANOS = new long[BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUND_NANOS[i] = (long) (Double.parseDouble(BOUNDS[i]) * 1_000_000_000L);
+        }
+    }
+
+    /** Un contador por cubo más el de +Inf (no acumulados) */
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BOUND_NANOS.length && nanos > BOUND_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Recuentos acumulados por cubo (el último es +Inf, el total)
+     */
+    long[] cumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * Percentil estimado en nanosegundos (0 si no hay datos)
+     * @param quantile Entre 0 y 1
+     */
+    long quantileNanos(double quantile) {
+        return quantileNanos(cumulativeCounts(), quantile);
+    }
+
+    long quantileNanos(long[] cumulative, double quantile) {
+        long total = cumulative[cumulative.length - 1];
+        if (total == 0) {
+            return 0;
+        }
+        double rank = quantile * total;
+        int bucket = 0;
+        while (bucket < cumulative.length - 1 && cumulative[bucket] < rank) {
+            bucket++;
+        }
+        long lower = bucket == 0 ? 0 : BOUND_NANOS[bucket - 1];
+        // Por encima del último límite el mayor valor visto hace de límite superior
+        long upper = bucket < BOUND_NANOS.length ? BOUND_NANOS[bucket] : Math.max(lower, maxNanos.get());
+        long below = bucket == 0 ? 0 : cumulative[bucket - 1];
+        long inBucket = cumulative[bucket] - below;
+        double fraction = inBucket == 0 ? 1 : (rank - below) / inBucket;
+        return lower + (long) ((upper - lower) * fraction);
+    }
+}
@@ -0,0 +1,271 @@
+package com.dam.accesodatos.ra1.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Métricas por herramienta MCP: duración (histograma y p50/p95/p99), llamadas en curso,
+ * errores por tipo de excepción y bytes y registros procesados.
+ *
+ * Las duraciones, errores y llamadas en curso las registra {@link ToolMetricsProxy} alrededor
+ * de cada método @Tool. Los bytes y registros los cuenta el código de E/S y se atribuyen a la
+ * herramienta en curso en el hilo ({@link #current()}). Las tareas que hacen E/S en otros
+ * hilos (pool de E/S) reciben el ToolStats capturado en el hilo de la herramienta y suman en
+ * él directamente; lo que se lee o escribe fuera de una herramienta no se cuenta.
+ * Todo son LongAdder: registrar no bloquea ni reserva memoria.
+ * {@link #writePrometheus(Appendable)} publica el formato de texto de Prometheus (0.0.4).
+ */
+public final class ToolMetrics {
+
+    /** Tipo de contenido del formato de texto de Prometheus */
+    public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private final ConcurrentMap<String, ToolStats> tools = new ConcurrentHashMap<>();
+    private final ThreadLocal<ToolStats> current = new ThreadLocal<>();
+
+    /**
+     * Métricas de una herramienta (se crean la primera vez)
+     */
+    public ToolStats tool(String name) {
+        return tools.computeIfAbsent(name, ToolStats::new);
+    }
+
+    /**
+     * Herramienta en curso en este hilo, o null fuera de una herramienta medida
+     */
+    public ToolStats current() {
+        return current.get();
+    }
+
+    public void bytesRead(long bytes) {
+        ToolStats stats = current.get();
+        if (stats != null) {
+            stats.addBytesRead(bytes);
+        }
+    }
+
+    public void bytesWritten(long bytes) {
+        ToolStats stats = current.get();
+        if (stats != null) {
+            stats.addBytesWritten(bytes);
+        }
+    }
+
+    public void recordsRead(long records) {
+        ToolStats stats = current.get();
+        if (stats != null) {
+            stats.addRecordsRead(records);
+        }
+    }
+
+    /**
+     * Marca stats como la herramienta en curso del hilo
+     * @return La que había antes, para {@link #exit(ToolStats)}
+     */
+    ToolStats enter(ToolStats stats) {
+        ToolStats previous = current.get();
+        current.set(stats);
+        return previous;
+    }
+
+    void exit(ToolStats previous) {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Escribe todas las métricas en formato de texto de Prometheus, herramientas por nombre
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        List<ToolStats> sorted = new ArrayList<>(new TreeMap<>(tools).values());
+
+        header(out, "mcp_tool_duration_seconds", "histogram", "Duración de las llamadas a herramientas MCP");
+        List<long[]> cumulative = new ArrayList<>(sorted.size());
+        for (ToolStats stats : sorted) {
+            long[] counts = stats.latency.cumulativeCounts();
+            cumulative.add(counts);
+            String tool = label(stats.name);
+            for (int i = 0; i < LatencyHistogram.BOUNDS.length; i++) {
+                line(out, "mcp_tool_duration_seconds_bucket{tool=\"" + tool + "\",le=\"" + LatencyHistogram.BOUNDS[i] + "\"}",
+                        Long.toString(counts[i]));
+            }
+            line(out, "mcp_tool_duration_seconds_bucket{tool=\"" + tool + "\",le=\"+Inf\"}",
+                    Long.toString(counts[counts.length - 1]));
+            line(out, "mcp_tool_duration_seconds_sum{tool=\"" + tool + "\"}", seconds(stats.latency.sumNanos()));
+            line(out, "mcp_tool_duration_seconds_count{tool=\"" + tool + "\"}", Long.toString(counts[counts.length - 1]));
+        }
+
+        header(out, "mcp_tool_duration_quantile_seconds", "gauge",
+                "Percentiles estimados de duración a partir del histograma");
+        for (int t = 0; t < sorted.size(); t++) {
+            ToolStats stats = sorted.get(t);
+            for (double quantile : QUANTILES) {
+                line(out, "mcp_tool_duration_quantile_seconds{tool=\"" + label(stats.name) + "\",quantile=\"" + quantile + "\"}",
+                        seconds(stats.latency.quantileNanos(cumulative.get(t), quantile)));
+            }
+        }
+
+        header(out, "mcp_tool_in_flight", "gauge", "Llamadas en curso por herramienta");
+        for (ToolStats stats : sorted) {
+            line(out, "mcp_tool_in_flight{tool=\"" + label(stats.name) + "\"}", Long.toString(stats.inFlight.sum()));
+        }
+
+        header(out, "mcp_tool_errors_total", "counter", "Llamadas terminadas con excepción, por tipo");
+        for (ToolStats stats : sorted) {
+            for (Map.Entry<String, LongAdder> error : new TreeMap<>(stats.errors).entrySet()) {
+                line(out, "mcp_tool_errors_total{tool=\"" + label(stats.name) + "\",exception=\"" + label(error.getKey()) + "\"}",
+                        Long.toString(error.getValue().sum()));
+            }
+        }
+
+        counter(out, sorted, "mcp_tool_bytes_read_total", "Bytes de usuarios leídos (sin comprimir)", stats -> stats.bytesRead);
+        counter(out, sorted, "mcp_tool_bytes_written_total", "Bytes escritos en archivos de destino", stats -> stats.bytesWritten);
+        counter(out, sorted, "mcp_tool_records_read_total", "Usuarios analizados por los lectores", stats -> stats.recordsRead);
+    }
+
+    /**
+     * Métricas en formato de texto de Prometheus
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        try {
+            writePrometheus(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringBuilder no lanza IOException
+        }
+        return out.toString();
+    }
+
+    private static void counter(Appendable out, List<ToolStats> sorted, String name, String help,
+            Function<ToolStats, LongAdder> adder) throws IOException {
+        header(out, name, "counter", help);
+        for (ToolStats stats : sorted) {
+            line(out, name + "{tool=\"" + label(stats.name) + "\"}", Long.toString(adder.apply(stats).sum()));
+        }
+    }
+
+    private static void header(Appendable out, String name, String type, String help) throws IOException {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void line(Appendable out, String sample, String value) throws IOException {
+        out.append(sample).append(' ').append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String label(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Contadores de una herramienta
+     */
+    public static final class ToolStats {
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder inFlight = new LongAdder();
+        private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private final LongAdder bytesRead = new LongAdder();
+        private final LongAdder bytesWritten = new LongAdder();
+        private final LongAdder recordsRead = new LongAdder();
+
+        ToolStats(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Empieza una llamada
+         * @return Instante de inicio para {@link #end(long, Throwable)}
+         */
+        long begin() {
+            inFlight.increment();
+            return System.nanoTime();
+        }
+
+        /**
+         * Termina una llamada
+         * @param error Excepción con la que terminó, o null
+         */
+        void end(long start, Throwable error) {
+            latency.record(System.nanoTime() - start);
+            inFlight.decrement();
+            if (error != null) {
+                errors.computeIfAbsent(errorType(error), type -> new LongAdder()).increment();
+            }
+        }
+
+        /**
+         * Tipo de la excepción; de un RuntimeException que solo envuelve otra (el patrón del
+         * servicio) se usa el de la causa, que es el informativo
+         */
+        private static String errorType(Throwable error) {
+            Throwable type = error.getClass() == RuntimeException.class && error.getCause() != null
+                    ? error.getCause() : error;
+            return type.getClass().getSimpleName();
+        }
+
+        public void addBytesRead(long bytes) {
+            bytesRead.add(bytes);
+        }
+
+        public void addBytesWritten(long bytes) {
+            bytesWritten.add(bytes);
+        }
+
+        public void addRecordsRead(long records) {
+            recordsRead.add(records);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return latency.cumulativeCounts()[LatencyHistogram.BOUNDS.length];
+        }
+
+        public long getInFlight() {
+            return inFlight.sum();
+        }
+
+        public long getErrors(String type) {
+            LongAdder count = errors.get(type);
+            return count == null ? 0 : count.sum();
+        }
+
+        public long getBytesRead() {
+            return bytesRead.sum();
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten.sum();
+        }
+
+        public long getRecordsRead() {
+            return recordsRead.sum();
+        }
+
+        /**
+         * Percentil estimado de duración en nanosegundos
+         */
+        public long quantileNanos(double quantile) {
+            return latency.quantileNanos(quantile);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.dam.accesodatos.ra1.metrics;
+
+import org.springframework.ai.mcp.server.annotation.Tool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Proxy dinámico que mide cada método @Tool de un servicio en {@link ToolMetrics}.
+ *
+ * Las métricas de cada método se resuelven al crear el proxy; una llamada solo añade una
+ * búsqueda en un HashMap de solo lectura, dos System.nanoTime() y unos LongAdder.
+ * Los métodos sin @Tool pasan directos. Las excepciones se propagan sin envolver.
+ */
+public final class ToolMetricsProxy implements InvocationHandler {
+
+    private final Object target;
+    private final ToolMetrics metrics;
+    private final Map<Method, ToolMetrics.ToolStats> tools = new HashMap<>();
+
+    private ToolMetricsProxy(Class<?> serviceInterface, Object target, ToolMetrics metrics) {
+        this.target = target;
+        this.metrics = metrics;
+        for (Method method : serviceInterface.getMethods()) {
+            Tool tool = method.getAnnotation(Tool.class);
+            if (tool != null) {
+                tools.put(method, metrics.tool(tool.name().isEmpty() ? method.getName() : tool.name()));
+            }
+        }
+    }
+
+    /**
+     * Envuelve target para que sus llamadas a herramientas queden medidas
+     * @param serviceInterface Interfaz con los métodos @Tool
+     */
+    public static <T> T wrap(Class<T> serviceInterface, T target, ToolMetrics metrics) {
+        Object proxy = Proxy.newProxyInstance(serviceInterface.getClassLoader(), new Class<?>[]{serviceInterface},
+                new ToolMetricsProxy(serviceInterface, target, metrics));
+        return serviceInterface.cast(proxy);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        ToolMetrics.ToolStats stats = tools.get(method);
+        if (stats == null) {
+            return invokeTarget(method, args);
+        }
+        ToolMetrics.ToolStats previous = metrics.enter(stats);
+        long start = stats.begin();
+        Throwable error = null;
+        try {
+            return invokeTarget(method, args);
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            stats.end(start, error);
+            metrics.exit(previous);
+        }
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lector CSV de usuarios en streaming (RFC 4180: comillas dobles, comillas escapadas
+ * y saltos de línea dentro de campos entrecomillados).
+ *
+ * Las columnas se localizan por el nombre de la cabecera, así que acepta el formato de
+ * {@link CsvUserWriter} y archivos con columnas reordenadas o ausentes.
+ * department y role pasan por un {@link StringInterner}: sus valores repetidos comparten
+ * instancia y no se crea un String por fila. Las fechas se leen con {@link IsoDateTimes}
+ * desde el buffer del campo, también sin String intermedio.
+ * Con una proyección ({@link UserField}) los campos no pedidos se recorren solo para contar
+ * separadores y comillas: sus caracteres no se copian ni se convierten.
+ */
+public class CsvUserReader implements UserRecordReader {
+
+    private final Reader reader;
+    /** Buffer propio: BufferedReader.read() toma un cerrojo por carácter */
+    private final char[] buffer = new char[64 * 1024];
+    private int position;
+    private int limit;
+    /** Por campo (ordinal de UserField): posición de su columna, o -1 si no se lee */
+    private final int[] columnIndex = new int[UserField.values().length];
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private final StringInterner interner = new StringInterner();
+    /** Posiciones de los campos que se saltan (columnas no pedidas o desconocidas) */
+    private boolean[] skippedFields = new boolean[0];
+    /** Posiciones de los campos que se internan (department y role) */
+    private boolean[] internedFields = new boolean[0];
+    /** Por posición de campo: 0 si no es fecha, 1 createdAt, 2 updatedAt */
+    private int[] dateFields = new int[0];
+    private final LocalDateTime[] dates = new LocalDateTime[2];
+    private char[] dateBuffer = new char[IsoDateTimes.MAX_LENGTH];
+    private long line = 1;
+    private long startLine = 1;
+    private boolean skipping;
+    private boolean fieldEmpty = true;
+    private boolean firstFieldEmpty;
+
+    public CsvUserReader(InputStream in) throws IOException {
+        this(in, EnumSet.allOf(UserField.class));
+    }
+
+    /**
+     * @param projection Campos a leer; las demás columnas quedan a null
+     */
+    public CsvUserReader(InputStream in, Set<UserField> projection) throws IOException {
+        this.reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        if (!readRecord()) {
+            throw new IOException("CSV vacío: falta la cabecera");
+        }
+        // Marca BOM de archivos guardados desde hojas de cálculo
+        if (fields.get(0).startsWith("\uFEFF")) {
+            fields.set(0, fields.get(0).substring(1));
+        }
+        skippedFields = new boolean[fields.size()];
+        Arrays.fill(skippedFields, true);
+        for (UserField field : UserField.values()) {
+            int index = projection.contains(field) ? fields.indexOf(field.getFieldName()) : -1;
+            columnIndex[field.ordinal()] = index;
+            if (index >= 0) {
+                skippedFields[index] = false;
+            }
+        }
+        internedFields = new boolean[fields.size()];
+        for (UserField field : new UserField[]{UserField.DEPARTMENT, UserField.ROLE}) {
+            if (columnOf(field) >= 0) {
+                internedFields[columnOf(field)] = true;
+            }
+        }
+        dateFields = new int[fields.size()];
+        if (columnOf(UserField.CREATED_AT) >= 0) {
+            dateFields[columnOf(UserField.CREATED_AT)] = 1;
+        }
+        if (columnOf(UserField.UPDATED_AT) >= 0) {
+            dateFields[columnOf(UserField.UPDATED_AT)] = 2;
+        }
+    }
+
+    @Override
+    public User read() throws IOException {
+        do {
+            if (!readRecord()) {
+                return null;
+            }
+        } while (fields.size() == 1 && firstFieldEmpty); // Líneas en blanco
+
+        return User.of(
+                UserRecordReaders.parseId(column(UserField.ID)),
+                column(UserField.NAME), column(UserField.EMAIL),
+                column(UserField.DEPARTMENT), column(UserField.ROLE),
+                UserRecordReaders.parseActive(column(UserField.ACTIVE)),
+                dates[0], dates[1]);
+    }
+
+    @Override
+    public void close() {
+        // El flujo pertenece a quien lo abrió
+    }
+
+    private int columnOf(UserField field) {
+        return columnIndex[field.ordinal()];
+    }
+
+    private String column(UserField field) {
+        int index = columnOf(field);
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Lee el siguiente registro en fields
+     * @return false al final del archivo
+     */
+    private boolean readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        dates[0] = null;
+        dates[1] = null;
+        int c = nextChar();
+        if (c < 0) {
+            return false;
+        }
+        boolean quoted = false;
+        startLine = line;
+        skipping = skippedFields.length > 0 && skippedFields[0];
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Comillas sin cerrar en el registro de la línea " + startLine);
+                }
+                if (c == '"') {
+                    int next = nextChar();
+                    if (next == '"') {
+                        append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append((char) c);
+                }
+            } else if (c == '"' && fieldEmpty) {
+                quoted = true;
+            } else if (c == ',') {
+                endField();
+            } else if (c == '\n' || c < 0) {
+                break;
+            } else if (c != '\r') {
+                append((char) c);
+            }
+            c = nextChar();
+        }
+        line++;
+        endField();
+        return true;
+    }
+
+    private int nextChar() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private void append(char c) {
+        if (!skipping) {
+            field.append(c);
+        }
+        fieldEmpty = false;
+    }
+
+    private void endField() throws IOException {
+        int index = fields.size();
+        if (index == 0) {
+            firstFieldEmpty = fieldEmpty;
+        }
+        if (skipping) {
+            // Hueco para conservar las posiciones, sin crear el valor
+            fields.add("");
+        } else if (index < dateFields.length && dateFields[index] > 0) {
+            // La fecha se guarda ya convertida; en fields queda un hueco para conservar las posiciones
+            dates[dateFields[index] - 1] = parseDate();
+            fields.add("");
+        } else if (index < internedFields.length && internedFields[index]) {
+            fields.add(interner.intern(field));
+        } else {
+            fields.add(field.toString());
+        }
+        field.setLength(0);
+        fieldEmpty = true;
+        skipping = index + 1 < skippedFields.length && skippedFields[index + 1];
+    }
+
+    private LocalDateTime parseDate() throws IOException {
+        int length = field.length();
+        if (length > dateBuffer.length) {
+            dateBuffer = new char[length];
+        }
+        field.getChars(0, length, dateBuffer, 0);
+        try {
+            return UserRecordReaders.parseDate(dateBuffer, 0, length);
+        } catch (IOException e) {
+            throw new IOException(e.getMessage() + " en el registro de la línea " + startLine, e.getCause());
+        }
+    }
+}
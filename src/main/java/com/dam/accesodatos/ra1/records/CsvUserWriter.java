@@ -0,0 +1,85 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Escritor CSV de usuarios con el mismo formato que readUsersFromCSV:
+ * id,name,email,department,role,active,createdAt,updatedAt
+ *
+ * Los campos con comas, comillas o saltos de línea se entrecomillan (RFC 4180).
+ */
+public class CsvUserWriter implements UserRecordWriter {
+
+    public static final String HEADER = "id,name,email,department,role,active,createdAt,updatedAt";
+
+    private final Writer writer;
+    private final char[] dateBuffer = new char[IsoDateTimes.MAX_LENGTH];
+
+    public CsvUserWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+
+    @Override
+    public void write(User user) throws IOException {
+        writer.write(user.getId() == null ? "" : user.getId().toString());
+        writer.write(',');
+        writeField(user.getName());
+        writer.write(',');
+        writeField(user.getEmail());
+        writer.write(',');
+        writeField(user.getDepartment());
+        writer.write(',');
+        writeField(user.getRole());
+        writer.write(',');
+        writer.write(user.getActive() == null ? "" : user.getActive().toString());
+        writer.write(',');
+        writeDate(user.getCreatedAt());
+        writer.write(',');
+        writeDate(user.getUpdatedAt());
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private void writeDate(LocalDateTime date) throws IOException {
+        if (date != null) {
+            writer.write(dateBuffer, 0, IsoDateTimes.format(date, dateBuffer, 0));
+        }
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
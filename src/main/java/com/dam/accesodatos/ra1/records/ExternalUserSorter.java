@@ -0,0 +1,434 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Ordenación externa de usuarios por id para fusionar muchos archivos en uno.
+ *
+ * <ol>
+ *   <li>Cada archivo se lee en un hilo del pool en tramos ("runs") de como mucho
+ *       {@code runSize} usuarios; cada tramo se ordena en memoria y se vuelca a un
+ *       archivo temporal binario. En memoria hay como mucho un tramo por hilo.</li>
+ *   <li>Si quedan más de {@code fanIn} tramos se fusionan por grupos en tramos mayores
+ *       (varias pasadas), para no abrir miles de archivos a la vez.</li>
+ *   <li>La última pasada fusiona los tramos con un montículo (k-way merge) y escribe
+ *       el resultado en el escritor de destino.</li>
+ * </ol>
+ * Usuarios con el mismo id: se conserva el de updatedAt más reciente. Los usuarios sin id
+ * no se deduplican y van al final.
+ */
+public final class ExternalUserSorter {
+
+    /** Orden de fusión: id ascendente y, para un mismo id, el más reciente primero */
+    static final Comparator<User> ORDER = Comparator
+            .comparing(User::getId, Comparator.nullsLast(Comparator.<Long>naturalOrder()))
+            .thenComparing(User::getUpdatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder()));
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int runSize;
+    private final int fanIn;
+
+    /**
+     * @param pool Pool donde se leen y ordenan los tramos
+     * @param runSize Usuarios máximos por tramo en memoria
+     * @param fanIn Tramos máximos fusionados a la vez
+     */
+    public ExternalUserSorter(ForkJoinPool pool, int runSize, int fanIn) {
+        if (runSize < 1 || fanIn < 2) {
+            throw new IllegalArgumentException("runSize debe ser >= 1 y fanIn >= 2");
+        }
+        this.pool = pool;
+        this.runSize = runSize;
+        this.fanIn = fanIn;
+    }
+
+    /**
+     * Abre el lector de un archivo de entrada; cerrar el lector libera el archivo
+     */
+    @FunctionalInterface
+    public interface ReaderFactory {
+        UserRecordReader open(Path path) throws IOException;
+    }
+
+    /**
+     * Fusiona y ordena las entradas escribiendo el resultado en writer (que no se cierra)
+     * @param tempDir Directorio donde se crean los tramos temporales (se borran al terminar)
+     */
+    public Result sort(List<Path> inputs, ReaderFactory readers, Path tempDir, UserRecordWriter writer) throws IOException {
+        Path workDir = Files.createTempDirectory(Files.createDirectories(tempDir), "merge_");
+        try {
+            AtomicInteger runIds = new AtomicInteger();
+            AtomicLong read = new AtomicLong();
+
+            // Fase 1: tramos ordenados, un archivo de entrada por tarea
+            List<ForkJoinTask<List<Path>>> tasks = new ArrayList<>();
+            for (Path input : inputs) {
+                tasks.add(pool.submit(() -> spillRuns(input, readers, workDir, runIds, read)));
+            }
+            List<Path> runs = new ArrayList<>();
+            for (List<Path> fileRuns : joinAll(tasks)) {
+                runs.addAll(fileRuns);
+            }
+            int initialRuns = runs.size();
+
+            // Fase 2: pasadas intermedias mientras haya más tramos que fanIn
+            int passes = 1;
+            while (runs.size() > fanIn) {
+                List<ForkJoinTask<Path>> merges = new ArrayList<>();
+                for (int from = 0; from < runs.size(); from += fanIn) {
+                    List<Path> group = runs.subList(from, Math.min(from + fanIn, runs.size()));
+                    merges.add(pool.submit(() -> mergeToRun(group, workDir, runIds)));
+                }
+                runs = joinAll(merges);
+                passes++;
+            }
+
+            // Fase 3: fusión final hacia el destino
+            long written = merge(runs, writer);
+            return new Result(inputs.size(), read.get(), written, initialRuns, passes);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    private List<Path> spillRuns(Path input, ReaderFactory readers, Path workDir,
+                                 AtomicInteger runIds, AtomicLong read) {
+        List<Path> runs = new ArrayList<>();
+        List<User> buffer = new ArrayList<>(Math.min(runSize, 1 << 16));
+        long count = 0;
+        try (UserRecordReader reader = readers.open(input)) {
+            User user;
+            while ((user = reader.read()) != null) {
+                count++;
+                buffer.add(user);
+                if (buffer.size() == runSize) {
+                    runs.add(spill(buffer, workDir, runIds));
+                    buffer.clear();
+                }
+            }
+            if (!buffer.isEmpty()) {
+                runs.add(spill(buffer, workDir, runIds));
+            }
+            read.addAndGet(count);
+            return runs;
+        } catch (IOException e) {
+            throw new UncheckedIOException(new IOException("Error leyendo " + input + ": " + e.getMessage(), e));
+        }
+    }
+
+    private Path spill(List<User> buffer, Path workDir, AtomicInteger runIds) throws IOException {
+        buffer.sort(ORDER);
+        Path run = workDir.resolve(runIds.incrementAndGet() + ".run");
+        try (RunWriter out = new RunWriter(run)) {
+            for (User user : buffer) {
+                out.write(user);
+            }
+        }
+        return run;
+    }
+
+    private Path mergeToRun(List<Path> group, Path workDir, AtomicInteger runIds) {
+        Path run = workDir.resolve(runIds.incrementAndGet() + ".run");
+        try (RunWriter out = new RunWriter(run)) {
+            merge(group, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Path merged : group) {
+            try {
+                Files.deleteIfExists(merged);
+            } catch (IOException e) {
+                // Se borra con el directorio de trabajo
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Fusión k-way con montículo: emite el primer usuario de cada id (el más reciente)
+     * @return Usuarios escritos
+     */
+    private long merge(List<Path> runs, UserRecordWriter out) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>(Math.max(1, runs.size()),
+                (a, b) -> ORDER.compare(a.current, b.current));
+        List<RunReader> open = new ArrayList<>();
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                open.add(reader);
+                if (reader.advance()) {
+                    heap.add(reader);
+                }
+            }
+
+            long written = 0;
+            Long lastId = null;
+            while (!heap.isEmpty()) {
+                RunReader head = heap.poll();
+                User user = head.current;
+                if (user.getId() == null || !user.getId().equals(lastId)) {
+                    out.write(user);
+                    written++;
+                    lastId = user.getId();
+                }
+                if (head.advance()) {
+                    heap.add(head);
+                }
+            }
+            return written;
+        } finally {
+            for (RunReader reader : open) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Espera a todas las tareas (aunque alguna falle, para no borrar temporales en uso)
+     * y devuelve sus resultados en orden
+     */
+    private static <T> List<T> joinAll(List<ForkJoinTask<T>> tasks) throws IOException {
+        tasks.forEach(ForkJoinTask::quietlyJoin);
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (ForkJoinTask<T> task : tasks) {
+                results.add(task.join());
+            }
+            return results;
+        } catch (RuntimeException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof UncheckedIOException unchecked) {
+                    throw unchecked.getCause();
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            List<Path> all = new ArrayList<>(paths.toList());
+            Collections.reverse(all);
+            for (Path path : all) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            // Temporales huérfanos: no invalidan el resultado
+        }
+    }
+
+    /**
+     * Tramo temporal en binario: marca 1 + campos por usuario, marca 0 al final
+     */
+    static final class RunWriter implements UserRecordWriter {
+        private final DataOutputStream out;
+        private long position;
+
+        RunWriter(Path run) throws IOException {
+            OutputStream file = new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE);
+            this.out = new DataOutputStream(new FilterOutputStream(file) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    position++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    position += len;
+                }
+            });
+        }
+
+        /**
+         * Posición del siguiente usuario en el tramo (para leerlo después con {@link RunReader#RunReader(InputStream)})
+         */
+        long position() {
+            return position;
+        }
+
+        @Override
+        public void write(User user) throws IOException {
+            out.writeByte(1);
+            out.writeBoolean(user.getId() != null);
+            if (user.getId() != null) {
+                out.writeLong(user.getId());
+            }
+            writeString(user.getName());
+            writeString(user.getEmail());
+            writeString(user.getDepartment());
+            writeString(user.getRole());
+            out.writeByte(user.getActive() == null ? 2 : user.getActive() ? 1 : 0);
+            writeDate(user.getCreatedAt());
+            writeDate(user.getUpdatedAt());
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.writeByte(0);
+            out.close();
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeDate(LocalDateTime date) throws IOException {
+            out.writeBoolean(date != null);
+            if (date != null) {
+                out.writeLong(date.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(date.getNano());
+            }
+        }
+    }
+
+    static final class RunReader implements Closeable {
+        private final DataInputStream in;
+        User current;
+
+        RunReader(Path run) throws IOException {
+            this(new BufferedInputStream(Files.newInputStream(run), BUFFER_SIZE));
+        }
+
+        /**
+         * Lector sobre un flujo ya posicionado en un usuario del tramo
+         */
+        RunReader(InputStream in) {
+            this.in = new DataInputStream(in);
+        }
+
+        /**
+         * Lee el siguiente usuario en current
+         * @return false al final del tramo
+         */
+        boolean advance() throws IOException {
+            if (in.readByte() == 0) {
+                current = null;
+                return false;
+            }
+            Long id = in.readBoolean() ? in.readLong() : null;
+            String name = readString();
+            String email = readString();
+            String department = readString();
+            String role = readString();
+            byte active = in.readByte();
+            LocalDateTime createdAt = readDate();
+            LocalDateTime updatedAt = readDate();
+            current = User.of(id, name, email, department, role,
+                    active == 2 ? null : active == 1, createdAt, updatedAt);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private String readString() throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private LocalDateTime readDate() throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+            return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        }
+    }
+
+    /**
+     * Resumen de una fusión: leídos, escritos (el resto eran duplicados), tramos y pasadas
+     */
+    public static final class Result {
+        private final int files;
+        private final long usersRead;
+        private final long usersWritten;
+        private final int runs;
+        private final int mergePasses;
+
+        Result(int files, long usersRead, long usersWritten, int runs, int mergePasses) {
+            this.files = files;
+            this.usersRead = usersRead;
+            this.usersWritten = usersWritten;
+            this.runs = runs;
+            this.mergePasses = mergePasses;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public long getUsersRead() {
+            return usersRead;
+        }
+
+        public long getUsersWritten() {
+            return usersWritten;
+        }
+
+        /** Usuarios descartados por tener un id repetido con un updatedAt anterior */
+        public long getDuplicatesRemoved() {
+            return usersRead - usersWritten;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public int getMergePasses() {
+            return mergePasses;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "files=" + files +
+                    ", usersRead=" + usersRead +
+                    ", usersWritten=" + usersWritten +
+                    ", runs=" + runs +
+                    ", mergePasses=" + mergePasses +
+                    '}';
+        }
+    }
+}
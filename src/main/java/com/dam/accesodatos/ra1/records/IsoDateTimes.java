@@ -0,0 +1,155 @@
+package com.dam.accesodatos.ra1.records;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Lectura y escritura de fechas ISO-8601 locales (createdAt, updatedAt) sin DateTimeFormatter.
+ *
+ * Trabaja con el formato fijo que producen los escritores, yyyy-MM-ddTHH:mm[:ss[.fffffffff]],
+ * directamente sobre trozos de char[]: sin String intermedios ni TemporalAccessor, solo se
+ * crea el LocalDateTime resultante. Lo que no encaja en ese formato (años de más de cuatro
+ * cifras o con signo) pasa por {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME}, así que el
+ * resultado es siempre el mismo que con el formateador estándar.
+ */
+final class IsoDateTimes {
+
+    /** Longitud máxima de una fecha escrita (año de 9 cifras con signo y nanosegundos) */
+    static final int MAX_LENGTH = 35;
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private IsoDateTimes() {
+    }
+
+    /**
+     * Lee la fecha de chars[offset, offset + length), ignorando espacios a los lados
+     * @throws DateTimeException si el texto no es una fecha válida
+     */
+    static LocalDateTime parse(char[] chars, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+        length = end - start;
+        if (length < 16 || !fixedLayout(chars, start, length)) {
+            return LocalDateTime.parse(new String(chars, start, length), FORMATTER);
+        }
+
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            second = digits(chars, start + 17, 2);
+            if (length > 19) {
+                int fraction = length - 20;
+                nano = digits(chars, start + 20, fraction);
+                for (int i = fraction; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        return LocalDateTime.of(digits(chars, start, 4), digits(chars, start + 5, 2), digits(chars, start + 8, 2),
+                digits(chars, start + 11, 2), digits(chars, start + 14, 2), second, nano);
+    }
+
+    /**
+     * Escribe la fecha en buffer desde offset, igual que ISO_LOCAL_DATE_TIME
+     * @param buffer Con al menos {@link #MAX_LENGTH} posiciones libres
+     * @return Número de caracteres escritos
+     */
+    static int format(LocalDateTime date, char[] buffer, int offset) {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            String text = FORMATTER.format(date);
+            text.getChars(0, text.length(), buffer, offset);
+            return text.length();
+        }
+        int pos = offset;
+        pos = put(buffer, pos, year, 4);
+        buffer[pos++] = '-';
+        pos = put(buffer, pos, date.getMonthValue(), 2);
+        buffer[pos++] = '-';
+        pos = put(buffer, pos, date.getDayOfMonth(), 2);
+        buffer[pos++] = 'T';
+        pos = put(buffer, pos, date.getHour(), 2);
+        buffer[pos++] = ':';
+        pos = put(buffer, pos, date.getMinute(), 2);
+        buffer[pos++] = ':';
+        pos = put(buffer, pos, date.getSecond(), 2);
+        int nano = date.getNano();
+        if (nano != 0) {
+            // Como ISO_LOCAL_DATE_TIME: solo las cifras necesarias, sin ceros a la derecha
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            buffer[pos++] = '.';
+            pos = put(buffer, pos, nano, digits);
+        }
+        return pos - offset;
+    }
+
+    static String format(LocalDateTime date) {
+        char[] buffer = new char[MAX_LENGTH];
+        return new String(buffer, 0, format(date, buffer, 0));
+    }
+
+    /**
+     * Comprueba separadores y cifras del formato fijo (la validez de los valores la hace LocalDateTime.of)
+     */
+    private static boolean fixedLayout(char[] text, int start, int length) {
+        if (text[start + 4] != '-' || text[start + 7] != '-'
+                || (text[start + 10] | 0x20) != 't' || text[start + 13] != ':') {
+            return false;
+        }
+        if (!isDigits(text, start, 4) || !isDigits(text, start + 5, 2) || !isDigits(text, start + 8, 2)
+                || !isDigits(text, start + 11, 2) || !isDigits(text, start + 14, 2)) {
+            return false;
+        }
+        if (length == 16) {
+            return true;
+        }
+        if (length < 19 || text[start + 16] != ':' || !isDigits(text, start + 17, 2)) {
+            return false;
+        }
+        if (length == 19) {
+            return true;
+        }
+        return length <= 29 && text[start + 19] == '.' && isDigits(text, start + 20, length - 20);
+    }
+
+    private static boolean isDigits(char[] text, int start, int count) {
+        if (count == 0) {
+            return false;
+        }
+        for (int i = start; i < start + count; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(char[] text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            value = value * 10 + (text[i] - '0');
+        }
+        return value;
+    }
+
+    private static int put(char[] buffer, int pos, int value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+}
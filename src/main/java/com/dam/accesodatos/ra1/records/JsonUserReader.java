@@ -0,0 +1,114 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Lector JSON de usuarios con JsonParser (streaming de Jackson).
+ * Acepta el array de {@link JsonUserWriter} y también NDJSON (un objeto por línea):
+ * en ambos casos solo hay un usuario en memoria a la vez.
+ * department y role se internan y las fechas se leen con {@link IsoDateTimes}, ambos desde el
+ * buffer de caracteres del parser, sin crear un String por campo.
+ * Los campos fuera de la proyección ({@link UserField}) se saltan con skipChildren() sin
+ * pedir su texto al parser, que así no llega a decodificarlo.
+ */
+public class JsonUserReader implements UserRecordReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    private final JsonParser parser;
+    private final StringInterner interner = new StringInterner();
+    private final boolean[] projected = new boolean[UserField.values().length];
+    private JsonToken pending;
+    private boolean finished;
+
+    public JsonUserReader(InputStream in) throws IOException {
+        this(in, EnumSet.allOf(UserField.class));
+    }
+
+    /**
+     * @param projection Campos a leer; los demás quedan a null
+     */
+    public JsonUserReader(InputStream in, Set<UserField> projection) throws IOException {
+        for (UserField field : projection) {
+            projected[field.ordinal()] = true;
+        }
+        this.parser = JSON_FACTORY.createParser(in);
+        JsonToken first = parser.nextToken();
+        if (first == null) {
+            finished = true;
+        } else if (first == JsonToken.START_OBJECT) {
+            // NDJSON: el '{' del primer usuario ya está consumido
+            pending = first;
+        } else if (first != JsonToken.START_ARRAY) {
+            throw new IOException("JSON de usuarios inválido: se esperaba un array o un objeto por línea");
+        }
+    }
+
+    @Override
+    public User read() throws IOException {
+        if (finished) {
+            return null;
+        }
+        JsonToken token = pending != null ? pending : parser.nextToken();
+        pending = null;
+        if (token == null || token == JsonToken.END_ARRAY) {
+            finished = true;
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("JSON de usuarios inválido en " + parser.currentLocation());
+        }
+
+        Long id = null;
+        Boolean active = null;
+        String name = null, email = null, department = null, role = null;
+        LocalDateTime createdAt = null, updatedAt = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            UserField field = UserField.byName(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (field == null || !projected[field.ordinal()]) {
+                // Desconocido o fuera de la proyección: objetos y arrays se saltan enteros
+                parser.skipChildren();
+                continue;
+            }
+            boolean isNull = value == JsonToken.VALUE_NULL;
+            switch (field) {
+                case ID -> id = isNull ? null : value == JsonToken.VALUE_STRING
+                        ? UserRecordReaders.parseId(parser.getText()) : parser.getLongValue();
+                case NAME -> name = isNull ? null : parser.getText();
+                case EMAIL -> email = isNull ? null : parser.getText();
+                case DEPARTMENT -> department = isNull ? null : internText();
+                case ROLE -> role = isNull ? null : internText();
+                case ACTIVE -> active = isNull ? null : value == JsonToken.VALUE_STRING
+                        ? UserRecordReaders.parseActive(parser.getText()) : parser.getBooleanValue();
+                case CREATED_AT -> createdAt = isNull ? null : dateText();
+                case UPDATED_AT -> updatedAt = isNull ? null : dateText();
+            }
+        }
+
+        return User.of(id, name, email, department, role, active, createdAt, updatedAt);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private String internText() throws IOException {
+        return interner.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    private LocalDateTime dateText() throws IOException {
+        return UserRecordReaders.parseDate(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+}
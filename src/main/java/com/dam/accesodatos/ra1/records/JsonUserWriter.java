@@ -0,0 +1,94 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * Escritor JSON de usuarios con JsonGenerator (streaming de Jackson).
+ * Genera un array con un objeto por usuario y fechas en ISO-8601,
+ * igual que ObjectMapper con el módulo de fechas de Java 8.
+ * En modo NDJSON escribe un objeto compacto por línea, sin array.
+ */
+public class JsonUserWriter implements UserRecordWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    /** Buffer de fechas de writeUser, que es estático porque lo usan también otros documentos */
+    private static final ThreadLocal<char[]> DATE_BUFFER =
+            ThreadLocal.withInitial(() -> new char[IsoDateTimes.MAX_LENGTH]);
+
+    private final JsonGenerator generator;
+    private final boolean lines;
+
+    public JsonUserWriter(OutputStream out) throws IOException {
+        this(out, false);
+    }
+
+    public JsonUserWriter(OutputStream out, boolean lines) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        this.lines = lines;
+        if (lines) {
+            // Sin separador entre valores raíz: el salto de línea lo escribe write()
+            generator.setRootValueSeparator(null);
+        } else {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartArray();
+        }
+    }
+
+    @Override
+    public void write(User user) throws IOException {
+        writeUser(generator, user);
+        if (lines) {
+            generator.writeRaw('\n');
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!lines) {
+            generator.writeEndArray();
+        }
+        generator.close();
+    }
+
+    /**
+     * Escribe un usuario como objeto JSON (también lo usan otros documentos que incluyen usuarios)
+     */
+    static void writeUser(JsonGenerator generator, User user) throws IOException {
+        generator.writeStartObject();
+        if (user.getId() == null) {
+            generator.writeNullField("id");
+        } else {
+            generator.writeNumberField("id", user.getId());
+        }
+        generator.writeStringField("name", user.getName());
+        generator.writeStringField("email", user.getEmail());
+        generator.writeStringField("department", user.getDepartment());
+        generator.writeStringField("role", user.getRole());
+        if (user.getActive() == null) {
+            generator.writeNullField("active");
+        } else {
+            generator.writeBooleanField("active", user.getActive());
+        }
+        writeDate(generator, "createdAt", user.getCreatedAt());
+        writeDate(generator, "updatedAt", user.getUpdatedAt());
+        generator.writeEndObject();
+    }
+
+    private static void writeDate(JsonGenerator generator, String field, LocalDateTime date) throws IOException {
+        if (date == null) {
+            generator.writeNullField(field);
+            return;
+        }
+        char[] buffer = DATE_BUFFER.get();
+        generator.writeFieldName(field);
+        generator.writeString(buffer, 0, IsoDateTimes.format(date, buffer, 0));
+    }
+}
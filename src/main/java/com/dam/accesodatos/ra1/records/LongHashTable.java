@@ -0,0 +1,116 @@
+package com.dam.accesodatos.ra1.records;
+
+/**
+ * Tabla hash de claves long con direccionamiento abierto (sondeo lineal).
+ *
+ * Las claves y valores van en arrays primitivos: sin objetos Long ni nodos por entrada,
+ * unos 21 bytes por hueco frente a los ~80 de un HashMap&lt;Long, Long&gt;. Cada entrada
+ * tiene además una marca int libre para el algoritmo que la usa.
+ * Los huecos se identifican por índice; solo cambian al crecer la tabla (en put).
+ */
+final class LongHashTable {
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private long[] values;
+    private int[] marks;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    LongHashTable(int expected) {
+        allocate(capacityFor(Math.max(expected, 16)));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Inserta la clave si no estaba
+     * @return false si la clave ya existía (su valor no cambia)
+     */
+    boolean putIfAbsent(long key, long value) {
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            resize();
+        }
+        int slot = probe(key);
+        if (used[slot]) {
+            return false;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return Hueco de la clave, o -1 si no está
+     */
+    int slot(long key) {
+        int slot = probe(key);
+        return used[slot] ? slot : -1;
+    }
+
+    long value(int slot) {
+        return values[slot];
+    }
+
+    int mark(int slot) {
+        return marks[slot];
+    }
+
+    void mark(int slot, int mark) {
+        marks[slot] = mark;
+    }
+
+    private int probe(long key) {
+        int slot = (int) mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        int[] oldMarks = marks;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = probe(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                marks[slot] = oldMarks[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        marks = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expected) {
+        long needed = (long) Math.ceil(expected / LOAD_FACTOR);
+        return (int) Math.min(1 << 30, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    /** Mezcla de bits (finalizador de MurmurHash3) para que ids consecutivos no se agrupen */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
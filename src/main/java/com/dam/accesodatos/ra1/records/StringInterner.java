@@ -0,0 +1,99 @@
+package com.dam.accesodatos.ra1.records;
+
+/**
+ * Diccionario de cadenas de un solo análisis para campos con pocos valores distintos
+ * (department, role).
+ *
+ * Recibe el texto como trozo de char[] o CharSequence del analizador y devuelve siempre la
+ * misma instancia de String para el mismo contenido: solo se crea un String la primera vez
+ * que aparece cada valor. Tabla abierta con sondeo lineal y hash de String.hashCode().
+ * Está acotado: los valores largos y los que llegan con la tabla llena se devuelven como
+ * String nuevo, así que un campo de alta cardinalidad no hace crecer la memoria.
+ * No es thread-safe: cada lector tiene el suyo.
+ */
+final class StringInterner {
+
+    static final int MAX_LENGTH = 64;
+    static final int DEFAULT_ENTRIES = 1024;
+
+    private final String[] values;
+    private final int[] hashes;
+    private final int mask;
+    private final int maxEntries;
+    private int size;
+
+    StringInterner() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries Valores distintos como máximo
+     */
+    StringInterner(int maxEntries) {
+        int capacity = Integer.highestOneBit(Math.max(maxEntries, 8) * 2 - 1) << 1;
+        this.values = new String[capacity];
+        this.hashes = new int[capacity];
+        this.mask = capacity - 1;
+        this.maxEntries = maxEntries;
+    }
+
+    String intern(char[] chars, int offset, int length) {
+        if (length > MAX_LENGTH) {
+            return new String(chars, offset, length);
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        int slot = hash & mask;
+        for (String value = values[slot]; value != null; value = values[slot = (slot + 1) & mask]) {
+            if (hashes[slot] == hash && equals(value, chars, offset, length)) {
+                return value;
+            }
+        }
+        return add(slot, hash, new String(chars, offset, length));
+    }
+
+    String intern(CharSequence chars) {
+        int length = chars.length();
+        if (length > MAX_LENGTH) {
+            return chars.toString();
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        int slot = hash & mask;
+        for (String value = values[slot]; value != null; value = values[slot = (slot + 1) & mask]) {
+            if (hashes[slot] == hash && value.contentEquals(chars)) {
+                return value;
+            }
+        }
+        return add(slot, hash, chars.toString());
+    }
+
+    int size() {
+        return size;
+    }
+
+    private String add(int slot, int hash, String value) {
+        if (size < maxEntries) {
+            values[slot] = value;
+            hashes[slot] = hash;
+            size++;
+        }
+        return value;
+    }
+
+    private static boolean equals(String value, char[] chars, int offset, int length) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,330 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Estadísticas de un archivo de usuarios en una sola pasada: recuentos por department,
+ * role y active, y mínimo/máximo de createdAt y updatedAt.
+ *
+ * Los CSV y NDJSON sin comprimir se parten por bytes en trozos que empiezan tras un salto de
+ * línea; cada trozo se analiza en el pool con su propio lector (el CSV recibe la cabecera
+ * delante) y los parciales se combinan. Un salto de línea dentro de un campo CSV entre
+ * comillas puede dejar un corte a mitad de registro: entonces el trozo anterior termina
+ * con comillas sin cerrar, y como el primer trozo empieza siempre en un registro, si
+ * ningún trozo falla todos los cortes eran correctos. Si alguno falla se repite la pasada
+ * en secuencia, que da el resultado correcto o el error real del archivo.
+ * El resto de formatos, o los comprimidos, se recorren en secuencia.
+ */
+public final class UserAggregator {
+
+    private final ForkJoinPool pool;
+    private final int minChunkSize;
+
+    /**
+     * @param minChunkSize Bytes mínimos por trozo (por debajo no compensa repartir)
+     */
+    public UserAggregator(ForkJoinPool pool, int minChunkSize) {
+        if (minChunkSize < 1) {
+            throw new IllegalArgumentException("minChunkSize debe ser >= 1");
+        }
+        this.pool = pool;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Formatos que se pueden partir por saltos de línea
+     */
+    public static boolean splittable(UserFormat format) {
+        return format == UserFormat.CSV || format == UserFormat.NDJSON;
+    }
+
+    /**
+     * Recorre todo el lector en el hilo actual (no lo cierra)
+     */
+    public Statistics aggregate(UserRecordReader reader) throws IOException {
+        Statistics statistics = new Statistics();
+        for (User user = reader.read(); user != null; user = reader.read()) {
+            statistics.add(user);
+        }
+        return statistics;
+    }
+
+    /**
+     * Agrega un archivo CSV o NDJSON sin comprimir, en trozos paralelos si es grande
+     */
+    public Statistics aggregate(Path file, UserFormat format) throws IOException {
+        if (!splittable(format)) {
+            throw new IllegalArgumentException("El formato " + format + " no se puede partir en trozos");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] header = format == UserFormat.CSV ? header(channel) : new byte[0];
+            long[] starts = chunkStarts(channel, header.length, size);
+            if (starts.length > 2) {
+                Statistics statistics = aggregateChunks(channel, format, header, starts);
+                if (statistics != null) {
+                    return statistics;
+                }
+            }
+            // Un solo trozo o algún corte a mitad de registro: en secuencia
+            try (UserRecordReader reader = UserRecordReaders.open(format, new RangeInputStream(channel, 0, size))) {
+                return aggregate(reader);
+            }
+        }
+    }
+
+    /**
+     * @return Estadísticas combinadas, o null si algún trozo no se pudo analizar
+     */
+    private Statistics aggregateChunks(FileChannel channel, UserFormat format, byte[] header, long[] starts)
+            throws IOException {
+        List<ForkJoinTask<Statistics>> tasks = new ArrayList<>(starts.length - 1);
+        for (int i = 0; i + 1 < starts.length; i++) {
+            long start = starts[i];
+            long end = starts[i + 1];
+            tasks.add(pool.submit(() -> {
+                InputStream in = new RangeInputStream(channel, start, end);
+                if (start > 0 && header.length > 0) {
+                    in = new SequenceInputStream(new ByteArrayInputStream(header), in);
+                }
+                try (UserRecordReader reader = UserRecordReaders.open(format, in)) {
+                    return aggregate(reader);
+                }
+            }));
+        }
+
+        Statistics total = new Statistics();
+        boolean failed = false;
+        for (ForkJoinTask<Statistics> task : tasks) {
+            try {
+                total.merge(task.get());
+            } catch (ExecutionException e) {
+                failed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Agregación interrumpida", e);
+            }
+        }
+        total.chunks = tasks.size();
+        return failed ? null : total;
+    }
+
+    /**
+     * Inicio de cada trozo más el final del archivo; el primero es 0 (la cabecera se repite aparte)
+     */
+    private long[] chunkStarts(FileChannel channel, long dataStart, long size) throws IOException {
+        long data = size - dataStart;
+        int chunks = (int) Math.max(1, Math.min(pool.getParallelism() * 4L, data / minChunkSize));
+        List<Long> starts = new ArrayList<>(chunks + 1);
+        starts.add(0L);
+        long previous = dataStart;
+        for (int i = 1; i < chunks; i++) {
+            long start = nextLine(channel, Math.max(previous, dataStart + data * i / chunks), size);
+            if (start > previous && start < size) {
+                starts.add(start);
+                previous = start;
+            }
+        }
+        starts.add(size);
+        return starts.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Primera posición desde from que empieza línea (la siguiente a un '\n')
+     */
+    private static long nextLine(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from - 1;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static byte[] header(FileChannel channel) throws IOException {
+        long end = nextLine(channel, 1, channel.size());
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(end, 1 << 20));
+        channel.read(buffer, 0);
+        return buffer.array();
+    }
+
+    /**
+     * Flujo sobre [start, end) de un canal con lecturas posicionales (varios a la vez en el mismo canal)
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Estadísticas acumuladas (de un trozo o de todo el archivo)
+     */
+    public static final class Statistics {
+        private long total;
+        private final Map<String, long[]> departments = new HashMap<>();
+        private final Map<String, long[]> roles = new HashMap<>();
+        private long active;
+        private long inactive;
+        private long activeUnknown;
+        private LocalDateTime createdAtMin;
+        private LocalDateTime createdAtMax;
+        private LocalDateTime updatedAtMin;
+        private LocalDateTime updatedAtMax;
+        private int chunks = 1;
+
+        void add(User user) {
+            total++;
+            count(departments, user.getDepartment(), 1);
+            count(roles, user.getRole(), 1);
+            if (user.getActive() == null) {
+                activeUnknown++;
+            } else if (user.getActive()) {
+                active++;
+            } else {
+                inactive++;
+            }
+            createdAtMin = min(createdAtMin, user.getCreatedAt());
+            createdAtMax = max(createdAtMax, user.getCreatedAt());
+            updatedAtMin = min(updatedAtMin, user.getUpdatedAt());
+            updatedAtMax = max(updatedAtMax, user.getUpdatedAt());
+        }
+
+        void merge(Statistics other) {
+            total += other.total;
+            other.departments.forEach((value, count) -> count(departments, value, count[0]));
+            other.roles.forEach((value, count) -> count(roles, value, count[0]));
+            active += other.active;
+            inactive += other.inactive;
+            activeUnknown += other.activeUnknown;
+            createdAtMin = min(createdAtMin, other.createdAtMin);
+            createdAtMax = max(createdAtMax, other.createdAtMax);
+            updatedAtMin = min(updatedAtMin, other.updatedAtMin);
+            updatedAtMax = max(updatedAtMax, other.updatedAtMax);
+        }
+
+        private static void count(Map<String, long[]> counts, String value, long n) {
+            // "" agrupa los usuarios sin valor (JSON no admite claves null)
+            counts.computeIfAbsent(value == null ? "" : value, key -> new long[1])[0] += n;
+        }
+
+        private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+            return a == null || (b != null && b.isBefore(a)) ? b : a;
+        }
+
+        private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+            return a == null || (b != null && b.isAfter(a)) ? b : a;
+        }
+
+        private static Map<String, Long> sorted(Map<String, long[]> counts) {
+            List<Map.Entry<String, long[]>> entries = new ArrayList<>(counts.entrySet());
+            entries.sort((a, b) -> a.getValue()[0] != b.getValue()[0]
+                    ? Long.compare(b.getValue()[0], a.getValue()[0]) : a.getKey().compareTo(b.getKey()));
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (Map.Entry<String, long[]> entry : entries) {
+                result.put(entry.getKey(), entry.getValue()[0]);
+            }
+            return Collections.unmodifiableMap(result);
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        /** Usuarios por departamento, de mayor a menor ("" = sin departamento) */
+        public Map<String, Long> getByDepartment() {
+            return sorted(departments);
+        }
+
+        /** Usuarios por rol, de mayor a menor ("" = sin rol) */
+        public Map<String, Long> getByRole() {
+            return sorted(roles);
+        }
+
+        public long getActive() {
+            return active;
+        }
+
+        public long getInactive() {
+            return inactive;
+        }
+
+        public long getActiveUnknown() {
+            return activeUnknown;
+        }
+
+        public LocalDateTime getCreatedAtMin() {
+            return createdAtMin;
+        }
+
+        public LocalDateTime getCreatedAtMax() {
+            return createdAtMax;
+        }
+
+        public LocalDateTime getUpdatedAtMin() {
+            return updatedAtMin;
+        }
+
+        public LocalDateTime getUpdatedAtMax() {
+            return updatedAtMax;
+        }
+
+        /** Trozos analizados en paralelo (1 si se recorrió en secuencia) */
+        public int getChunks() {
+            return chunks;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Campos de {@link User} para proyecciones: los lectores solo convierten los campos pedidos
+ * y se saltan el resto sin crear sus valores.
+ * El orden es el de las columnas de {@link CsvUserWriter#HEADER}.
+ */
+public enum UserField {
+    ID("id"),
+    NAME("name"),
+    EMAIL("email"),
+    DEPARTMENT("department"),
+    ROLE("role"),
+    ACTIVE("active"),
+    CREATED_AT("createdAt"),
+    UPDATED_AT("updatedAt");
+
+    private final String fieldName;
+
+    UserField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * Nombre del campo en CSV, JSON y XML
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Campo con ese nombre, o null si no es un campo de usuario
+     */
+    public static UserField byName(String name) {
+        return switch (name) {
+            case "id" -> ID;
+            case "name" -> NAME;
+            case "email" -> EMAIL;
+            case "department" -> DEPARTMENT;
+            case "role" -> ROLE;
+            case "active" -> ACTIVE;
+            case "createdAt" -> CREATED_AT;
+            case "updatedAt" -> UPDATED_AT;
+            default -> null;
+        };
+    }
+
+    /**
+     * Proyección a partir de nombres de campo; null o vacía es todos los campos
+     * @throws IllegalArgumentException si algún nombre no es un campo de usuario
+     */
+    public static Set<UserField> parse(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return EnumSet.allOf(UserField.class);
+        }
+        EnumSet<UserField> fields = EnumSet.noneOf(UserField.class);
+        for (String name : names) {
+            UserField field = name == null ? null : byName(name.trim());
+            if (field == null) {
+                throw new IllegalArgumentException("Campo de usuario no soportado: " + name
+                        + " (use id, name, email, department, role, active, createdAt o updatedAt)");
+            }
+            fields.add(field);
+        }
+        return fields;
+    }
+
+    /**
+     * Valor del campo en el usuario
+     */
+    public Object valueOf(User user) {
+        return switch (this) {
+            case ID -> user.getId();
+            case NAME -> user.getName();
+            case EMAIL -> user.getEmail();
+            case DEPARTMENT -> user.getDepartment();
+            case ROLE -> user.getRole();
+            case ACTIVE -> user.getActive();
+            case CREATED_AT -> user.getCreatedAt();
+            case UPDATED_AT -> user.getUpdatedAt();
+        };
+    }
+
+    /**
+     * Usuario reducido a los campos pedidos, en el orden de la enumeración
+     */
+    public static Map<String, Object> project(User user, Set<UserField> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (UserField field : fields) {
+            values.put(field.fieldName, field.valueOf(user));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,147 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Conecta un lector y un escritor de usuarios en dos hilos con una cola acotada.
+ *
+ * Un hilo analiza el origen y deja lotes de usuarios en la cola; el hilo que llama
+ * los serializa en el destino. Si el escritor es más lento, el lector se bloquea al
+ * llenarse la cola (contrapresión), así que en memoria hay como mucho
+ * {@code capacity * batchSize} usuarios sea cual sea el tamaño del archivo, y el
+ * análisis se solapa con la serialización y la compresión.
+ */
+public final class UserFileConverter {
+
+    /** Marca de fin en la cola (lista vacía distinta de cualquier lote) */
+    private static final List<User> END = new ArrayList<>(0);
+
+    private final int batchSize;
+    private final int capacity;
+
+    /**
+     * @param batchSize Usuarios por lote (reduce el coste de sincronización por usuario)
+     * @param capacity Lotes máximos en la cola entre los dos hilos
+     */
+    public UserFileConverter(int batchSize, int capacity) {
+        if (batchSize < 1 || capacity < 1) {
+            throw new IllegalArgumentException("batchSize y capacity deben ser >= 1");
+        }
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Copia todos los usuarios del lector al escritor. No cierra ninguno de los dos.
+     * @return Número de usuarios convertidos
+     * @throws IOException si falla la lectura o la escritura (la otra parte se detiene)
+     */
+    public long convert(UserRecordReader reader, UserRecordWriter writer) throws IOException {
+        BlockingQueue<List<User>> queue = new ArrayBlockingQueue<>(capacity);
+        Parser parser = new Parser(reader, queue);
+        Thread thread = new Thread(parser, "user-convert-parser");
+        thread.setDaemon(true);
+        thread.start();
+
+        long count = 0;
+        boolean completed = false;
+        try {
+            List<User> batch;
+            while ((batch = queue.take()) != END) {
+                for (User user : batch) {
+                    writer.write(user);
+                }
+                count += batch.size();
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Conversión interrumpida", e);
+        } finally {
+            if (!completed) {
+                // Error escribiendo: el lector puede estar bloqueado en put()
+                thread.interrupt();
+            }
+            join(thread);
+        }
+
+        Throwable failure = parser.failure;
+        if (failure instanceof IOException io) {
+            throw io;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        if (failure != null) {
+            throw new IOException("Error leyendo usuarios: " + failure.getMessage(), failure);
+        }
+        return count;
+    }
+
+    private static void join(Thread thread) throws IOException {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Conversión interrumpida", e);
+        }
+    }
+
+    /**
+     * Hilo de análisis: lee lotes y los encola; siempre termina con END salvo si se le interrumpe
+     */
+    private final class Parser implements Runnable {
+        private final UserRecordReader reader;
+        private final BlockingQueue<List<User>> queue;
+        private volatile Throwable failure;
+
+        Parser(UserRecordReader reader, BlockingQueue<List<User>> queue) {
+            this.reader = reader;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            boolean interrupted = false;
+            try {
+                List<User> batch = new ArrayList<>(batchSize);
+                User user;
+                while ((user = reader.read()) != null) {
+                    batch.add(user);
+                    if (batch.size() == batchSize) {
+                        queue.put(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    queue.put(batch);
+                }
+            } catch (InterruptedException e) {
+                // El escritor falló y ya no consume la cola
+                interrupted = true;
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                // También un Error: sin END el escritor esperaría en take() para siempre
+                failure = e;
+            } finally {
+                if (!interrupted) {
+                    putEnd();
+                }
+            }
+        }
+
+        private void putEnd() {
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
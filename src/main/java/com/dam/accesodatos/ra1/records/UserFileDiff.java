@@ -0,0 +1,341 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Diferencias entre dos archivos de usuarios por id, con hash join y salida NDJSON.
+ *
+ * <ol>
+ *   <li>Construcción: el archivo menor se lee en streaming y de cada usuario se guarda
+ *       solo id → hash de 64 bits de la fila en una {@link LongHashTable}.</li>
+ *   <li>Sondeo: el archivo mayor se lee en streaming contra la tabla. Los ids que no están
+ *       se emiten en el momento; los cambiados se vuelcan a un temporal y se anota su
+ *       posición en la tabla.</li>
+ *   <li>Segunda lectura del menor: los ids no vistos se emiten y, para los cambiados, se
+ *       lee el otro usuario del temporal y se emiten los campos que difieren.</li>
+ * </ol>
+ * En memoria solo está la tabla (unos 30 bytes por usuario del lado menor) y las posiciones
+ * de los cambiados. Dos filas con el mismo hash se consideran iguales.
+ *
+ * Cada línea de salida es un objeto con "op" (added, removed o changed) e "id";
+ * added/removed incluyen "user" y changed incluye "changes": {campo: {"old", "new"}}.
+ * Izquierda es la versión antigua y derecha la nueva.
+ */
+public final class UserFileDiff {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private static final int UNSEEN = 0;
+    private static final int EQUAL = -1;
+    private static final int DONE = -2;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Compara left (antiguo) con right (nuevo) escribiendo las diferencias en out (que no se cierra)
+     * @param tempDir Directorio del temporal con los usuarios cambiados (se borra al terminar)
+     */
+    public Result diff(Path left, Path right, ExternalUserSorter.ReaderFactory readers,
+                       Path tempDir, OutputStream out) throws IOException {
+        boolean buildLeft = Files.size(left) <= Files.size(right);
+        Path build = buildLeft ? left : right;
+        Path probe = buildLeft ? right : left;
+        String probeOnly = buildLeft ? "added" : "removed";
+        String buildOnly = buildLeft ? "removed" : "added";
+        Counts counts = new Counts();
+
+        // 1. Construcción: id -> hash de la fila del lado menor
+        LongHashTable table = new LongHashTable(1 << 16);
+        long buildUsers = 0;
+        try (UserRecordReader reader = readers.open(build)) {
+            for (User user = reader.read(); user != null; user = reader.read()) {
+                buildUsers++;
+                if (user.getId() == null) {
+                    counts.withoutId++;
+                } else if (!table.putIfAbsent(user.getId(), rowHash(user))) {
+                    counts.duplicateIds++;
+                }
+            }
+        }
+
+        Path spill = Files.createTempFile(Files.createDirectories(tempDir), "diff_", ".run");
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+
+            // 2. Sondeo con el lado mayor
+            long probeUsers = 0;
+            long[] offsets = new long[64];
+            int changed = 0;
+            try (UserRecordReader reader = readers.open(probe);
+                 ExternalUserSorter.RunWriter spillWriter = new ExternalUserSorter.RunWriter(spill)) {
+                for (User user = reader.read(); user != null; user = reader.read()) {
+                    probeUsers++;
+                    if (user.getId() == null) {
+                        counts.withoutId++;
+                        continue;
+                    }
+                    int slot = table.slot(user.getId());
+                    if (slot < 0) {
+                        writeUser(generator, probeOnly, user);
+                        counts.count(probeOnly);
+                    } else if (table.mark(slot) != UNSEEN) {
+                        counts.duplicateIds++;
+                    } else if (table.value(slot) == rowHash(user)) {
+                        table.mark(slot, EQUAL);
+                        counts.unchanged++;
+                    } else {
+                        if (changed == offsets.length) {
+                            offsets = Arrays.copyOf(offsets, changed * 2);
+                        }
+                        offsets[changed++] = spillWriter.position();
+                        spillWriter.write(user);
+                        table.mark(slot, changed); // índice + 1 en offsets
+                    }
+                }
+            }
+            counts.changed = changed;
+
+            // 3. Segunda lectura del lado menor: no vistos y cambiados
+            try (UserRecordReader reader = readers.open(build);
+                 FileChannel changedUsers = FileChannel.open(spill, StandardOpenOption.READ)) {
+                for (User user = reader.read(); user != null; user = reader.read()) {
+                    if (user.getId() == null) {
+                        continue;
+                    }
+                    int slot = table.slot(user.getId());
+                    int mark = table.mark(slot);
+                    if (mark == UNSEEN) {
+                        writeUser(generator, buildOnly, user);
+                        counts.count(buildOnly);
+                    } else if (mark > 0) {
+                        User other = readAt(changedUsers, offsets[mark - 1]);
+                        writeChanges(generator, buildLeft ? user : other, buildLeft ? other : user);
+                    }
+                    // Las repeticiones del id en este archivo ya se contaron en la construcción
+                    table.mark(slot, DONE);
+                }
+            }
+            generator.flush();
+
+            return new Result(buildLeft ? buildUsers : probeUsers, buildLeft ? probeUsers : buildUsers,
+                    counts, buildLeft ? "left" : "right");
+        } finally {
+            Files.deleteIfExists(spill);
+        }
+    }
+
+    /**
+     * Hash FNV-1a de 64 bits de todos los campos salvo el id
+     */
+    static long rowHash(User user) {
+        long hash = FNV_OFFSET;
+        hash = hash(hash, user.getName());
+        hash = hash(hash, user.getEmail());
+        hash = hash(hash, user.getDepartment());
+        hash = hash(hash, user.getRole());
+        hash = mix(hash, user.getActive() == null ? 2 : user.getActive() ? 1 : 0);
+        hash = hash(hash, user.getCreatedAt());
+        hash = hash(hash, user.getUpdatedAt());
+        return hash;
+    }
+
+    private static long hash(long hash, String value) {
+        if (value == null) {
+            return mix(hash, 0xFFFF_FFFFL);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = mix(hash, value.charAt(i));
+        }
+        // Separador: "ab"+"c" y "a"+"bc" no dan el mismo hash
+        return mix(hash, 0x1_0000L + value.length());
+    }
+
+    private static long hash(long hash, LocalDateTime date) {
+        if (date == null) {
+            return mix(hash, 0xFFFF_FFFFL);
+        }
+        hash = mix(hash, date.toEpochSecond(ZoneOffset.UTC));
+        return mix(hash, date.getNano());
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private static User readAt(FileChannel channel, long offset) throws IOException {
+        channel.position(offset);
+        // Sin cerrar: cerraría el canal compartido
+        ExternalUserSorter.RunReader reader = new ExternalUserSorter.RunReader(
+                new BufferedInputStream(Channels.newInputStream(channel), 512));
+        if (!reader.advance()) {
+            throw new IOException("Temporal de diferencias corrupto en la posición " + offset);
+        }
+        return reader.current;
+    }
+
+    private static void writeUser(JsonGenerator generator, String op, User user) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("op", op);
+        generator.writeNumberField("id", user.getId());
+        generator.writeFieldName("user");
+        JsonUserWriter.writeUser(generator, user);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static void writeChanges(JsonGenerator generator, User before, User after) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("op", "changed");
+        generator.writeNumberField("id", after.getId());
+        generator.writeObjectFieldStart("changes");
+        writeChange(generator, "name", before.getName(), after.getName());
+        writeChange(generator, "email", before.getEmail(), after.getEmail());
+        writeChange(generator, "department", before.getDepartment(), after.getDepartment());
+        writeChange(generator, "role", before.getRole(), after.getRole());
+        if (!Objects.equals(before.getActive(), after.getActive())) {
+            generator.writeObjectFieldStart("active");
+            writeBoolean(generator, "old", before.getActive());
+            writeBoolean(generator, "new", after.getActive());
+            generator.writeEndObject();
+        }
+        writeChange(generator, "createdAt", format(before.getCreatedAt()), format(after.getCreatedAt()));
+        writeChange(generator, "updatedAt", format(before.getUpdatedAt()), format(after.getUpdatedAt()));
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static void writeChange(JsonGenerator generator, String field, String before, String after) throws IOException {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        generator.writeObjectFieldStart(field);
+        generator.writeStringField("old", before);
+        generator.writeStringField("new", after);
+        generator.writeEndObject();
+    }
+
+    private static void writeBoolean(JsonGenerator generator, String field, Boolean value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeBooleanField(field, value);
+        }
+    }
+
+    private static String format(LocalDateTime date) {
+        return date == null ? null : IsoDateTimes.format(date);
+    }
+
+    private static final class Counts {
+        long added;
+        long removed;
+        long changed;
+        long unchanged;
+        long withoutId;
+        long duplicateIds;
+
+        void count(String op) {
+            if ("added".equals(op)) {
+                added++;
+            } else {
+                removed++;
+            }
+        }
+    }
+
+    /**
+     * Resumen de una comparación
+     */
+    public static final class Result {
+        private final long leftUsers;
+        private final long rightUsers;
+        private final long added;
+        private final long removed;
+        private final long changed;
+        private final long unchanged;
+        private final long withoutId;
+        private final long duplicateIds;
+        private final String buildSide;
+
+        Result(long leftUsers, long rightUsers, Counts counts, String buildSide) {
+            this.leftUsers = leftUsers;
+            this.rightUsers = rightUsers;
+            this.added = counts.added;
+            this.removed = counts.removed;
+            this.changed = counts.changed;
+            this.unchanged = counts.unchanged;
+            this.withoutId = counts.withoutId;
+            this.duplicateIds = counts.duplicateIds;
+            this.buildSide = buildSide;
+        }
+
+        public long getLeftUsers() {
+            return leftUsers;
+        }
+
+        public long getRightUsers() {
+            return rightUsers;
+        }
+
+        public long getAdded() {
+            return added;
+        }
+
+        public long getRemoved() {
+            return removed;
+        }
+
+        public long getChanged() {
+            return changed;
+        }
+
+        public long getUnchanged() {
+            return unchanged;
+        }
+
+        /** Usuarios sin id (no se pueden emparejar y no se comparan) */
+        public long getWithoutId() {
+            return withoutId;
+        }
+
+        /** Repeticiones de un id dentro del mismo archivo (se compara solo la primera) */
+        public long getDuplicateIds() {
+            return duplicateIds;
+        }
+
+        /** Lado con el que se construyó la tabla hash (el archivo menor) */
+        public String getBuildSide() {
+            return buildSide;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "added=" + added +
+                    ", removed=" + removed +
+                    ", changed=" + changed +
+                    ", unchanged=" + unchanged +
+                    ", buildSide='" + buildSide + '\'' +
+                    '}';
+        }
+    }
+}
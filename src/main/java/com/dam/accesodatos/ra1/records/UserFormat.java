@@ -0,0 +1,57 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.ra1.io.Compression;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Formatos de archivo de usuarios soportados por los lectores y escritores en streaming
+ */
+public enum UserFormat {
+    CSV("csv"),
+    JSON("json"),
+    XML("xml"),
+    /** JSON por líneas: un objeto por usuario y línea, sin array envolvente */
+    NDJSON("ndjson");
+
+    private final String extension;
+
+    UserFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Obtiene el formato a partir de su nombre ("csv", "json", "xml")
+     * @throws IllegalArgumentException si el formato no está soportado
+     */
+    public static UserFormat of(String name) {
+        if (name != null) {
+            String normalized = name.trim().toLowerCase(Locale.ROOT);
+            for (UserFormat format : values()) {
+                if (format.extension.equals(normalized)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Formato no soportado: " + name + " (use csv, json, ndjson o xml)");
+    }
+
+    /**
+     * Deduce el formato por la extensión del archivo, ignorando la de compresión
+     * ("users.csv.gz" es CSV)
+     * @throws IllegalArgumentException si la extensión no corresponde a ningún formato
+     */
+    public static UserFormat fromPath(Path path) {
+        String fileName = Compression.stripExtension(path.getFileName().toString());
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            throw new IllegalArgumentException("No se puede deducir el formato de " + fileName);
+        }
+        return of(fileName.substring(dot + 1));
+    }
+}
@@ -0,0 +1,25 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Lector de usuarios en streaming: devuelve un usuario cada vez, sin cargar el documento
+ * completo ni la lista de usuarios en memoria.
+ *
+ * Igual que {@link UserRecordWriter}, {@link #close()} libera el analizador pero NO cierra
+ * el flujo subyacente, que pertenece a quien lo abrió.
+ */
+public interface UserRecordReader extends Closeable {
+
+    /**
+     * @return Siguiente usuario, o null al llegar al final del documento
+     * @throws IOException si hay error de lectura o el documento está mal formado
+     */
+    User read() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
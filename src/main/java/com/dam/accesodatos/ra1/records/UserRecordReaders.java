@@ -0,0 +1,79 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Factoría de lectores de usuarios por formato
+ */
+public final class UserRecordReaders {
+
+    private UserRecordReaders() {
+    }
+
+    /**
+     * Abre un lector del formato indicado sobre el flujo (codificación UTF-8)
+     * @param format Formato de entrada (NDJSON y JSON comparten lector: acepta ambos)
+     * @param in Flujo origen (no se cierra al cerrar el lector)
+     */
+    public static UserRecordReader open(UserFormat format, InputStream in) throws IOException {
+        return open(format, in, EnumSet.allOf(UserField.class));
+    }
+
+    /**
+     * Abre un lector que solo convierte los campos indicados: el resto quedan a null en los
+     * usuarios leídos y el analizador se los salta sin crear sus valores
+     * @param fields Campos a leer
+     */
+    public static UserRecordReader open(UserFormat format, InputStream in, Set<UserField> fields) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvUserReader(in, fields);
+            case JSON, NDJSON -> new JsonUserReader(in, fields);
+            case XML -> new XmlUserReader(in, fields);
+        };
+    }
+
+    static Long parseId(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Id de usuario inválido: " + value, e);
+        }
+    }
+
+    static Boolean parseActive(String value) {
+        return value == null || value.isEmpty() ? null : Boolean.valueOf(value.trim());
+    }
+
+    /**
+     * Fecha ISO-8601 de un trozo de char[] con {@link IsoDateTimes}; vacío o solo espacios es null
+     */
+    static LocalDateTime parseDate(char[] chars, int offset, int length) throws IOException {
+        if (length == 0 || isBlank(chars, offset, length)) {
+            return null;
+        }
+        try {
+            return IsoDateTimes.parse(chars, offset, length);
+        } catch (DateTimeException e) {
+            throw new IOException("Fecha inválida: " + new String(chars, offset, length), e);
+        }
+    }
+
+    private static boolean isBlank(char[] chars, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (chars[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Escritor de usuarios en streaming: cada usuario se serializa en cuanto se recibe,
+ * sin construir el documento completo en memoria.
+ *
+ * {@link #close()} escribe el cierre del documento (']' en JSON, '&lt;/users&gt;' en XML)
+ * y vacía el buffer, pero NO cierra el flujo subyacente: su propietario decide cuándo
+ * forzarlo a disco y cerrarlo (ver {@link com.dam.accesodatos.ra1.io.AtomicFileWriter}).
+ */
+public interface UserRecordWriter extends Closeable {
+
+    void write(User user) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
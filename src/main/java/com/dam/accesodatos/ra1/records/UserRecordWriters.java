@@ -0,0 +1,28 @@
+package com.dam.accesodatos.ra1.records;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Factoría de escritores de usuarios por formato
+ */
+public final class UserRecordWriters {
+
+    private UserRecordWriters() {
+    }
+
+    /**
+     * Abre un escritor del formato indicado sobre el flujo (codificación UTF-8)
+     * @param format Formato de salida
+     * @param out Flujo destino (no se cierra al cerrar el escritor)
+     * @return Escritor que ya ha escrito la cabecera del documento
+     */
+    public static UserRecordWriter open(UserFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvUserWriter(out);
+            case JSON -> new JsonUserWriter(out);
+            case NDJSON -> new JsonUserWriter(out, true);
+            case XML -> new XmlUserWriter(out);
+        };
+    }
+}
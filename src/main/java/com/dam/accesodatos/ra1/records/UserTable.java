@@ -0,0 +1,236 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabla de usuarios en memoria por columnas, para consultas sobre archivos enteros.
+ *
+ * Un {@link User} ocupa más de 300 bytes (Long, Boolean, dos LocalDateTime con su LocalDate
+ * y LocalTime, cuatro String). Aquí cada columna es un array primitivo:
+ * <ul>
+ *   <li>id en long[] y fechas en long[] como microsegundos desde epoch (UTC)</li>
+ *   <li>active y la presencia de id/active en BitSet</li>
+ *   <li>department y role codificados con diccionario en int[] (pocas cadenas distintas)</li>
+ *   <li>name y email como String[], porque casi nunca se repiten</li>
+ * </ul>
+ * Los filtros comparan códigos enteros recorriendo arrays contiguos, sin tocar los objetos.
+ * Las fechas pierden la precisión por debajo del microsegundo. La tabla es inmutable.
+ */
+public final class UserTable {
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final int NULL_CODE = -1;
+
+    private final int size;
+    private final long[] ids;
+    private final BitSet hasId;
+    private final String[] names;
+    private final String[] emails;
+    private final int[] departments;
+    private final int[] roles;
+    private final BitSet active;
+    private final BitSet hasActive;
+    private final long[] createdAt;
+    private final long[] updatedAt;
+    private final Dictionary departmentDictionary;
+    private final Dictionary roleDictionary;
+
+    private UserTable(Builder builder) {
+        this.size = builder.size;
+        this.ids = builder.ids;
+        this.hasId = builder.hasId;
+        this.names = builder.names;
+        this.emails = builder.emails;
+        this.departments = builder.departments;
+        this.roles = builder.roles;
+        this.active = builder.active;
+        this.hasActive = builder.hasActive;
+        this.createdAt = builder.createdAt;
+        this.updatedAt = builder.updatedAt;
+        this.departmentDictionary = builder.departmentDictionary;
+        this.roleDictionary = builder.roleDictionary;
+    }
+
+    /**
+     * Carga en una tabla todos los usuarios del lector (no lo cierra)
+     */
+    public static UserTable load(UserRecordReader reader) throws IOException {
+        Builder builder = new Builder();
+        for (User user = reader.read(); user != null; user = reader.read()) {
+            builder.write(user);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Filas que cumplen todos los filtros no nulos, en orden de archivo.
+     * Un valor de department o role que no está en el diccionario no coincide con ninguna fila.
+     */
+    public int[] select(String department, String role, Boolean active) {
+        int departmentCode = departmentDictionary.code(department);
+        int roleCode = roleDictionary.code(role);
+        if ((department != null && departmentCode < 0) || (role != null && roleCode < 0)) {
+            return new int[0];
+        }
+
+        int[] rows = new int[Math.min(size, 1024)];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (department != null && departments[row] != departmentCode) {
+                continue;
+            }
+            if (role != null && roles[row] != roleCode) {
+                continue;
+            }
+            if (active != null && (!hasActive.get(row) || this.active.get(row) != active)) {
+                continue;
+            }
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Reconstruye el usuario de una fila
+     */
+    public User user(int row) {
+        return User.of(
+                hasId.get(row) ? ids[row] : null,
+                names[row],
+                emails[row],
+                departmentDictionary.decode(departments[row]),
+                roleDictionary.decode(roles[row]),
+                hasActive.get(row) ? active.get(row) : null,
+                toDate(createdAt[row]),
+                toDate(updatedAt[row]));
+    }
+
+    static long toMicros(LocalDateTime date) {
+        if (date == null) {
+            return NULL_TIME;
+        }
+        return Math.addExact(Math.multiplyExact(date.toEpochSecond(ZoneOffset.UTC), 1_000_000L), date.getNano() / 1_000);
+    }
+
+    static LocalDateTime toDate(long micros) {
+        if (micros == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Construye una tabla fila a fila; como es un {@link UserRecordWriter} puede ser el
+     * destino de cualquier lector o conversión
+     */
+    public static final class Builder implements UserRecordWriter {
+        private int size;
+        private long[] ids = new long[1024];
+        private final BitSet hasId = new BitSet();
+        private String[] names = new String[1024];
+        private String[] emails = new String[1024];
+        private int[] departments = new int[1024];
+        private int[] roles = new int[1024];
+        private final BitSet active = new BitSet();
+        private final BitSet hasActive = new BitSet();
+        private long[] createdAt = new long[1024];
+        private long[] updatedAt = new long[1024];
+        private final Dictionary departmentDictionary = new Dictionary();
+        private final Dictionary roleDictionary = new Dictionary();
+        private boolean built;
+
+        @Override
+        public void write(User user) {
+            if (built) {
+                throw new IllegalStateException("La tabla ya se ha construido");
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            int row = size++;
+            if (user.getId() != null) {
+                ids[row] = user.getId();
+                hasId.set(row);
+            }
+            names[row] = user.getName();
+            emails[row] = user.getEmail();
+            departments[row] = departmentDictionary.encode(user.getDepartment());
+            roles[row] = roleDictionary.encode(user.getRole());
+            if (user.getActive() != null) {
+                hasActive.set(row);
+                active.set(row, user.getActive());
+            }
+            createdAt[row] = toMicros(user.getCreatedAt());
+            updatedAt[row] = toMicros(user.getUpdatedAt());
+        }
+
+        public UserTable build() {
+            built = true;
+            return new UserTable(this);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            emails = Arrays.copyOf(emails, capacity);
+            departments = Arrays.copyOf(departments, capacity);
+            roles = Arrays.copyOf(roles, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            updatedAt = Arrays.copyOf(updatedAt, capacity);
+        }
+    }
+
+    /**
+     * Diccionario cadena → código consecutivo
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        /** Código del valor, o NULL_CODE si es null o no está en el diccionario */
+        int code(String value) {
+            Integer code = value == null ? null : codes.get(value);
+            return code == null ? NULL_CODE : code;
+        }
+
+        String decode(int code) {
+            return code == NULL_CODE ? null : values.get(code);
+        }
+    }
+}
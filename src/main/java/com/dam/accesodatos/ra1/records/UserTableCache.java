@@ -0,0 +1,74 @@
+package com.dam.accesodatos.ra1.records;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché LRU de {@link UserTable} por archivo.
+ *
+ * Una entrada vale mientras el archivo conserve tamaño y fecha de modificación; así varias
+ * consultas seguidas sobre el mismo export lo analizan una sola vez. Dos cargas simultáneas
+ * del mismo archivo pueden hacerse a la vez (la última sustituye a la primera).
+ */
+public final class UserTableCache {
+
+    /**
+     * Carga la tabla de un archivo
+     */
+    @FunctionalInterface
+    public interface Loader {
+        UserTable load(Path path) throws IOException;
+    }
+
+    private final Map<Path, CachedTable> cache;
+
+    /**
+     * @param maxTables Número máximo de tablas en memoria (0 desactiva la caché)
+     */
+    public UserTableCache(int maxTables) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, CachedTable> eldest) {
+                return size() > maxTables;
+            }
+        };
+    }
+
+    /**
+     * Tabla del archivo, desde la caché si no ha cambiado o cargándola con loader
+     */
+    public UserTable get(Path path, Loader loader) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+
+        synchronized (cache) {
+            CachedTable cached = cache.get(key);
+            if (cached != null && cached.size == size && cached.modified == modified) {
+                return cached.table;
+            }
+        }
+        UserTable table = loader.load(key);
+        synchronized (cache) {
+            cache.put(key, new CachedTable(size, modified, table));
+        }
+        return table;
+    }
+
+    private static final class CachedTable {
+        private final long size;
+        private final long modified;
+        private final UserTable table;
+
+        CachedTable(long size, long modified, UserTable table) {
+            this.size = size;
+            this.modified = modified;
+            this.table = table;
+        }
+    }
+}
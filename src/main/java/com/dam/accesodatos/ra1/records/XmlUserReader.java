@@ -0,0 +1,154 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Lector XML de usuarios con StAX (XMLStreamReader).
+ * Lee la estructura de {@link XmlUserWriter} (&lt;users&gt;&lt;user&gt;...&lt;/user&gt;&lt;/users&gt;)
+ * elemento a elemento, sin construir el árbol DOM. DTD y entidades externas desactivadas.
+ * department y role se internan y las fechas se leen con {@link IsoDateTimes}, ambos desde los
+ * caracteres de los eventos, sin crear un String por campo.
+ * Los elementos fuera de la proyección ({@link UserField}) y los desconocidos se saltan
+ * avanzando hasta su cierre, sin copiar su texto.
+ */
+public class XmlUserReader implements UserRecordReader {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final XMLStreamReader reader;
+    private final StringInterner interner = new StringInterner();
+    private final StringBuilder text = new StringBuilder();
+    private final boolean[] projected = new boolean[UserField.values().length];
+    private char[] dateBuffer = new char[IsoDateTimes.MAX_LENGTH];
+
+    public XmlUserReader(InputStream in) throws IOException {
+        this(in, EnumSet.allOf(UserField.class));
+    }
+
+    /**
+     * @param projection Campos a leer; los demás quedan a null
+     */
+    public XmlUserReader(InputStream in, Set<UserField> projection) throws IOException {
+        for (UserField field : projection) {
+            projected[field.ordinal()] = true;
+        }
+        try {
+            this.reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            throw new IOException("Error iniciando lectura XML: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public User read() throws IOException {
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "user".equals(reader.getLocalName())) {
+                    return readUser();
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException("XML de usuarios mal formado: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            // XMLStreamReader.close() no cierra el flujo subyacente
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Error cerrando lectura XML: " + e.getMessage(), e);
+        }
+    }
+
+    private User readUser() throws XMLStreamException, IOException {
+        String id = null, name = null, email = null, department = null, role = null;
+        String active = null;
+        LocalDateTime createdAt = null, updatedAt = null;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            UserField field = UserField.byName(reader.getLocalName());
+            if (field == null || !projected[field.ordinal()]) {
+                skipElement();
+                continue;
+            }
+            switch (field) {
+                case ID -> id = reader.getElementText();
+                case NAME -> name = reader.getElementText();
+                case EMAIL -> email = reader.getElementText();
+                case DEPARTMENT -> department = internedElementText();
+                case ROLE -> role = internedElementText();
+                case ACTIVE -> active = reader.getElementText();
+                case CREATED_AT -> createdAt = dateElementText();
+                case UPDATED_AT -> updatedAt = dateElementText();
+            }
+        }
+        return User.of(UserRecordReaders.parseId(id), name, email, department, role,
+                UserRecordReaders.parseActive(active), createdAt, updatedAt);
+    }
+
+    /**
+     * Avanza hasta el cierre del elemento actual (con sus hijos) sin leer el texto
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private String internedElementText() throws XMLStreamException {
+        return interner.intern(elementText());
+    }
+
+    private LocalDateTime dateElementText() throws XMLStreamException, IOException {
+        StringBuilder chars = elementText();
+        if (chars.length() > dateBuffer.length) {
+            dateBuffer = new char[chars.length()];
+        }
+        chars.getChars(0, chars.length(), dateBuffer, 0);
+        return UserRecordReaders.parseDate(dateBuffer, 0, chars.length());
+    }
+
+    /**
+     * Como getElementText() pero copiando los eventos de caracteres al buffer reutilizado
+     * en lugar de crear un String
+     */
+    private StringBuilder elementText() throws XMLStreamException {
+        text.setLength(0);
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            switch (event) {
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                case XMLStreamConstants.ENTITY_REFERENCE -> text.append(reader.getText());
+                case XMLStreamConstants.COMMENT, XMLStreamConstants.PROCESSING_INSTRUCTION -> {
+                    // Se ignoran, igual que en getElementText()
+                }
+                default -> throw new XMLStreamException("Se esperaba solo texto en el elemento", reader.getLocation());
+            }
+        }
+        return text;
+    }
+}
@@ -0,0 +1,88 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Escritor XML de usuarios con StAX (XMLStreamWriter).
+ * Produce la misma estructura que writeUsersToXML con DOM
+ * (&lt;users&gt;&lt;user&gt;&lt;id&gt;...&lt;/user&gt;&lt;/users&gt;) sin construir el árbol en memoria.
+ */
+public class XmlUserWriter implements UserRecordWriter {
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+    private final XMLStreamWriter writer;
+    private final char[] dateBuffer = new char[IsoDateTimes.MAX_LENGTH];
+
+    public XmlUserWriter(OutputStream out) throws IOException {
+        try {
+            this.writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+            writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement("users");
+        } catch (XMLStreamException e) {
+            throw new IOException("Error iniciando documento XML: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void write(User user) throws IOException {
+        try {
+            writer.writeCharacters("\n  ");
+            writer.writeStartElement("user");
+            writeElement("id", user.getId() == null ? null : user.getId().toString());
+            writeElement("name", user.getName());
+            writeElement("email", user.getEmail());
+            writeElement("department", user.getDepartment());
+            writeElement("role", user.getRole());
+            writeElement("active", user.getActive() == null ? null : user.getActive().toString());
+            writeDateElement("createdAt", user.getCreatedAt());
+            writeDateElement("updatedAt", user.getUpdatedAt());
+            writer.writeCharacters("\n  ");
+            writer.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException("Error escribiendo usuario en XML: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            // XMLStreamWriter.close() no cierra el flujo subyacente
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Error cerrando documento XML: " + e.getMessage(), e);
+        }
+    }
+
+    private void writeElement(String name, String value) throws XMLStreamException {
+        if (value == null) {
+            return;
+        }
+        writer.writeCharacters("\n    ");
+        writer.writeStartElement(name);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    private void writeDateElement(String name, LocalDateTime date) throws XMLStreamException {
+        if (date == null) {
+            return;
+        }
+        writer.writeCharacters("\n    ");
+        writer.writeStartElement(name);
+        writer.writeCharacters(dateBuffer, 0, IsoDateTimes.format(date, dateBuffer, 0));
+        writer.writeEndElement();
+    }
+}
@@ -0,0 +1,88 @@
+package com.dam.accesodatos.ra1.store;
+
+import java.util.SplittableRandom;
+
+/**
+ * Troceado por contenido (content-defined chunking) con un hash rodante Gear.
+ *
+ * Los cortes se deciden por los últimos 64 bytes leídos y no por la posición: insertar o
+ * borrar unas filas en un export solo cambia los fragmentos que tocan la modificación, y
+ * el resto del archivo vuelve a producir exactamente los mismos fragmentos (y hashes).
+ *
+ * Cada byte desplaza el hash un bit a la izquierda, así que un byte deja de influir a los
+ * 64 bytes: antes de {@code minSize - 64} no hace falta calcular el hash. Se corta cuando
+ * los bits altos del hash son cero (tamaño medio {@code averageSize}), nunca antes de
+ * {@code minSize} y siempre al llegar a {@code maxSize}. Como en FastCDC, se miran los bits
+ * altos porque el bit k solo depende de los últimos k + 1 bytes: los bajos dependerían de
+ * una ventana de apenas log2(averageSize) bytes.
+ */
+public final class ContentDefinedChunker {
+
+    /** Tabla Gear fija: cambiarla cambiaría todos los cortes y anularía la deduplicación */
+    private static final long[] GEAR = new long[256];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private static final int WINDOW = Long.SIZE;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long mask;
+    private long hash;
+    private int length;
+
+    /**
+     * @param averageSize Tamaño medio de fragmento (potencia de 2, mínimo 256);
+     *                    el mínimo es la cuarta parte y el máximo ocho veces
+     */
+    public ContentDefinedChunker(int averageSize) {
+        if (averageSize < 256 || Integer.bitCount(averageSize) != 1) {
+            throw new IllegalArgumentException("El tamaño medio de fragmento debe ser potencia de 2 y >= 256: " + averageSize);
+        }
+        this.minSize = averageSize / 4;
+        this.maxSize = averageSize * 8;
+        this.mask = -1L << (Long.SIZE - Integer.numberOfTrailingZeros(averageSize));
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Consume bytes del fragmento actual hasta encontrar un corte
+     * @return Posición (exclusiva) en data donde termina el fragmento, o -1 si los
+     *         {@code count} bytes pertenecen todos al fragmento actual
+     */
+    public int findBoundary(byte[] data, int offset, int count) {
+        int end = offset + count;
+        int i = offset;
+
+        // Bytes que no pueden influir en el primer corte posible: solo se cuentan
+        int skip = Math.min(end - i, Math.max(0, minSize - WINDOW - length));
+        i += skip;
+        length += skip;
+
+        long h = hash;
+        while (i < end) {
+            h = (h << 1) + GEAR[data[i++] & 0xFF];
+            length++;
+            if ((length >= minSize && (h & mask) == 0) || length >= maxSize) {
+                hash = 0;
+                length = 0;
+                return i;
+            }
+        }
+        hash = h;
+        return -1;
+    }
+
+    public void reset() {
+        hash = 0;
+        length = 0;
+    }
+}
@@ -0,0 +1,496 @@
+package com.dam.accesodatos.ra1.store;
+
+import com.dam.accesodatos.ra1.io.AtomicFileWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Almacén direccionado por contenido para exportaciones de usuarios.
+ *
+ * El contenido se trocea con {@link ContentDefinedChunker} mientras se escribe y cada
+ * fragmento se guarda una sola vez en {@code <raíz>/chunks/ab/abcd...} con su SHA-256
+ * como nombre. En la ruta que ve el usuario queda un manifiesto de texto con la lista
+ * de fragmentos. Dos exports nocturnos que difieren en unas filas comparten casi todos
+ * los fragmentos: el segundo solo escribe los nuevos y su manifiesto.
+ *
+ * Formato del manifiesto:
+ * <pre>
+ * #cas-manifest v1
+ * size 123456
+ * sha256 &lt;hash del contenido completo&gt;
+ * &lt;sha256 del fragmento&gt; &lt;longitud&gt;
+ * ...
+ * </pre>
+ * Los fragmentos nuevos se escriben en un temporal y se renombran. No se fuerzan a disco uno
+ * a uno mientras se trocea, sino todos juntos justo antes de escribir el manifiesto: un
+ * manifiesto durable nunca apunta a fragmentos que una caída pueda dejar vacíos o a medias.
+ * Un fragmento que ya existe solo se reutiliza si su contenido coincide; si no (quedó a
+ * medias en una caída anterior) se reescribe. La restauración comprueba además el SHA-256
+ * de cada fragmento.
+ * Los fragmentos que dejan de estar referenciados no se borran (no hay recolección).
+ */
+public class ContentStore {
+
+    static final String MANIFEST_HEADER = "#cas-manifest v1";
+
+    private final Path chunksDir;
+    private final int averageChunkSize;
+
+    /**
+     * @param root Directorio del almacén
+     * @param averageChunkSize Tamaño medio de fragmento (potencia de 2)
+     */
+    public ContentStore(Path root, int averageChunkSize) {
+        this.chunksDir = root.resolve("chunks");
+        this.averageChunkSize = averageChunkSize;
+        new ContentDefinedChunker(averageChunkSize); // Valida el tamaño al arrancar
+    }
+
+    /**
+     * Prepara la escritura de un contenido cuyo manifiesto quedará en target.
+     * Uso igual que {@link AtomicFileWriter}: escribir en {@link ManifestWriter#stream()}
+     * y llamar a {@link ManifestWriter#commit()}.
+     */
+    public ManifestWriter create(Path target, Path tempDir) {
+        return new ManifestWriter(target, tempDir);
+    }
+
+    /**
+     * Reconstruye el contenido de un manifiesto comprobando cada fragmento
+     * @return Bytes escritos
+     * @throws IOException si el archivo no es un manifiesto, falta un fragmento o está corrupto
+     */
+    public long restore(Path manifest, OutputStream out) throws IOException {
+        try (InputStream in = open(manifest)) {
+            return in.transferTo(out);
+        }
+    }
+
+    /**
+     * Abre el contenido de un manifiesto como un flujo que lee los fragmentos a medida que
+     * se consumen (uno en memoria cada vez). Cada fragmento se comprueba al cargarlo y el
+     * tamaño y SHA-256 del conjunto al llegar al final: un error llega como IOException
+     * desde read(). El flujo tiene buffer y admite mark/reset, como {@code Compression.open}.
+     * @throws IOException si el archivo no es un manifiesto
+     */
+    public InputStream open(Path manifest) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8);
+        try {
+            if (!MANIFEST_HEADER.equals(reader.readLine())) {
+                throw new IOException("No es un manifiesto del almacén: " + manifest);
+            }
+            long expectedSize = Long.parseLong(field(reader.readLine(), "size"));
+            String expectedHash = field(reader.readLine(), "sha256");
+            return new BufferedInputStream(new ManifestInputStream(manifest, reader, expectedSize, expectedHash),
+                    64 * 1024);
+        } catch (NumberFormatException e) {
+            reader.close();
+            throw new IOException("Manifiesto mal formado: " + manifest, e);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Indica si el archivo es un manifiesto del almacén (lee solo la cabecera)
+     */
+    public static boolean isManifest(Path file) {
+        byte[] header = MANIFEST_HEADER.getBytes(StandardCharsets.US_ASCII);
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] read = in.readNBytes(header.length);
+            return Arrays.equals(read, header);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    Path chunkPath(String hash) {
+        return chunksDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Guarda un fragmento si no existe o si el que hay no coincide con los datos
+     * (se quedó a medias en una caída y rompería todo manifiesto que lo use)
+     * @return true si se escribió (fragmento nuevo o reescrito)
+     */
+    private boolean putChunk(String hash, byte[] data, int length) throws IOException {
+        Path chunk = chunkPath(hash);
+        boolean replace = Files.exists(chunk);
+        if (replace && Files.size(chunk) == length
+                && Arrays.equals(Files.readAllBytes(chunk), 0, length, data, 0, length)) {
+            return false;
+        }
+        Path dir = Files.createDirectories(chunk.getParent());
+        Path temp = Files.createTempFile(dir, "." + hash.substring(0, 8), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                out.write(data, 0, length);
+            }
+            try {
+                Files.move(temp, chunk, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                if (replace) {
+                    Files.move(temp, chunk, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    Files.move(temp, chunk);
+                }
+            }
+        } catch (FileAlreadyExistsException e) {
+            // Otro escritor guardó el mismo fragmento a la vez: el contenido es idéntico
+            return false;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+
+    /**
+     * Fuerza a disco los fragmentos escritos y los directorios donde se renombraron
+     */
+    private static void forceChunks(List<Path> chunks) throws IOException {
+        Set<Path> dirs = new LinkedHashSet<>();
+        for (Path chunk : chunks) {
+            try (FileChannel channel = FileChannel.open(chunk, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            dirs.add(chunk.getParent());
+        }
+        for (Path dir : dirs) {
+            try (FileChannel directory = FileChannel.open(dir, StandardOpenOption.READ)) {
+                directory.force(true);
+            } catch (IOException e) {
+                // Sin soporte para sincronizar directorios: el renombrado sigue siendo atómico
+            }
+        }
+    }
+
+    private static boolean isHash(String hash) {
+        if (hash.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String field(String line, String name) throws IOException {
+        if (line == null || !line.startsWith(name + " ")) {
+            throw new IOException("Falta el campo '" + name + "' en el manifiesto");
+        }
+        return line.substring(name.length() + 1);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Contenido de un manifiesto, fragmento a fragmento
+     */
+    private final class ManifestInputStream extends InputStream {
+        private final Path manifest;
+        private final BufferedReader reader;
+        private final long expectedSize;
+        private final String expectedHash;
+        private final MessageDigest chunkDigest = sha256();
+        private final MessageDigest fileDigest = sha256();
+        private byte[] chunk = new byte[0];
+        private int position;
+        private long total;
+        private boolean finished;
+
+        ManifestInputStream(Path manifest, BufferedReader reader, long expectedSize, String expectedHash) {
+            this.manifest = manifest;
+            this.reader = reader;
+            this.expectedSize = expectedSize;
+            this.expectedHash = expectedHash;
+        }
+
+        @Override
+        public int read() throws IOException {
+            while (position == chunk.length) {
+                if (!nextChunk()) {
+                    return -1;
+                }
+            }
+            return chunk[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == chunk.length) {
+                if (!nextChunk()) {
+                    return -1;
+                }
+            }
+            int n = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        /**
+         * Carga y comprueba el siguiente fragmento
+         * @return false al terminar el manifiesto (tras comprobar el contenido completo)
+         */
+        private boolean nextChunk() throws IOException {
+            if (finished) {
+                return false;
+            }
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.isEmpty());
+            if (line == null) {
+                finished = true;
+                if (total != expectedSize || !expectedHash.equals(HexFormat.of().formatHex(fileDigest.digest()))) {
+                    throw new IOException("El contenido reconstruido no coincide con el manifiesto: " + manifest);
+                }
+                return false;
+            }
+
+            String hash;
+            int length;
+            try {
+                int space = line.indexOf(' ');
+                hash = line.substring(0, space);
+                length = Integer.parseInt(line.substring(space + 1));
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                throw new IOException("Manifiesto mal formado: " + manifest, e);
+            }
+            if (!isHash(hash)) {
+                throw new IOException("Hash de fragmento inválido en " + manifest + ": " + hash);
+            }
+
+            Path chunkFile = chunkPath(hash);
+            if (!Files.exists(chunkFile)) {
+                throw new IOException("Falta el fragmento " + hash + " de " + manifest);
+            }
+            byte[] data = Files.readAllBytes(chunkFile);
+            if (data.length != length || !hash.equals(HexFormat.of().formatHex(chunkDigest.digest(data)))) {
+                throw new IOException("Fragmento corrupto " + hash + " en " + manifest);
+            }
+            fileDigest.update(data);
+            total += length;
+            chunk = data;
+            position = 0;
+            return true;
+        }
+    }
+
+    /**
+     * Escritura de un contenido en el almacén. Si no se llama a {@link #commit()} el
+     * manifiesto no se crea (los fragmentos ya guardados quedan sin referenciar).
+     */
+    public final class ManifestWriter implements Closeable {
+        private final Path target;
+        private final Path tempDir;
+        private final ContentDefinedChunker chunker = new ContentDefinedChunker(averageChunkSize);
+        private final byte[] chunk = new byte[chunker.getMaxSize()];
+        private final MessageDigest chunkDigest = sha256();
+        private final MessageDigest fileDigest = sha256();
+        private final List<String> entries = new ArrayList<>();
+        private final List<Path> written = new ArrayList<>();
+        private final OutputStream stream;
+        private int chunkLength;
+        private long totalBytes;
+        private long newChunks;
+        private long newBytes;
+        private boolean closed;
+
+        private ManifestWriter(Path target, Path tempDir) {
+            this.target = target;
+            this.tempDir = tempDir;
+            this.stream = new BufferedOutputStream(new ChunkingStream(), 64 * 1024);
+        }
+
+        /**
+         * Flujo (con buffer) que trocea y guarda el contenido. No debe cerrarse directamente.
+         */
+        public OutputStream stream() {
+            return stream;
+        }
+
+        /**
+         * Guarda el último fragmento, fuerza a disco los escritos y escribe el manifiesto
+         * de forma atómica
+         */
+        public StoreResult commit() throws IOException {
+            if (closed) {
+                throw new IOException("La escritura ya está cerrada: " + target);
+            }
+            stream.flush();
+            if (chunkLength > 0) {
+                emit();
+            }
+            closed = true;
+            forceChunks(written);
+
+            String sha256 = HexFormat.of().formatHex(fileDigest.digest());
+            try (AtomicFileWriter file = AtomicFileWriter.create(target, tempDir)) {
+                Writer writer = new OutputStreamWriter(file.stream(), StandardCharsets.UTF_8);
+                writer.write(MANIFEST_HEADER + "\n");
+                writer.write("size " + totalBytes + "\n");
+                writer.write("sha256 " + sha256 + "\n");
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+                writer.flush();
+                file.commit();
+            }
+            return new StoreResult(target.toString(), sha256, totalBytes, entries.size(), newChunks, newBytes);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        private void append(byte[] data, int offset, int count) throws IOException {
+            if (closed) {
+                throw new IOException("La escritura ya está cerrada: " + target);
+            }
+            fileDigest.update(data, offset, count);
+            totalBytes += count;
+            while (count > 0) {
+                int boundary = chunker.findBoundary(data, offset, count);
+                int take = boundary < 0 ? count : boundary - offset;
+                System.arraycopy(data, offset, chunk, chunkLength, take);
+                chunkLength += take;
+                offset += take;
+                count -= take;
+                if (boundary >= 0) {
+                    emit();
+                }
+            }
+        }
+
+        private void emit() throws IOException {
+            chunkDigest.update(chunk, 0, chunkLength);
+            String hash = HexFormat.of().formatHex(chunkDigest.digest());
+            if (putChunk(hash, chunk, chunkLength)) {
+                newChunks++;
+                newBytes += chunkLength;
+                written.add(chunkPath(hash));
+            }
+            entries.add(hash + " " + chunkLength);
+            chunkLength = 0;
+            chunker.reset();
+        }
+
+        private final class ChunkingStream extends OutputStream {
+            private final byte[] single = new byte[1];
+
+            @Override
+            public void write(int b) throws IOException {
+                single[0] = (byte) b;
+                append(single, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                append(b, off, len);
+            }
+        }
+    }
+
+    /**
+     * Resultado de guardar un contenido: cuánto ocupa y cuánto hubo que escribir realmente
+     */
+    public static final class StoreResult {
+        private final String manifestPath;
+        private final String sha256;
+        private final long totalBytes;
+        private final long chunks;
+        private final long newChunks;
+        private final long newBytes;
+
+        StoreResult(String manifestPath, String sha256, long totalBytes, long chunks, long newChunks, long newBytes) {
+            this.manifestPath = manifestPath;
+            this.sha256 = sha256;
+            this.totalBytes = totalBytes;
+            this.chunks = chunks;
+            this.newChunks = newChunks;
+            this.newBytes = newBytes;
+        }
+
+        public String getManifestPath() {
+            return manifestPath;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getChunks() {
+            return chunks;
+        }
+
+        /** Fragmentos que no estaban en el almacén */
+        public long getNewChunks() {
+            return newChunks;
+        }
+
+        /** Bytes de contenido escritos realmente (sin contar el manifiesto) */
+        public long getNewBytes() {
+            return newBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "StoreResult{" +
+                    "manifestPath='" + manifestPath + '\'' +
+                    ", totalBytes=" + totalBytes +
+                    ", chunks=" + chunks +
+                    ", newChunks=" + newChunks +
+                    ", newBytes=" + newBytes +
+                    '}';
+        }
+    }
+}
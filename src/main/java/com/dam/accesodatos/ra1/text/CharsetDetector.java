@@ -0,0 +1,377 @@
+package com.dam.accesodatos.ra1.text;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Detección de la codificación de un archivo sin leerlo entero.
+ *
+ * Orden de comprobación:
+ * <ol>
+ *   <li>BOM (UTF-8, UTF-16 y UTF-32): determina la codificación con certeza.</li>
+ *   <li>UTF-16 sin BOM: muchos bytes nulos en posiciones pares o impares.</li>
+ *   <li>UTF-8: se valida un máximo de {@link #WINDOW_SIZE} bytes al principio, en medio
+ *       y al final del archivo. Si no hay bytes no ASCII se informa como UTF-8 (ASCII es
+ *       un subconjunto y la conversión copia el prefijo ASCII sin decodificar).</li>
+ *   <li>Si no es UTF-8 válido: estadística de bytes altos. Los bytes 0x80-0x9F son
+ *       controles C1 en ISO-8859-1 pero comillas, guiones o el € en Windows-1252.</li>
+ * </ol>
+ *
+ * Los resultados se guardan por identidad del archivo (ruta real, fileKey, tamaño y fecha
+ * de modificación): un archivo reescrito cambia de fecha o tamaño y se vuelve a analizar.
+ */
+public class CharsetDetector {
+
+    /** Tamaño de cada ventana de muestra */
+    static final int WINDOW_SIZE = 16 * 1024;
+
+    private static final int CACHE_SIZE = 1024;
+
+    /** Bytes 0x80-0x9F sin carácter asignado en Windows-1252 */
+    private static final boolean[] CP1252_UNDEFINED = new boolean[256];
+
+    static {
+        for (int b : new int[]{0x81, 0x8D, 0x8F, 0x90, 0x9D}) {
+            CP1252_UNDEFINED[b] = true;
+        }
+    }
+
+    public enum Method { BOM, UTF16_HEURISTIC, UTF8_VALID, ASCII, STATISTICAL }
+
+    private final Map<FileIdentity, Detection> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FileIdentity, Detection> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private long hits;
+    private long misses;
+
+    /**
+     * Detecta la codificación del archivo, usando la caché si el archivo no ha cambiado
+     * @param path Archivo a analizar
+     * @return Codificación detectada, longitud del BOM y método usado
+     */
+    public Detection detect(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        FileIdentity identity = new FileIdentity(path.toRealPath(), attributes.fileKey(),
+                attributes.size(), attributes.lastModifiedTime().toMillis());
+
+        synchronized (cache) {
+            Detection cached = cache.get(identity);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        Detection detection;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            detection = detect(channel);
+        }
+        synchronized (cache) {
+            cache.put(identity, detection);
+        }
+        return detection;
+    }
+
+    public long getHits() {
+        synchronized (cache) {
+            return hits;
+        }
+    }
+
+    public long getMisses() {
+        synchronized (cache) {
+            return misses;
+        }
+    }
+
+    /**
+     * Detecta la codificación leyendo como mucho tres ventanas del canal (lecturas posicionales)
+     */
+    public static Detection detect(FileChannel channel) throws IOException {
+        long size = channel.size();
+        byte[] head = read(channel, 0, (int) Math.min(WINDOW_SIZE, size));
+
+        Detection bom = sniffBom(head);
+        if (bom != null) {
+            return bom;
+        }
+
+        Charset utf16 = guessUtf16(head);
+        if (utf16 != null) {
+            return new Detection(utf16, 0, Method.UTF16_HEURISTIC, 0.8, head.length);
+        }
+
+        // Ventanas de muestra: principio, mitad y final (sin solaparse)
+        byte[][] windows;
+        if (size <= 3L * WINDOW_SIZE) {
+            windows = new byte[][]{read(channel, 0, (int) size)};
+        } else {
+            windows = new byte[][]{
+                    head,
+                    read(channel, size / 2 - WINDOW_SIZE / 2, WINDOW_SIZE),
+                    read(channel, size - WINDOW_SIZE, WINDOW_SIZE)
+            };
+        }
+
+        int sampled = 0;
+        int multiByte = 0;
+        boolean validUtf8 = true;
+        for (int i = 0; i < windows.length && validUtf8; i++) {
+            boolean atStart = i == 0;
+            boolean atEnd = i == windows.length - 1;
+            int sequences = countUtf8Sequences(windows[i], !atStart, !atEnd);
+            if (sequences < 0) {
+                validUtf8 = false;
+            } else {
+                multiByte += sequences;
+            }
+            sampled += windows[i].length;
+        }
+
+        if (validUtf8) {
+            return multiByte == 0
+                    ? new Detection(StandardCharsets.UTF_8, 0, Method.ASCII, 0.9, sampled)
+                    : new Detection(StandardCharsets.UTF_8, 0, Method.UTF8_VALID, 0.99, sampled);
+        }
+        return statistical(windows, sampled);
+    }
+
+    private static Detection sniffBom(byte[] head) {
+        if (startsWith(head, 0xEF, 0xBB, 0xBF)) {
+            return new Detection(StandardCharsets.UTF_8, 3, Method.BOM, 1.0, head.length);
+        }
+        if (startsWith(head, 0xFF, 0xFE, 0x00, 0x00)) {
+            return new Detection(Charset.forName("UTF-32LE"), 4, Method.BOM, 1.0, head.length);
+        }
+        if (startsWith(head, 0x00, 0x00, 0xFE, 0xFF)) {
+            return new Detection(Charset.forName("UTF-32BE"), 4, Method.BOM, 1.0, head.length);
+        }
+        if (startsWith(head, 0xFF, 0xFE)) {
+            return new Detection(StandardCharsets.UTF_16LE, 2, Method.BOM, 1.0, head.length);
+        }
+        if (startsWith(head, 0xFE, 0xFF)) {
+            return new Detection(StandardCharsets.UTF_16BE, 2, Method.BOM, 1.0, head.length);
+        }
+        return null;
+    }
+
+    /**
+     * Texto latino en UTF-16 sin BOM: uno de cada dos bytes es 0
+     */
+    private static Charset guessUtf16(byte[] head) {
+        if (head.length < 4) {
+            return null;
+        }
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i + 1 < head.length; i += 2) {
+            if (head[i] == 0) {
+                evenZeros++;
+            }
+            if (head[i + 1] == 0) {
+                oddZeros++;
+            }
+        }
+        int pairs = head.length / 2;
+        if (oddZeros > pairs * 0.4 && evenZeros < pairs * 0.05) {
+            return StandardCharsets.UTF_16LE;
+        }
+        if (evenZeros > pairs * 0.4 && oddZeros < pairs * 0.05) {
+            return StandardCharsets.UTF_16BE;
+        }
+        return null;
+    }
+
+    /**
+     * Valida UTF-8 sin decodificar.
+     * @param skipLeading La ventana puede empezar a mitad de una secuencia
+     * @param allowTruncatedTail La ventana puede terminar a mitad de una secuencia
+     * @return Número de secuencias multibyte, o -1 si la ventana no es UTF-8 válido
+     */
+    static int countUtf8Sequences(byte[] data, boolean skipLeading, boolean allowTruncatedTail) {
+        int i = 0;
+        if (skipLeading) {
+            while (i < data.length && i < 3 && (data[i] & 0xC0) == 0x80) {
+                i++;
+            }
+        }
+        int sequences = 0;
+        while (i < data.length) {
+            int b = data[i] & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+            int length;
+            int min;
+            if (b >= 0xC2 && b <= 0xDF) {
+                length = 2;
+                min = 0x80;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                length = 3;
+                min = 0x800;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                length = 4;
+                min = 0x10000;
+            } else {
+                return -1;
+            }
+            if (i + length > data.length) {
+                return allowTruncatedTail && continuationBytes(data, i + 1, data.length) ? sequences : -1;
+            }
+            int codePoint = b & (0xFF >> (length + 1));
+            for (int k = 1; k < length; k++) {
+                int next = data[i + k] & 0xFF;
+                if ((next & 0xC0) != 0x80) {
+                    return -1;
+                }
+                codePoint = (codePoint << 6) | (next & 0x3F);
+            }
+            // Formas sobrelargas, sustitutos y valores fuera de Unicode
+            if (codePoint < min || codePoint > 0x10FFFF || (codePoint >= 0xD800 && codePoint <= 0xDFFF)) {
+                return -1;
+            }
+            sequences++;
+            i += length;
+        }
+        return sequences;
+    }
+
+    private static Detection statistical(byte[][] windows, int sampled) {
+        int high = 0;
+        int c1 = 0;
+        int c1Undefined = 0;
+        int latinLetters = 0;
+        for (byte[] window : windows) {
+            for (byte value : window) {
+                int b = value & 0xFF;
+                if (b < 0x80) {
+                    continue;
+                }
+                high++;
+                if (b <= 0x9F) {
+                    c1++;
+                    if (CP1252_UNDEFINED[b]) {
+                        c1Undefined++;
+                    }
+                } else if (b >= 0xC0 && b != 0xD7 && b != 0xF7) {
+                    latinLetters++;
+                }
+            }
+        }
+
+        // Proporción de bytes altos que son letras latinas acentuadas o puntuación de Windows-1252
+        double plausible = high == 0 ? 0 : (double) (latinLetters + c1 - c1Undefined) / high;
+        double confidence = Math.min(0.95, 0.5 + plausible * 0.45);
+        if (c1 > 0 && c1Undefined == 0) {
+            return new Detection(Charset.forName("windows-1252"), 0, Method.STATISTICAL, confidence, sampled);
+        }
+        return new Detection(StandardCharsets.ISO_8859_1, 0, Method.STATISTICAL, confidence, sampled);
+    }
+
+    private static boolean continuationBytes(byte[] data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if ((data[i] & 0xC0) != 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] data, int... prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.position() == length ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private record FileIdentity(Path path, Object fileKey, long size, long lastModified) {
+    }
+
+    /**
+     * Resultado de la detección
+     */
+    public static final class Detection {
+        private final Charset charset;
+        private final int bomLength;
+        private final Method method;
+        private final double confidence;
+        private final int sampledBytes;
+
+        Detection(Charset charset, int bomLength, Method method, double confidence, int sampledBytes) {
+            this.charset = charset;
+            this.bomLength = bomLength;
+            this.method = method;
+            this.confidence = confidence;
+            this.sampledBytes = sampledBytes;
+        }
+
+        /** Codificación detectada (nombre canónico de Java) */
+        public String getCharset() {
+            return charset.name();
+        }
+
+        public Charset charset() {
+            return charset;
+        }
+
+        /** Bytes del BOM al principio del archivo (0 si no hay) */
+        public int getBomLength() {
+            return bomLength;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        /** Confianza entre 0 y 1 */
+        public double getConfidence() {
+            return confidence;
+        }
+
+        /** Bytes analizados (el archivo no se lee entero) */
+        public int getSampledBytes() {
+            return sampledBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Detection{" +
+                    "charset=" + charset.name() +
+                    ", bomLength=" + bomLength +
+                    ", method=" + method +
+                    ", confidence=" + confidence +
+                    ", sampledBytes=" + sampledBytes +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package com.dam.accesodatos.ra1.text;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Conversión de codificación de archivos grandes sin pasar por String.
+ *
+ * Tres estrategias, de más a menos barata:
+ * <ul>
+ *   <li>COPY: si ambas codificaciones son compatibles con ASCII, el prefijo ASCII del
+ *       archivo se copia tal cual con {@link FileChannel#transferTo} (en el kernel cuando
+ *       es posible). Si todo el archivo es ASCII no hay nada más que hacer.</li>
+ *   <li>PARALLEL: si el origen es de un byte por carácter (ISO-8859-1, Windows-1252...)
+ *       cualquier posición es frontera de carácter, así que el resto se parte en bloques
+ *       que se convierten en paralelo y se escriben en orden. Solo si el destino no añade
+ *       cabecera al empezar cada codificación: con UTF-16 cada bloque llevaría su BOM.</li>
+ *   <li>STREAM: bucle {@link CharsetDecoder}/{@link CharsetEncoder} sobre buffers
+ *       reutilizados, para codificaciones multibyte como UTF-8.</li>
+ * </ul>
+ * Los errores de codificación se notifican (no se sustituyen caracteres en silencio).
+ *
+ * El canal origen solo se lee con operaciones posicionales, así que puede ser un canal
+ * compartido del pool. El destino se escribe desde su posición actual.
+ */
+public final class CharsetTranscoder {
+
+    /** Tamaño de bloque de la conversión en paralelo */
+    static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final long ASCII_MASK = 0x8080808080808080L;
+    private static final Map<Charset, Boolean> ASCII_COMPATIBLE = new ConcurrentHashMap<>();
+    private static final Map<Charset, Boolean> CONCATENABLE = new ConcurrentHashMap<>();
+
+    public enum Mode { COPY, STREAM, PARALLEL }
+
+    private CharsetTranscoder() {
+    }
+
+    /**
+     * Convierte todo el contenido del canal origen y lo escribe en el destino
+     * @param source Canal origen (solo lecturas posicionales)
+     * @param from Codificación del origen
+     * @param target Canal destino, escrito desde su posición actual
+     * @param to Codificación del destino
+     * @return Estrategia usada y bytes leídos/escritos
+     * @throws CharacterCodingException si el origen no es válido o un carácter no existe en el destino
+     */
+    public static Result transcode(FileChannel source, Charset from, FileChannel target, Charset to) throws IOException {
+        return transcode(source, 0, from, target, to);
+    }
+
+    /**
+     * Igual que {@link #transcode(FileChannel, Charset, FileChannel, Charset)} pero empezando
+     * en una posición del origen (por ejemplo, para saltar el BOM)
+     * @param sourceOffset Primer byte del origen a convertir
+     */
+    public static Result transcode(FileChannel source, long sourceOffset, Charset from,
+                                   FileChannel target, Charset to) throws IOException {
+        return transcode(source, sourceOffset, from, target, to, CHUNK_SIZE);
+    }
+
+    static Result transcode(FileChannel source, long sourceOffset, Charset from, FileChannel target, Charset to,
+                            int chunkSize) throws IOException {
+        long size = source.size();
+        long offset = Math.min(sourceOffset, size);
+        long start = target.position();
+
+        long copiedEnd = offset;
+        if (from.equals(to)) {
+            copiedEnd = size;
+        } else if (isAsciiCompatible(from) && isAsciiCompatible(to)) {
+            copiedEnd = asciiPrefixEnd(source, offset, size);
+        }
+        transferFully(source, offset, copiedEnd - offset, target);
+
+        Mode mode;
+        if (copiedEnd == size) {
+            mode = Mode.COPY;
+        } else if (isSingleByte(from) && isConcatenable(to) && size - copiedEnd > chunkSize) {
+            mode = Mode.PARALLEL;
+            transcodeParallel(source, copiedEnd, size, from, target, to, chunkSize);
+        } else {
+            mode = Mode.STREAM;
+            transcodeStream(source, copiedEnd, from, target, to);
+        }
+        return new Result(mode, from, to, size - offset, target.position() - start, copiedEnd - offset);
+    }
+
+    /**
+     * Una codificación es compatible con ASCII si los bytes 0-127 representan los mismos
+     * caracteres y no hay estados de desplazamiento (se excluyen ISO-2022, UTF-16, UTF-32...)
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        return ASCII_COMPATIBLE.computeIfAbsent(charset, cs -> {
+            if (!cs.canEncode() || cs.name().contains("2022")) {
+                return false;
+            }
+            byte[] ascii = new byte[128];
+            for (int i = 0; i < ascii.length; i++) {
+                ascii[i] = (byte) i;
+            }
+            String decoded = new String(ascii, cs);
+            if (decoded.length() != ascii.length) {
+                return false;
+            }
+            for (int i = 0; i < ascii.length; i++) {
+                if (decoded.charAt(i) != i) {
+                    return false;
+                }
+            }
+            return Arrays.equals(decoded.getBytes(cs), ascii);
+        });
+    }
+
+    /**
+     * Codificación de un byte por carácter: toda posición del archivo es frontera de carácter
+     */
+    static boolean isSingleByte(Charset charset) {
+        return charset.canEncode()
+                && charset.newDecoder().maxCharsPerByte() == 1.0f
+                && charset.newEncoder().maxBytesPerChar() == 1.0f;
+    }
+
+    /**
+     * Codificar dos textos por separado y concatenar da lo mismo que codificarlos juntos:
+     * el encoder no escribe cabecera (BOM de UTF-16...) al empezar, así que los bloques
+     * convertidos en paralelo pueden escribirse uno detrás de otro
+     */
+    static boolean isConcatenable(Charset charset) {
+        return CONCATENABLE.computeIfAbsent(charset, cs -> {
+            if (!cs.canEncode()) {
+                return false;
+            }
+            try {
+                ByteBuffer whole = newEncoder(cs).encode(CharBuffer.wrap("ab"));
+                ByteBuffer first = newEncoder(cs).encode(CharBuffer.wrap("a"));
+                ByteBuffer second = newEncoder(cs).encode(CharBuffer.wrap("b"));
+                if (whole.remaining() != first.remaining() + second.remaining()) {
+                    return false;
+                }
+                return whole.slice(0, first.remaining()).equals(first)
+                        && whole.slice(first.remaining(), second.remaining()).equals(second);
+            } catch (CharacterCodingException e) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Posición del primer byte no ASCII a partir de offset (comprueba 8 bytes a la vez)
+     */
+    static long asciiPrefixEnd(FileChannel source, long offset, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = offset;
+        while (position < size) {
+            buffer.clear();
+            int read = source.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            buffer.flip();
+            int i = 0;
+            while (i + Long.BYTES <= read && (buffer.getLong(i) & ASCII_MASK) == 0) {
+                i += Long.BYTES;
+            }
+            while (i < read && buffer.get(i) >= 0) {
+                i++;
+            }
+            position += i;
+            if (i < read) {
+                break;
+            }
+        }
+        return position;
+    }
+
+    private static void transferFully(FileChannel source, long position, long count, FileChannel target) throws IOException {
+        long done = 0;
+        while (done < count) {
+            long transferred = source.transferTo(position + done, count - done, target);
+            if (transferred <= 0) {
+                throw new IOException("transferTo no avanzó en la posición " + (position + done));
+            }
+            done += transferred;
+        }
+    }
+
+    private static void transcodeStream(FileChannel source, long offset, Charset from,
+                                        FileChannel target, Charset to) throws IOException {
+        CharsetDecoder decoder = newDecoder(from);
+        CharsetEncoder encoder = newEncoder(to);
+        ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer out = ByteBuffer.allocateDirect((int) Math.ceil(BUFFER_SIZE * encoder.maxBytesPerChar()));
+
+        long position = offset;
+        boolean endOfInput = false;
+        while (true) {
+            if (!endOfInput) {
+                int read = source.read(in, position);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    position += read;
+                }
+            }
+            in.flip();
+            CoderResult result = decoder.decode(in, chars, endOfInput);
+            if (result.isError()) {
+                throw codingError(result, "Secuencia inválida en " + from.name()
+                        + " cerca del byte " + (position - in.remaining()));
+            }
+            in.compact();
+
+            chars.flip();
+            encode(encoder, chars, out, target, false);
+            chars.compact();
+
+            if (endOfInput && result.isUnderflow()) {
+                break;
+            }
+        }
+
+        CoderResult flush = decoder.flush(chars);
+        if (flush.isError()) {
+            throw codingError(flush, "Secuencia inválida al final del archivo en " + from.name());
+        }
+        chars.flip();
+        encode(encoder, chars, out, target, true);
+        while (encoder.flush(out).isOverflow()) {
+            drain(out, target);
+        }
+        drain(out, target);
+    }
+
+    private static void encode(CharsetEncoder encoder, CharBuffer chars, ByteBuffer out,
+                               FileChannel target, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, out, endOfInput);
+            if (result.isError()) {
+                throw codingError(result, "Carácter no representable en " + encoder.charset().name());
+            }
+            if (result.isUnderflow()) {
+                return;
+            }
+            drain(out, target);
+        }
+    }
+
+    private static void drain(ByteBuffer out, FileChannel target) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            target.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Conversión por bloques en paralelo. Como mucho hay tantos bloques en vuelo como
+     * hilos del pool común (más uno), así que la memoria no depende del tamaño del archivo.
+     */
+    private static void transcodeParallel(FileChannel source, long offset, long size, Charset from,
+                                          FileChannel target, Charset to, int chunkSize) throws IOException {
+        int window = ForkJoinPool.getCommonPoolParallelism() + 1;
+        Deque<CompletableFuture<ByteBuffer>> inFlight = new ArrayDeque<>();
+        long next = offset;
+
+        try {
+            while (next < size || !inFlight.isEmpty()) {
+                while (next < size && inFlight.size() < window) {
+                    long chunkStart = next;
+                    int chunkLength = (int) Math.min(chunkSize, size - next);
+                    inFlight.add(CompletableFuture.supplyAsync(
+                            () -> transcodeChunk(source, chunkStart, chunkLength, from, to)));
+                    next += chunkLength;
+                }
+                ByteBuffer encoded = inFlight.poll().join();
+                while (encoded.hasRemaining()) {
+                    target.write(encoded);
+                }
+            }
+        } catch (CompletionException e) {
+            inFlight.forEach(pending -> pending.cancel(false));
+            if (e.getCause() instanceof ChunkFailure failure) {
+                throw failure.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static ByteBuffer transcodeChunk(FileChannel source, long start, int length, Charset from, Charset to) {
+        try {
+            ByteBuffer in = ByteBuffer.allocate(length);
+            while (in.hasRemaining()) {
+                if (source.read(in, start + in.position()) < 0) {
+                    break;
+                }
+            }
+            in.flip();
+            CharBuffer chars;
+            try {
+                chars = newDecoder(from).decode(in);
+            } catch (CharacterCodingException e) {
+                throw new CodingFailure("Byte inválido en " + from.name() + " en el bloque que empieza en " + start);
+            }
+            try {
+                return newEncoder(to).encode(chars);
+            } catch (CharacterCodingException e) {
+                throw new CodingFailure("Carácter no representable en " + to.name()
+                        + " en el bloque que empieza en " + start);
+            }
+        } catch (IOException e) {
+            throw new ChunkFailure(e);
+        }
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    private static CharsetEncoder newEncoder(Charset charset) {
+        return charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    private static CharacterCodingException codingError(CoderResult result, String message) {
+        return new CodingFailure(message + " (longitud " + result.length() + ")");
+    }
+
+    /** CharacterCodingException con la posición del error en el mensaje */
+    private static final class CodingFailure extends CharacterCodingException {
+        private final String message;
+
+        CodingFailure(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /** Transporta la IOException de un bloque a través del CompletableFuture */
+    private static final class ChunkFailure extends RuntimeException {
+        ChunkFailure(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /**
+     * Resultado de una conversión
+     */
+    public static final class Result {
+        private final Mode mode;
+        private final Charset sourceCharset;
+        private final Charset targetCharset;
+        private final long bytesRead;
+        private final long bytesWritten;
+        private final long bytesCopied;
+
+        Result(Mode mode, Charset sourceCharset, Charset targetCharset,
+               long bytesRead, long bytesWritten, long bytesCopied) {
+            this.mode = mode;
+            this.sourceCharset = sourceCharset;
+            this.targetCharset = targetCharset;
+            this.bytesRead = bytesRead;
+            this.bytesWritten = bytesWritten;
+            this.bytesCopied = bytesCopied;
+        }
+
+        /** Estrategia principal usada */
+        public Mode getMode() {
+            return mode;
+        }
+
+        public String getSourceCharset() {
+            return sourceCharset.name();
+        }
+
+        public String getTargetCharset() {
+            return targetCharset.name();
+        }
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        /** Bytes copiados sin decodificar (prefijo ASCII o archivo completo) */
+        public long getBytesCopied() {
+            return bytesCopied;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "mode=" + mode +
+                    ", sourceCharset=" + sourceCharset.name() +
+                    ", targetCharset=" + targetCharset.name() +
+                    ", bytesRead=" + bytesRead +
+                    ", bytesWritten=" + bytesWritten +
+                    ", bytesCopied=" + bytesCopied +
+                    '}';
+        }
+    }
+}
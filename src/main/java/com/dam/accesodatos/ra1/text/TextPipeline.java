@@ -0,0 +1,358 @@
+package com.dam.accesodatos.ra1.text;
+
+import com.dam.accesodatos.model.TextStageDto;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Pipeline de transformación de texto línea a línea en memoria constante.
+ *
+ * Lector → etapas → escritor, con buffers acotados: cada línea se lee en un
+ * StringBuilder reutilizado y las etapas escriben en un segundo buffer que se
+ * intercambia con el primero, sin crear un String por línea ni por etapa.
+ *
+ * Las etapas de carácter consecutivas (trim, collapse_whitespace, lowercase,
+ * uppercase, capitalize) se fusionan en un único recorrido de la línea. regex_replace
+ * y dedupe cortan la fusión porque necesitan ver la línea completa.
+ *
+ * dedupe elimina líneas repetidas consecutivas (como uniq): deduplicar todo el archivo
+ * necesitaría memoria proporcional al número de líneas distintas.
+ */
+public final class TextPipeline {
+
+    /** Longitud máxima de una línea: acota la memoria del pipeline */
+    static final int MAX_LINE_LENGTH = 1 << 20;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<StageSpec> specs;
+
+    private TextPipeline(List<StageSpec> specs) {
+        this.specs = specs;
+    }
+
+    /**
+     * Valida y compila las etapas
+     * @param stages Etapas en orden de aplicación
+     * @return Pipeline reutilizable (cada ejecución crea su propio estado)
+     * @throws IllegalArgumentException si una etapa no existe o su expresión regular no es válida
+     */
+    public static TextPipeline compile(List<TextStageDto> stages) {
+        List<StageSpec> specs = new ArrayList<>();
+        FusedSpec fused = null;
+        for (TextStageDto stage : stages) {
+            String type = stage.getType() == null ? "" : stage.getType().trim().toLowerCase(Locale.ROOT);
+            switch (type) {
+                case "trim", "collapse_whitespace", "lowercase", "uppercase", "capitalize" -> {
+                    if (fused == null) {
+                        fused = new FusedSpec();
+                        specs.add(fused);
+                    }
+                    fused.add(type);
+                }
+                case "regex_replace" -> {
+                    fused = null;
+                    if (stage.getPattern() == null || stage.getPattern().isEmpty()) {
+                        throw new IllegalArgumentException("regex_replace requiere 'pattern'");
+                    }
+                    try {
+                        Pattern pattern = Pattern.compile(stage.getPattern());
+                        String replacement = stage.getReplacement() == null ? "" : stage.getReplacement();
+                        specs.add(() -> new RegexStage(pattern, replacement));
+                    } catch (PatternSyntaxException e) {
+                        throw new IllegalArgumentException("Expresión regular inválida: " + e.getDescription(), e);
+                    }
+                }
+                case "dedupe" -> {
+                    fused = null;
+                    specs.add(DedupeStage::new);
+                }
+                default -> throw new IllegalArgumentException("Etapa no soportada: " + stage.getType()
+                        + " (use trim, collapse_whitespace, lowercase, uppercase, capitalize, regex_replace o dedupe)");
+            }
+        }
+        return new TextPipeline(specs);
+    }
+
+    /**
+     * Procesa todo el lector y escribe el resultado (separador de línea '\n').
+     * No cierra el lector ni el escritor.
+     * @return Líneas leídas y escritas
+     */
+    public Stats run(Reader in, Writer out) throws IOException {
+        List<Stage> stages = new ArrayList<>(specs.size());
+        for (StageSpec spec : specs) {
+            stages.add(spec.create());
+        }
+
+        LineReader reader = new LineReader(in);
+        StringBuilder line = new StringBuilder(256);
+        StringBuilder spare = new StringBuilder(256);
+        char[] writeBuffer = new char[256];
+        long linesRead = 0;
+        long linesWritten = 0;
+
+        while (reader.readLine(line)) {
+            linesRead++;
+            StringBuilder current = line;
+            StringBuilder other = spare;
+            for (Stage stage : stages) {
+                StringBuilder result = stage.apply(current, other);
+                if (result == null) {
+                    current = null;
+                    break;
+                }
+                if (result != current) {
+                    other = current;
+                    current = result;
+                }
+            }
+            if (current == null) {
+                continue;
+            }
+
+            int length = current.length();
+            if (writeBuffer.length < length) {
+                writeBuffer = new char[Math.max(length, writeBuffer.length * 2)];
+            }
+            current.getChars(0, length, writeBuffer, 0);
+            out.write(writeBuffer, 0, length);
+            out.write('\n');
+            linesWritten++;
+
+            // Los buffers se reutilizan en la siguiente línea
+            line = current;
+            spare = other;
+        }
+        out.flush();
+        return new Stats(linesRead, linesWritten);
+    }
+
+    @FunctionalInterface
+    private interface StageSpec {
+        Stage create();
+    }
+
+    private interface Stage {
+        /**
+         * @param line Línea actual
+         * @param spare Buffer libre donde la etapa puede escribir su resultado
+         * @return Buffer con el resultado (line o spare), o null para descartar la línea
+         */
+        StringBuilder apply(StringBuilder line, StringBuilder spare);
+    }
+
+    /**
+     * Etapas de carácter fusionadas. Los espacios se normalizan primero; entre lowercase
+     * y uppercase gana la última, y capitalize solo tiene efecto si va después de ambas.
+     */
+    private static final class FusedSpec implements StageSpec {
+        private boolean trim;
+        private boolean collapse;
+        private int caseMode;
+        private boolean capitalize;
+
+        void add(String type) {
+            switch (type) {
+                case "trim" -> trim = true;
+                case "collapse_whitespace" -> collapse = true;
+                case "lowercase" -> {
+                    caseMode = -1;
+                    capitalize = false;
+                }
+                case "uppercase" -> {
+                    caseMode = 1;
+                    capitalize = false;
+                }
+                default -> capitalize = true;
+            }
+        }
+
+        @Override
+        public Stage create() {
+            boolean trim = this.trim;
+            boolean collapse = this.collapse;
+            int caseMode = this.caseMode;
+            boolean capitalize = this.capitalize;
+            return (line, out) -> {
+                out.setLength(0);
+                boolean capitalizeNext = capitalize;
+                int whitespaceStart = -1;
+                int length = line.length();
+                for (int i = 0; i < length; i++) {
+                    char c = line.charAt(i);
+                    if (Character.isWhitespace(c)) {
+                        if (whitespaceStart < 0) {
+                            whitespaceStart = i;
+                        }
+                        continue;
+                    }
+                    if (whitespaceStart >= 0) {
+                        appendWhitespace(line, whitespaceStart, i, out, trim && out.length() == 0, collapse);
+                        whitespaceStart = -1;
+                    }
+                    if (caseMode < 0) {
+                        c = Character.toLowerCase(c);
+                    } else if (caseMode > 0) {
+                        c = Character.toUpperCase(c);
+                    }
+                    if (capitalizeNext && Character.isLetter(c)) {
+                        c = Character.toUpperCase(c);
+                        capitalizeNext = false;
+                    }
+                    out.append(c);
+                }
+                if (whitespaceStart >= 0) {
+                    appendWhitespace(line, whitespaceStart, length, out, trim, collapse);
+                }
+                return out;
+            };
+        }
+
+        private static void appendWhitespace(StringBuilder line, int start, int end, StringBuilder out,
+                                             boolean drop, boolean collapse) {
+            if (drop) {
+                return;
+            }
+            if (collapse) {
+                out.append(' ');
+            } else {
+                out.append(line, start, end);
+            }
+        }
+    }
+
+    private static final class RegexStage implements Stage {
+        private final Matcher matcher;
+        private final String replacement;
+
+        RegexStage(Pattern pattern, String replacement) {
+            this.matcher = pattern.matcher("");
+            this.replacement = replacement;
+        }
+
+        @Override
+        public StringBuilder apply(StringBuilder line, StringBuilder spare) {
+            matcher.reset(line);
+            if (!matcher.find()) {
+                return line;
+            }
+            spare.setLength(0);
+            do {
+                matcher.appendReplacement(spare, replacement);
+            } while (matcher.find());
+            matcher.appendTail(spare);
+            return spare;
+        }
+    }
+
+    private static final class DedupeStage implements Stage {
+        private final StringBuilder previous = new StringBuilder();
+        private boolean first = true;
+
+        @Override
+        public StringBuilder apply(StringBuilder line, StringBuilder spare) {
+            if (!first && CharSequence.compare(previous, line) == 0) {
+                return null;
+            }
+            first = false;
+            previous.setLength(0);
+            previous.append(line);
+            return line;
+        }
+    }
+
+    /**
+     * Lector de líneas sobre un buffer de caracteres fijo. Acepta \n, \r\n y \r.
+     */
+    private static final class LineReader {
+        private final Reader reader;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private boolean skipLineFeed;
+
+        LineReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        boolean readLine(StringBuilder line) throws IOException {
+            line.setLength(0);
+            boolean readAny = false;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return readAny;
+                    }
+                }
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (buffer[position] == '\n') {
+                        position++;
+                        continue;
+                    }
+                }
+                readAny = true;
+                int start = position;
+                while (position < limit) {
+                    char c = buffer[position];
+                    if (c == '\n' || c == '\r') {
+                        append(line, start, position);
+                        position++;
+                        skipLineFeed = c == '\r';
+                        return true;
+                    }
+                    position++;
+                }
+                append(line, start, position);
+            }
+        }
+
+        private void append(StringBuilder line, int start, int end) throws IOException {
+            if (line.length() + (end - start) > MAX_LINE_LENGTH) {
+                throw new IOException("Línea de más de " + MAX_LINE_LENGTH + " caracteres");
+            }
+            line.append(buffer, start, end - start);
+        }
+    }
+
+    /**
+     * Líneas leídas y escritas por una ejecución
+     */
+    public static final class Stats {
+        private final long linesRead;
+        private final long linesWritten;
+
+        Stats(long linesRead, long linesWritten) {
+            this.linesRead = linesRead;
+            this.linesWritten = linesWritten;
+        }
+
+        public long getLinesRead() {
+            return linesRead;
+        }
+
+        public long getLinesWritten() {
+            return linesWritten;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "linesRead=" + linesRead +
+                    ", linesWritten=" + linesWritten +
+                    '}';
+        }
+    }
+}
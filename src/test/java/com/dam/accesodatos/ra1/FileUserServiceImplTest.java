@@ -0,0 +1,131 @@
+package com.dam.accesodatos.ra1;
+
+import com.dam.accesodatos.config.FileServiceConfig;
+import com.dam.accesodatos.model.FileRangeDto;
+import com.dam.accesodatos.model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de las herramientas ya implementadas de FileUserServiceImpl, a través del servicio
+ * completo (los de FileUserServiceTest cubren los métodos que completan los estudiantes)
+ */
+class FileUserServiceImplTest {
+
+    private static final int SLOT = 8;
+
+    @TempDir
+    Path tempDir;
+
+    private FileUserServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        FileServiceConfig config = new FileServiceConfig();
+        ReflectionTestUtils.setField(config, "basePath", tempDir.toString());
+        ReflectionTestUtils.setField(config, "tempPath", tempDir.resolve("temp").toString());
+        ReflectionTestUtils.setField(config, "exportPath", tempDir.resolve("exports").toString());
+        ReflectionTestUtils.setField(config, "casPath", tempDir.resolve(".cas").toString());
+        ReflectionTestUtils.setField(config, "walEnabled", true);
+        ReflectionTestUtils.setField(config, "walPath", tempDir.resolve("wal/random-access.wal").toString());
+        service = new FileUserServiceImpl(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Con WAL, los lectores concurrentes nunca ven una ranura a medias y cada escritor lee lo confirmado")
+    void testRandomAccessWriteDurable_WalWithConcurrentReaders() throws Exception {
+        // Given - una ranura de 8 bytes por escritor
+        int writers = 4;
+        int rounds = 50;
+        Path file = tempDir.resolve("ranuras.txt");
+        Files.writeString(file, "0".repeat(SLOT * writers));
+        List<FileRangeDto> allSlots = new ArrayList<>();
+        for (int slot = 0; slot < writers; slot++) {
+            allSlots.add(new FileRangeDto((long) slot * SLOT, SLOT));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            // When
+            List<Future<?>> writerTasks = new ArrayList<>();
+            for (int slot = 0; slot < writers; slot++) {
+                long position = (long) slot * SLOT;
+                writerTasks.add(executor.submit(() -> {
+                    for (int round = 1; round <= rounds; round++) {
+                        String value = String.valueOf(round % 10).repeat(SLOT);
+                        assertTrue(service.randomAccessWriteDurable(file.toString(), position, value));
+                        List<String> own = service.randomAccessReadBatch(file.toString(),
+                                List.of(new FileRangeDto(position, SLOT)));
+                        assertEquals(value, own.get(0), "Cada escritor debe leer su escritura confirmada");
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> readerTasks = new ArrayList<>();
+            for (int reader = 0; reader < 2; reader++) {
+                readerTasks.add(executor.submit(() -> {
+                    while (writing.get()) {
+                        for (String fragment : service.randomAccessReadBatch(file.toString(), allSlots)) {
+                            assertTrue(fragment.matches("(\\d)\\1{7}"), "Ranura a medias: " + fragment);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : writerTasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<?> task : readerTasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+        }
+
+        // Then
+        String last = String.valueOf(rounds % 10).repeat(SLOT);
+        assertEquals(last.repeat(writers), Files.readString(file));
+    }
+
+    @Test
+    @DisplayName("Con WAL, sustituir un archivo aplica antes las escrituras confirmadas y no las deja caer sobre el nuevo")
+    void testExportUsers_WalWritesLandBeforeReplacement() throws Exception {
+        // Given
+        List<User> users = List.of(
+                new User(1L, "Juan Pérez", "juan@example.com", "IT", "Developer"),
+                new User(2L, "María García", "maria@example.com", "HR", "Manager"));
+        Path target = tempDir.resolve("usuarios.csv");
+        Path expected = tempDir.resolve("esperado.csv");
+        assertTrue(service.exportUsers(users, expected.toString(), "csv", null));
+        Files.writeString(target, "contenido anterior");
+
+        // When - escritura confirmada seguida de la sustitución del archivo completo
+        assertTrue(service.randomAccessWriteDurable(target.toString(), 0, "ZZZZ"));
+        assertTrue(service.exportUsers(users, target.toString(), "csv", null));
+        service.randomAccessReadBatch(target.toString(), List.of(new FileRangeDto(0, 1))); // Espera al aplicador
+
+        // Then
+        assertEquals(Files.readString(expected), Files.readString(target));
+    }
+}
@@ -0,0 +1,126 @@
+package com.dam.accesodatos.ra1.fs;
+
+import com.dam.accesodatos.model.FileEntryDto;
+import com.dam.accesodatos.model.FileListingPageDto;
+import com.dam.accesodatos.model.FileListingQueryDto;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del listado paginado usado por list_files_page
+ */
+class DirectoryListerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final DirectoryLister lister = new DirectoryLister(Duration.ofSeconds(30), 8, clock::get);
+
+    @Test
+    @DisplayName("El token de continuación recorre todas las páginas sin repetir ni saltar archivos")
+    void testList_PaginatesWithToken() throws IOException {
+        // Given
+        for (int i = 0; i < 25; i++) {
+            Files.writeString(tempDir.resolve(String.format("user_%02d.csv", i)), "id\n");
+        }
+        Files.createDirectory(tempDir.resolve("subdir"));
+
+        // When
+        List<String> names = new ArrayList<>();
+        FileListingQueryDto query = new FileListingQueryDto(tempDir.toString());
+        query.setPageSize(10);
+        int pages = 0;
+        String token;
+        do {
+            FileListingPageDto page = lister.list(query);
+            page.getEntries().forEach(entry -> names.add(entry.getName()));
+            token = page.getNextToken();
+            query.setContinuationToken(token);
+            pages++;
+        } while (token != null);
+
+        // Then - sin directorios, en orden y con la última página sin token
+        assertEquals(3, pages);
+        assertEquals(25, names.size());
+        assertEquals("user_00.csv", names.get(0));
+        assertEquals("user_24.csv", names.get(24));
+    }
+
+    @Test
+    @DisplayName("Glob, extensiones, tamaño y fecha se combinan")
+    void testList_Filters() throws IOException {
+        // Given
+        Files.writeString(tempDir.resolve("users.csv"), "x".repeat(100));
+        Files.writeString(tempDir.resolve("users.JSON"), "x".repeat(10));
+        Files.writeString(tempDir.resolve("backup.csv"), "x".repeat(100));
+        Files.writeString(tempDir.resolve("notes.txt"), "x".repeat(100));
+        Path old = Files.writeString(tempDir.resolve("users_old.csv"), "x".repeat(100));
+        Files.setLastModifiedTime(old, FileTime.fromMillis(1_000_000L));
+
+        FileListingQueryDto query = new FileListingQueryDto(tempDir.toString());
+        query.setGlob("users*");
+        query.setExtensions(List.of(".csv", "json"));
+        query.setMinSize(50L);
+        query.setModifiedAfter(2_000_000L);
+
+        // When
+        FileListingPageDto page = lister.list(query);
+
+        // Then
+        assertEquals(List.of("users.csv"), page.getEntries().stream().map(FileEntryDto::getName).toList());
+        assertNull(page.getNextToken());
+    }
+
+    @Test
+    @DisplayName("La instantánea se reutiliza hasta que caduca o se invalida")
+    void testList_SnapshotCache() throws IOException {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("a.csv"), "1");
+        FileListingQueryDto query = new FileListingQueryDto(tempDir.toString());
+
+        // When
+        FileListingPageDto first = lister.list(query);
+        FileListingPageDto second = lister.list(query);
+        Files.writeString(file, "12345"); // Cambia el archivo pero no el directorio
+        FileListingPageDto cached = lister.list(query);
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        FileListingPageDto expired = lister.list(query);
+        lister.invalidate(tempDir);
+        FileListingPageDto invalidated = lister.list(query);
+
+        // Then
+        assertFalse(first.isFromCache());
+        assertTrue(second.isFromCache());
+        assertTrue(cached.isFromCache());
+        assertEquals(1, cached.getEntries().get(0).getSize());
+        assertFalse(expired.isFromCache());
+        assertEquals(5, expired.getEntries().get(0).getSize());
+        assertFalse(invalidated.isFromCache());
+    }
+
+    @Test
+    @DisplayName("Token inválido o tamaño de página fuera de rango lanzan IllegalArgumentException")
+    void testList_InvalidArguments() {
+        // Given
+        FileListingQueryDto badToken = new FileListingQueryDto(tempDir.toString());
+        badToken.setContinuationToken("%%%");
+        FileListingQueryDto badSize = new FileListingQueryDto(tempDir.toString());
+        badSize.setPageSize(DirectoryLister.MAX_PAGE_SIZE + 1);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> lister.list(badToken));
+        assertThrows(IllegalArgumentException.class, () -> lister.list(badSize));
+    }
+}
@@ -0,0 +1,110 @@
+package com.dam.accesodatos.ra1.fs;
+
+import com.dam.accesodatos.model.DirectoryScanDto;
+import com.dam.accesodatos.model.FileEntryDto;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del recorrido paralelo usado por scan_directory_tree
+ */
+class DirectoryScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ForkJoinPool pool;
+    private DirectoryScanner scanner;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        scanner = new DirectoryScanner(pool, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Los totales de todos los subdirectorios se agregan por formato")
+    void testScan_AggregatesTree() throws IOException {
+        // Given - 3 niveles con 10 CSV por directorio y algún JSON, XML y otro
+        long expectedBytes = 0;
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 3; b++) {
+                Path dir = Files.createDirectories(tempDir.resolve("a" + a).resolve("b" + b));
+                for (int i = 0; i < 10; i++) {
+                    Files.writeString(dir.resolve("users_" + i + ".csv"), "x".repeat(i));
+                    expectedBytes += i;
+                }
+            }
+        }
+        Files.writeString(tempDir.resolve("users.JSON"), "[]");
+        Files.writeString(tempDir.resolve("a0").resolve("users.xml"), "<users/>");
+        Files.writeString(tempDir.resolve("README"), "");
+        expectedBytes += 2 + 8;
+
+        // When
+        DirectoryScanDto scan = scanner.scan(tempDir);
+
+        // Then - raíz + 4 + 12 directorios
+        assertEquals(123, scan.getTotalFiles());
+        assertEquals(17, scan.getTotalDirectories());
+        assertEquals(expectedBytes, scan.getTotalBytes());
+        assertEquals(120, scan.getFilesByFormat().get("csv"));
+        assertEquals(1, scan.getFilesByFormat().get("json"));
+        assertEquals(1, scan.getFilesByFormat().get("xml"));
+        assertEquals(1, scan.getFilesByFormat().get("other"));
+        assertEquals(13, scan.getSizeHistogram().get("0 B"));
+        assertEquals(110, scan.getSizeHistogram().get("< 1 KB"));
+        assertEquals(0, scan.getErrors());
+    }
+
+    @Test
+    @DisplayName("Ranking de archivos más grandes y archivos más antiguo y más reciente")
+    void testScan_Rankings() throws IOException {
+        // Given
+        Path sub = Files.createDirectories(tempDir.resolve("sub").resolve("deep"));
+        for (int i = 1; i <= 6; i++) {
+            Path dir = i % 2 == 0 ? sub : tempDir;
+            Path file = Files.writeString(dir.resolve("f" + i + ".csv"), "x".repeat(i * 100));
+            Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000L * i));
+        }
+
+        // When
+        DirectoryScanDto scan = scanner.scan(tempDir);
+
+        // Then
+        assertEquals(3, scan.getLargestFiles().size());
+        assertEquals("f6.csv", scan.getLargestFiles().get(0).getName());
+        assertEquals("f5.csv", scan.getLargestFiles().get(1).getName());
+        assertEquals("f4.csv", scan.getLargestFiles().get(2).getName());
+        FileEntryDto oldest = scan.getOldestFile();
+        assertEquals("f1.csv", oldest.getName());
+        assertEquals(1_000_000L, oldest.getLastModified());
+        assertEquals("f6.csv", scan.getNewestFile().getName());
+    }
+
+    @Test
+    @DisplayName("Límites del histograma y detección de formato sin distinguir mayúsculas")
+    void testBucketAndFormat() {
+        // When & Then
+        assertEquals(0, DirectoryScanner.bucketIndex(0));
+        assertEquals(1, DirectoryScanner.bucketIndex(1023));
+        assertEquals(2, DirectoryScanner.bucketIndex(1024));
+        assertEquals(6, DirectoryScanner.bucketIndex(1L << 40));
+        assertEquals(0, DirectoryScanner.formatIndex(Path.of("a.CSV")));
+        assertEquals(3, DirectoryScanner.formatIndex(Path.of("a.csvx")));
+        assertEquals(3, DirectoryScanner.formatIndex(Path.of("csv")));
+    }
+}
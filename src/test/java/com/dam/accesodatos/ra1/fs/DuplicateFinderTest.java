@@ -0,0 +1,100 @@
+package com.dam.accesodatos.ra1.fs;
+
+import com.dam.accesodatos.model.DuplicateGroupDto;
+import com.dam.accesodatos.model.DuplicateReportDto;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la búsqueda de duplicados usada por find_duplicate_files
+ */
+class DuplicateFinderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ForkJoinPool pool;
+    private DuplicateFinder finder;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        finder = new DuplicateFinder(pool, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Agrupa copias idénticas y descarta las que solo coinciden en tamaño o en los extremos")
+    void testFind_Groups() throws IOException {
+        // Given
+        byte[] content = bytes(20_000, 1);
+        byte[] sameEnds = content.clone();
+        sameEnds[10_000] ^= 1; // Mismo tamaño y mismos bloques inicial y final
+        Path sub = Files.createDirectories(tempDir.resolve("exports"));
+        Files.write(tempDir.resolve("users.csv"), content);
+        Files.write(sub.resolve("users_copy.csv"), content);
+        Files.write(sub.resolve("users_edited.csv"), sameEnds);
+        Files.write(tempDir.resolve("other.csv"), bytes(20_000, 7));
+        Files.writeString(tempDir.resolve("small_a.json"), "[]");
+        Files.writeString(sub.resolve("small_b.json"), "[]");
+        Files.writeString(tempDir.resolve("empty1.txt"), "");
+        Files.writeString(tempDir.resolve("empty2.txt"), "");
+
+        // When
+        DuplicateReportDto report = finder.find(tempDir);
+
+        // Then
+        assertEquals(6, report.getFilesScanned());
+        assertEquals(2, report.getGroups().size());
+        DuplicateGroupDto large = report.getGroups().get(0);
+        assertEquals(20_000, large.getSize());
+        assertEquals(2, large.getPaths().size());
+        assertTrue(large.getPaths().get(0).endsWith("users_copy.csv"));
+        assertEquals(2, report.getGroups().get(1).getPaths().size());
+        assertEquals(20_000 + 2, report.getWastedBytes());
+        // 4 archivos grandes con hash parcial; 3 grandes + 2 pequeños con hash completo
+        assertEquals(4, report.getPartialHashes());
+        assertEquals(5, report.getFullHashes());
+    }
+
+    @Test
+    @DisplayName("La segunda búsqueda reutiliza los hashes y detecta archivos modificados")
+    void testFind_Cache() throws IOException {
+        // Given
+        Files.write(tempDir.resolve("a.csv"), bytes(10_000, 3));
+        Path b = Files.write(tempDir.resolve("b.csv"), bytes(10_000, 3));
+        DuplicateReportDto first = finder.find(tempDir);
+
+        // When
+        DuplicateReportDto second = finder.find(tempDir);
+        Files.write(b, bytes(10_000, 4));
+        Files.setLastModifiedTime(b, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+        DuplicateReportDto third = finder.find(tempDir);
+
+        // Then
+        assertEquals(0, first.getCacheHits());
+        assertEquals(1, first.getGroups().size());
+        assertEquals(4, second.getCacheHits());
+        assertEquals(1, second.getGroups().size());
+        assertEquals(0, third.getGroups().size());
+    }
+
+    private static byte[] bytes(int size, int seed) {
+        byte[] data = new byte[size];
+        Arrays.fill(data, (byte) seed);
+        return data;
+    }
+}
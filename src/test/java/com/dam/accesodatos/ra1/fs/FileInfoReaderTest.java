@@ -0,0 +1,109 @@
+package com.dam.accesodatos.ra1.fs;
+
+import com.dam.accesodatos.model.FileInfoDto;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la lectura de atributos en lote usada por get_file_info_batch
+ */
+class FileInfoReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ForkJoinPool pool;
+    private FileInfoReader reader;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        reader = new FileInfoReader(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("El lote conserva el orden de entrada y resuelve cada ruta")
+    void testRead_PreservesOrder() throws IOException {
+        // Given - suficientes rutas para repartirse entre varias tareas
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Path file = Files.writeString(tempDir.resolve("users_" + i + ".csv"), "x".repeat(i));
+            paths.add(file.toString());
+        }
+
+        // When
+        List<FileInfoDto> infos = reader.read(paths);
+
+        // Then
+        assertEquals(100, infos.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(paths.get(i), infos.get(i).getPath());
+            assertTrue(infos.get(i).isRegularFile());
+            assertEquals(i, infos.get(i).getSize());
+        }
+    }
+
+    @Test
+    @DisplayName("Tipo, fecha y permisos salen de una única lectura de atributos")
+    void testReadOne_Attributes() throws IOException {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("users.json"), "[]");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_700_000_000_000L));
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (posix) {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r-----"));
+        }
+
+        // When
+        FileInfoDto fileInfo = FileInfoReader.readOne(file.toString());
+        FileInfoDto dirInfo = FileInfoReader.readOne(tempDir.toString());
+
+        // Then
+        assertTrue(fileInfo.isExists());
+        assertTrue(fileInfo.isRegularFile());
+        assertEquals(2, fileInfo.getSize());
+        assertEquals(1_700_000_000_000L, fileInfo.getLastModified());
+        if (posix) {
+            assertEquals("rw-r-----", fileInfo.getPermissions());
+            assertNotNull(fileInfo.getOwner());
+        }
+        assertTrue(dirInfo.isDirectory());
+        assertFalse(dirInfo.isRegularFile());
+    }
+
+    @Test
+    @DisplayName("Rutas inexistentes o vacías no interrumpen el lote")
+    void testRead_MissingAndInvalid() {
+        // Given
+        List<String> paths = new ArrayList<>();
+        paths.add(tempDir.resolve("missing.csv").toString());
+        paths.add("");
+        paths.add(null);
+
+        // When
+        List<FileInfoDto> infos = reader.read(paths);
+
+        // Then
+        assertFalse(infos.get(0).isExists());
+        assertNull(infos.get(0).getError());
+        assertNotNull(infos.get(1).getError());
+        assertNotNull(infos.get(2).getError());
+    }
+}
@@ -0,0 +1,142 @@
+package com.dam.accesodatos.ra1.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la escritura atómica (temporal + force + renombrado) usada por export_users
+ */
+class AtomicFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("commit sustituye el destino y no deja temporales")
+    void testCommit_ReplacesTargetAndRemovesTemp() throws IOException {
+        // Given
+        Path temp = tempDir.resolve("temp");
+        Path target = tempDir.resolve("exports/users.csv");
+
+        // When
+        try (AtomicFileWriter file = AtomicFileWriter.create(target, temp)) {
+            file.stream().write("nuevo".getBytes(StandardCharsets.UTF_8));
+            file.commit();
+        }
+
+        // Then
+        assertEquals("nuevo", Files.readString(target));
+        try (Stream<Path> leftovers = Files.list(temp)) {
+            assertEquals(0, leftovers.count(), "No deben quedar temporales");
+        }
+    }
+
+    @Test
+    @DisplayName("Sin commit el destino conserva el contenido anterior")
+    void testClose_WithoutCommitKeepsPreviousContent() throws IOException {
+        // Given
+        Path temp = tempDir.resolve("temp");
+        Path target = Files.writeString(tempDir.resolve("users.json"), "anterior");
+
+        // When - la escritura falla a mitad
+        try (AtomicFileWriter file = AtomicFileWriter.create(target, temp)) {
+            file.stream().write("incomple".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Then
+        assertEquals("anterior", Files.readString(target));
+        try (Stream<Path> leftovers = Files.list(temp)) {
+            assertEquals(0, leftovers.count(), "El temporal debe borrarse");
+        }
+    }
+
+    @Test
+    @DisplayName("commit conserva los permisos del destino y usa los de por defecto en archivos nuevos")
+    void testCommit_PreservesPermissions() throws IOException {
+        Assumptions.assumeTrue(Files.getFileAttributeView(tempDir, PosixFileAttributeView.class) != null,
+                "Requiere un sistema de archivos POSIX");
+        // Given
+        Path temp = tempDir.resolve("temp");
+        Path existing = Files.writeString(tempDir.resolve("users.csv"), "anterior");
+        Files.setPosixFilePermissions(existing, PosixFilePermissions.fromString("rw-r-----"));
+        Path created = tempDir.resolve("nuevo.csv");
+        Path probe = Files.createFile(tempDir.resolve("probe"));
+
+        // When
+        for (Path target : new Path[]{existing, created}) {
+            try (AtomicFileWriter file = AtomicFileWriter.create(target, temp)) {
+                file.stream().write("nuevo".getBytes(StandardCharsets.UTF_8));
+                file.commit();
+            }
+        }
+
+        // Then
+        assertEquals("rw-r-----", PosixFilePermissions.toString(Files.getPosixFilePermissions(existing)));
+        assertEquals(Files.getPosixFilePermissions(probe), Files.getPosixFilePermissions(created),
+                "Un archivo nuevo debe tener los permisos por defecto (umask), no 0600");
+    }
+
+    @Test
+    @DisplayName("Un lector concurrente nunca ve un archivo a medio escribir")
+    void testConcurrentReaders_NeverSeePartialFile() throws Exception {
+        // Given - el destino siempre contiene 64 KB de una única letra
+        Path temp = tempDir.resolve("temp");
+        Path target = tempDir.resolve("users.xml");
+        int size = 64 * 1024;
+        Files.write(target, filled('A', size));
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger partialReads = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                try {
+                    byte[] read = Files.readAllBytes(target);
+                    if (read.length != size || read[0] != read[read.length - 1]) {
+                        partialReads.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    partialReads.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+
+        // When - se reescribe muchas veces en trozos pequeños
+        try {
+            for (int i = 0; i < 50; i++) {
+                byte[] content = filled((char) ('A' + i % 26), size);
+                try (AtomicFileWriter file = AtomicFileWriter.create(target, temp)) {
+                    for (int offset = 0; offset < size; offset += 4096) {
+                        file.stream().write(content, offset, 4096);
+                    }
+                    file.commit();
+                }
+            }
+        } finally {
+            running.set(false);
+            reader.join();
+        }
+
+        // Then
+        assertEquals(0, partialReads.get(), "El lector debe ver siempre un archivo completo");
+    }
+
+    private static byte[] filled(char letter, int size) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) letter);
+        return bytes;
+    }
+}
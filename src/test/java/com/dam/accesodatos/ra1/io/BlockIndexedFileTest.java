@@ -0,0 +1,228 @@
+package com.dam.accesodatos.ra1.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del contenedor comprimido por bloques con índice (.bgzi)
+ */
+class BlockIndexedFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ForkJoinPool pool;
+    private byte[] content;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+        content = lines(30_000);
+        file = tempDir.resolve("users.csv.bgzi");
+        try (OutputStream fileOut = Files.newOutputStream(file);
+             OutputStream out = Compression.BGZF_INDEXED.wrap(fileOut)) {
+            for (int offset = 0; offset < content.length; offset += 1000) {
+                out.write(content, offset, Math.min(1000, content.length - offset));
+                out.flush(); // No debe cortar bloques
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Las lecturas posicionales coinciden con el contenido, también entre bloques")
+    void testRead_MatchesUncompressedContent() throws IOException {
+        // Given - un fragmento dentro de un bloque, otro que cruza un borde y otro tras el final
+        long border = BgzfOutputStream.MAX_INPUT;
+        long[] positions = {10, border - 50, content.length - 5, content.length + 100};
+        int[] lengths = {100, 200, 50, 10};
+
+        // When
+        byte[][] fragments;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            BlockIndexedFile indexed = BlockIndexedFile.open(channel);
+            fragments = indexed.read(positions, lengths, pool);
+
+            // Then
+            assertEquals(content.length, indexed.size());
+            assertTrue(indexed.blockCount() > 10);
+            assertTrue(channel.size() < content.length / 2);
+        }
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 110), fragments[0]);
+        assertArrayEquals(Arrays.copyOfRange(content, (int) border - 50, (int) border + 150), fragments[1]);
+        assertArrayEquals(Arrays.copyOfRange(content, content.length - 5, content.length), fragments[2]);
+        assertEquals(0, fragments[3].length);
+    }
+
+    @Test
+    @DisplayName("read rechaza fragmentos cuyo final desborda un long")
+    void testRead_RejectsOverflowingRange() throws IOException {
+        // When & Then
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            BlockIndexedFile indexed = BlockIndexedFile.open(channel);
+            assertThrows(IllegalArgumentException.class,
+                    () -> indexed.read(new long[]{Long.MAX_VALUE - 5}, new int[]{100}, pool));
+            assertThrows(IllegalArgumentException.class, () -> indexed.read(Long.MAX_VALUE - 5, 100));
+        }
+    }
+
+    @Test
+    @DisplayName("La búsqueda en paralelo encuentra también coincidencias que cruzan bloques")
+    void testSearch_CountsMatchesAcrossBlocks() throws IOException {
+        // Given - la cifra esperada se calcula sobre el contenido sin comprimir
+        byte[] needle = "@test.com,IT".getBytes(StandardCharsets.UTF_8);
+        long expected = 0;
+        for (int at = BlockIndexedFile.indexOf(content, needle, 0); at >= 0; at = BlockIndexedFile.indexOf(content, needle, at + 1)) {
+            expected++;
+        }
+
+        // When
+        BlockIndexedFile.SearchResult result;
+        BlockIndexedFile.SearchResult plain;
+        Path plainFile = Files.write(tempDir.resolve("users.csv"), content);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel plainChannel = FileChannel.open(plainFile, StandardOpenOption.READ)) {
+            result = BlockIndexedFile.open(channel).search(needle, 5, pool);
+            plain = BlockIndexedFile.plain(plainChannel).search(needle, 5, pool);
+        }
+
+        // Then
+        assertEquals(expected, result.getMatches());
+        assertEquals(expected, plain.getMatches());
+        assertTrue(result.isTruncated());
+        assertEquals(5, result.getOffsets().size());
+        long first = result.getOffsets().get(0);
+        assertArrayEquals(needle, Arrays.copyOfRange(content, (int) first, (int) first + needle.length));
+        assertTrue(result.isCompressed());
+        assertFalse(plain.isCompressed());
+    }
+
+    @Test
+    @DisplayName("Las posiciones devueltas son las primeras del archivo y salen en orden")
+    void testSearch_ReturnsFirstOffsetsInOrder() throws IOException {
+        // Given - posiciones esperadas calculadas en secuencia sobre el contenido
+        byte[] needle = "Usuario 2".getBytes(StandardCharsets.UTF_8);
+        int max = 3_000;
+        long[] expected = new long[max];
+        int found = 0;
+        for (int at = BlockIndexedFile.indexOf(content, needle, 0); at >= 0 && found < max;
+             at = BlockIndexedFile.indexOf(content, needle, at + 1)) {
+            expected[found++] = at;
+        }
+
+        // When
+        BlockIndexedFile.SearchResult result;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            result = BlockIndexedFile.open(channel).search(needle, max, pool);
+        }
+
+        // Then
+        assertEquals(max, found, "El contenido debe tener más coincidencias que el máximo");
+        assertTrue(result.isTruncated());
+        assertArrayEquals(expected, result.getOffsets().stream().mapToLong(Long::longValue).toArray());
+    }
+
+    @Test
+    @DisplayName("El índice leído se guarda en el canal del pool hasta que cambia el archivo")
+    void testOpenCached_ReusesIndexUntilFileChanges() throws IOException {
+        // Given
+        Path plainFile = Files.write(tempDir.resolve("users.csv"), content);
+        try (FileChannelPool channels = new FileChannelPool(4, Duration.ofMinutes(1))) {
+            // When
+            BlockIndexedFile first;
+            BlockIndexedFile second;
+            try (FileChannelPool.Lease lease = channels.acquire(file, false)) {
+                first = BlockIndexedFile.openCached(lease, file);
+            }
+            try (FileChannelPool.Lease lease = channels.acquire(file, false)) {
+                second = BlockIndexedFile.openCached(lease, file);
+            }
+            BlockIndexedFile notIndexed;
+            try (FileChannelPool.Lease lease = channels.acquire(plainFile, false)) {
+                notIndexed = BlockIndexedFile.openCached(lease, plainFile);
+            }
+            Files.write(file, new byte[]{1}, StandardOpenOption.APPEND);
+            BlockIndexedFile afterChange;
+            try (FileChannelPool.Lease lease = channels.acquire(file, false)) {
+                afterChange = BlockIndexedFile.openCached(lease, file);
+                assertEquals(2, channels.stats().getOpens(), "Debe reutilizar el canal de lectura del pool");
+            }
+
+            // Then
+            assertNotNull(first);
+            assertSame(first, second, "La segunda lectura debe reutilizar el índice");
+            assertNull(notIndexed);
+            assertNull(afterChange, "Con el pie desplazado ya no es un contenedor indexado");
+        }
+    }
+
+    @Test
+    @DisplayName("Una coincidencia partida justo en el borde de dos bloques se cuenta")
+    void testSearch_MatchSplitOnBorder() throws IOException {
+        // Given - "XYZ" empieza dos bytes antes del borde del primer bloque
+        byte[] data = new byte[BgzfOutputStream.MAX_INPUT + 100];
+        Arrays.fill(data, (byte) '.');
+        int at = BgzfOutputStream.MAX_INPUT - 2;
+        data[at] = 'X';
+        data[at + 1] = 'Y';
+        data[at + 2] = 'Z';
+        Path plainFile = Files.write(tempDir.resolve("border.txt"), data);
+
+        // When
+        BlockIndexedFile.SearchResult result;
+        try (FileChannel channel = FileChannel.open(plainFile, StandardOpenOption.READ)) {
+            result = BlockIndexedFile.plain(channel).search("XYZ".getBytes(StandardCharsets.UTF_8), 10, pool);
+        }
+
+        // Then
+        assertEquals(1, result.getMatches());
+        assertEquals(at, result.getOffsets().get(0));
+    }
+
+    @Test
+    @DisplayName("Se detecta como contenedor indexado y se lee en secuencia sin el índice")
+    void testDetectAndSequentialRead() throws IOException {
+        // When
+        byte[] read;
+        try (InputStream in = Compression.open(file)) {
+            read = in.readAllBytes();
+        }
+
+        // Then
+        assertEquals(Compression.BGZF_INDEXED, Compression.detect(file));
+        assertArrayEquals(content, read);
+        try (FileChannel channel = FileChannel.open(tempDir.resolve("plain.txt"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertFalse(BlockIndexedFile.isIndexed(channel));
+            assertThrows(IOException.class, () -> BlockIndexedFile.open(channel));
+        }
+    }
+
+    private static byte[] lines(int count) {
+        StringBuilder sb = new StringBuilder("id,name,email,department,role\n");
+        for (int i = 0; i < count; i++) {
+            sb.append(i).append(",Usuario ").append(i).append(",user").append(i)
+                    .append("@test.com,").append(i % 3 == 0 ? "IT" : "HR").append(",Dev\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,189 @@
+package com.dam.accesodatos.ra1.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la compresión transparente (gzip y BGZF)
+ */
+class CompressionTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("BGZF: varios bloques se leen igual con el lector paralelo y con GZIPInputStream")
+    void testBgzf_RoundTripAndGzipCompatible() throws IOException {
+        // Given - más de 0xFF00 bytes para forzar varios bloques
+        byte[] content = lines(20_000);
+        Path file = write(Compression.BGZF, "users.csv.bgz", content);
+
+        // When
+        byte[] parallel;
+        try (InputStream in = Compression.open(file)) {
+            parallel = in.readAllBytes();
+        }
+        byte[] standard;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            standard = in.readAllBytes();
+        }
+
+        // Then
+        assertEquals(Compression.BGZF, Compression.detect(file));
+        assertTrue(content.length > 4 * BgzfOutputStream.MAX_INPUT);
+        assertArrayEquals(content, parallel);
+        assertArrayEquals(content, standard);
+        assertTrue(Files.size(file) < content.length / 2);
+    }
+
+    @Test
+    @DisplayName("GZIP: se detecta por la cabecera aunque la extensión no lo diga")
+    void testGzip_DetectedByHeader() throws IOException {
+        // Given
+        byte[] content = lines(1_000);
+        Path file = write(Compression.GZIP, "users.csv", content);
+
+        // When
+        byte[] read;
+        try (InputStream in = Compression.open(file)) {
+            read = in.readAllBytes();
+        }
+
+        // Then
+        assertEquals(Compression.GZIP, Compression.detect(file));
+        assertArrayEquals(content, read);
+        assertEquals(Compression.NONE, Compression.detect(write(Compression.NONE, "plain.csv", content)));
+    }
+
+    @Test
+    @DisplayName("BGZF: un bloque con CRC alterado produce IOException")
+    void testBgzf_DetectsCorruption() throws IOException {
+        // Given - se altera el CRC del primer bloque
+        Path file = write(Compression.BGZF, "users.bgz", lines(100));
+        byte[] raw = Files.readAllBytes(file);
+        int blockSize = (raw[16] & 0xFF | (raw[17] & 0xFF) << 8) + 1;
+        raw[blockSize - BgzfOutputStream.FOOTER_SIZE] ^= 0x01;
+
+        // When & Then
+        assertThrows(IOException.class,
+                () -> new BgzfInputStream(new ByteArrayInputStream(raw), ForkJoinPool.commonPool()).readAllBytes());
+    }
+
+    @Test
+    @DisplayName("BGZF: un ISIZE negativo o mayor que 64 KB produce IOException sin reservar memoria")
+    void testBgzf_RejectsInvalidUncompressedSize() throws IOException {
+        // Given - se sustituye el ISIZE del primer bloque (últimos 4 bytes del bloque)
+        Path file = write(Compression.BGZF, "users.bgz", lines(100));
+        byte[] original = Files.readAllBytes(file);
+        int blockSize = (original[16] & 0xFF | (original[17] & 0xFF) << 8) + 1;
+
+        for (int isize : new int[]{-1, Integer.MAX_VALUE, BgzfOutputStream.MAX_BLOCK_SIZE + 1}) {
+            byte[] raw = original.clone();
+            for (int i = 0; i < 4; i++) {
+                raw[blockSize - 4 + i] = (byte) (isize >>> (8 * i));
+            }
+
+            // When & Then
+            IOException error = assertThrows(IOException.class,
+                    () -> new BgzfInputStream(new ByteArrayInputStream(raw), ForkJoinPool.commonPool()).readAllBytes());
+            assertTrue(error.getMessage().contains("tamaño descomprimido inválido"), error.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("BGZF rechaza un bloque cuyo BSIZE es menor que cabecera y pie")
+    void testBgzf_RejectsInvalidBlockSize() throws IOException {
+        // Given - BSIZE (bytes 16-17, tamaño del bloque menos 1) se sustituye por 5
+        byte[] raw = Files.readAllBytes(write(Compression.BGZF, "users.bgz", lines(100)));
+        raw[16] = 5;
+        raw[17] = 0;
+
+        // When & Then
+        IOException error = assertThrows(IOException.class,
+                () -> new BgzfInputStream(new ByteArrayInputStream(raw), ForkJoinPool.commonPool()).readAllBytes());
+        assertTrue(error.getMessage().startsWith("Bloque BGZF inválido"), error.getMessage());
+    }
+
+    @Test
+    @DisplayName("Nombres y extensiones de compresión")
+    void testOfAndExtensions() {
+        assertEquals(Compression.GZIP, Compression.of("gz"));
+        assertEquals(Compression.BGZF, Compression.of("BGZF"));
+        assertEquals(Compression.NONE, Compression.of(null));
+        assertThrows(IllegalArgumentException.class, () -> Compression.of("zstd"));
+        assertEquals(Compression.BGZF, Compression.fromPath(Path.of("data/users.json.bgz")));
+        assertEquals("users.csv", Compression.stripExtension("users.csv.gz"));
+        assertEquals("users.csv", Compression.stripExtension("users.csv"));
+    }
+
+    @Test
+    @DisplayName("Cerrar el flujo comprimido no cierra el flujo subyacente")
+    void testWrap_DoesNotCloseUnderlying() throws IOException {
+        // Given
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        OutputStream underlying = new OutputStream() {
+            boolean closed;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (closed) {
+                    throw new IOException("cerrado");
+                }
+                sink.write(b);
+            }
+
+            @Override
+            public void close() {
+                closed = true;
+            }
+        };
+
+        // When
+        try (OutputStream out = Compression.GZIP.wrap(underlying)) {
+            out.write("hola".getBytes(StandardCharsets.UTF_8));
+        }
+        underlying.write('!');
+
+        // Then - el gzip está completo y después se pudo seguir escribiendo
+        byte[] bytes = sink.toByteArray();
+        byte[] gzip = Arrays.copyOf(bytes, bytes.length - 1);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertEquals("hola", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private Path write(Compression compression, String name, byte[] content) throws IOException {
+        Path file = tempDir.resolve(name);
+        try (OutputStream fileOut = Files.newOutputStream(file);
+             OutputStream out = compression.wrap(fileOut)) {
+            // Escrituras de tamaño irregular, como las de los escritores de registros
+            for (int offset = 0; offset < content.length; offset += 1000) {
+                out.write(content, offset, Math.min(1000, content.length - offset));
+            }
+        }
+        return file;
+    }
+
+    private static byte[] lines(int count) {
+        StringBuilder sb = new StringBuilder("id,name,email,department,role\n");
+        for (int i = 0; i < count; i++) {
+            sb.append(i).append(",Usuario ").append(i).append(",user").append(i)
+                    .append("@test.com,").append(i % 3 == 0 ? "IT" : "HR").append(",Dev\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,155 @@
+package com.dam.accesodatos.ra1.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del pool de FileChannel compartido por las herramientas de acceso posicional
+ */
+class FileChannelPoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FileChannelPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("acquire reutiliza el canal abierto para la misma ruta")
+    void testAcquire_ReusesChannelForSamePath() throws IOException {
+        // Given
+        pool = new FileChannelPool(4, Duration.ofMinutes(1));
+        Path file = tempDir.resolve("datos.txt");
+        Files.writeString(file, "contenido");
+
+        // When
+        FileChannel first;
+        try (FileChannelPool.Lease lease = pool.acquire(file, false)) {
+            first = lease.channel();
+        }
+        FileChannel second;
+        try (FileChannelPool.Lease lease = pool.acquire(tempDir.resolve("./datos.txt"), false)) {
+            second = lease.channel();
+        }
+
+        // Then
+        assertSame(first, second, "Debe reutilizar el canal de la ruta canónica");
+        assertTrue(second.isOpen());
+        assertEquals(1, pool.stats().getOpens());
+        assertEquals(1, pool.stats().getHits());
+    }
+
+    @Test
+    @DisplayName("El pool lleno expulsa el canal menos usado recientemente")
+    void testAcquire_EvictsLeastRecentlyUsedWhenFull() throws IOException {
+        // Given
+        pool = new FileChannelPool(2, Duration.ofMinutes(1));
+        Path a = Files.writeString(tempDir.resolve("a.txt"), "a");
+        Path b = Files.writeString(tempDir.resolve("b.txt"), "b");
+        Path c = Files.writeString(tempDir.resolve("c.txt"), "c");
+
+        // When
+        FileChannel channelA;
+        try (FileChannelPool.Lease lease = pool.acquire(a, false)) {
+            channelA = lease.channel();
+        }
+        pool.acquire(b, false).close();
+        pool.acquire(c, false).close();
+
+        // Then
+        assertFalse(channelA.isOpen(), "El canal de a.txt debe haberse cerrado");
+        assertEquals(1, pool.stats().getEvictions());
+        assertEquals(2, pool.stats().getOpenChannels());
+    }
+
+    @Test
+    @DisplayName("invalidate no cierra un canal prestado hasta que se devuelve")
+    void testInvalidate_KeepsLeasedChannelOpenUntilReleased() throws IOException {
+        // Given
+        pool = new FileChannelPool(4, Duration.ofMinutes(1));
+        Path file = Files.writeString(tempDir.resolve("datos.txt"), "contenido");
+        FileChannelPool.Lease lease = pool.acquire(file, false);
+
+        // When
+        pool.invalidate(file);
+
+        // Then
+        assertTrue(lease.channel().isOpen(), "El canal prestado sigue abierto");
+        lease.close();
+        assertFalse(lease.channel().isOpen(), "Al devolverlo debe cerrarse");
+        assertEquals(0, pool.stats().getOpenChannels());
+    }
+
+    @Test
+    @DisplayName("Los canales ociosos se cierran tras el timeout")
+    void testIdleChannelsAreEvicted() throws Exception {
+        // Given
+        pool = new FileChannelPool(4, Duration.ofMillis(50));
+        Path file = Files.writeString(tempDir.resolve("datos.txt"), "contenido");
+        FileChannel channel;
+        try (FileChannelPool.Lease lease = pool.acquire(file, false)) {
+            channel = lease.channel();
+        }
+
+        // When
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (channel.isOpen() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        // Then
+        assertFalse(channel.isOpen(), "El canal ocioso debe cerrarse");
+        assertEquals(1, pool.stats().getEvictions());
+    }
+
+    @Test
+    @DisplayName("Los hilos de fondo arrancan con el primer préstamo y paran si el pool se descarta sin cerrarlo")
+    void testBackgroundThreads_LazyAndReleasedWhenUnreachable() throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("datos.txt"), "contenido");
+        Set<Thread> before = poolThreads();
+        FileChannelPool discarded = new FileChannelPool(4, Duration.ofMinutes(1));
+        assertEquals(before, poolThreads(), "Crear el pool no debe arrancar hilos");
+
+        // When
+        discarded.acquire(file, false).close();
+        Set<Thread> started = poolThreads();
+        started.removeAll(before);
+        discarded = null;
+
+        // Then
+        assertEquals(2, started.size(), "El primer préstamo arranca el reaper y el watcher");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (started.stream().anyMatch(Thread::isAlive) && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertTrue(started.stream().noneMatch(Thread::isAlive), "Los hilos deben terminar al recogerse el pool");
+    }
+
+    private static Set<Thread> poolThreads() {
+        Set<Thread> threads = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("file-channel-pool-")) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+}
@@ -0,0 +1,176 @@
+package com.dam.accesodatos.ra1.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de estrés del bloqueo por archivo compartido por las herramientas de escritura
+ */
+class StripedFileLocksTest {
+
+    private static final int FILE_SIZE = 8192;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Muchos hilos sobre muchos archivos nunca leen un archivo a medio escribir")
+    void testStress_NoTornReadsAcrossManyFilesAndThreads() throws Exception {
+        // Given - 12 archivos, cada uno relleno con una única letra
+        StripedFileLocks locks = new StripedFileLocks(8);
+        int files = 12;
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < files; i++) {
+            Path path = tempDir.resolve("users_" + i + ".csv");
+            Files.write(path, filled('A'));
+            paths.add(path);
+        }
+
+        int threads = 16;
+        int iterations = 300;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger tornReads = new AtomicInteger();
+        AtomicInteger writes = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When - cada hilo alterna lecturas y escrituras (en dos mitades) sobre archivos al azar
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < iterations; i++) {
+                    Path path = paths.get(random.nextInt(files));
+                    if (random.nextInt(4) == 0) {
+                        byte[] content = filled((char) ('A' + random.nextInt(26)));
+                        try (StripedFileLocks.Handle lock = locks.lockForWrite(path)) {
+                            Files.write(path, Arrays.copyOf(content, FILE_SIZE / 2),
+                                    StandardOpenOption.TRUNCATE_EXISTING);
+                            Thread.yield();
+                            Files.write(path, Arrays.copyOfRange(content, FILE_SIZE / 2, FILE_SIZE),
+                                    StandardOpenOption.APPEND);
+                        }
+                        writes.incrementAndGet();
+                    } else {
+                        try (StripedFileLocks.Handle lock = locks.lockForRead(path)) {
+                            byte[] read = Files.readAllBytes(path);
+                            if (read.length != FILE_SIZE || !uniform(read)) {
+                                tornReads.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertTrue(writes.get() > 0, "Debe haber escrituras durante la prueba");
+        assertEquals(0, tornReads.get(), "Ningún lector debe ver una escritura a medias");
+    }
+
+    @Test
+    @DisplayName("Varios lectores del mismo archivo avanzan en paralelo")
+    void testReaders_ProceedInParallel() throws Exception {
+        // Given
+        StripedFileLocks locks = new StripedFileLocks(8);
+        Path path = Files.write(tempDir.resolve("users.json"), filled('A'));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // When - un lector mantiene el bloqueo mientras otro hilo intenta leer
+        try (StripedFileLocks.Handle first = locks.lockForRead(path)) {
+            Future<Boolean> second = executor.submit(() -> {
+                try (StripedFileLocks.Handle lock = locks.lockForRead(path)) {
+                    return true;
+                }
+            });
+
+            // Then
+            assertTrue(second.get(5, TimeUnit.SECONDS), "El segundo lector no debe esperar al primero");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Un escritor no bloquea la escritura de un archivo de otra stripe")
+    void testWriters_SerializePerFileOnly() throws Exception {
+        // Given - dos archivos que caen en stripes distintas
+        StripedFileLocks locks = new StripedFileLocks(64);
+        Path first = tempDir.resolve("a.xml");
+        Path second = null;
+        for (int i = 0; second == null; i++) {
+            Path candidate = tempDir.resolve("b" + i + ".xml");
+            if (locks.stripeIndex(candidate) != locks.stripeIndex(first)) {
+                second = candidate;
+            }
+        }
+        Path other = second;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // When
+        try (StripedFileLocks.Handle lock = locks.lockForWrite(first)) {
+            Future<Boolean> otherWriter = executor.submit(() -> {
+                try (StripedFileLocks.Handle otherLock = locks.lockForWrite(other)) {
+                    return true;
+                }
+            });
+
+            // Then
+            assertTrue(otherWriter.get(5, TimeUnit.SECONDS), "La escritura de otro archivo no debe esperar");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("El bloqueo de escritura reutiliza el canal del pool en lugar de abrir uno por llamada")
+    void testLockForWrite_ReusesPooledChannel() throws Exception {
+        // Given
+        Path file = tempDir.resolve("nuevo/datos.txt");
+        try (FileChannelPool pool = new FileChannelPool(4, Duration.ofMinutes(1))) {
+            StripedFileLocks locks = new StripedFileLocks(8, pool);
+
+            // When
+            for (int i = 0; i < 5; i++) {
+                try (StripedFileLocks.Handle lock = locks.lockForWrite(file)) {
+                    Files.writeString(file, "v" + i);
+                }
+            }
+
+            // Then
+            assertEquals("v4", Files.readString(file));
+            assertEquals(1, pool.stats().getOpens(), "Debe abrirse un único canal para los cinco bloqueos");
+            assertEquals(4, pool.stats().getHits());
+        }
+    }
+
+    private static byte[] filled(char letter) {
+        byte[] bytes = new byte[FILE_SIZE];
+        Arrays.fill(bytes, (byte) letter);
+        return bytes;
+    }
+
+    private static boolean uniform(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b != bytes[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
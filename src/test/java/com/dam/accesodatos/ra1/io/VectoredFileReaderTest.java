@@ -0,0 +1,129 @@
+package com.dam.accesodatos.ra1.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la lectura vectorizada usada por la herramienta random_access_read_batch
+ */
+class VectoredFileReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("read devuelve los fragmentos en el orden de la petición")
+    void testRead_ReturnsFragmentsInRequestOrder() throws IOException {
+        // Given
+        Path file = tempDir.resolve("datos.txt");
+        Files.writeString(file, "0123456789abcdefghij");
+
+        // When
+        byte[][] fragments;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            fragments = VectoredFileReader.read(channel,
+                    new long[]{10, 0, 3, 18},
+                    new int[]{5, 3, 4, 10});
+        }
+
+        // Then
+        assertEquals("abcde", text(fragments[0]));
+        assertEquals("012", text(fragments[1]));
+        assertEquals("3456", text(fragments[2]));
+        assertEquals("ij", text(fragments[3]), "Fragmento que supera el EOF debe truncarse");
+    }
+
+    @Test
+    @DisplayName("coalesce fusiona fragmentos contiguos y solapados en un único tramo")
+    void testCoalesce_MergesAdjacentAndOverlappingRanges() {
+        // Given - [0,4) [4,8) contiguos, [6,10) solapado, [50,55) separado
+        long[] positions = {50, 4, 0, 6};
+        int[] lengths = {5, 4, 4, 4};
+
+        // When
+        List<VectoredFileReader.Span> spans = VectoredFileReader.coalesce(positions, lengths, 100);
+
+        // Then
+        assertEquals(2, spans.size(), "Deben quedar dos tramos");
+        assertEquals(0, spans.get(0).start);
+        assertEquals(10, spans.get(0).end);
+        assertEquals(3, spans.get(0).members.size());
+        assertEquals(50, spans.get(1).start);
+    }
+
+    @Test
+    @DisplayName("read en paralelo con muchos fragmentos coincide con el contenido del archivo")
+    void testRead_LargeBatchInParallel() throws IOException {
+        // Given - 500 fragmentos separados entre sí para forzar muchos tramos
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            content.append((char) ('a' + i % 26));
+        }
+        Path file = tempDir.resolve("grande.txt");
+        Files.writeString(file, content);
+
+        int count = 500;
+        long[] positions = new long[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = (count - 1 - i) * 20L;
+            lengths[i] = 7;
+        }
+
+        // When
+        byte[][] fragments;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            fragments = VectoredFileReader.read(channel, positions, lengths);
+        }
+
+        // Then
+        for (int i = 0; i < count; i++) {
+            int from = (int) positions[i];
+            assertEquals(content.substring(from, from + 7), text(fragments[i]));
+        }
+    }
+
+    @Test
+    @DisplayName("read rechaza posiciones negativas")
+    void testRead_RejectsNegativePosition() throws IOException {
+        // Given
+        Path file = tempDir.resolve("datos.txt");
+        Files.writeString(file, "contenido");
+
+        // When & Then
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> VectoredFileReader.read(channel, new long[]{-1}, new int[]{3}));
+            assertThrows(IllegalArgumentException.class,
+                    () -> VectoredFileReader.read(channel, new long[]{Long.MAX_VALUE - 1}, new int[]{3}));
+        }
+    }
+
+    @Test
+    @DisplayName("checkLimits rechaza lotes con demasiados fragmentos o demasiados bytes")
+    void testCheckLimits_RejectsOversizedBatches() {
+        // Given
+        int[] lengths = {100, 200, 300};
+
+        // When & Then
+        assertDoesNotThrow(() -> VectoredFileReader.checkLimits(lengths, 3, 600));
+        assertThrows(IllegalArgumentException.class, () -> VectoredFileReader.checkLimits(lengths, 2, 600));
+        assertThrows(IllegalArgumentException.class, () -> VectoredFileReader.checkLimits(lengths, 3, 599));
+        assertThrows(IllegalArgumentException.class, () -> VectoredFileReader.checkLimits(
+                new int[]{Integer.MAX_VALUE, Integer.MAX_VALUE}, 10, Integer.MAX_VALUE));
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,134 @@
+package com.dam.accesodatos.ra1.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del WAL con group commit usado por random_access_write_durable
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FileChannelPool pool;
+    private StripedFileLocks locks;
+
+    @BeforeEach
+    void setUp() {
+        pool = new FileChannelPool(16, Duration.ofMinutes(1));
+        locks = new StripedFileLocks(16, pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Las escrituras confirmadas se aplican al destino y el log se trunca")
+    void testAppend_AppliesWritesAndCheckpoints() throws Exception {
+        // Given
+        Path logFile = tempDir.resolve("wal/test.wal");
+        Path target = tempDir.resolve("datos.txt");
+        Files.writeString(target, "..........");
+
+        // When - 10 escrituras sobre posiciones distintas sin esperar entre ellas
+        List<CompletableFuture<Void>> acks = new ArrayList<>();
+        try (WriteAheadLog wal = new WriteAheadLog(logFile, pool, locks)) {
+            for (int i = 0; i < 10; i++) {
+                acks.add(wal.append(target, i, String.valueOf(i).getBytes(StandardCharsets.UTF_8)));
+            }
+            CompletableFuture.allOf(acks.toArray(new CompletableFuture<?>[0])).get();
+            wal.awaitApplied(target);
+
+            // Then
+            assertEquals("0123456789", Files.readString(target));
+            assertTrue(wal.getCommits() <= 10, "Los registros deben agruparse en commits");
+            assertEquals(10, wal.getRecords());
+        }
+        assertEquals(0, Files.size(logFile), "El log debe quedar vacío tras el checkpoint");
+    }
+
+    @Test
+    @DisplayName("recover reaplica los registros válidos e ignora la cola corrupta")
+    void testRecover_ReplaysValidRecordsAndDropsTornTail() throws IOException {
+        // Given - log con dos registros válidos y un tercero truncado (caída a mitad de escritura)
+        Path logFile = tempDir.resolve("crash.wal");
+        Path target = tempDir.resolve("destino.txt");
+        Files.writeString(target, "abcdefghij");
+        try (FileChannel log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            log.write(ByteBuffer.wrap(record(target, 0, "XY")));
+            log.write(ByteBuffer.wrap(record(target, 8, "ZZ")));
+            byte[] torn = record(target, 4, "!!");
+            log.write(ByteBuffer.wrap(torn, 0, torn.length - 3));
+        }
+
+        // When
+        new WriteAheadLog(logFile, pool, locks).close();
+
+        // Then
+        assertEquals("XYcdefghZZ", Files.readString(target));
+        assertEquals(0, Files.size(logFile));
+    }
+
+    @Test
+    @DisplayName("Tras un fallo al aplicar, el log se reaplica en orden y el checkpoint se reanuda")
+    void testApplyFailure_ReappliesLogAndResumesCheckpoint() throws Exception {
+        // Given - el directorio del destino no puede crearse porque existe un archivo con su nombre
+        Path logFile = tempDir.resolve("retry.wal");
+        Path blocker = Files.writeString(tempDir.resolve("sub"), "no soy un directorio");
+        Path target = tempDir.resolve("sub/datos.txt");
+
+        try (WriteAheadLog wal = new WriteAheadLog(logFile, pool, locks)) {
+            wal.append(target, 0, "abc".getBytes(StandardCharsets.UTF_8)).get();
+            assertThrows(IOException.class, () -> wal.awaitApplied(target),
+                    "Una escritura confirmada sin aplicar no debe dejar leer el destino");
+            assertTrue(Files.size(logFile) > 0, "El log se conserva mientras no se haya aplicado");
+
+            // When - se retira el obstáculo y llega otra escritura sobre la misma zona
+            Files.delete(blocker);
+            wal.append(target, 1, "X".getBytes(StandardCharsets.UTF_8)).get();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (Files.size(logFile) > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+
+            // Then
+            assertEquals(0, Files.size(logFile), "El checkpoint debe reanudarse tras reaplicar");
+            assertEquals("aXc", Files.readString(target), "La reaplicación debe respetar el orden");
+            assertDoesNotThrow(() -> wal.awaitApplied(target));
+        }
+    }
+
+    /** Codifica un registro con el mismo formato que WriteAheadLog */
+    private static byte[] record(Path target, long position, String content) {
+        byte[] path = target.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8);
+        byte[] data = content.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = Short.BYTES + path.length + Long.BYTES + data.length;
+        ByteBuffer body = ByteBuffer.allocate(bodyLength);
+        body.putShort((short) path.length).put(path).putLong(position).put(data);
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+        return ByteBuffer.allocate(8 + bodyLength)
+                .putInt(bodyLength)
+                .putInt((int) crc.getValue())
+                .put(body.array())
+                .array();
+    }
+}
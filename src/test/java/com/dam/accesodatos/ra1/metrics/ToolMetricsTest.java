@@ -0,0 +1,132 @@
+package com.dam.accesodatos.ra1.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.mcp.server.annotation.Tool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de las métricas por herramienta y del proxy que las registra
+ */
+class ToolMetricsTest {
+
+    interface SampleService {
+        @Tool(name = "read_sample", description = "Lee")
+        String read(String path);
+
+        @Tool(name = "fail_sample", description = "Falla")
+        void fail();
+
+        String notATool();
+    }
+
+    @Test
+    @DisplayName("El proxy cuenta llamadas, errores por tipo de la causa y E/S de la herramienta en curso")
+    void testProxy_RecordsCallsErrorsAndIo() {
+        // Given
+        ToolMetrics metrics = new ToolMetrics();
+        SampleService service = ToolMetricsProxy.wrap(SampleService.class, new SampleService() {
+            @Override
+            public String read(String path) {
+                assertEquals(1, metrics.tool("read_sample").getInFlight());
+                metrics.bytesRead(100);
+                metrics.recordsRead(2);
+                return path.toUpperCase();
+            }
+
+            @Override
+            public void fail() {
+                throw new RuntimeException("Archivo no encontrado", new NoSuchFileException("x"));
+            }
+
+            @Override
+            public String notATool() {
+                metrics.bytesRead(999);
+                return "ok";
+            }
+        }, metrics);
+
+        // When
+        assertEquals("A", service.read("a"));
+        assertEquals("B", service.read("b"));
+        RuntimeException error = assertThrows(RuntimeException.class, service::fail);
+        assertEquals("ok", service.notATool());
+
+        // Then
+        ToolMetrics.ToolStats read = metrics.tool("read_sample");
+        assertEquals(2, read.getCount());
+        assertEquals(0, read.getInFlight());
+        assertEquals(200, read.getBytesRead());
+        assertEquals(4, read.getRecordsRead());
+        assertEquals("Archivo no encontrado", error.getMessage());
+        assertEquals(1, metrics.tool("fail_sample").getErrors("NoSuchFileException"));
+        assertNull(metrics.current());
+    }
+
+    @Test
+    @DisplayName("Los percentiles se estiman dentro del cubo del histograma")
+    void testHistogram_Quantiles() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.quantileNanos(0.5));
+
+        // When: 90 llamadas de 2 ms y 10 de 200 ms
+        for (int i = 0; i < 90; i++) {
+            histogram.record(2_000_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(200_000_000);
+        }
+
+        // Then
+        long p50 = histogram.quantileNanos(0.5);
+        long p99 = histogram.quantileNanos(0.99);
+        assertTrue(p50 > 1_000_000 && p50 <= 2_500_000, "p50 = " + p50);
+        assertTrue(p99 > 100_000_000 && p99 <= 250_000_000, "p99 = " + p99);
+        assertEquals(100, histogram.cumulativeCounts()[LatencyHistogram.BOUNDS.length]);
+    }
+
+    @Test
+    @DisplayName("La salida sigue el formato de texto de Prometheus")
+    void testScrape_PrometheusFormat() {
+        // Given
+        ToolMetrics metrics = new ToolMetrics();
+        SampleService service = ToolMetricsProxy.wrap(SampleService.class, new SampleService() {
+            @Override
+            public String read(String path) {
+                return path;
+            }
+
+            @Override
+            public void fail() {
+                throw new UncheckedIOException(new IOException("disco"));
+            }
+
+            @Override
+            public String notATool() {
+                return null;
+            }
+        }, metrics);
+        service.read("x");
+        assertThrows(UncheckedIOException.class, service::fail);
+
+        // When
+        String text = metrics.scrape();
+
+        // Then
+        assertTrue(text.contains("# TYPE mcp_tool_duration_seconds histogram\n"));
+        assertTrue(text.contains("mcp_tool_duration_seconds_bucket{tool=\"read_sample\",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("mcp_tool_duration_seconds_count{tool=\"fail_sample\"} 1\n"));
+        assertTrue(text.contains("mcp_tool_duration_quantile_seconds{tool=\"read_sample\",quantile=\"0.99\"} "));
+        assertTrue(text.contains("mcp_tool_errors_total{tool=\"fail_sample\",exception=\"UncheckedIOException\"} 1\n"));
+        assertTrue(text.contains("mcp_tool_in_flight{tool=\"read_sample\"} 0\n"));
+        for (String line : text.split("\n")) {
+            assertTrue(line.startsWith("#") || line.matches("[a-z_]+\\{[^}]*} [0-9.E+-]+"), line);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la ordenación externa usada por merge_user_files
+ */
+class ExternalUserSorterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Fusiona CSV y JSON desordenados en un resultado ordenado y sin ids repetidos")
+    void testSort_MergesAndDeduplicates() throws IOException {
+        // Given - ids 0..2999 repartidos al azar; cada id aparece en dos archivos con fechas distintas
+        Random random = new Random(42);
+        List<User> a = new ArrayList<>();
+        List<User> b = new ArrayList<>();
+        for (long id = 0; id < 3_000; id++) {
+            a.add(user(id, "viejo", LocalDateTime.of(2024, 1, 1, 0, 0)));
+            b.add(user(id, "nuevo", LocalDateTime.of(2024, 6, 1, 0, 0)));
+        }
+        Collections.shuffle(a, random);
+        Collections.shuffle(b, random);
+        Path csv = write(UserFormat.CSV, "a.csv", a);
+        Path json = write(UserFormat.JSON, "b.json", b);
+        Path out = tempDir.resolve("merged.csv");
+
+        // When - tramos pequeños y fanIn 2 para forzar varias pasadas
+        ExternalUserSorter.Result result;
+        try (OutputStream stream = Files.newOutputStream(out);
+             UserRecordWriter writer = UserRecordWriters.open(UserFormat.CSV, stream)) {
+            result = new ExternalUserSorter(pool, 250, 2).sort(List.of(csv, json), this::open, tempDir.resolve("tmp"), writer);
+        }
+
+        // Then
+        assertEquals(6_000, result.getUsersRead());
+        assertEquals(3_000, result.getUsersWritten());
+        assertEquals(3_000, result.getDuplicatesRemoved());
+        assertEquals(24, result.getRuns());
+        assertTrue(result.getMergePasses() > 1);
+
+        List<User> merged = read(out);
+        assertEquals(3_000, merged.size());
+        for (int i = 0; i < merged.size(); i++) {
+            assertEquals(i, merged.get(i).getId());
+            assertEquals("nuevo", merged.get(i).getName());
+        }
+        try (var leftovers = Files.list(tempDir.resolve("tmp"))) {
+            assertEquals(0, leftovers.count(), "Los tramos temporales deben borrarse");
+        }
+    }
+
+    @Test
+    @DisplayName("Los usuarios sin id se conservan todos al final")
+    void testSort_NullIdsKept() throws IOException {
+        // Given
+        Path csv = write(UserFormat.CSV, "a.csv", List.of(
+                user(null, "sin id 1", null), user(5L, "cinco", null), user(null, "sin id 2", null)));
+        Path out = tempDir.resolve("merged.csv");
+
+        // When
+        try (OutputStream stream = Files.newOutputStream(out);
+             UserRecordWriter writer = UserRecordWriters.open(UserFormat.CSV, stream)) {
+            new ExternalUserSorter(pool, 10, 4).sort(List.of(csv), this::open, tempDir.resolve("tmp"), writer);
+        }
+
+        // Then
+        List<User> merged = read(out);
+        assertEquals(3, merged.size());
+        assertEquals(5L, merged.get(0).getId());
+        assertNull(merged.get(2).getId());
+    }
+
+    @Test
+    @DisplayName("Un archivo mal formado hace fallar la fusión con IOException")
+    void testSort_MalformedInput() throws IOException {
+        // Given
+        Path bad = Files.writeString(tempDir.resolve("bad.csv"), CsvUserWriter.HEADER + "\nx,Mal,,,,,,\n");
+
+        // When & Then
+        assertThrows(IOException.class, () -> new ExternalUserSorter(pool, 10, 4)
+                .sort(List.of(bad), this::open, tempDir.resolve("tmp"), UserRecordWriters.open(UserFormat.CSV, OutputStream.nullOutputStream())));
+    }
+
+    private UserRecordReader open(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        UserRecordReader reader = UserRecordReaders.open(UserFormat.fromPath(path), in);
+        return new UserRecordReader() {
+            @Override
+            public User read() throws IOException {
+                return reader.read();
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+                in.close();
+            }
+        };
+    }
+
+    private Path write(UserFormat format, String name, List<User> users) throws IOException {
+        Path file = tempDir.resolve(name);
+        try (OutputStream out = Files.newOutputStream(file);
+             UserRecordWriter writer = UserRecordWriters.open(format, out)) {
+            for (User user : users) {
+                writer.write(user);
+            }
+        }
+        return file;
+    }
+
+    private List<User> read(Path file) throws IOException {
+        List<User> users = new ArrayList<>();
+        try (UserRecordReader reader = open(file)) {
+            for (User user = reader.read(); user != null; user = reader.read()) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    private static User user(Long id, String name, LocalDateTime updatedAt) {
+        User user = new User(id, name, "user" + id + "@test.com", "IT", "Dev");
+        user.setUpdatedAt(updatedAt);
+        return user;
+    }
+}
@@ -0,0 +1,114 @@
+package com.dam.accesodatos.ra1.records;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Microbenchmark de IsoDateTimes frente a LocalDateTime.parse y DateTimeFormatter.
+ * No se ejecuta con test: usar {@code gradle benchmark}. Imprime ns por operación
+ * tras calentar el JIT; sin JMH, los números sirven para comparar, no como valor absoluto.
+ */
+@Tag("benchmark")
+class IsoDateTimesBenchmark {
+
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final int DATES = 4_096;
+    private static final int ROUNDS = 200;
+
+    @Test
+    @DisplayName("Lectura: IsoDateTimes.parse frente a LocalDateTime.parse")
+    void benchmarkParse() {
+        // Given
+        String[] texts = new String[DATES];
+        char[][] chars = new char[DATES][];
+        Random random = new Random(1);
+        for (int i = 0; i < DATES; i++) {
+            texts[i] = ISO.format(randomDate(random));
+            chars[i] = texts[i].toCharArray();
+        }
+
+        // When
+        long jdk = measure("LocalDateTime.parse", () -> {
+            long sink = 0;
+            for (String text : texts) {
+                sink += LocalDateTime.parse(text).getNano();
+            }
+            return sink;
+        });
+        long custom = measure("IsoDateTimes.parse", () -> {
+            long sink = 0;
+            for (char[] text : chars) {
+                sink += IsoDateTimes.parse(text, 0, text.length).getNano();
+            }
+            return sink;
+        });
+
+        // Then
+        System.out.printf("parse: %.1fx más rápido%n", (double) jdk / custom);
+        for (int i = 0; i < DATES; i++) {
+            assertEquals(LocalDateTime.parse(texts[i]), IsoDateTimes.parse(chars[i], 0, chars[i].length));
+        }
+    }
+
+    @Test
+    @DisplayName("Escritura: IsoDateTimes.format frente a ISO_LOCAL_DATE_TIME.format")
+    void benchmarkFormat() {
+        // Given
+        LocalDateTime[] dates = new LocalDateTime[DATES];
+        Random random = new Random(2);
+        for (int i = 0; i < DATES; i++) {
+            dates[i] = randomDate(random);
+        }
+        char[] buffer = new char[IsoDateTimes.MAX_LENGTH];
+
+        // When
+        long jdk = measure("DateTimeFormatter.format", () -> {
+            long sink = 0;
+            for (LocalDateTime date : dates) {
+                sink += ISO.format(date).length();
+            }
+            return sink;
+        });
+        long custom = measure("IsoDateTimes.format", () -> {
+            long sink = 0;
+            for (LocalDateTime date : dates) {
+                sink += IsoDateTimes.format(date, buffer, 0);
+            }
+            return sink;
+        });
+
+        // Then
+        System.out.printf("format: %.1fx más rápido%n", (double) jdk / custom);
+        assertTrue(custom > 0 && jdk > 0);
+    }
+
+    /**
+     * @return Nanosegundos de la mejor ronda tras la mitad de calentamiento
+     */
+    private static long measure(String name, java.util.function.LongSupplier round) {
+        long sink = 0;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            sink += round.getAsLong();
+            long elapsed = System.nanoTime() - start;
+            if (i >= ROUNDS / 2) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        System.out.printf("%-26s %6.1f ns/op (sink %d)%n", name, (double) best / DATES, sink);
+        return best;
+    }
+
+    private static LocalDateTime randomDate(Random random) {
+        return LocalDateTime.of(2000 + random.nextInt(30), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1_000_000) * 1_000);
+    }
+}
@@ -0,0 +1,70 @@
+package com.dam.accesodatos.ra1.records;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del formato de fechas sin DateTimeFormatter usado por lectores y escritores
+ */
+class IsoDateTimesTest {
+
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    @Test
+    @DisplayName("Escribe y lee exactamente lo mismo que ISO_LOCAL_DATE_TIME")
+    void testFormatAndParse_MatchIsoFormatter() {
+        // Given - fechas al azar con todas las precisiones de nanosegundos
+        Random random = new Random(7);
+        char[] buffer = new char[IsoDateTimes.MAX_LENGTH + 4];
+        int[] precisions = {1, 10, 1_000, 1_000_000, 100_000_000, 1_000_000_000};
+
+        for (int i = 0; i < 10_000; i++) {
+            LocalDateTime date = LocalDateTime.of(random.nextInt(10_000), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                    random.nextInt(24), random.nextInt(60), random.nextInt(60),
+                    random.nextInt(1_000_000_000) / precisions[i % precisions.length] * precisions[i % precisions.length]);
+
+            // When
+            int length = IsoDateTimes.format(date, buffer, 2);
+            LocalDateTime parsed = IsoDateTimes.parse(buffer, 2, length);
+
+            // Then
+            assertEquals(ISO.format(date), new String(buffer, 2, length));
+            assertEquals(date, parsed);
+        }
+    }
+
+    @Test
+    @DisplayName("Acepta minutos sin segundos, 't' minúscula, espacios y años fuera del formato fijo")
+    void testParse_Variants() {
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4), parse("2024-01-02T03:04"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), parse(" 2024-01-02t03:04:05\n"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 100_000_000), parse("2024-01-02T03:04:05.1"));
+        assertEquals(LocalDateTime.of(12_345, 1, 2, 3, 4, 5), parse("+12345-01-02T03:04:05"));
+
+        LocalDateTime future = LocalDateTime.of(12_345, 6, 7, 8, 9);
+        char[] buffer = new char[IsoDateTimes.MAX_LENGTH];
+        assertEquals(ISO.format(future), new String(buffer, 0, IsoDateTimes.format(future, buffer, 0)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2024-13-01T00:00", "2024-02-30T00:00", "2024-01-01T24:00", "2024-01-01",
+            "2024-01-01T00:00:00.1234567890", "2024/01/01T00:00", "x"})
+    @DisplayName("Rechaza con DateTimeException lo mismo que LocalDateTime.parse")
+    void testParse_Invalid(String text) {
+        assertThrows(DateTimeException.class, () -> LocalDateTime.parse(text));
+        assertThrows(DateTimeException.class, () -> parse(text));
+    }
+
+    private static LocalDateTime parse(String text) {
+        return IsoDateTimes.parse(text.toCharArray(), 0, text.length());
+    }
+}
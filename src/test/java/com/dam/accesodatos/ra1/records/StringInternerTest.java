@@ -0,0 +1,53 @@
+package com.dam.accesodatos.ra1.records;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del diccionario de cadenas usado por los lectores de usuarios
+ */
+class StringInternerTest {
+
+    @Test
+    @DisplayName("El mismo contenido devuelve la misma instancia desde char[] y CharSequence")
+    void testIntern_SameInstance() {
+        // Given
+        StringInterner interner = new StringInterner();
+        char[] buffer = "xxITxxHRxx".toCharArray();
+
+        // When
+        String first = interner.intern(buffer, 2, 2);
+        String second = interner.intern(new StringBuilder("IT"));
+        String other = interner.intern(buffer, 6, 2);
+
+        // Then
+        assertEquals("IT", first);
+        assertSame(first, second);
+        assertEquals("HR", other);
+        assertEquals(2, interner.size());
+        assertSame(other, interner.intern("HR"));
+    }
+
+    @Test
+    @DisplayName("Los valores largos y los que llegan con la tabla llena no se guardan")
+    void testIntern_Bounded() {
+        // Given
+        StringInterner interner = new StringInterner(8);
+        String longValue = "x".repeat(StringInterner.MAX_LENGTH + 1);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            assertEquals("valor" + i, interner.intern("valor" + i));
+        }
+        String first = interner.intern(new StringBuilder(longValue));
+        String second = interner.intern(new StringBuilder(longValue));
+
+        // Then
+        assertEquals(8, interner.size());
+        assertEquals(longValue, first);
+        assertNotSame(first, second);
+        assertSame(interner.intern("valor0"), interner.intern(new StringBuilder("valor0")));
+    }
+}
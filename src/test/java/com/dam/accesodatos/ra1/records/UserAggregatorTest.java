@@ -0,0 +1,136 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del agregado en streaming de aggregate_users
+ */
+class UserAggregatorTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @TempDir
+    Path tempDir;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Los trozos paralelos de un CSV dan las mismas estadísticas que la pasada secuencial")
+    void testCsv_ParallelMatchesSequential() throws IOException {
+        // Given
+        Path file = write("users.csv", UserFormat.CSV, 3000, false);
+        UserAggregator aggregator = new UserAggregator(pool, 1024);
+
+        // When
+        UserAggregator.Statistics parallel = aggregator.aggregate(file, UserFormat.CSV);
+        UserAggregator.Statistics sequential = sequential(aggregator, file, UserFormat.CSV);
+
+        // Then
+        assertTrue(parallel.getChunks() > 1);
+        assertEquals(3000, parallel.getTotal());
+        assertSameStatistics(sequential, parallel);
+        assertEquals(1000, parallel.getByDepartment().get("IT"));
+        assertEquals(2000, parallel.getActive());
+        assertEquals(1000, parallel.getInactive());
+        assertEquals(BASE, parallel.getCreatedAtMin());
+        assertEquals(BASE.plusMinutes(2999), parallel.getCreatedAtMax());
+    }
+
+    @Test
+    @DisplayName("Un corte dentro de un campo entre comillas con saltos de línea repite la pasada en secuencia")
+    void testCsv_QuotedNewlinesFallBack() throws IOException {
+        // Given: nombres de varias líneas, así que muchos cortes caen dentro de comillas
+        Path file = write("multiline.csv", UserFormat.CSV, 2000, true);
+        UserAggregator aggregator = new UserAggregator(pool, 512);
+
+        // When
+        UserAggregator.Statistics statistics = aggregator.aggregate(file, UserFormat.CSV);
+
+        // Then
+        assertEquals(1, statistics.getChunks());
+        assertEquals(2000, statistics.getTotal());
+        assertSameStatistics(sequential(aggregator, file, UserFormat.CSV), statistics);
+    }
+
+    @Test
+    @DisplayName("NDJSON en paralelo cuenta los valores nulos aparte y combina el rango de fechas")
+    void testNdjson_NullsAndDateRange() throws IOException {
+        // Given
+        Path file = tempDir.resolve("users.ndjson");
+        try (OutputStream out = Files.newOutputStream(file);
+             UserRecordWriter writer = UserRecordWriters.open(UserFormat.NDJSON, out)) {
+            for (int i = 0; i < 2000; i++) {
+                writer.write(User.of((long) i, "Usuario " + i, "u" + i + "@test.com",
+                        i % 10 == 0 ? null : "IT", "Dev", i % 4 == 0 ? null : Boolean.TRUE,
+                        BASE.minusDays(i), i == 1500 ? BASE.plusYears(1) : null));
+            }
+        }
+        UserAggregator aggregator = new UserAggregator(pool, 4096);
+
+        // When
+        UserAggregator.Statistics statistics = aggregator.aggregate(file, UserFormat.NDJSON);
+
+        // Then
+        assertTrue(statistics.getChunks() > 1);
+        assertEquals(200, statistics.getByDepartment().get(""));
+        assertEquals(1800, statistics.getByDepartment().get("IT"));
+        assertEquals(500, statistics.getActiveUnknown());
+        assertEquals(BASE.minusDays(1999), statistics.getCreatedAtMin());
+        assertEquals(BASE, statistics.getCreatedAtMax());
+        assertEquals(BASE.plusYears(1), statistics.getUpdatedAtMin());
+        assertEquals(BASE.plusYears(1), statistics.getUpdatedAtMax());
+        assertThrows(IllegalArgumentException.class, () -> aggregator.aggregate(file, UserFormat.XML));
+    }
+
+    private Path write(String name, UserFormat format, int count, boolean multiline) throws IOException {
+        Path file = tempDir.resolve(name);
+        String[] departments = {"IT", "HR", "Ventas"};
+        try (OutputStream out = Files.newOutputStream(file);
+             UserRecordWriter writer = UserRecordWriters.open(format, out)) {
+            for (int i = 0; i < count; i++) {
+                String userName = multiline ? "Usuario\n" + i + "\n\"apodo\"\n" + "x".repeat(i % 50) : "Usuario " + i;
+                writer.write(User.of((long) i, userName, "u" + i + "@test.com", departments[i % 3],
+                        i % 2 == 0 ? "Dev" : "Admin", i % 3 != 2, BASE.plusMinutes(i), BASE.plusMinutes(i)));
+            }
+        }
+        return file;
+    }
+
+    private static UserAggregator.Statistics sequential(UserAggregator aggregator, Path file, UserFormat format)
+            throws IOException {
+        try (var in = Files.newInputStream(file); UserRecordReader reader = UserRecordReaders.open(format, in)) {
+            return aggregator.aggregate(reader);
+        }
+    }
+
+    private static void assertSameStatistics(UserAggregator.Statistics expected, UserAggregator.Statistics actual) {
+        assertEquals(expected.getTotal(), actual.getTotal());
+        assertEquals(expected.getByDepartment(), actual.getByDepartment());
+        assertEquals(expected.getByRole(), actual.getByRole());
+        assertEquals(expected.getActive(), actual.getActive());
+        assertEquals(expected.getInactive(), actual.getInactive());
+        assertEquals(expected.getActiveUnknown(), actual.getActiveUnknown());
+        assertEquals(expected.getCreatedAtMin(), actual.getCreatedAtMin());
+        assertEquals(expected.getCreatedAtMax(), actual.getCreatedAtMax());
+        assertEquals(expected.getUpdatedAtMin(), actual.getUpdatedAtMin());
+        assertEquals(expected.getUpdatedAtMax(), actual.getUpdatedAtMax());
+    }
+}
@@ -0,0 +1,108 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bytes asignados por usuario al construirlo con new User() + setters frente a User.of,
+ * y al leer un CSV completo. Medido con ThreadMXBean del hilo actual.
+ * No se ejecuta con test: usar {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class UserConstructionBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final LocalDateTime DATE = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    @DisplayName("User.of asigna menos por fila que el constructor con valores por defecto")
+    void benchmarkConstruction() {
+        User[] sink = new User[ROWS];
+
+        // Calentamiento de ambos caminos
+        for (int round = 0; round < 5; round++) {
+            constructWithDefaults(sink);
+            constructWithFactory(sink);
+        }
+
+        // When
+        double withDefaults = bytesPerRow(() -> constructWithDefaults(sink));
+        double withFactory = bytesPerRow(() -> constructWithFactory(sink));
+
+        // Then
+        System.out.printf("new User() + setters: %6.1f bytes/fila%n", withDefaults);
+        System.out.printf("User.of:              %6.1f bytes/fila%n", withFactory);
+        assertTrue(withFactory < withDefaults, "User.of no debe asignar más que el constructor con valores por defecto");
+    }
+
+    @Test
+    @DisplayName("Bytes asignados por fila al leer un CSV")
+    void benchmarkCsvRead() throws IOException {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (UserRecordWriter writer = UserRecordWriters.open(UserFormat.CSV, out)) {
+            for (long id = 0; id < ROWS; id++) {
+                writer.write(User.of(id, "Usuario " + id, "user" + id + "@test.com", id % 2 == 0 ? "IT" : "HR", "Dev",
+                        true, DATE, DATE));
+            }
+        }
+        byte[] csv = out.toByteArray();
+        for (int round = 0; round < 3; round++) {
+            readAll(csv);
+        }
+
+        // When
+        long start = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long count = readAll(csv);
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+
+        // Then
+        System.out.printf("Lectura CSV:          %6.1f bytes/fila%n", (double) allocated / count);
+        assertEquals(ROWS, count);
+    }
+
+    private static void constructWithDefaults(User[] sink) {
+        for (int i = 0; i < sink.length; i++) {
+            User user = new User((long) i, "Usuario", "user@test.com", "IT", "Dev");
+            user.setActive(true);
+            user.setCreatedAt(DATE);
+            user.setUpdatedAt(DATE);
+            sink[i] = user;
+        }
+    }
+
+    private static void constructWithFactory(User[] sink) {
+        for (int i = 0; i < sink.length; i++) {
+            sink[i] = User.of((long) i, "Usuario", "user@test.com", "IT", "Dev", true, DATE, DATE);
+        }
+    }
+
+    private double bytesPerRow(Runnable round) {
+        long start = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        round.run();
+        return (double) (threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - start) / ROWS;
+    }
+
+    private static long readAll(byte[] csv) throws IOException {
+        long count = 0;
+        try (UserRecordReader reader = UserRecordReaders.open(UserFormat.CSV, new ByteArrayInputStream(csv))) {
+            while (reader.read() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,175 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del conversor en streaming usado por convert_user_file
+ */
+class UserFileConverterTest {
+
+    @Test
+    @DisplayName("Convierte CSV a XML y el resultado se vuelve a leer completo")
+    void testConvert_CsvToXml() throws IOException {
+        // Given
+        StringBuilder csv = new StringBuilder(CsvUserWriter.HEADER).append('\n');
+        for (int i = 0; i < 5_000; i++) {
+            csv.append(i).append(",Usuario ").append(i).append(",user").append(i)
+                    .append("@test.com,IT,Dev,true,2024-01-01T10:00:00,2024-01-01T10:00:00\n");
+        }
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+
+        // When
+        long converted;
+        try (UserRecordReader reader = new CsvUserReader(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+             UserRecordWriter writer = new XmlUserWriter(xml)) {
+            converted = new UserFileConverter(100, 2).convert(reader, writer);
+        }
+
+        // Then
+        assertEquals(5_000, converted);
+        long read = 0;
+        try (UserRecordReader reader = new XmlUserReader(new ByteArrayInputStream(xml.toByteArray()))) {
+            User last = null;
+            for (User user = reader.read(); user != null; user = reader.read()) {
+                last = user;
+                read++;
+            }
+            assertEquals("user4999@test.com", last.getEmail());
+        }
+        assertEquals(5_000, read);
+    }
+
+    @Test
+    @DisplayName("La cola acotada frena al lector cuando el escritor va lento")
+    void testConvert_BackpressureBoundsQueue() throws IOException {
+        // Given - el lector produce sin fin hasta que se le detiene
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        int batchSize = 10;
+        int capacity = 2;
+        UserRecordReader reader = readerOf(produced, 10_000);
+        UserRecordWriter writer = new UserRecordWriter() {
+            @Override
+            public void write(User user) throws IOException {
+                // Como mucho: lote en escritura + cola llena + lote que el lector está llenando
+                int maxAhead = (capacity + 2) * batchSize;
+                assertTrue(produced.get() - written.get() <= maxAhead,
+                        "Lector adelantado " + (produced.get() - written.get()));
+                written.incrementAndGet();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        // When
+        long converted = new UserFileConverter(batchSize, capacity).convert(reader, writer);
+
+        // Then
+        assertEquals(10_000, converted);
+    }
+
+    @Test
+    @DisplayName("Un error del escritor detiene al lector y se propaga")
+    void testConvert_WriterFailureStopsParser() {
+        // Given
+        AtomicInteger produced = new AtomicInteger();
+        UserRecordReader reader = readerOf(produced, Integer.MAX_VALUE);
+        UserRecordWriter writer = new UserRecordWriter() {
+            @Override
+            public void write(User user) throws IOException {
+                throw new IOException("disco lleno");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        // When & Then
+        IOException e = assertThrows(IOException.class, () -> new UserFileConverter(10, 2).convert(reader, writer));
+        assertEquals("disco lleno", e.getMessage());
+        assertTrue(produced.get() < 100);
+    }
+
+    @Test
+    @DisplayName("Un error del lector se propaga tras escribir lo ya leído")
+    void testConvert_ReaderFailurePropagates() throws IOException {
+        // Given
+        UserRecordReader reader = new CsvUserReader(new ByteArrayInputStream(
+                (CsvUserWriter.HEADER + "\n1,Ana,a@x.com,IT,Dev,true,,\nx,Bad,b@x.com,IT,Dev,true,,\n").getBytes(StandardCharsets.UTF_8)));
+        AtomicInteger written = new AtomicInteger();
+        UserRecordWriter writer = new UserRecordWriter() {
+            @Override
+            public void write(User user) {
+                written.incrementAndGet();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        // When & Then
+        assertThrows(IOException.class, () -> new UserFileConverter(1, 1).convert(reader, writer));
+        assertEquals(1, written.get());
+    }
+
+    @Test
+    @DisplayName("Un Error del lector llega al escritor en vez de dejarlo esperando")
+    void testConvert_ReaderErrorDoesNotHangWriter() {
+        // Given
+        UserRecordReader reader = new UserRecordReader() {
+            @Override
+            public User read() {
+                throw new AssertionError("fallo interno");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        UserRecordWriter writer = new UserRecordWriter() {
+            @Override
+            public void write(User user) {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        // When & Then
+        AssertionError e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(AssertionError.class, () -> new UserFileConverter(10, 2).convert(reader, writer)));
+        assertEquals("fallo interno", e.getMessage());
+    }
+
+    private static UserRecordReader readerOf(AtomicInteger produced, int total) {
+        return new UserRecordReader() {
+            @Override
+            public User read() {
+                if (produced.get() >= total) {
+                    return null;
+                }
+                int id = produced.incrementAndGet();
+                return new User((long) id, "Usuario " + id, "user" + id + "@test.com", "IT", "Dev");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,174 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de las diferencias por id usadas por diff_user_files
+ */
+class UserFileDiffTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Detecta añadidos, eliminados y cambios campo a campo entre CSV y JSON")
+    void testDiff_AddedRemovedChanged() throws IOException {
+        // Given - 1 igual, 2 eliminado, 3 cambia email y active, 4 añadido
+        Path left = write(UserFormat.CSV, "old.csv", List.of(
+                user(1L, "uno@test.com", true), user(2L, "dos@test.com", true), user(3L, "tres@test.com", true)));
+        User changed = user(3L, "tres@nuevo.com", false);
+        Path right = write(UserFormat.JSON, "new.json", List.of(
+                user(4L, "cuatro@test.com", true), changed, user(1L, "uno@test.com", true)));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        UserFileDiff.Result result = new UserFileDiff().diff(left, right, this::open, tempDir.resolve("tmp"), out);
+
+        // Then
+        assertEquals(3, result.getLeftUsers());
+        assertEquals(3, result.getRightUsers());
+        assertEquals(1, result.getAdded());
+        assertEquals(1, result.getRemoved());
+        assertEquals(1, result.getChanged());
+        assertEquals(1, result.getUnchanged());
+
+        Map<Long, JsonNode> lines = lines(out);
+        assertEquals(3, lines.size());
+        assertEquals("added", lines.get(4L).get("op").asText());
+        assertEquals("cuatro@test.com", lines.get(4L).get("user").get("email").asText());
+        assertEquals("removed", lines.get(2L).get("op").asText());
+
+        JsonNode changes = lines.get(3L).get("changes");
+        assertEquals("changed", lines.get(3L).get("op").asText());
+        assertEquals(2, changes.size(), "Solo deben aparecer los campos que cambian");
+        assertEquals("tres@test.com", changes.get("email").get("old").asText());
+        assertEquals("tres@nuevo.com", changes.get("email").get("new").asText());
+        assertTrue(changes.get("active").get("old").asBoolean());
+        assertFalse(changes.get("active").get("new").asBoolean());
+        try (var leftovers = Files.list(tempDir.resolve("tmp"))) {
+            assertEquals(0, leftovers.count(), "El temporal de cambios debe borrarse");
+        }
+    }
+
+    @Test
+    @DisplayName("Old y new no se invierten cuando la tabla se construye con el archivo derecho")
+    void testDiff_BuildsWithSmallerSide() throws IOException {
+        // Given - el archivo izquierdo es el mayor
+        List<User> many = new ArrayList<>();
+        for (long id = 0; id < 2_000; id++) {
+            many.add(user(id, "user" + id + "@test.com", true));
+        }
+        Path left = write(UserFormat.CSV, "old.csv", many);
+        Path right = write(UserFormat.CSV, "new.csv", List.of(
+                user(7L, "siete@nuevo.com", true), user(5_000L, "nuevo@test.com", true)));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        UserFileDiff.Result result = new UserFileDiff().diff(left, right, this::open, tempDir.resolve("tmp"), out);
+
+        // Then
+        assertEquals("right", result.getBuildSide());
+        assertEquals(1, result.getAdded());
+        assertEquals(1_999, result.getRemoved());
+        assertEquals(1, result.getChanged());
+        assertEquals(0, result.getUnchanged());
+
+        Map<Long, JsonNode> lines = lines(out);
+        assertEquals("added", lines.get(5_000L).get("op").asText());
+        assertEquals("removed", lines.get(0L).get("op").asText());
+        JsonNode email = lines.get(7L).get("changes").get("email");
+        assertEquals("user7@test.com", email.get("old").asText());
+        assertEquals("siete@nuevo.com", email.get("new").asText());
+    }
+
+    @Test
+    @DisplayName("Los ids repetidos y los usuarios sin id se cuentan y no se comparan")
+    void testDiff_DuplicatesAndNullIds() throws IOException {
+        // Given
+        Path left = write(UserFormat.CSV, "old.csv", List.of(
+                user(1L, "uno@test.com", true), user(1L, "otro@test.com", true), user(null, "sin@test.com", true)));
+        Path right = write(UserFormat.CSV, "new.csv", List.of(
+                user(1L, "uno@test.com", true), user(1L, "uno@test.com", true)));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        UserFileDiff.Result result = new UserFileDiff().diff(left, right, this::open, tempDir.resolve("tmp"), out);
+
+        // Then - se compara solo la primera aparición de cada id
+        assertEquals(1, result.getUnchanged());
+        assertEquals(2, result.getDuplicateIds());
+        assertEquals(1, result.getWithoutId());
+        assertEquals(0, out.size());
+    }
+
+    private Map<Long, JsonNode> lines(ByteArrayOutputStream out) throws IOException {
+        Map<Long, JsonNode> lines = new HashMap<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                JsonNode node = mapper.readTree(line);
+                lines.put(node.get("id").asLong(), node);
+            }
+        }
+        return lines;
+    }
+
+    private UserRecordReader open(Path path) throws IOException {
+        InputStream in = Files.newInputStream(path);
+        UserRecordReader reader = UserRecordReaders.open(UserFormat.fromPath(path), in);
+        return new UserRecordReader() {
+            @Override
+            public User read() throws IOException {
+                return reader.read();
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+                in.close();
+            }
+        };
+    }
+
+    private Path write(UserFormat format, String name, List<User> users) throws IOException {
+        Path file = tempDir.resolve(name);
+        try (OutputStream out = Files.newOutputStream(file);
+             UserRecordWriter writer = UserRecordWriters.open(format, out)) {
+            for (User user : users) {
+                writer.write(user);
+            }
+        }
+        return file;
+    }
+
+    private static User user(Long id, String email, boolean active) {
+        User user = new User(id, "Usuario " + id, email, "IT", "Dev");
+        user.setActive(active);
+        user.setCreatedAt(DATE);
+        user.setUpdatedAt(DATE);
+        return user;
+    }
+}
@@ -0,0 +1,76 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tiempo de lectura por usuario con todos los campos frente a la proyección id + email,
+ * para cada formato. No se ejecuta con test: usar {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class UserProjectionBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int ROUNDS = 10;
+    private static final LocalDateTime DATE = LocalDateTime.of(2024, 1, 1, 10, 0, 30, 123_000_000);
+
+    @ParameterizedTest
+    @EnumSource(UserFormat.class)
+    @DisplayName("Leer solo id y email es más rápido que leer todos los campos")
+    void benchmarkProjection(UserFormat format) throws IOException {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (UserRecordWriter writer = UserRecordWriters.open(format, out)) {
+            for (long id = 0; id < ROWS; id++) {
+                writer.write(User.of(id, "Usuario número " + id, "user" + id + "@test.com", id % 2 == 0 ? "IT" : "HR",
+                        "Developer", true, DATE, DATE.plusSeconds(id)));
+            }
+        }
+        byte[] data = out.toByteArray();
+        Set<UserField> all = EnumSet.allOf(UserField.class);
+        Set<UserField> idAndEmail = EnumSet.of(UserField.ID, UserField.EMAIL);
+        for (int round = 0; round < ROUNDS; round++) {
+            readAll(format, data, all);
+            readAll(format, data, idAndEmail);
+        }
+
+        // When
+        double full = nanosPerRow(format, data, all);
+        double projected = nanosPerRow(format, data, idAndEmail);
+
+        // Then
+        System.out.printf("%-6s todos los campos: %6.0f ns/usuario, id + email: %6.0f ns/usuario%n",
+                format, full, projected);
+        assertTrue(projected < full, "La proyección no debe ser más lenta que leer todos los campos");
+    }
+
+    private static double nanosPerRow(UserFormat format, byte[] data, Set<UserField> fields) throws IOException {
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            assertEquals(ROWS, readAll(format, data, fields));
+        }
+        return (double) (System.nanoTime() - start) / ROUNDS / ROWS;
+    }
+
+    private static long readAll(UserFormat format, byte[] data, Set<UserField> fields) throws IOException {
+        long count = 0;
+        try (UserRecordReader reader = UserRecordReaders.open(format, new ByteArrayInputStream(data), fields)) {
+            while (reader.read() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,197 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de los lectores de usuarios en streaming (CSV, JSON, NDJSON, XML)
+ */
+class UserRecordReadersTest {
+
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        User first = new User(1L, "Juan Pérez", "juan@example.com", "IT", "Developer");
+        first.setCreatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        first.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 10, 30));
+        User second = new User(2L, "García, María \"Mari\"\nsegunda línea", "maria@example.com", "HR", "Manager");
+        second.setActive(false);
+        second.setCreatedAt(LocalDateTime.of(2024, 1, 2, 11, 0));
+        second.setUpdatedAt(LocalDateTime.of(2024, 1, 2, 11, 0));
+        users = List.of(first, second);
+    }
+
+    @ParameterizedTest
+    @EnumSource(UserFormat.class)
+    @DisplayName("Lo que escribe cada escritor se lee con todos sus campos")
+    void testRoundTrip(UserFormat format) throws IOException {
+        // When
+        List<User> read = read(format, write(format));
+
+        // Then
+        assertEquals(2, read.size());
+        for (int i = 0; i < users.size(); i++) {
+            User expected = users.get(i);
+            User actual = read.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getEmail(), actual.getEmail());
+            assertEquals(expected.getDepartment(), actual.getDepartment());
+            assertEquals(expected.getRole(), actual.getRole());
+            assertEquals(expected.getActive(), actual.getActive());
+            assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+            assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(UserFormat.class)
+    @DisplayName("department y role repetidos comparten la misma instancia de String")
+    void testRepeatedValues_Interned(UserFormat format) throws IOException {
+        // Given
+        List<User> many = new ArrayList<>();
+        for (long id = 0; id < 100; id++) {
+            many.add(new User(id, "Usuario " + id, "user" + id + "@example.com", id % 2 == 0 ? "IT" : "HR", "Developer"));
+        }
+        users = many;
+
+        // When
+        List<User> read = read(format, write(format));
+
+        // Then
+        assertEquals(100, read.size());
+        assertSame(read.get(0).getDepartment(), read.get(98).getDepartment());
+        assertSame(read.get(1).getDepartment(), read.get(99).getDepartment());
+        assertSame(read.get(0).getRole(), read.get(99).getRole());
+        assertEquals("HR", read.get(99).getDepartment());
+    }
+
+    @Test
+    @DisplayName("CSV: columnas por nombre de cabecera y campos ausentes a null")
+    void testCsv_ColumnsByHeader() throws IOException {
+        // Given - columnas reordenadas, sin fechas y con BOM
+        String csv = "\uFEFFemail,id,name\r\nana@example.com,7,Ana\r\n\r\n";
+
+        // When
+        List<User> read = read(UserFormat.CSV, csv.getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        assertEquals(1, read.size());
+        assertEquals(7L, read.get(0).getId());
+        assertEquals("Ana", read.get(0).getName());
+        assertEquals("ana@example.com", read.get(0).getEmail());
+        assertNull(read.get(0).getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("ObjectMapper usa el builder de User: conserva los valores leídos y rellena los ausentes")
+    void testObjectMapper_UsesCreator() throws IOException {
+        // Given
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+        // When
+        User full = mapper.readValue(write(UserFormat.NDJSON), User.class);
+        User partial = mapper.readValue("{\"id\":9,\"name\":\"Ana\"}", User.class);
+
+        // Then
+        assertEquals(users.get(0).getCreatedAt(), full.getCreatedAt());
+        assertEquals(users.get(0).getUpdatedAt(), full.getUpdatedAt());
+        assertEquals("IT", full.getDepartment());
+        assertEquals(9L, partial.getId());
+        assertTrue(partial.getActive());
+        assertNotNull(partial.getCreatedAt());
+        assertEquals(partial.getCreatedAt(), partial.getUpdatedAt());
+    }
+
+    @Test
+    @DisplayName("ObjectMapper conserva los null explícitos de User y solo rellena las propiedades ausentes")
+    void testObjectMapper_KeepsExplicitNulls() throws IOException {
+        // Given
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+        // When
+        User user = mapper.readValue("{\"id\":1,\"active\":null,\"createdAt\":null}", User.class);
+
+        // Then
+        assertNull(user.getActive());
+        assertNull(user.getCreatedAt());
+        assertNotNull(user.getUpdatedAt());
+    }
+
+    @ParameterizedTest
+    @EnumSource(UserFormat.class)
+    @DisplayName("Con proyección solo se leen los campos pedidos y el resto queda a null")
+    void testProjection_SkipsUnrequestedFields(UserFormat format) throws IOException {
+        // Given: el segundo nombre tiene comillas, coma y salto de línea que el CSV debe saltar
+        Set<UserField> projection = UserField.parse(List.of("id", "email"));
+
+        // When
+        List<User> read = new ArrayList<>();
+        try (UserRecordReader reader = UserRecordReaders.open(format, new ByteArrayInputStream(write(format)), projection)) {
+            User user;
+            while ((user = reader.read()) != null) {
+                read.add(user);
+            }
+        }
+
+        // Then
+        assertEquals(2, read.size());
+        for (int i = 0; i < users.size(); i++) {
+            User actual = read.get(i);
+            assertEquals(users.get(i).getId(), actual.getId());
+            assertEquals(users.get(i).getEmail(), actual.getEmail());
+            assertNull(actual.getName());
+            assertNull(actual.getDepartment());
+            assertNull(actual.getRole());
+            assertNull(actual.getActive());
+            assertNull(actual.getCreatedAt());
+            assertNull(actual.getUpdatedAt());
+            assertEquals(List.of("id", "email"), List.copyOf(UserField.project(actual, projection).keySet()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> UserField.parse(List.of("id", "password")));
+    }
+
+    @Test
+    @DisplayName("Un documento mal formado produce IOException")
+    void testMalformed_Throws() {
+        assertThrows(IOException.class, () -> read(UserFormat.CSV, "id,name\n\"sin cerrar,x\n".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class, () -> read(UserFormat.JSON, "[{\"id\": 1,".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class, () -> read(UserFormat.XML, "<users><user><id>x</id></user></users>".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private byte[] write(UserFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (UserRecordWriter writer = UserRecordWriters.open(format, out)) {
+            for (User user : users) {
+                writer.write(user);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static List<User> read(UserFormat format, byte[] data) throws IOException {
+        List<User> read = new ArrayList<>();
+        try (UserRecordReader reader = UserRecordReaders.open(format, new ByteArrayInputStream(data))) {
+            User user;
+            while ((user = reader.read()) != null) {
+                read.add(user);
+            }
+        }
+        return read;
+    }
+}
@@ -0,0 +1,110 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de los escritores de usuarios en streaming (CSV, JSON, NDJSON, XML)
+ */
+class UserRecordWritersTest {
+
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        User first = new User(1L, "Juan Pérez", "juan@example.com", "IT", "Developer");
+        first.setCreatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        first.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        User second = new User(2L, "García, María \"Mari\"", "maria@example.com", "HR", "Manager");
+        second.setCreatedAt(LocalDateTime.of(2024, 1, 2, 11, 0));
+        second.setUpdatedAt(LocalDateTime.of(2024, 1, 2, 11, 0));
+        users = List.of(first, second);
+    }
+
+    @Test
+    @DisplayName("CSV: cabecera estándar y campos con comas entrecomillados")
+    void testCsv_WritesHeaderAndQuotesFields() throws IOException {
+        // When
+        String csv = write(UserFormat.CSV);
+
+        // Then
+        String[] lines = csv.split("\n");
+        assertEquals(CsvUserWriter.HEADER, lines[0]);
+        assertEquals("1,Juan Pérez,juan@example.com,IT,Developer,true,2024-01-01T10:00:00,2024-01-01T10:00:00", lines[1]);
+        assertTrue(lines[2].startsWith("2,\"García, María \"\"Mari\"\"\",maria@example.com"));
+    }
+
+    @Test
+    @DisplayName("JSON: array de objetos legible por ObjectMapper")
+    void testJson_WritesArrayOfUsers() throws IOException {
+        // When
+        JsonNode root = new ObjectMapper().readTree(write(UserFormat.JSON));
+
+        // Then
+        assertTrue(root.isArray());
+        assertEquals(2, root.size());
+        assertEquals("Juan Pérez", root.get(0).get("name").asText());
+        assertEquals("2024-01-02T11:00:00", root.get(1).get("createdAt").asText());
+    }
+
+    @Test
+    @DisplayName("NDJSON: un objeto JSON completo por línea")
+    void testNdjson_WritesOneObjectPerLine() throws IOException {
+        // When
+        String ndjson = write(UserFormat.NDJSON);
+
+        // Then
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(ndjson.endsWith("\n"));
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(1L, mapper.readTree(lines[0]).get("id").asLong());
+        assertEquals("García, María \"Mari\"", mapper.readTree(lines[1]).get("name").asText());
+    }
+
+    @Test
+    @DisplayName("XML: raíz users con un elemento user por usuario")
+    void testXml_WritesUsersDocument() throws Exception {
+        // When
+        byte[] xml = write(UserFormat.XML).getBytes(StandardCharsets.UTF_8);
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(xml));
+
+        // Then
+        assertEquals("users", document.getDocumentElement().getNodeName());
+        assertEquals(2, document.getElementsByTagName("user").getLength());
+        assertEquals("García, María \"Mari\"", document.getElementsByTagName("name").item(1).getTextContent());
+    }
+
+    @Test
+    @DisplayName("UserFormat deduce el formato por la extensión")
+    void testUserFormat_FromPath() {
+        assertEquals(UserFormat.JSON, UserFormat.fromPath(java.nio.file.Paths.get("data/users.JSON")));
+        assertEquals(UserFormat.CSV, UserFormat.fromPath(java.nio.file.Paths.get("data/users.csv.gz")));
+        assertEquals(UserFormat.NDJSON, UserFormat.fromPath(java.nio.file.Paths.get("data/users.ndjson.bgz")));
+        assertThrows(IllegalArgumentException.class, () -> UserFormat.of("yaml"));
+    }
+
+    private String write(UserFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (UserRecordWriter writer = UserRecordWriters.open(format, out)) {
+            for (User user : users) {
+                writer.write(user);
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,114 @@
+package com.dam.accesodatos.ra1.records;
+
+import com.dam.accesodatos.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la tabla por columnas usada por query_users
+ */
+class UserTableTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Los usuarios reconstruidos conservan todos los campos, incluidos los nulos")
+    void testUser_RoundTrip() throws IOException {
+        // Given
+        User full = user(1L, "IT", "Dev", true);
+        full.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000));
+        User empty = User.of(null, "Sin datos", null, null, null, null, null, null);
+
+        // When
+        UserTable table = load(List.of(full, empty));
+
+        // Then
+        User first = table.user(0);
+        assertEquals(1L, first.getId());
+        assertEquals("Usuario 1", first.getName());
+        assertEquals("user1@test.com", first.getEmail());
+        assertEquals("IT", first.getDepartment());
+        assertEquals("Dev", first.getRole());
+        assertTrue(first.getActive());
+        assertEquals(full.getCreatedAt(), first.getCreatedAt());
+
+        User second = table.user(1);
+        assertNull(second.getId());
+        assertNull(second.getDepartment());
+        assertNull(second.getActive());
+        assertNull(second.getCreatedAt());
+        assertNull(second.getUpdatedAt());
+    }
+
+    @Test
+    @DisplayName("select combina filtros sobre los códigos de diccionario")
+    void testSelect_CombinesFilters() throws IOException {
+        // Given
+        UserTable table = load(List.of(
+                user(1L, "IT", "Dev", true), user(2L, "IT", "Admin", false), user(3L, "HR", "Dev", true),
+                user(4L, "IT", "Dev", false), user(5L, null, "Dev", true)));
+
+        // When & Then
+        assertArrayEquals(new int[]{0, 3}, table.select("IT", "Dev", null));
+        assertArrayEquals(new int[]{0}, table.select("IT", "Dev", true));
+        assertArrayEquals(new int[]{0, 2, 4}, table.select(null, null, true));
+        assertEquals(0, table.select("Ventas", null, null).length);
+    }
+
+    @Test
+    @DisplayName("La caché reutiliza la tabla hasta que el archivo cambia")
+    void testCache_ReloadsWhenModified() throws IOException {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("users.csv"), CsvUserWriter.HEADER + "\n1,Ana,ana@test.com,IT,Dev,true,,\n");
+        UserTableCache cache = new UserTableCache(2);
+        AtomicInteger loads = new AtomicInteger();
+        UserTableCache.Loader loader = path -> {
+            loads.incrementAndGet();
+            try (var in = Files.newInputStream(path); UserRecordReader reader = UserRecordReaders.open(UserFormat.CSV, in)) {
+                return UserTable.load(reader);
+            }
+        };
+
+        // When
+        UserTable first = cache.get(file, loader);
+        UserTable second = cache.get(file, loader);
+        Files.writeString(file, CsvUserWriter.HEADER + "\n1,Ana,ana@test.com,IT,Dev,true,,\n2,Luis,luis@test.com,HR,Dev,true,,\n");
+        UserTable third = cache.get(file, loader);
+
+        // Then
+        assertSame(first, second);
+        assertEquals(2, loads.get());
+        assertEquals(2, third.size());
+    }
+
+    private UserTable load(List<User> users) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (UserRecordWriter writer = UserRecordWriters.open(UserFormat.NDJSON, out)) {
+            for (User user : users) {
+                writer.write(user);
+            }
+        }
+        try (UserRecordReader reader = UserRecordReaders.open(UserFormat.NDJSON, new ByteArrayInputStream(out.toByteArray()))) {
+            return UserTable.load(reader);
+        }
+    }
+
+    private static User user(Long id, String department, String role, boolean active) {
+        User user = new User(id, "Usuario " + id, "user" + id + "@test.com", department, role);
+        user.setActive(active);
+        return user;
+    }
+}
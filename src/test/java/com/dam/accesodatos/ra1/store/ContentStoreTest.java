@@ -0,0 +1,166 @@
+package com.dam.accesodatos.ra1.store;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del almacén deduplicado usado por export_users_dedup
+ */
+class ContentStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ContentStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ContentStore(tempDir.resolve("cas"), 1024);
+    }
+
+    @Test
+    @DisplayName("El manifiesto reconstruye el contenido y repetirlo no escribe fragmentos")
+    void testStore_RoundTripAndDedupe() throws IOException {
+        // Given
+        byte[] content = csv(0, 5_000).getBytes(StandardCharsets.UTF_8);
+
+        // When
+        ContentStore.StoreResult first = store(tempDir.resolve("users.csv"), content);
+        ContentStore.StoreResult second = store(tempDir.resolve("users_copy.csv"), content);
+        ByteArrayOutputStream restored = new ByteArrayOutputStream();
+        long bytes = store.restore(tempDir.resolve("users_copy.csv"), restored);
+
+        // Then
+        assertEquals(content.length, first.getTotalBytes());
+        assertEquals(first.getChunks(), first.getNewChunks());
+        assertEquals(0, second.getNewChunks());
+        assertEquals(first.getSha256(), second.getSha256());
+        assertEquals(content.length, bytes);
+        assertArrayEquals(content, restored.toByteArray());
+        assertTrue(ContentStore.isManifest(tempDir.resolve("users.csv")));
+    }
+
+    @Test
+    @DisplayName("Insertar filas en medio solo añade los fragmentos que tocan el cambio")
+    void testStore_InsertReusesChunks() throws IOException {
+        // Given
+        String original = csv(0, 20_000);
+        int middle = original.indexOf("\n10000,") + 1;
+        String edited = original.substring(0, middle) + "99999,Nuevo,nuevo@test.com,IT,Dev\n" + original.substring(middle);
+
+        // When
+        store(tempDir.resolve("monday.csv"), original.getBytes(StandardCharsets.UTF_8));
+        ContentStore.StoreResult tuesday = store(tempDir.resolve("tuesday.csv"), edited.getBytes(StandardCharsets.UTF_8));
+
+        // Then - un desplazamiento no rompe los fragmentos posteriores
+        assertTrue(tuesday.getNewBytes() < tuesday.getTotalBytes() / 20,
+                "Bytes nuevos: " + tuesday.getNewBytes() + " de " + tuesday.getTotalBytes());
+        ByteArrayOutputStream restored = new ByteArrayOutputStream();
+        store.restore(tempDir.resolve("tuesday.csv"), restored);
+        assertEquals(edited, restored.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("open lee el contenido del manifiesto fragmento a fragmento")
+    void testOpen_StreamsManifestContent() throws IOException {
+        // Given
+        byte[] content = csv(0, 3_000).getBytes(StandardCharsets.UTF_8);
+        store(tempDir.resolve("users.csv"), content);
+
+        // When
+        byte[] read;
+        try (InputStream in = store.open(tempDir.resolve("users.csv"))) {
+            in.mark(16);
+            int first = in.read();
+            in.reset();
+            assertEquals(content[0], first);
+            read = in.readAllBytes();
+        }
+
+        // Then
+        assertArrayEquals(content, read);
+        Path plain = Files.writeString(tempDir.resolve("plain.csv"), "id,name\n");
+        assertThrows(IOException.class, () -> store.open(plain));
+    }
+
+    @Test
+    @DisplayName("Un fragmento corrupto se detecta al restaurar")
+    void testRestore_DetectsCorruption() throws IOException {
+        // Given
+        store(tempDir.resolve("users.csv"), csv(0, 100).getBytes(StandardCharsets.UTF_8));
+        List<String> lines = Files.readAllLines(tempDir.resolve("users.csv"));
+        Path chunk = store.chunkPath(lines.get(3).split(" ")[0]);
+        Files.write(chunk, new byte[]{1, 2, 3});
+
+        // When & Then
+        assertThrows(IOException.class, () -> store.restore(tempDir.resolve("users.csv"), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    @DisplayName("Un fragmento que quedó a medias se reescribe al volver a guardarlo")
+    void testStore_RewritesTornChunk() throws IOException {
+        // Given - un fragmento truncado, como tras una caída antes de llegar a disco
+        byte[] content = csv(0, 100).getBytes(StandardCharsets.UTF_8);
+        store(tempDir.resolve("users.csv"), content);
+        List<String> lines = Files.readAllLines(tempDir.resolve("users.csv"));
+        Path chunk = store.chunkPath(lines.get(3).split(" ")[0]);
+        Files.write(chunk, new byte[]{1, 2, 3});
+
+        // When
+        ContentStore.StoreResult again = store(tempDir.resolve("users_again.csv"), content);
+
+        // Then - solo se reescribe el dañado y ambos manifiestos vuelven a restaurarse
+        assertEquals(1, again.getNewChunks());
+        ByteArrayOutputStream restored = new ByteArrayOutputStream();
+        store.restore(tempDir.resolve("users.csv"), restored);
+        assertArrayEquals(content, restored.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Los cortes respetan los tamaños mínimo y máximo")
+    void testChunker_Bounds() {
+        // Given - bytes constantes: el hash nunca da corte natural
+        ContentDefinedChunker chunker = new ContentDefinedChunker(1024);
+        byte[] data = new byte[100_000];
+
+        // When
+        int first = chunker.findBoundary(data, 0, data.length);
+        byte[] text = csv(0, 1_000).getBytes(StandardCharsets.UTF_8);
+        chunker.reset();
+        int natural = chunker.findBoundary(text, 0, text.length);
+
+        // Then
+        assertEquals(chunker.getMaxSize(), first);
+        assertTrue(natural >= 256 && natural <= chunker.getMaxSize());
+        assertThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(1000));
+    }
+
+    private ContentStore.StoreResult store(Path target, byte[] content) throws IOException {
+        try (ContentStore.ManifestWriter writer = store.create(target, tempDir)) {
+            // Escrituras de tamaño irregular, como las de los escritores de registros
+            for (int offset = 0; offset < content.length; offset += 777) {
+                writer.stream().write(content, offset, Math.min(777, content.length - offset));
+            }
+            return writer.commit();
+        }
+    }
+
+    private static String csv(int from, int to) {
+        StringBuilder sb = new StringBuilder("id,name,email,department,role\n");
+        for (int i = from; i < to; i++) {
+            sb.append(i).append(",Usuario ").append(i).append(",user").append(i)
+                    .append("@test.com,").append(i % 3 == 0 ? "IT" : "HR").append(",Dev\n");
+        }
+        return sb.toString();
+    }
+}
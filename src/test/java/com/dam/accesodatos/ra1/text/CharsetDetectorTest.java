@@ -0,0 +1,114 @@
+package com.dam.accesodatos.ra1.text;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la detección de codificación usada por detect_file_encoding
+ */
+class CharsetDetectorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CharsetDetector detector = new CharsetDetector();
+
+    @Test
+    @DisplayName("El BOM determina la codificación y su longitud")
+    void testDetect_Bom() throws IOException {
+        // Given
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        Path utf8 = Files.write(tempDir.resolve("bom8.txt"), concat(bom, "año".getBytes(StandardCharsets.UTF_8)));
+        Path utf16 = Files.write(tempDir.resolve("bom16.txt"), "\uFEFFaño".getBytes(StandardCharsets.UTF_16LE));
+
+        // When
+        CharsetDetector.Detection first = detector.detect(utf8);
+        CharsetDetector.Detection second = detector.detect(utf16);
+
+        // Then
+        assertEquals("UTF-8", first.getCharset());
+        assertEquals(3, first.getBomLength());
+        assertEquals(CharsetDetector.Method.BOM, first.getMethod());
+        assertEquals("UTF-16LE", second.getCharset());
+        assertEquals(2, second.getBomLength());
+    }
+
+    @Test
+    @DisplayName("UTF-8 válido se detecta muestreando, sin leer el archivo entero")
+    void testDetect_Utf8BySampling() throws IOException {
+        // Given - archivo mucho mayor que las tres ventanas de muestra
+        Path file = Files.writeString(tempDir.resolve("users.csv"), "1,José Núñez,IT\n".repeat(50_000));
+
+        // When
+        CharsetDetector.Detection detection = detector.detect(file);
+
+        // Then
+        assertEquals("UTF-8", detection.getCharset());
+        assertEquals(CharsetDetector.Method.UTF8_VALID, detection.getMethod());
+        assertEquals(3 * CharsetDetector.WINDOW_SIZE, detection.getSampledBytes());
+    }
+
+    @Test
+    @DisplayName("Texto latino no UTF-8 se clasifica como ISO-8859-1 o Windows-1252")
+    void testDetect_LegacySingleByte() throws IOException {
+        // Given
+        Charset cp1252 = Charset.forName("windows-1252");
+        Path latin1 = Files.write(tempDir.resolve("latin1.txt"),
+                "Begoña, Ávila y Cádiz\n".repeat(100).getBytes(StandardCharsets.ISO_8859_1));
+        Path windows = Files.write(tempDir.resolve("cp1252.txt"),
+                "Precio “especial”: 10 € — Begoña\n".repeat(100).getBytes(cp1252));
+
+        // When / Then
+        assertEquals("ISO-8859-1", detector.detect(latin1).getCharset());
+        assertEquals("windows-1252", detector.detect(windows).getCharset());
+        assertEquals(CharsetDetector.Method.STATISTICAL, detector.detect(windows).getMethod());
+    }
+
+    @Test
+    @DisplayName("La caché se invalida cuando el archivo cambia")
+    void testDetect_CachePerFileIdentity() throws IOException {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("datos.txt"), "solo ascii");
+        detector.detect(file);
+
+        // When
+        detector.detect(file);
+        Files.write(file, "Begoña".getBytes(StandardCharsets.ISO_8859_1));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+        CharsetDetector.Detection changed = detector.detect(file);
+
+        // Then
+        assertEquals(1, detector.getHits());
+        assertEquals(2, detector.getMisses());
+        assertEquals("ISO-8859-1", changed.getCharset());
+    }
+
+    @Test
+    @DisplayName("La validación UTF-8 rechaza secuencias sobrelargas y admite ventanas cortadas")
+    void testCountUtf8Sequences() {
+        byte[] overlong = {(byte) 0xC0, (byte) 0xAF};
+        byte[] cut = "añ".getBytes(StandardCharsets.UTF_8);
+        byte[] truncated = {'a', cut[1]};
+
+        assertEquals(-1, CharsetDetector.countUtf8Sequences(overlong, false, false));
+        assertEquals(1, CharsetDetector.countUtf8Sequences(cut, false, false));
+        assertEquals(0, CharsetDetector.countUtf8Sequences(truncated, false, true));
+        assertEquals(-1, CharsetDetector.countUtf8Sequences(truncated, false, false));
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = new byte[a.length + b.length];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+package com.dam.accesodatos.ra1.text;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del conversor de codificación usado por transcode_file
+ */
+class CharsetTranscoderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Un archivo 100% ASCII se copia con transferTo sin decodificar")
+    void testTranscode_PureAsciiIsCopied() throws IOException {
+        // Given
+        Path source = Files.writeString(tempDir.resolve("ascii.csv"), "id,name\n1,Juan\n".repeat(1000));
+
+        // When
+        CharsetTranscoder.Result result = transcode(source, StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1);
+
+        // Then
+        assertEquals(CharsetTranscoder.Mode.COPY, result.getMode());
+        assertEquals(Files.size(source), result.getBytesCopied());
+        assertArrayEquals(Files.readAllBytes(source), Files.readAllBytes(tempDir.resolve("out.txt")));
+    }
+
+    @Test
+    @DisplayName("ISO-8859-1 a UTF-8 se convierte por bloques en paralelo y en orden")
+    void testTranscode_SingleByteSourceIsConvertedInParallel() throws IOException {
+        // Given - el primer byte no ASCII aparece al principio
+        String text = "ñandú,José,Begoña\n".repeat(5000);
+        Path source = Files.write(tempDir.resolve("latin1.csv"), text.getBytes(StandardCharsets.ISO_8859_1));
+
+        // When - bloques de 1 KB para forzar muchos bloques
+        CharsetTranscoder.Result result;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = openTarget()) {
+            result = CharsetTranscoder.transcode(in, 0, StandardCharsets.ISO_8859_1, out, StandardCharsets.UTF_8, 1024);
+        }
+
+        // Then
+        assertEquals(CharsetTranscoder.Mode.PARALLEL, result.getMode());
+        assertEquals(text, Files.readString(tempDir.resolve("out.txt"), StandardCharsets.UTF_8));
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, result.getBytesWritten());
+    }
+
+    @Test
+    @DisplayName("A UTF-16 no se convierte por bloques: cada bloque empezaría con su propio BOM")
+    void testTranscode_Utf16TargetIsNotSplitIntoChunks() throws IOException {
+        // Given - 300 caracteres con bloques de 100
+        String text = "ñ".repeat(300);
+        Path source = Files.write(tempDir.resolve("latin1.txt"), text.getBytes(StandardCharsets.ISO_8859_1));
+
+        // When
+        CharsetTranscoder.Result result;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = openTarget()) {
+            result = CharsetTranscoder.transcode(in, 0, StandardCharsets.ISO_8859_1, out, StandardCharsets.UTF_16, 100);
+        }
+
+        // Then - un único BOM al principio, como al codificar de una vez
+        assertEquals(CharsetTranscoder.Mode.STREAM, result.getMode());
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_16), Files.readAllBytes(tempDir.resolve("out.txt")));
+        assertEquals(text, Files.readString(tempDir.resolve("out.txt"), StandardCharsets.UTF_16));
+        assertTrue(CharsetTranscoder.isConcatenable(StandardCharsets.UTF_16LE));
+        assertFalse(CharsetTranscoder.isConcatenable(StandardCharsets.UTF_16));
+    }
+
+    @Test
+    @DisplayName("UTF-8 a ISO-8859-1 copia el prefijo ASCII y decodifica el resto en streaming")
+    void testTranscode_MultiByteSourceIsStreamed() throws IOException {
+        // Given - más de un buffer, con caracteres de 2 bytes cruzando los límites del buffer
+        String prefix = "cabecera ascii\n";
+        String text = prefix + "Ávila,Cádiz,Logroño\n".repeat(30000);
+        Path source = Files.writeString(tempDir.resolve("utf8.csv"), text);
+
+        // When
+        CharsetTranscoder.Result result = transcode(source, StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1);
+
+        // Then
+        assertEquals(CharsetTranscoder.Mode.STREAM, result.getMode());
+        assertEquals(prefix.length(), result.getBytesCopied(), "Se copia hasta el primer byte no ASCII");
+        assertEquals(text, Files.readString(tempDir.resolve("out.txt"), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    @DisplayName("Un carácter sin representación en el destino produce error")
+    void testTranscode_UnmappableCharacterFails() throws IOException {
+        // Given
+        Path source = Files.writeString(tempDir.resolve("euro.txt"), "precio: 10 €");
+
+        // When / Then
+        assertThrows(CharacterCodingException.class,
+                () -> transcode(source, StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1));
+    }
+
+    private CharsetTranscoder.Result transcode(Path source, Charset from, Charset to) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = openTarget()) {
+            return CharsetTranscoder.transcode(in, from, out, to);
+        }
+    }
+
+    private FileChannel openTarget() throws IOException {
+        return FileChannel.open(tempDir.resolve("out.txt"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
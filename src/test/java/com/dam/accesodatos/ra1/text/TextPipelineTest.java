@@ -0,0 +1,132 @@
+package com.dam.accesodatos.ra1.text;
+
+import com.dam.accesodatos.model.TextStageDto;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del pipeline de texto usado por transform_text_file
+ */
+class TextPipelineTest {
+
+    @Test
+    @DisplayName("trim + collapse + capitalize reproduce el ejemplo ArreglarFichero")
+    void testRun_ArreglarFicheroEquivalent() throws IOException {
+        // Given
+        TextPipeline pipeline = TextPipeline.compile(List.of(
+                new TextStageDto("trim"), new TextStageDto("collapse_whitespace"), new TextStageDto("capitalize")));
+        String input = "   hola    mundo   \n\testo   es\t\tun  ejemplo\r\n";
+
+        // When
+        String output = run(pipeline, input);
+
+        // Then
+        assertEquals("Hola mundo\nEsto es un ejemplo\n", output);
+    }
+
+    @Test
+    @DisplayName("regex_replace y dedupe actúan sobre la línea ya transformada")
+    void testRun_RegexAndDedupe() throws IOException {
+        // Given
+        TextPipeline pipeline = TextPipeline.compile(List.of(
+                new TextStageDto("lowercase"),
+                new TextStageDto("regex_replace", "[0-9]+", "#"),
+                new TextStageDto("dedupe")));
+        String input = "Pedido 1\nPEDIDO 22\npedido 333\nOtro\nPedido 4";
+
+        // When
+        String output = run(pipeline, input);
+
+        // Then
+        assertEquals("pedido #\notro\npedido #\n", output);
+    }
+
+    @Test
+    @DisplayName("Orden de etapas de mayúsculas: gana la última")
+    void testRun_CaseStagesOrder() throws IOException {
+        TextPipeline capitalizeThenLower = TextPipeline.compile(List.of(
+                new TextStageDto("capitalize"), new TextStageDto("lowercase")));
+        TextPipeline lowerThenCapitalize = TextPipeline.compile(List.of(
+                new TextStageDto("lowercase"), new TextStageDto("capitalize")));
+
+        assertEquals("josé\n", run(capitalizeThenLower, "JOSÉ"));
+        assertEquals("José\n", run(lowerThenCapitalize, "JOSÉ"));
+    }
+
+    @Test
+    @DisplayName("Procesa muchas líneas sin acumularlas en memoria")
+    void testRun_StreamsLargeInput() throws IOException {
+        // Given - un lector que genera 200.000 líneas bajo demanda
+        TextPipeline pipeline = TextPipeline.compile(List.of(new TextStageDto("uppercase")));
+        Reader generated = new Reader() {
+            private long remaining = 200_000L * 6;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (remaining == 0) {
+                    return -1;
+                }
+                int n = (int) Math.min(length, remaining);
+                for (int i = 0; i < n; i++) {
+                    buffer[offset + i] = (remaining - i) % 6 == 1 ? '\n' : 'a';
+                }
+                remaining -= n;
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        CountingWriter out = new CountingWriter();
+
+        // When
+        TextPipeline.Stats stats = pipeline.run(generated, out);
+
+        // Then
+        assertEquals(200_000, stats.getLinesRead());
+        assertEquals(200_000, stats.getLinesWritten());
+        assertEquals(200_000L * 6, out.chars);
+    }
+
+    @Test
+    @DisplayName("Una etapa desconocida o una regex inválida se rechazan al compilar")
+    void testCompile_RejectsInvalidStages() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TextPipeline.compile(List.of(new TextStageDto("reverse"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> TextPipeline.compile(List.of(new TextStageDto("regex_replace", "([a-z", "x"))));
+    }
+
+    private static String run(TextPipeline pipeline, String input) throws IOException {
+        StringWriter out = new StringWriter();
+        pipeline.run(new StringReader(input), out);
+        return out.toString();
+    }
+
+    /** Escritor que solo cuenta caracteres */
+    private static final class CountingWriter extends Writer {
+        private long chars;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            chars += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}